@@ -0,0 +1,92 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility functions for appending the benchmark results of the testers to CSV
+ * report files, so that the results could be tracked over time.
+ *
+ * @author Haixing Hu
+ */
+public final class BenchmarkReports {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkReports.class);
+
+  private BenchmarkReports() {}
+
+  /**
+   * Appends a benchmark result to the CSV file specified by a system property.
+   *
+   * <p>The header is written first if the file does not exist. If the system
+   * property is not set, nothing is written; if the file could not be written,
+   * a warning is logged and the benchmark is not failed.</p>
+   *
+   * @param property
+   *     the name of the system property specifying the path of the CSV file.
+   * @param header
+   *     the header of the CSV file.
+   * @param formatter
+   *     the function formatting the result as a CSV line from the timestamp of
+   *     the benchmark run.
+   */
+  public static synchronized void append(final String property, final String header,
+      final CsvFormatter formatter) {
+    final String path = System.getProperty(property);
+    if (path == null || path.isBlank()) {
+      return;
+    }
+    final Path file = Paths.get(path);
+    try {
+      final Path dir = file.toAbsolutePath().getParent();
+      if (dir != null) {
+        Files.createDirectories(dir);
+      }
+      final List<String> lines = new ArrayList<>();
+      if (!Files.exists(file)) {
+        lines.add(header);
+      }
+      lines.add(formatter.toCsv(Instant.now().toString()));
+      Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (final IOException e) {
+      LOGGER.warn("Failed to append the benchmark result to {}: {}", file,
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Formats a benchmark result as a CSV line.
+   */
+  @FunctionalInterface
+  public interface CsvFormatter {
+
+    /**
+     * Formats the benchmark result as a CSV line.
+     *
+     * @param timestamp
+     *     the timestamp of the benchmark run.
+     * @return
+     *     the CSV line, without the line separator.
+     */
+    String toCsv(String timestamp);
+  }
+}
@@ -0,0 +1,76 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNegative;
+import static ltd.qubit.commons.lang.Argument.requirePositive;
+
+/**
+ * The settings of the benchmarks run by the testers.
+ *
+ * <p>A benchmark generates a corpus of random instances by
+ * {@link Tester#generateCorpus(Class, int)}, runs the benchmarked calls over
+ * the whole corpus for a number of warmup passes, and then measures them over
+ * a number of benchmark passes.</p>
+ *
+ * @author Haixing Hu
+ * @see BenchmarkReports
+ */
+public class BenchmarkSettings {
+
+  private int corpusSize;
+  private int warmupIterations;
+  private int benchmarkIterations;
+
+  public BenchmarkSettings(final int corpusSize, final int warmupIterations,
+      final int benchmarkIterations) {
+    this.corpusSize = requirePositive("corpusSize", corpusSize);
+    this.warmupIterations = requireNonNegative("warmupIterations", warmupIterations);
+    this.benchmarkIterations = requirePositive("benchmarkIterations",
+        benchmarkIterations);
+  }
+
+  public final int getCorpusSize() {
+    return corpusSize;
+  }
+
+  public final BenchmarkSettings setCorpusSize(final int corpusSize) {
+    this.corpusSize = requirePositive("corpusSize", corpusSize);
+    return this;
+  }
+
+  public final int getWarmupIterations() {
+    return warmupIterations;
+  }
+
+  public final BenchmarkSettings setWarmupIterations(final int warmupIterations) {
+    this.warmupIterations = requireNonNegative("warmupIterations", warmupIterations);
+    return this;
+  }
+
+  public final int getBenchmarkIterations() {
+    return benchmarkIterations;
+  }
+
+  public final BenchmarkSettings setBenchmarkIterations(final int benchmarkIterations) {
+    this.benchmarkIterations = requirePositive("benchmarkIterations",
+        benchmarkIterations);
+    return this;
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("corpusSize", corpusSize)
+        .append("warmupIterations", warmupIterations)
+        .append("benchmarkIterations", benchmarkIterations)
+        .toString();
+  }
+}
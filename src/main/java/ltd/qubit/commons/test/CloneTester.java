@@ -38,23 +38,25 @@ public class CloneTester extends Tester {
     super(random, loops);
   }
 
-  @SuppressWarnings("unchecked")
   protected <T> void doTest(final Class<T> type) throws Exception {
     if (CloneableEx.class.isAssignableFrom(type)) {
-      for (int i = 0; i < loops; ++i) {
-        final T obj = random.nextObject(type);
-        final T clonedCopy = ((CloneableEx<T>) obj).clone();
-        assertEquals(obj, clonedCopy,
-            "The cloned copy must equals to the original object.");
-        assertNotSame(obj, clonedCopy,
-            "The cloned copy must not be the same as the original object.");
-        if (obj instanceof Assignable) {
-          final T assignedCopy = ConstructorUtils.newInstance(type);
-          ((Assignable<T>) assignedCopy).assign(obj);
-          assertEquals(obj, assignedCopy,
-              "The assigned copy must equals to the original object.");
-        }
-      }
+      runIterations(type);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    final T obj = random.nextObject(type);
+    final T clonedCopy = ((CloneableEx<T>) obj).clone();
+    assertEquals(obj, clonedCopy,
+        "The cloned copy must equals to the original object.");
+    assertNotSame(obj, clonedCopy,
+        "The cloned copy must not be the same as the original object.");
+    if (obj instanceof Assignable) {
+      final T assignedCopy = ConstructorUtils.newInstance(type);
+      ((Assignable<T>) assignedCopy).assign(obj);
+      assertEquals(obj, assignedCopy,
+          "The assigned copy must equals to the original object.");
     }
   }
 }
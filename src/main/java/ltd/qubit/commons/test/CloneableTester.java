@@ -28,6 +28,10 @@ public class CloneableTester extends Tester {
   }
 
   protected <T> void doTest(final Class<T> type) throws Exception {
+    doTestIteration(type);
+  }
+
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
   //    for (int i = 0; i < loops; ++i) {
   //      final T obj = random.nextObject(type);
   //      final T other = (T) obj.clone();
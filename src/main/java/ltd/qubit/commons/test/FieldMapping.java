@@ -0,0 +1,81 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.lang.reflect.Field;
+
+import static ltd.qubit.commons.reflect.AccessibleUtils.withAccessibleObject;
+
+/**
+ * The mapping between a bean field and the name of its node in a serialized
+ * document.
+ *
+ * <p>The field is made accessible when the mapping is constructed, therefore
+ * reading its value later does not change its accessibility again.</p>
+ *
+ * @author Haixing Hu
+ * @see StreamComparator
+ */
+public abstract class FieldMapping {
+
+  private final Field field;
+  private final String name;
+  private final boolean ignored;
+  private final boolean accessible;
+
+  protected FieldMapping(final Field field, final String name, final boolean ignored) {
+    this.field = field;
+    this.name = name;
+    this.ignored = ignored;
+    this.accessible = field.trySetAccessible();
+  }
+
+  public final Field getField() {
+    return field;
+  }
+
+  /**
+   * Gets the name of the node of the field.
+   *
+   * @return
+   *     the name of the node of the field.
+   */
+  public final String getName() {
+    return name;
+  }
+
+  /**
+   * Tests whether the field is ignored in the serialization.
+   *
+   * @return
+   *     {@code true} if the field is ignored in the serialization;
+   *     {@code false} otherwise.
+   */
+  public final boolean isIgnored() {
+    return ignored;
+  }
+
+  /**
+   * Gets the value of the field in the specified object.
+   *
+   * @param obj
+   *     the specified object.
+   * @return
+   *     the value of the field in the object.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public final Object getValue(final Object obj) throws Exception {
+    if (accessible) {
+      return field.get(obj);
+    } else {
+      return withAccessibleObject(field, f -> f.get(obj), true);
+    }
+  }
+}
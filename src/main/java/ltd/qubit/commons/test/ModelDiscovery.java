@@ -0,0 +1,316 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import ltd.qubit.commons.annotation.Identifier;
+import ltd.qubit.commons.annotation.Reference;
+import ltd.qubit.commons.annotation.Unique;
+
+import org.junit.jupiter.api.DynamicNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 在类路径上的指定包中查找领域对象模型，并为其生成标准的模型测试。
+ *
+ * <p>查找时并不加载包中所有的类，而是直接解析类文件的常量池：只有其常量池中引用了标记
+ * 注解（默认为{@link Identifier}、{@link Reference}和{@link Unique}）的类型描述符的、
+ * 公共的、非抽象的、非接口的顶层或嵌套类才会被加载，且加载时不执行其静态初始化。常量池
+ * 位于类文件的开头，因此每个类文件只需顺序读取一次，不需要进行任何字节码分析。</p>
+ *
+ * <p>用法示例：</p>
+ * <pre><code>
+ * &#64;TestFactory
+ * public List&lt;DynamicNode&gt; testModels() throws IOException {
+ *   return new ModelDiscovery().generate("com.example.model");
+ * }
+ * </code></pre>
+ *
+ * @author Haixing Hu
+ */
+public class ModelDiscovery {
+
+  /**
+   * 默认的标记注解，引用了其中任意一个注解的类被视为领域对象模型。
+   */
+  public static final List<Class<? extends Annotation>> DEFAULT_MARKERS =
+      List.of(Identifier.class, Reference.class, Unique.class);
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ABSTRACT = 0x0400;
+  private static final int ACC_SYNTHETIC = 0x1000;
+  private static final int ACC_ANNOTATION = 0x2000;
+
+  private final Logger logger = LoggerFactory.getLogger(ModelDiscovery.class);
+  private final ClassLoader classLoader;
+  private final Set<String> descriptors = new HashSet<>();
+  private final Set<Integer> descriptorLengths = new HashSet<>();
+
+  public ModelDiscovery() {
+    this(Thread.currentThread().getContextClassLoader());
+  }
+
+  public ModelDiscovery(final ClassLoader classLoader) {
+    this.classLoader = requireNonNull("classLoader", classLoader);
+    setMarkers(DEFAULT_MARKERS);
+  }
+
+  public final ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  /**
+   * 设置标记注解。
+   *
+   * @param markers
+   *     标记注解，引用了其中任意一个注解的类被视为领域对象模型。
+   * @return
+   *     此对象本身。
+   */
+  public final ModelDiscovery setMarkers(
+      final Collection<Class<? extends Annotation>> markers) {
+    descriptors.clear();
+    descriptorLengths.clear();
+    for (final Class<? extends Annotation> marker : requireNonNull("markers", markers)) {
+      final String descriptor = "L" + marker.getName().replace('.', '/') + ";";
+      descriptors.add(descriptor);
+      descriptorLengths.add(descriptor.length());
+    }
+    return this;
+  }
+
+  /**
+   * 查找指定的包及其子包中的所有领域对象模型。
+   *
+   * @param packageNames
+   *     待查找的包的名称。
+   * @return
+   *     找到的所有领域对象模型，按类名排序。
+   * @throws IOException
+   *     若读取类路径时出现错误。
+   */
+  public List<Class<?>> discover(final String... packageNames) throws IOException {
+    final long start = System.nanoTime();
+    final Set<String> classNames = new TreeSet<>();
+    int scanned = 0;
+    for (final String packageName : packageNames) {
+      final String path = packageName.replace('.', '/');
+      final Enumeration<URL> roots = classLoader.getResources(path);
+      while (roots.hasMoreElements()) {
+        final URL root = roots.nextElement();
+        if ("file".equals(root.getProtocol())) {
+          scanned += scanDirectory(root, packageName, classNames);
+        } else if ("jar".equals(root.getProtocol())) {
+          scanned += scanJar(root, path, classNames);
+        } else {
+          logger.warn("Ignore the unsupported class path entry: {}", root);
+        }
+      }
+    }
+    final List<Class<?>> result = new ArrayList<>(classNames.size());
+    for (final String className : classNames) {
+      try {
+        result.add(Class.forName(className, false, classLoader));
+      } catch (final ClassNotFoundException | LinkageError e) {
+        logger.warn("Failed to load the model class {}: {}", className, e.toString());
+      }
+    }
+    logger.info("Discovered {} model classes from {} class files in {} ms.",
+        result.size(), scanned, (System.nanoTime() - start) / 1_000_000);
+    return result;
+  }
+
+  /**
+   * 查找指定的包及其子包中的所有领域对象模型，并为其生成标准的模型测试。
+   *
+   * @param packageNames
+   *     待查找的包的名称。
+   * @return
+   *     所有领域对象模型的动态测试树，参见{@link ModelTestSuite#generate()}。
+   * @throws IOException
+   *     若读取类路径时出现错误。
+   */
+  public List<DynamicNode> generate(final String... packageNames) throws IOException {
+    return new ModelTestSuite(discover(packageNames)).generate();
+  }
+
+  private int scanDirectory(final URL root, final String packageName,
+      final Set<String> classNames) throws IOException {
+    final Path dir;
+    try {
+      dir = Paths.get(root.toURI());
+    } catch (final URISyntaxException e) {
+      throw new IOException("Invalid class path entry: " + root, e);
+    }
+    final List<Path> files = new ArrayList<>();
+    try (final Stream<Path> stream = Files.walk(dir)) {
+      stream.filter(p -> p.getFileName().toString().endsWith(CLASS_SUFFIX))
+            .forEach(files::add);
+    }
+    for (final Path file : files) {
+      final String relative = dir.relativize(file).toString().replace(file.getFileSystem()
+          .getSeparator(), ".");
+      final String className = packageName + "." + relative.substring(0,
+          relative.length() - CLASS_SUFFIX.length());
+      if (isCandidateName(className)) {
+        try (final InputStream in = Files.newInputStream(file)) {
+          if (isModel(in.readAllBytes())) {
+            classNames.add(className);
+          }
+        }
+      }
+    }
+    return files.size();
+  }
+
+  private int scanJar(final URL root, final String path,
+      final Set<String> classNames) throws IOException {
+    final JarURLConnection connection = (JarURLConnection) root.openConnection();
+    connection.setUseCaches(false);
+    int scanned = 0;
+    try (final JarFile jar = connection.getJarFile()) {
+      final String prefix = path + "/";
+      final Enumeration<JarEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        final JarEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (entry.isDirectory() || !name.startsWith(prefix) || !name.endsWith(CLASS_SUFFIX)) {
+          continue;
+        }
+        ++scanned;
+        final String className = name.substring(0, name.length() - CLASS_SUFFIX.length())
+                                     .replace('/', '.');
+        if (isCandidateName(className)) {
+          try (final InputStream in = jar.getInputStream(entry)) {
+            if (isModel(in.readAllBytes())) {
+              classNames.add(className);
+            }
+          }
+        }
+      }
+    }
+    return scanned;
+  }
+
+  private static boolean isCandidateName(final String className) {
+    if (className.endsWith("package-info") || className.endsWith("module-info")) {
+      return false;
+    }
+    // 忽略匿名类和局部类
+    final int pos = className.lastIndexOf('$');
+    return (pos < 0) || !Character.isDigit(className.charAt(pos + 1));
+  }
+
+  /**
+   * 根据类文件的常量池和访问标志判断其是否是领域对象模型。
+   *
+   * @param bytes
+   *     类文件的内容。
+   * @return
+   *     若该类是公共的、非抽象的、非接口的、非合成的类，且其常量池引用了任意一个标记注解，
+   *     返回{@code true}；否则返回{@code false}。
+   */
+  boolean isModel(final byte[] bytes) {
+    if (bytes.length < 10 || readInt(bytes, 0) != MAGIC) {
+      return false;
+    }
+    final int count = readUnsignedShort(bytes, 8);
+    boolean marked = false;
+    int pos = 10;
+    for (int i = 1; i < count; ++i) {
+      if (pos >= bytes.length) {
+        return false;
+      }
+      final int tag = bytes[pos] & 0xFF;
+      switch (tag) {
+        case 1:   // Utf8
+          final int length = readUnsignedShort(bytes, pos + 1);
+          if (pos + 3 + length > bytes.length) {
+            return false;
+          }
+          if ((!marked) && descriptorLengths.contains(length) && bytes[pos + 3] == 'L') {
+            // 注解类型的名称都是ASCII字符，其改进的UTF-8编码与ISO-8859-1编码相同
+            final String str = new String(bytes, pos + 3, length, StandardCharsets.ISO_8859_1);
+            marked = descriptors.contains(str);
+          }
+          pos += 3 + length;
+          break;
+        case 3:   // Integer
+        case 4:   // Float
+        case 9:   // Fieldref
+        case 10:  // Methodref
+        case 11:  // InterfaceMethodref
+        case 12:  // NameAndType
+        case 17:  // Dynamic
+        case 18:  // InvokeDynamic
+          pos += 5;
+          break;
+        case 5:   // Long
+        case 6:   // Double
+          pos += 9;
+          ++i;    // 占用两个常量池项
+          break;
+        case 7:   // Class
+        case 8:   // String
+        case 16:  // MethodType
+        case 19:  // Module
+        case 20:  // Package
+          pos += 3;
+          break;
+        case 15:  // MethodHandle
+          pos += 4;
+          break;
+        default:
+          return false;   // 无法识别的类文件格式
+      }
+    }
+    if ((!marked) || pos + 2 > bytes.length) {
+      return false;
+    }
+    final int flags = readUnsignedShort(bytes, pos);
+    return ((flags & ACC_PUBLIC) != 0)
+        && ((flags & (ACC_INTERFACE | ACC_ABSTRACT | ACC_SYNTHETIC | ACC_ANNOTATION)) == 0);
+  }
+
+  private static int readUnsignedShort(final byte[] bytes, final int pos) {
+    return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+  }
+
+  private static int readInt(final byte[] bytes, final int pos) {
+    return (readUnsignedShort(bytes, pos) << 16) | readUnsignedShort(bytes, pos + 2);
+  }
+}
@@ -0,0 +1,450 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.json.JsonTester;
+import ltd.qubit.commons.test.xml.JacksonXmlTester;
+import ltd.qubit.commons.text.jackson.CustomizedJsonMapper;
+import ltd.qubit.commons.text.jackson.CustomizedXmlMapper;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import org.junit.jupiter.api.DynamicNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+import static ltd.qubit.commons.lang.Argument.requirePositive;
+
+import static org.junit.jupiter.api.DynamicContainer.dynamicContainer;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * 并行地对一组领域对象模型运行{@link ModelTestBase}中的所有测试器，并生成汇总的报告。
+ *
+ * <p>每个模型类和每种测试器的组合作为一个独立的任务提交到线程池中执行。测试器及其
+ * {@link RandomBeanGenerator}都不是线程安全的，因此每个工作线程使用一套自己的测试器，
+ * 其JSON和XML映射器也由指定的工厂为每个工作线程单独创建。每次迭代的随机数种子只依赖于
+ * 主种子、测试器、模型类和迭代的序号，因此并行运行的结果与任务的执行顺序无关，失败的迭代
+ * 仍可通过{@link Tester#replay(Class, long)}单独重现。</p>
+ *
+ * <p>用法示例：</p>
+ * <pre><code>
+ * &#64;Test
+ * public void testModels() throws Exception {
+ *   new ModelTestSuite(List.of(App.class, Country.class, Province.class))
+ *       .run()
+ *       .assertSuccessful();
+ * }
+ * </code></pre>
+ *
+ * @author Haixing Hu
+ */
+public class ModelTestSuite {
+
+  /**
+   * 测试器的种类。
+   */
+  public enum TesterKind {
+    JSON,
+    XML,
+    CLONE,
+    SERIALIZABLE,
+    SIZE_ANNOTATION,
+    REFERENCE_ANNOTATION,
+  }
+
+  private final Logger logger = LoggerFactory.getLogger(ModelTestSuite.class);
+  private final List<Class<?>> types;
+  private final Set<TesterKind> kinds = EnumSet.allOf(TesterKind.class);
+  private int loops = Tester.DEFAULT_LOOPS;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private long masterSeed = RandomSeeds.getMasterSeed();
+  private Supplier<? extends JsonMapper> jsonMapperFactory = CustomizedJsonMapper::new;
+  private Supplier<? extends XmlMapper> xmlMapperFactory = CustomizedXmlMapper::new;
+
+  /**
+   * 构造一个测试套件。
+   *
+   * @param types
+   *     待测试的领域对象模型的类型。
+   */
+  public ModelTestSuite(final Collection<Class<?>> types) {
+    this.types = new ArrayList<>(requireNonNull("types", types));
+  }
+
+  public final List<Class<?>> getTypes() {
+    return Collections.unmodifiableList(types);
+  }
+
+  public final Set<TesterKind> getKinds() {
+    return Collections.unmodifiableSet(kinds);
+  }
+
+  /**
+   * 设置需要运行的测试器的种类，默认运行所有种类的测试器。
+   *
+   * @param kinds
+   *     需要运行的测试器的种类。
+   * @return
+   *     此对象本身。
+   */
+  public final ModelTestSuite setKinds(final Collection<TesterKind> kinds) {
+    this.kinds.clear();
+    this.kinds.addAll(requireNonNull("kinds", kinds));
+    return this;
+  }
+
+  public final int getLoops() {
+    return loops;
+  }
+
+  public final ModelTestSuite setLoops(final int loops) {
+    this.loops = requirePositive("loops", loops);
+    return this;
+  }
+
+  public final int getParallelism() {
+    return parallelism;
+  }
+
+  public final ModelTestSuite setParallelism(final int parallelism) {
+    this.parallelism = requirePositive("parallelism", parallelism);
+    return this;
+  }
+
+  public final long getMasterSeed() {
+    return masterSeed;
+  }
+
+  public final ModelTestSuite setMasterSeed(final long masterSeed) {
+    this.masterSeed = masterSeed;
+    return this;
+  }
+
+  /**
+   * 设置JSON映射器的工厂，每个工作线程调用一次该工厂创建自己的映射器。
+   *
+   * @param jsonMapperFactory
+   *     JSON映射器的工厂。
+   * @return
+   *     此对象本身。
+   */
+  public final ModelTestSuite setJsonMapperFactory(
+      final Supplier<? extends JsonMapper> jsonMapperFactory) {
+    this.jsonMapperFactory = requireNonNull("jsonMapperFactory", jsonMapperFactory);
+    return this;
+  }
+
+  /**
+   * 设置XML映射器的工厂，每个工作线程调用一次该工厂创建自己的映射器。
+   *
+   * @param xmlMapperFactory
+   *     XML映射器的工厂。
+   * @return
+   *     此对象本身。
+   */
+  public final ModelTestSuite setXmlMapperFactory(
+      final Supplier<? extends XmlMapper> xmlMapperFactory) {
+    this.xmlMapperFactory = requireNonNull("xmlMapperFactory", xmlMapperFactory);
+    return this;
+  }
+
+  private Map<TesterKind, Tester> createTesters() {
+    final RandomBeanGenerator random = new RandomBeanGenerator();
+    final Map<TesterKind, Tester> result = new EnumMap<>(TesterKind.class);
+    for (final TesterKind kind : kinds) {
+      final Tester tester;
+      switch (kind) {
+        case JSON:
+          tester = new JsonTester(random, loops, jsonMapperFactory.get());
+          break;
+        case XML:
+          tester = new JacksonXmlTester(random, loops, xmlMapperFactory.get());
+          break;
+        case CLONE:
+          tester = new CloneTester(random, loops);
+          break;
+        case SERIALIZABLE:
+          tester = new SerializableTester(random, loops);
+          break;
+        case SIZE_ANNOTATION:
+          tester = new SizeAnnotationTester(random, loops);
+          break;
+        case REFERENCE_ANNOTATION:
+        default:
+          tester = new ReferenceAnnotationTester(random, loops);
+          break;
+      }
+      tester.setMasterSeed(masterSeed);
+      result.put(kind, tester);
+    }
+    return result;
+  }
+
+  /**
+   * 并行地运行所有的测试。
+   *
+   * <p>任何测试失败都不会中止其他测试，所有测试的结果都汇总在返回的报告中。</p>
+   *
+   * @return
+   *     所有测试的汇总报告。
+   * @throws InterruptedException
+   *     若当前线程在等待测试完成时被中断。
+   */
+  public Report run() throws InterruptedException {
+    final long start = System.nanoTime();
+    final ThreadLocal<Map<TesterKind, Tester>> testers =
+        ThreadLocal.withInitial(this::createTesters);
+    final AtomicInteger threadCount = new AtomicInteger();
+    final ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+      final Thread thread = new Thread(r, "model-test-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    final List<Result> results = new ArrayList<>();
+    try {
+      final List<Future<Result>> futures = new ArrayList<>();
+      for (final Class<?> type : types) {
+        for (final TesterKind kind : kinds) {
+          futures.add(executor.submit(() -> runTest(testers.get().get(kind), kind, type)));
+        }
+      }
+      for (final Future<Result> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (final ExecutionException e) {
+          // runTest() 捕获了所有异常，因此不会发生
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    final Report report = new Report(results, elapsed);
+    if (report.isSuccessful()) {
+      logger.info("{}", report.getSummary());
+    } else {
+      logger.error("{}", report.getSummary());
+    }
+    return report;
+  }
+
+  /**
+   * 生成所有测试的动态测试树，以便通过JUnit的{@code @TestFactory}运行。
+   *
+   * <p>测试树的第一层是模型类所在的包，第二层是模型类，第三层是各种测试器对该模型类的
+   * 测试，均按名称排序。这些测试是否并行执行由JUnit的配置决定；与{@link #run()}相同，
+   * 每个执行测试的线程使用一套自己的测试器。</p>
+   *
+   * @return
+   *     所有测试的动态测试树。
+   */
+  public List<DynamicNode> generate() {
+    final ThreadLocal<Map<TesterKind, Tester>> testers =
+        ThreadLocal.withInitial(this::createTesters);
+    final List<Class<?>> sorted = new ArrayList<>(types);
+    sorted.sort(Comparator.comparing(Class::getName));
+    final Map<String, List<DynamicNode>> packages = new TreeMap<>();
+    for (final Class<?> type : sorted) {
+      final URI uri = URI.create("class:" + type.getName());
+      final List<DynamicNode> tests = new ArrayList<>();
+      for (final TesterKind kind : kinds) {
+        tests.add(dynamicTest(kind.name(), uri, () -> testers.get().get(kind).test(type)));
+      }
+      packages.computeIfAbsent(type.getPackageName(), k -> new ArrayList<>())
+              .add(dynamicContainer(type.getSimpleName(), uri, tests.stream()));
+    }
+    final List<DynamicNode> result = new ArrayList<>();
+    packages.forEach((name, children) -> result.add(dynamicContainer(name, children)));
+    return result;
+  }
+
+  private Result runTest(final Tester tester, final TesterKind kind, final Class<?> type) {
+    final long start = System.nanoTime();
+    Throwable error = null;
+    try {
+      tester.test(type);
+    } catch (final Throwable e) {
+      error = e;
+    }
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return new Result(type, kind, elapsed, error);
+  }
+
+  /**
+   * 一个测试器对一个模型类的测试结果。
+   */
+  public static final class Result {
+
+    private final Class<?> type;
+    private final TesterKind kind;
+    private final long millis;
+    @Nullable
+    private final Throwable error;
+
+    Result(final Class<?> type, final TesterKind kind, final long millis,
+        @Nullable final Throwable error) {
+      this.type = type;
+      this.kind = kind;
+      this.millis = millis;
+      this.error = error;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public TesterKind getKind() {
+      return kind;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+
+    @Nullable
+    public Throwable getError() {
+      return error;
+    }
+
+    public boolean isSuccessful() {
+      return error == null;
+    }
+
+    public String toString() {
+      return new ToStringBuilder(this)
+          .append("type", type.getName())
+          .append("kind", kind)
+          .append("millis", millis)
+          .append("error", error)
+          .toString();
+    }
+  }
+
+  /**
+   * 测试套件的汇总报告。
+   */
+  public static final class Report {
+
+    private final List<Result> results;
+    private final List<Result> failures;
+    private final long millis;
+
+    Report(final List<Result> results, final long millis) {
+      final List<Result> sorted = new ArrayList<>(results);
+      sorted.sort(Comparator.comparing((Result r) -> r.getType().getName())
+                            .thenComparing(Result::getKind));
+      this.results = Collections.unmodifiableList(sorted);
+      final List<Result> failed = new ArrayList<>();
+      for (final Result result : sorted) {
+        if (!result.isSuccessful()) {
+          failed.add(result);
+        }
+      }
+      this.failures = Collections.unmodifiableList(failed);
+      this.millis = millis;
+    }
+
+    /**
+     * 获取所有的测试结果。
+     *
+     * @return
+     *     所有的测试结果，按模型类的名称和测试器的种类排序。
+     */
+    public List<Result> getResults() {
+      return results;
+    }
+
+    public List<Result> getFailures() {
+      return failures;
+    }
+
+    /**
+     * 获取运行整个测试套件所用的时间。
+     *
+     * @return
+     *     运行整个测试套件所用的时间，单位为毫秒。
+     */
+    public long getMillis() {
+      return millis;
+    }
+
+    public boolean isSuccessful() {
+      return failures.isEmpty();
+    }
+
+    /**
+     * 获取报告的摘要，其中列出了所有失败的测试及其原因。
+     *
+     * @return
+     *     报告的摘要。
+     */
+    public String getSummary() {
+      final StringBuilder builder = new StringBuilder();
+      builder.append("Ran ").append(results.size()).append(" model tests in ")
+             .append(millis).append(" ms: ").append(failures.size()).append(" failed.");
+      for (final Result failure : failures) {
+        builder.append("\n  ").append(failure.getKind()).append(' ')
+               .append(failure.getType().getName()).append(": ")
+               .append(failure.getError());
+      }
+      return builder.toString();
+    }
+
+    /**
+     * 断言所有的测试都通过。
+     *
+     * @throws AssertionError
+     *     若有任何测试失败；所有失败的原因都作为其被抑制的异常附加在其上。
+     */
+    public void assertSuccessful() {
+      if (!failures.isEmpty()) {
+        final AssertionError error = new AssertionError(getSummary());
+        for (final Result failure : failures) {
+          error.addSuppressed(failure.getError());
+        }
+        throw error;
+      }
+    }
+
+    public String toString() {
+      return new ToStringBuilder(this)
+          .append("results", results)
+          .append("millis", millis)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,155 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility functions for deriving reproducible random seeds of generated tests.
+ *
+ * <p>Every test run has a <i>master seed</i>, which is read from the system
+ * property {@value #MASTER_SEED_PROPERTY} or randomly chosen (and logged) if the
+ * property is absent. Each generated test or tester iteration derives its own
+ * seed from the master seed, its key and its index, so that a failed test can be
+ * replayed alone with the seed reported in its failure.</p>
+ *
+ * @author Haixing Hu
+ */
+public final class RandomSeeds {
+
+  /**
+   * The name of the system property specifying the master seed.
+   */
+  public static final String MASTER_SEED_PROPERTY = "qubit.test.seed";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RandomSeeds.class);
+
+  private static final boolean MASTER_SEED_FIXED = !isBlank(
+      System.getProperty(MASTER_SEED_PROPERTY));
+
+  private static final long MASTER_SEED = initMasterSeed();
+
+  private RandomSeeds() {}
+
+  private static long initMasterSeed() {
+    final String value = System.getProperty(MASTER_SEED_PROPERTY);
+    final long seed;
+    if (isBlank(value)) {
+      seed = mix(System.nanoTime() ^ System.currentTimeMillis());
+    } else {
+      seed = Long.parseLong(value.trim());
+    }
+    LOGGER.info("The master seed of random tests is {}. Rerun with -D{}={} to "
+        + "reproduce this run.", seed, MASTER_SEED_PROPERTY, seed);
+    return seed;
+  }
+
+  private static boolean isBlank(final String value) {
+    return (value == null) || value.isBlank();
+  }
+
+  /**
+   * Gets the master seed of the current JVM.
+   *
+   * @return
+   *     the master seed of the current JVM.
+   */
+  public static long getMasterSeed() {
+    return MASTER_SEED;
+  }
+
+  /**
+   * Tests whether the master seed of the current JVM is fixed by the system
+   * property {@value #MASTER_SEED_PROPERTY}.
+   *
+   * @return
+   *     {@code true} if the master seed is specified by the system property;
+   *     {@code false} if it is randomly chosen for this run.
+   */
+  public static boolean isMasterSeedFixed() {
+    return MASTER_SEED_FIXED;
+  }
+
+  /**
+   * Derives the seed of a test from a master seed.
+   *
+   * <p>The derived seed only depends on its arguments, so that the same test
+   * always gets the same seed under the same master seed, no matter in which
+   * order the tests are executed.</p>
+   *
+   * @param masterSeed
+   *     the master seed.
+   * @param key
+   *     the key of the test, e.g., its qualified name.
+   * @param index
+   *     the index of the test or iteration.
+   * @return
+   *     the derived seed.
+   */
+  public static long derive(final long masterSeed, final String key,
+      final int index) {
+    long h = masterSeed;
+    for (final byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h = (h ^ (b & 0xFF)) * 0x100000001B3L;    // FNV-1a
+    }
+    return mix(h + index * 0x9E3779B97F4A7C15L);
+  }
+
+  /**
+   * The finalizer of the SplitMix64 generator.
+   */
+  private static long mix(final long x) {
+    long z = x;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Attaches the seed of a failed test to its error.
+   *
+   * <p>The seed is attached as a suppressed {@link SeedInfo}, therefore the type
+   * of the original error is kept and the seed is printed along with its stack
+   * trace.</p>
+   *
+   * @param error
+   *     the error thrown by the failed test.
+   * @param seed
+   *     the seed of the failed test.
+   * @param message
+   *     the message describing how to replay the failed test.
+   */
+  public static void attach(final Throwable error, final long seed,
+      final String message) {
+    LOGGER.error("{} (seed = {})", message, seed);
+    error.addSuppressed(new SeedInfo(seed, message));
+  }
+
+  /**
+   * A stackless exception carrying the seed of a failed test.
+   */
+  public static final class SeedInfo extends RuntimeException {
+
+    private static final long serialVersionUID = 5473628490182830751L;
+
+    private final long seed;
+
+    public SeedInfo(final long seed, final String message) {
+      super(message + " (seed = " + seed + ")", null, false, false);
+      this.seed = seed;
+    }
+
+    public long getSeed() {
+      return seed;
+    }
+  }
+}
@@ -45,6 +45,11 @@ public class ReferenceAnnotationTester extends Tester {
 
   @Override
   protected <T> void doTest(final Class<T> type) throws Exception {
+    doTestIteration(type);
+  }
+
+  @Override
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
     if (Enum.class.isAssignableFrom(type)) {
       return;     // 忽略枚举类型
     }
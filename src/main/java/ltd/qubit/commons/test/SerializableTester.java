@@ -8,22 +8,88 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import ltd.qubit.commons.random.RandomBeanGenerator;
 import ltd.qubit.commons.reflect.FieldUtils;
 import ltd.qubit.commons.reflect.Option;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 /**
  * A tester object used to test the serializable interfaces of model classes.
  *
+ * <p>Besides checking that a model class implements {@link Serializable} and
+ * declares its {@code serialVersionUID}, this tester round-trips random
+ * instances of the class through an {@link ObjectOutputStream} and an
+ * {@link ObjectInputStream}, and checks that the deserialized copies equal to
+ * the original objects, whose transient fields are reset to their default
+ * values before the comparison since they are not serialized. The instances
+ * of a class which does not override {@link Object#equals(Object)} are only
+ * checked to be deserializable. The size of the serialized objects and the time of the
+ * round-trips are collected, see {@link #getMetrics(Class)}.</p>
+ *
+ * <p>Since the serialized size of a model directly turns into the network and
+ * memory cost when it is put into a distributed cache, a size budget could be
+ * set, either for all models by {@link #setMaxSerializedSize(int)} or the
+ * system property {@value #MAX_SERIALIZED_SIZE_PROPERTY}, or for a specific
+ * model by {@link #setMaxSerializedSize(Class, int)}. An iteration fails if
+ * its serialized object exceeds the budget.</p>
+ *
  * @author Haixing Hu
  */
 public class SerializableTester extends Tester {
 
+  /**
+   * The name of the system property specifying the default maximum number of
+   * bytes of a serialized object. If it is not set, the serialized size is
+   * not limited.
+   */
+  public static final String MAX_SERIALIZED_SIZE_PROPERTY =
+      "qubit.test.serialization.max-size";
+
+  /**
+   * The value of the size budget meaning that the serialized size is not
+   * limited.
+   */
+  public static final int UNLIMITED = 0;
+
+  private final Logger logger = LoggerFactory.getLogger(SerializableTester.class);
+  private final Map<Class<?>, Integer> maxSizes = new HashMap<>();
+  private final Map<Class<?>, SerializationMetrics> metrics = new HashMap<>();
+  private int defaultMaxSize = Integer.getInteger(MAX_SERIALIZED_SIZE_PROPERTY, UNLIMITED);
+
+  /**
+   * The metrics being collected by the current call to {@link #doTest(Class)},
+   * or {@code null} if the iterations are replayed.
+   */
+  @Nullable
+  private Accumulator current;
+
   public SerializableTester() {
   }
 
@@ -39,13 +105,231 @@ public class SerializableTester extends Tester {
     super(random, loops);
   }
 
-  @SuppressWarnings("unchecked")
+  public final int getMaxSerializedSize() {
+    return defaultMaxSize;
+  }
+
+  /**
+   * Sets the default maximum number of bytes of a serialized object.
+   *
+   * @param maxSize
+   *     the maximum number of bytes of a serialized object, including the
+   *     header of the serialization stream, or {@link #UNLIMITED} if the
+   *     serialized size is not limited.
+   * @return
+   *     this tester.
+   */
+  public final SerializableTester setMaxSerializedSize(final int maxSize) {
+    this.defaultMaxSize = checkMaxSize(maxSize);
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of bytes of a serialized object of the specified
+   * class.
+   *
+   * @param type
+   *     the model class.
+   * @return
+   *     the maximum number of bytes of a serialized object of the class, or
+   *     {@link #UNLIMITED} if the serialized size is not limited.
+   */
+  public final int getMaxSerializedSize(final Class<?> type) {
+    return maxSizes.getOrDefault(type, defaultMaxSize);
+  }
+
+  /**
+   * Sets the maximum number of bytes of a serialized object of the specified
+   * class, which overrides the default budget.
+   *
+   * @param type
+   *     the model class.
+   * @param maxSize
+   *     the maximum number of bytes of a serialized object of the class,
+   *     including the header of the serialization stream, or
+   *     {@link #UNLIMITED} if the serialized size is not limited.
+   * @return
+   *     this tester.
+   */
+  public final SerializableTester setMaxSerializedSize(final Class<?> type,
+      final int maxSize) {
+    requireNonNull("type", type);
+    maxSizes.put(type, checkMaxSize(maxSize));
+    return this;
+  }
+
+  private static int checkMaxSize(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("The maximum serialized size must not "
+          + "be negative: " + maxSize);
+    }
+    return maxSize;
+  }
+
+  /**
+   * Gets the metrics of the Java serialization round-trips of the specified
+   * class collected by the last test of the class.
+   *
+   * @param type
+   *     the model class.
+   * @return
+   *     the metrics of the round-trips of the class, or {@code null} if the
+   *     class has not been successfully tested by this tester.
+   */
+  @Nullable
+  public final SerializationMetrics getMetrics(final Class<?> type) {
+    return metrics.get(type);
+  }
+
   protected <T> void doTest(final Class<T> type) throws Exception {
     if (!type.isEnum()) {
       assertTrue(Serializable.class.isAssignableFrom(type));
       assertNotNull(FieldUtils.getField(type, Option.STATIC | Option.PRIVATE,
           "serialVersionUID"), "The serialVersionUID must be defined.");
     }
+    current = new Accumulator();
+    try {
+      runIterations(type);
+      final SerializationMetrics result = current.toMetrics(type);
+      metrics.put(type, result);
+      logger.debug("Java serialization of {}: {} bytes/object (max {}), "
+          + "serialize {} us/object, deserialize {} us/object.", type.getName(),
+          Math.round(result.getAverageBytes()), result.getMaxBytes(),
+          Math.round(result.getAverageSerializeMicros()),
+          Math.round(result.getAverageDeserializeMicros()));
+    } finally {
+      current = null;
+    }
   }
 
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    final T obj = random.nextObject(type);
+    final long start = System.nanoTime();
+    final byte[] bytes = serialize(obj);
+    final long middle = System.nanoTime();
+    final Object copy = deserialize(bytes);
+    final long end = System.nanoTime();
+    if (hasValueEquals(type)) {
+      // the transient fields are not serialized, so they must not be compared
+      clearTransientFields(obj, Collections.newSetFromMap(new IdentityHashMap<>()));
+      assertEquals(obj, copy,
+          "The deserialized copy must equals to the original object.");
+    }
+    if (current != null) {
+      current.add(bytes.length, middle - start, end - middle);
+    }
+    final int maxSize = getMaxSerializedSize(type);
+    if (maxSize != UNLIMITED && bytes.length > maxSize) {
+      fail("The serialized object of " + type.getName() + " has " + bytes.length
+          + " bytes, which exceeds the budget of " + maxSize + " bytes.");
+    }
+  }
+
+  /**
+   * Tests whether a class compares its instances by value, i.e., whether it
+   * overrides {@link Object#equals(Object)}.
+   */
+  private static boolean hasValueEquals(final Class<?> type) throws NoSuchMethodException {
+    return type.isEnum()
+        || type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+  }
+
+  /**
+   * Resets the transient fields of all objects in an object graph to their
+   * default values, as the Java deserialization does.
+   *
+   * <p>The objects of the classes of the JDK are not modified, but the elements
+   * of the arrays, collections and maps are visited.</p>
+   *
+   * @param obj
+   *     the root of the object graph, which may be {@code null}.
+   * @param visited
+   *     the objects already visited.
+   */
+  private static void clearTransientFields(@Nullable final Object obj,
+      final Set<Object> visited) throws IllegalAccessException {
+    if (obj == null || !visited.add(obj)) {
+      return;
+    }
+    final Class<?> type = obj.getClass();
+    if (type.isArray()) {
+      if (!type.getComponentType().isPrimitive()) {
+        for (final Object element : (Object[]) obj) {
+          clearTransientFields(element, visited);
+        }
+      }
+    } else if (obj instanceof Collection) {
+      for (final Object element : (Collection<?>) obj) {
+        clearTransientFields(element, visited);
+      }
+    } else if (obj instanceof Map) {
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+        clearTransientFields(entry.getKey(), visited);
+        clearTransientFields(entry.getValue(), visited);
+      }
+    } else if (!type.isEnum() && !isJdkClass(type)) {
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (final Field field : c.getDeclaredFields()) {
+          final int modifiers = field.getModifiers();
+          if (Modifier.isStatic(modifiers) || !field.trySetAccessible()) {
+            continue;
+          }
+          if (Modifier.isTransient(modifiers)) {
+            if (!Modifier.isFinal(modifiers)) {
+              field.set(obj, defaultValue(field.getType()));
+            }
+          } else if (!field.getType().isPrimitive()) {
+            clearTransientFields(field.get(obj), visited);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isJdkClass(final Class<?> type) {
+    final String name = type.getName();
+    return name.startsWith("java.") || name.startsWith("javax.");
+  }
+
+  @Nullable
+  private static Object defaultValue(final Class<?> type) {
+    return (type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null);
+  }
+
+  private static byte[] serialize(final Object obj) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (final ObjectOutputStream output = new ObjectOutputStream(out)) {
+      output.writeObject(obj);
+    }
+    return out.toByteArray();
+  }
+
+  private static Object deserialize(final byte[] bytes)
+      throws IOException, ClassNotFoundException {
+    try (final ObjectInputStream input =
+             new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return input.readObject();
+    }
+  }
+
+  private static final class Accumulator {
+    private int samples;
+    private long totalBytes;
+    private int maxBytes;
+    private long serializeNanos;
+    private long deserializeNanos;
+
+    void add(final int bytes, final long serialize, final long deserialize) {
+      ++samples;
+      totalBytes += bytes;
+      maxBytes = Math.max(maxBytes, bytes);
+      serializeNanos += serialize;
+      deserializeNanos += deserialize;
+    }
+
+    SerializationMetrics toMetrics(final Class<?> type) {
+      return new SerializationMetrics(type.getName(), samples, totalBytes,
+          maxBytes, serializeNanos, deserializeNanos);
+    }
+  }
 }
@@ -0,0 +1,126 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * The metrics of the Java serialization round-trips of a model class,
+ * collected by a {@link SerializableTester}.
+ *
+ * @author Haixing Hu
+ * @see SerializableTester#getMetrics(Class)
+ */
+public final class SerializationMetrics {
+
+  private final String type;
+  private final int samples;
+  private final long totalBytes;
+  private final int maxBytes;
+  private final long serializeNanos;
+  private final long deserializeNanos;
+
+  public SerializationMetrics(final String type, final int samples,
+      final long totalBytes, final int maxBytes, final long serializeNanos,
+      final long deserializeNanos) {
+    this.type = type;
+    this.samples = samples;
+    this.totalBytes = totalBytes;
+    this.maxBytes = maxBytes;
+    this.serializeNanos = serializeNanos;
+    this.deserializeNanos = deserializeNanos;
+  }
+
+  /**
+   * Gets the name of the model class.
+   *
+   * @return
+   *     the fully qualified name of the model class.
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Gets the number of round-tripped objects.
+   *
+   * @return
+   *     the number of round-tripped objects.
+   */
+  public int getSamples() {
+    return samples;
+  }
+
+  /**
+   * Gets the total size of the serialized objects.
+   *
+   * @return
+   *     the total number of bytes of the serialized objects, including the
+   *     header of each serialization stream.
+   */
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * Gets the size of the largest serialized object.
+   *
+   * @return
+   *     the number of bytes of the largest serialized object.
+   */
+  public int getMaxBytes() {
+    return maxBytes;
+  }
+
+  public double getAverageBytes() {
+    return (samples == 0 ? 0.0 : (double) totalBytes / samples);
+  }
+
+  public long getSerializeNanos() {
+    return serializeNanos;
+  }
+
+  public long getDeserializeNanos() {
+    return deserializeNanos;
+  }
+
+  /**
+   * Gets the average time of serializing an object.
+   *
+   * <p>Note that the objects are round-tripped only a few times without
+   * warming up the JIT compiler, so the timings are only indicative.</p>
+   *
+   * @return
+   *     the average number of microseconds of serializing an object.
+   */
+  public double getAverageSerializeMicros() {
+    return (samples == 0 ? 0.0 : serializeNanos / 1e3 / samples);
+  }
+
+  /**
+   * Gets the average time of deserializing an object.
+   *
+   * @return
+   *     the average number of microseconds of deserializing an object.
+   */
+  public double getAverageDeserializeMicros() {
+    return (samples == 0 ? 0.0 : deserializeNanos / 1e3 / samples);
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("type", type)
+        .append("samples", samples)
+        .append("totalBytes", totalBytes)
+        .append("maxBytes", maxBytes)
+        .append("serializeNanos", serializeNanos)
+        .append("deserializeNanos", deserializeNanos)
+        .toString();
+  }
+}
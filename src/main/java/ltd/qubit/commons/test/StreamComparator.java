@@ -0,0 +1,202 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * The base class of the comparators which compare a serialized document with
+ * an object graph while reading the document as a stream.
+ *
+ * <p>A subclass walks the nodes of the document together with the fields of
+ * the objects, and unwinds the comparison by {@link #mismatch(String, String)}
+ * at the first mismatch, which is returned by its {@code compare} method. The
+ * fields of a bean are matched with the child nodes of its node by their
+ * names, see {@link #readFields(Object, FieldMapping[])}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <M>
+ *     the type of the field mappings of the document format.
+ * @author Haixing Hu
+ */
+public abstract class StreamComparator<M extends FieldMapping> {
+
+  protected final ObjectMapper mapper;
+
+  private final Map<Class<?>, Map<String, Integer>> indexes = new HashMap<>();
+
+  protected StreamComparator(final ObjectMapper mapper) {
+    this.mapper = requireNonNull("mapper", mapper);
+  }
+
+  public final ObjectMapper getMapper() {
+    return mapper;
+  }
+
+  /**
+   * Reads the child nodes of the node of a bean, and compares those mapped to
+   * the fields of the bean.
+   *
+   * <p>The child nodes not mapped to any field, or mapped to an ignored field,
+   * are skipped; a child node mapped to a field already read is passed to
+   * {@link #readDuplicateField(FieldMapping)}.</p>
+   *
+   * @param obj
+   *     the bean.
+   * @param mappings
+   *     the field mappings of the class of the bean.
+   * @return
+   *     an array indicating whether the field of the mapping at each index has
+   *     been read, so that the caller could check the missing fields.
+   * @throws Exception
+   *     if any error occurs while reading the document or the fields of the
+   *     bean.
+   */
+  protected final boolean[] readFields(final Object obj, final M[] mappings)
+      throws Exception {
+    final Map<String, Integer> index = indexes.computeIfAbsent(obj.getClass(), t -> {
+      final Map<String, Integer> result = new HashMap<>();
+      for (int i = 0; i < mappings.length; ++i) {
+        result.putIfAbsent(mappings[i].getName(), i);
+      }
+      return result;
+    });
+    final boolean[] visited = new boolean[mappings.length];
+    String name;
+    while ((name = nextField()) != null) {
+      final Integer i = index.get(name);
+      if (i == null || mappings[i].isIgnored()) {
+        skipField();
+      } else if (visited[i]) {
+        readDuplicateField(mappings[i]);
+      } else {
+        visited[i] = true;
+        compareField(mappings[i], mappings[i].getValue(obj));
+      }
+    }
+    return visited;
+  }
+
+  /**
+   * Moves to the next child node of the node of the current bean.
+   *
+   * @return
+   *     the name of the next child node, or {@code null} if there is no more
+   *     child node.
+   * @throws Exception
+   *     if any error occurs while reading the document.
+   */
+  @Nullable
+  protected abstract String nextField() throws Exception;
+
+  /**
+   * Skips the current child node of the node of the current bean.
+   *
+   * @throws Exception
+   *     if any error occurs while reading the document.
+   */
+  protected abstract void skipField() throws Exception;
+
+  /**
+   * Reads a child node mapped to a field which has already been read.
+   *
+   * @param mapping
+   *     the mapping of the field.
+   * @throws Exception
+   *     if any error occurs while reading the document.
+   */
+  protected abstract void readDuplicateField(M mapping) throws Exception;
+
+  /**
+   * Compares the current child node with the value of the field mapped to it.
+   *
+   * @param mapping
+   *     the mapping of the field.
+   * @param value
+   *     the value of the field in the current bean.
+   * @throws Exception
+   *     if any error occurs while reading the document or the fields of the
+   *     value.
+   */
+  protected abstract void compareField(M mapping, @Nullable Object value) throws Exception;
+
+  /**
+   * Creates the exception unwinding the comparison on a mismatch.
+   *
+   * @param path
+   *     the location of the mismatched node.
+   * @param message
+   *     the message describing the mismatch.
+   * @return
+   *     the exception to throw.
+   */
+  protected static MismatchException mismatch(final String path, final String message) {
+    return new MismatchException(new Mismatch(path, message));
+  }
+
+  /**
+   * A mismatch between a serialized document and an object.
+   */
+  public static final class Mismatch {
+
+    private final String path;
+    private final String message;
+
+    private Mismatch(final String path, final String message) {
+      this.path = path;
+      this.message = message;
+    }
+
+    /**
+     * Gets the location of the mismatch.
+     *
+     * @return
+     *     the location of the mismatched node, whose notation depends on the
+     *     document format, e.g., a JSON pointer or an XPath-like path.
+     */
+    public String getPath() {
+      return path;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public String toString() {
+      return message;
+    }
+  }
+
+  /**
+   * Unwinds the comparison on the first mismatch.
+   */
+  protected static final class MismatchException extends RuntimeException {
+
+    private static final long serialVersionUID = -2364170584395170247L;
+
+    private final transient Mismatch mismatch;
+
+    private MismatchException(final Mismatch mismatch) {
+      super(mismatch.getMessage(), null, false, false);
+      this.mismatch = mismatch;
+    }
+
+    public Mismatch getMismatch() {
+      return mismatch;
+    }
+  }
+}
@@ -8,6 +8,9 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import ltd.qubit.commons.random.RandomBeanGenerator;
 
 import static ltd.qubit.commons.lang.Argument.requireNonNull;
@@ -16,6 +19,15 @@ import static ltd.qubit.commons.lang.Argument.requirePositive;
 /**
  * The base class of tester objects.
  *
+ * <p>Testers running random iterations should implement
+ * {@link #doTestIteration(Class)} and call {@link #runIterations(Class)} in
+ * {@link #doTest(Class)}. Each iteration is then run with its own seed derived
+ * from the master seed, the seed is reported if the iteration fails, and the
+ * failed iteration can be rerun alone by {@link #replay(Class, long)}. Testers
+ * which do not use random objects only need to implement
+ * {@link #doTest(Class)}, which is also rerun by the default
+ * {@link #doTestIteration(Class)}, so that every tester could be replayed.</p>
+ *
  * @author Haixing Hu
  */
 public abstract class Tester {
@@ -25,6 +37,7 @@ public abstract class Tester {
   protected final int loops;
   protected final RandomBeanGenerator random;
   protected boolean enabled = true;
+  protected long masterSeed = RandomSeeds.getMasterSeed();
 
   public Tester() {
     this(new RandomBeanGenerator(), DEFAULT_LOOPS);
@@ -59,11 +72,107 @@ public abstract class Tester {
     this.enabled = enabled;
   }
 
+  public final long getMasterSeed() {
+    return masterSeed;
+  }
+
+  public final void setMasterSeed(final long masterSeed) {
+    this.masterSeed = masterSeed;
+  }
+
   public final <T> void test(final Class<T> type) throws Exception {
     if (enabled) {
       doTest(type);
     }
   }
 
+  /**
+   * Reruns a single iteration of this tester with the specified seed.
+   *
+   * @param type
+   *     the type of the objects under testing.
+   * @param seed
+   *     the seed reported by the failed iteration.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public final <T> void replay(final Class<T> type, final long seed) throws Exception {
+    random.setSeed(seed);
+    doTestIteration(type);
+  }
+
+  /**
+   * Runs {@link #loops} iterations of {@link #doTestIteration(Class)}, each with
+   * its own derived seed.
+   *
+   * @param type
+   *     the type of the objects under testing.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  protected final <T> void runIterations(final Class<T> type) throws Exception {
+    final String key = getClass().getName() + ":" + type.getName();
+    for (int i = 0; i < loops; ++i) {
+      final long seed = RandomSeeds.derive(masterSeed, key, i);
+      random.setSeed(seed);
+      try {
+        doTestIteration(type);
+      } catch (final Exception | AssertionError e) {
+        RandomSeeds.attach(e, seed, "The iteration " + i + " of "
+            + getClass().getSimpleName() + " on " + type.getName()
+            + " failed. Rerun it by replay(" + type.getSimpleName() + ".class, "
+            + seed + "L)");
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Generates a corpus of random instances for the benchmarks.
+   *
+   * <p>Each instance is generated with its own seed derived from the master
+   * seed, so that the corpus is the same across runs with the same master
+   * seed.</p>
+   *
+   * @param type
+   *     the type of the instances.
+   * @param size
+   *     the number of the instances.
+   * @return
+   *     the list of the generated instances.
+   */
+  protected final <T> List<T> generateCorpus(final Class<T> type, final int size) {
+    final String key = getClass().getName() + ":benchmark:" + type.getName();
+    final List<T> result = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      random.setSeed(RandomSeeds.derive(masterSeed, key, i));
+      result.add(random.nextObject(type));
+    }
+    return result;
+  }
+
   protected abstract <T> void doTest(Class<T> type) throws Exception;
+
+  /**
+   * Runs a single iteration of this tester.
+   *
+   * <p>Testers running random iterations generate their random objects with
+   * {@link #random}, whose seed has been set by {@link #runIterations(Class)}
+   * or {@link #replay(Class, long)}, so that a replayed iteration regenerates
+   * the same objects.</p>
+   *
+   * <p>The default implementation runs the whole check by
+   * {@link #doTest(Class)}, so that the testers which do not override this
+   * function could still be replayed. Testers calling
+   * {@link #runIterations(Class)} in {@link #doTest(Class)} must override
+   * it.</p>
+   *
+   * @param type
+   *     the type of the objects under testing.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    doTest(type);
+  }
 }
@@ -9,6 +9,8 @@
 package ltd.qubit.commons.test.dao;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import ltd.qubit.commons.error.DuplicateKeyException;
 import ltd.qubit.commons.error.FieldTooLongException;
@@ -79,30 +81,32 @@ public class AddOperationTestGenerator<T> extends DaoOperationTestGenerator<T> {
   }
 
   private void addModelWithNullField(final DaoDynamicTestBuilder builder) {
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if ((!prop.isNullable())
           && (!prop.isReadonly())
           && (!prop.isComputed())
           && (!prop.isPrimitive())
           && methodInfo.isUnmodified(prop)) {
-        final String displayName = getDisplayName(modelName + " with a null " + prop.getName());
-        builder.add(displayName, () -> {
-          logger.info("Test {}: Add a {} with a null {}", methodName, modelName,
-              prop.getName());
-          final Object model = beanCreator.prepare(modelInfo);
-          prop.setValue(model, null);
-          final NullFieldException e = assertThrows(NullFieldException.class,
-              () -> methodInfo.invoke(false, model), // dao.add(model)
-              "Adding a " + modelName
-              + " with a null " + prop.getName()
-              + " must throw a NullFieldException.");
-          checkException(e, prop);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a null", candidates, (prop) -> {
+      logger.info("Test {}: Add a {} with a null {}", methodName, modelName,
+          prop.getName());
+      final Object model = beanCreator.prepare(modelInfo);
+      prop.setValue(model, null);
+      final NullFieldException e = assertThrows(NullFieldException.class,
+          () -> methodInfo.invoke(false, model), // dao.add(model)
+          "Adding a " + modelName
+          + " with a null " + prop.getName()
+          + " must throw a NullFieldException.");
+      checkException(e, prop);
+    });
   }
 
   private void addModelWithLongField(final DaoDynamicTestBuilder builder) {
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if ((prop.getSizeRange() != null)
           && (prop.getSizeRange().getMax() != null)
@@ -110,52 +114,51 @@ public class AddOperationTestGenerator<T> extends DaoOperationTestGenerator<T> {
           && (!prop.isReadonly())
           && (!prop.isComputed())
           && methodInfo.isUnmodified(prop)) {
-        final int maxSize = prop.getSizeRange().getMax();
-        final String displayName = getDisplayName(modelName
-            + " with a very long " + prop.getName());
-        builder.add(displayName, () -> {
-          logger.info("Test {}: Add a {} with a very long {}", methodName, modelName,
-              prop.getName());
-          final Object model = beanCreator.prepare(modelInfo);
-          final String longValue = random.nextLetterString(maxSize + 1);
-          prop.setValue(model, longValue);
-          final FieldTooLongException e = assertThrows(FieldTooLongException.class,
-              () -> methodInfo.invoke(false, model), // dao.add(model)
-              "Adding a " + modelName
-              + " with a very long " + prop.getName()
-              + " must throw a FieldTooLongException.");
-          checkException(e, prop);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a very long", candidates, (prop) -> {
+      logger.info("Test {}: Add a {} with a very long {}", methodName, modelName,
+          prop.getName());
+      final int maxSize = prop.getSizeRange().getMax();
+      final Object model = beanCreator.prepare(modelInfo);
+      final String longValue = random.nextLetterString(maxSize + 1);
+      prop.setValue(model, longValue);
+      final FieldTooLongException e = assertThrows(FieldTooLongException.class,
+          () -> methodInfo.invoke(false, model), // dao.add(model)
+          "Adding a " + modelName
+          + " with a very long " + prop.getName()
+          + " must throw a FieldTooLongException.");
+      checkException(e, prop);
+    });
   }
 
   private void addModelWithDuplicatedField(final DaoDynamicTestBuilder builder) {
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if ((prop.isUnique())
           && (!prop.isReadonly())
           && (!prop.isComputed())
           && methodInfo.isUnmodified(prop)) {
-        final String displayName = getDisplayName(modelName
-            + " with a duplicated " + prop.getName());
-        builder.add(displayName, () -> {
-          logger.info("Test {}: Add a normal {}", methodName, modelName);
-          final Object existingModel = beanCreator.prepare(modelInfo, prop);
-          methodInfo.invoke(true, existingModel); // dao.add(existingModel);
-          logger.info("Test {}: Add a {} with a duplicated {}", methodName,
-              modelName, prop.getName());
-          final Object newModel = beanCreator.prepare(modelInfo);
-          final String duplicatedValue = setUniquePropertyValues(modelInfo,
-              prop, existingModel, newModel);
-          final DuplicateKeyException e = assertThrows(DuplicateKeyException.class,
-              () -> methodInfo.invoke(false, newModel),  // dao.add(model)
-              "Adding a " + modelName
-              + " with a duplicated " + prop.getName()
-              + " must throw a DuplicateKeyException.");
-          checkException(e, prop, duplicatedValue);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a duplicated", candidates, (prop) -> {
+      logger.info("Test {}: Add a normal {}", methodName, modelName);
+      final Object existingModel = beanCreator.prepare(modelInfo, prop);
+      methodInfo.invoke(true, existingModel); // dao.add(existingModel);
+      logger.info("Test {}: Add a {} with a duplicated {}", methodName,
+          modelName, prop.getName());
+      final Object newModel = beanCreator.prepare(modelInfo);
+      final String duplicatedValue = setUniquePropertyValues(modelInfo,
+          prop, existingModel, newModel);
+      final DuplicateKeyException e = assertThrows(DuplicateKeyException.class,
+          () -> methodInfo.invoke(false, newModel),  // dao.add(model)
+          "Adding a " + modelName
+          + " with a duplicated " + prop.getName()
+          + " must throw a DuplicateKeyException.");
+      checkException(e, prop, duplicatedValue);
+    });
   }
 
   private void addModelWithUnreferencedField(final DaoDynamicTestBuilder builder) {
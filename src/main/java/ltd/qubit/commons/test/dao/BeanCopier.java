@@ -0,0 +1,135 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.reflect.Property;
+
+/**
+ * 在同一类型的两个对象之间复制一组固定属性的值的复制器，用于实现
+ * {@link PropertyMask#copy(Object, Object)}。
+ *
+ * <p>复制器在构造时将每个属性的读写方法（若不存在则为其字段）绑定为{@link MethodHandle}，
+ * 此后每次复制只需依次调用这些句柄，不再通过{@link Property#getValue(Object)}和
+ * {@link Property#setValue(Object, Object)}进行反射调用，也不再判断属性是否只读或计算。
+ * 无法绑定的属性仍通过{@link Property}进行复制。</p>
+ *
+ * @author 胡海星
+ */
+final class BeanCopier {
+
+  private static final MethodType GETTER_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Property[] properties;
+  private final MethodHandle[] getters;
+  private final MethodHandle[] setters;
+
+  /**
+   * 构造一个复制器。
+   *
+   * @param properties
+   *     待复制的属性。
+   */
+  BeanCopier(final Property[] properties) {
+    this.properties = properties;
+    this.getters = new MethodHandle[properties.length];
+    this.setters = new MethodHandle[properties.length];
+    for (int i = 0; i < properties.length; ++i) {
+      final MethodHandle getter = bindGetter(properties[i]);
+      final MethodHandle setter = bindSetter(properties[i]);
+      // 读写必须都能绑定，否则该属性仍通过 Property 复制，以免两种方式的语义不一致
+      if (getter != null && setter != null) {
+        getters[i] = getter;
+        setters[i] = setter;
+      }
+    }
+  }
+
+  @Nullable
+  private static MethodHandle bindGetter(final Property prop) {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      final Method method = prop.getReadMethod();
+      if (method != null) {
+        return (method.trySetAccessible() ? lookup.unreflect(method).asType(GETTER_TYPE) : null);
+      }
+      final Field field = getInstanceField(prop);
+      if (field != null && field.trySetAccessible()) {
+        return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+      }
+    } catch (final IllegalAccessException e) {
+      // fall through
+    }
+    return null;
+  }
+
+  @Nullable
+  private static MethodHandle bindSetter(final Property prop) {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      final Method method = prop.getWriteMethod();
+      if (method != null) {
+        return (method.trySetAccessible() ? lookup.unreflect(method).asType(SETTER_TYPE) : null);
+      }
+      final Field field = getInstanceField(prop);
+      if (field != null && (!Modifier.isFinal(field.getModifiers()))
+          && field.trySetAccessible()) {
+        return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+      }
+    } catch (final IllegalAccessException e) {
+      // fall through
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Field getInstanceField(final Property prop) {
+    final Field field = prop.getField();
+    return (field == null || Modifier.isStatic(field.getModifiers()) ? null : field);
+  }
+
+  /**
+   * 将此复制器的所有属性的值从源对象复制到目标对象。
+   *
+   * @param source
+   *     源对象。
+   * @param target
+   *     目标对象。
+   */
+  void copy(final Object source, final Object target) {
+    try {
+      for (int i = 0; i < properties.length; ++i) {
+        final MethodHandle getter = getters[i];
+        if (getter != null) {
+          final Object value = (Object) getter.invokeExact(source);
+          setters[i].invokeExact(target, value);
+        } else {
+          properties[i].setValue(target, properties[i].getValue(source));
+        }
+      }
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+}
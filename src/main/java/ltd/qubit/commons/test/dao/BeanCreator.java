@@ -9,11 +9,21 @@
 package ltd.qubit.commons.test.dao;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 
@@ -27,12 +37,23 @@ import ltd.qubit.commons.util.range.CloseRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static ltd.qubit.commons.lang.Argument.requireNonNegative;
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+import static ltd.qubit.commons.lang.Argument.requirePositive;
 import static ltd.qubit.commons.lang.ObjectUtils.defaultIfNull;
 import static ltd.qubit.commons.lang.StringUtils.isEmpty;
 
 /**
  * 用于创建随机Bean的类。
  *
+ * <p>{@link #prepareAll(ForkJoinPool, Class, int, Property...)}的每个工作线程使用
+ * {@link DaoTestGeneratorRegistry#getLocalRandom()}返回的线程专属随机生成器，其他调用
+ * 则使用{@link DaoTestGeneratorRegistry#getRandom()}返回的共享生成器，以保留用户对其
+ * 的配置。指定了非空属性的调用使用本次调用专属的随机生成器，从不修改上述生成器的参数；
+ * 每次调用还使用独立的{@link EntityInfoStack}和{@link EntityRegistry}。因此调用之间
+ * 不会互相影响，但在{@code prepareAll}之外从多个线程并发调用时，这些线程共用同一个共享
+ * 生成器，生成的随机序列取决于线程的调度，不可重现。</p>
+ *
  * @author 胡海星
  */
 public class BeanCreator {
@@ -41,11 +62,27 @@ public class BeanCreator {
 
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final DaoTestGeneratorRegistry generatorRegistry;
-  private final RandomBeanGenerator random;
+
+  /**
+   * 在{@link #prepareAll(ForkJoinPool, Class, int, Property...)}的工作线程中使用的
+   * 线程专属随机生成器；在其他线程中为{@code null}。
+   */
+  private final ThreadLocal<RandomBeanGenerator> workerRandom = new ThreadLocal<>();
 
   public BeanCreator(final DaoTestGeneratorRegistry generatorRegistry) {
     this.generatorRegistry = generatorRegistry;
-    this.random = generatorRegistry.getRandom();
+  }
+
+  /**
+   * 获取当前线程应使用的随机生成器。
+   *
+   * @return
+   *     若当前线程正在为{@link #prepareAll(ForkJoinPool, Class, int, Property...)}
+   *     准备Bean，则返回其线程专属的随机生成器；否则返回共享的随机生成器。
+   */
+  private RandomBeanGenerator random() {
+    final RandomBeanGenerator worker = workerRandom.get();
+    return (worker != null ? worker : generatorRegistry.getRandom());
   }
 
   public Object prepareProperty(final Object model, final Property property)
@@ -83,11 +120,11 @@ public class BeanCreator {
     if (nonNullProperties.length == 0) {
       result = prepareImpl(modelInfo, null, new EntityInfoStack(), new EntityRegistry());
     } else {
-      // 记住旧的 random.parameters.nonNullFields
-      final Parameters parameters = random.getParameters();
-      final Set<Field> oldNonNullFields = new HashSet<>(parameters.getNonNullFields());
-      // 设置新的 random.parameters.nonNullFields
-      parameters.clearNonNullFields();
+      // 非空字段只设置在本次调用专属的随机生成器上，不修改共享的或线程专属的生成器，
+      // 因此不会影响其他线程或之后的调用；其种子取自当前生成器，以保证可重现
+      final RandomBeanGenerator generator = generatorRegistry.newRandom();
+      generator.setSeed(random().nextLong());
+      final Parameters parameters = generator.getParameters();
       for (final Property prop : nonNullProperties) {
         if (prop.isNullable() && prop.getField() != null) {
           parameters.addNonNullField(prop.getField());
@@ -95,10 +132,12 @@ public class BeanCreator {
               prop.getName(), modelInfo.getName());
         }
       }
-      // 准备实体对象
-      result = prepareImpl(modelInfo, null, new EntityInfoStack(), new EntityRegistry());
-      // 恢复旧的 random.parameters.nonNullFields
-      parameters.setNonNullFields(oldNonNullFields);
+      final RandomBeanGenerator old = enterRandom(generator);
+      try {
+        result = prepareImpl(modelInfo, null, new EntityInfoStack(), new EntityRegistry());
+      } finally {
+        exitRandom(old);
+      }
     }
     logger.debug("The model {} was prepared: {}", modelInfo.getName(), result);
     return result;
@@ -167,13 +206,267 @@ public class BeanCreator {
     return (T) prepare(BeanInfo.of(type));
   }
 
+  /**
+   * 在公共的 fork-join 线程池中并行地生成多个准备好的随机的Bean。
+   *
+   * @param type
+   *     待生成的随机Bean的类型。
+   * @param n
+   *     待生成的随机Bean的数目。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     准备好的随机的Bean的列表，其长度为{@code n}。
+   * @throws Throwable
+   *     如果出现任何错误。
+   * @see #prepareAll(ForkJoinPool, Class, int, Property...)
+   */
+  public <T> List<T> prepareAll(final Class<T> type, final int n,
+      final Property ... nonNullProperties) throws Throwable {
+    return prepareAll(ForkJoinPool.commonPool(), type, n, nonNullProperties);
+  }
+
+  /**
+   * 在指定的 fork-join 线程池中并行地生成多个准备好的随机的Bean。
+   *
+   * <p>每个Bean的对象图都在某个工作线程中独立地生成，其引用的实体会根据需要被加入数据
+   * 库，因此所注册的DAO对象必须支持并发调用。工作线程使用
+   * {@link DaoTestGeneratorRegistry#getLocalRandom()}返回的线程专属随机生成器，若为
+   * 共享生成器配置了参数，需通过
+   * {@link DaoTestGeneratorRegistry#setLocalRandomFactory(java.util.function.Supplier)}
+   * 提供以相同方式配置的生成器。</p>
+   *
+   * @param pool
+   *     用于生成随机Bean的线程池。
+   * @param type
+   *     待生成的随机Bean的类型。
+   * @param n
+   *     待生成的随机Bean的数目。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     准备好的随机的Bean的列表，其长度为{@code n}。
+   * @throws Throwable
+   *     如果出现任何错误。
+   */
+  public <T> List<T> prepareAll(final ForkJoinPool pool, final Class<T> type,
+      final int n, final Property ... nonNullProperties) throws Throwable {
+    requireNonNull("pool", pool);
+    requireNonNull("type", type);
+    requireNonNegative("n", n);
+    logger.debug("Prepare {} models of {} in parallel.", n, type.getName());
+    final BeanInfo modelInfo = BeanInfo.of(type);
+    final List<Callable<T>> tasks = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      tasks.add(() -> type.cast(prepareInWorker(modelInfo, nonNullProperties)));
+    }
+    final List<Future<T>> futures = pool.invokeAll(tasks);
+    final List<T> result = new ArrayList<>(n);
+    for (final Future<T> future : futures) {
+      try {
+        result.add(future.get());
+      } catch (final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof UndeclaredThrowableException) {
+          throw cause.getCause();
+        }
+        throw cause;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 返回一个惰性的、无限的迭代器，每次调用其{@code next()}时才生成一个准备好的随机的
+   * Bean。
+   *
+   * <p>与{@link #prepare(BeanInfo, Property...)}一样，生成每个Bean时会根据需要将其
+   * 引用的实体加入数据库。迭代器不保留已生成的Bean，因此内存占用与生成的Bean的总数无关。
+   * 生成过程中出现的受检异常会被包装为{@link UndeclaredThrowableException}。</p>
+   *
+   * @param modelInfo
+   *     待生成的随机Bean的信息。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     生成准备好的随机的Bean的迭代器。
+   */
+  public Iterator<Object> iterator(final BeanInfo modelInfo,
+      final Property ... nonNullProperties) {
+    requireNonNull("modelInfo", modelInfo);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public Object next() {
+        return prepareUnchecked(modelInfo, nonNullProperties);
+      }
+    };
+  }
+
+  /**
+   * 返回一个惰性的、无限的流，其中的元素在被消费时才生成。
+   *
+   * <p>调用者应该使用{@link Stream#limit(long)}等操作限制其长度。</p>
+   *
+   * @param modelInfo
+   *     待生成的随机Bean的信息。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     由准备好的随机的Bean组成的惰性流。
+   * @see #iterator(BeanInfo, Property...)
+   */
+  public Stream<Object> stream(final BeanInfo modelInfo,
+      final Property ... nonNullProperties) {
+    final Iterator<Object> iterator = iterator(modelInfo, nonNullProperties);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * 返回一个惰性的、无限的流，其中的元素在被消费时才生成。
+   *
+   * @param type
+   *     待生成的随机Bean的类型。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     由准备好的随机的Bean组成的惰性流。
+   * @see #iterator(BeanInfo, Property...)
+   */
+  public <T> Stream<T> stream(final Class<T> type, final Property ... nonNullProperties) {
+    return stream(BeanInfo.of(type), nonNullProperties).map(type::cast);
+  }
+
+  /**
+   * 返回一个惰性的流，按块生成指定数目的准备好的随机的Bean。
+   *
+   * <p>每个块只有在被消费时才会生成，下游处理完一个块(例如批量写入数据库)之后才会生成
+   * 下一个块，因此任何时刻内存中最多只有一个块。</p>
+   *
+   * @param type
+   *     待生成的随机Bean的类型。
+   * @param count
+   *     待生成的随机Bean的总数。
+   * @param chunkSize
+   *     每个块中随机Bean的最大数目。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     由准备好的随机的Bean的块组成的惰性流，除最后一个块外每个块的大小都是
+   *     {@code chunkSize}。
+   */
+  public <T> Stream<List<T>> streamChunks(final Class<T> type, final long count,
+      final int chunkSize, final Property ... nonNullProperties) {
+    requireNonNull("type", type);
+    requireNonNegative("count", count);
+    requirePositive("chunkSize", chunkSize);
+    final BeanInfo modelInfo = BeanInfo.of(type);
+    final Iterator<List<T>> iterator = new Iterator<>() {
+      private long remained = count;
+
+      @Override
+      public boolean hasNext() {
+        return remained > 0;
+      }
+
+      @Override
+      public List<T> next() {
+        if (remained <= 0) {
+          throw new NoSuchElementException();
+        }
+        final int n = (int) Math.min(chunkSize, remained);
+        final List<T> chunk = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+          chunk.add(type.cast(prepareUnchecked(modelInfo, nonNullProperties)));
+        }
+        remained -= n;
+        return chunk;
+      }
+    };
+    final long chunks = (count + chunkSize - 1) / chunkSize;
+    return StreamSupport.stream(Spliterators.spliterator(iterator, chunks,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * 在{@link #prepareAll(ForkJoinPool, Class, int, Property...)}的工作线程中，使用线程
+   * 专属的随机生成器生成一个准备好的随机的Bean。
+   */
+  private Object prepareInWorker(final BeanInfo modelInfo,
+      final Property[] nonNullProperties) {
+    final RandomBeanGenerator old = enterRandom(generatorRegistry.getLocalRandom());
+    try {
+      return prepareUnchecked(modelInfo, nonNullProperties);
+    } finally {
+      exitRandom(old);
+    }
+  }
+
+  /**
+   * 令当前线程之后准备Bean时使用指定的随机生成器。
+   *
+   * @param generator
+   *     指定的随机生成器。
+   * @return
+   *     当前线程之前使用的随机生成器，若之前使用共享生成器则为{@code null}；调用者须
+   *     在完成后将其传给{@link #exitRandom(RandomBeanGenerator)}。
+   */
+  @Nullable
+  private RandomBeanGenerator enterRandom(final RandomBeanGenerator generator) {
+    // 调用者线程也可能执行任务，且调用可能嵌套，因此需记住之前的值
+    final RandomBeanGenerator old = workerRandom.get();
+    workerRandom.set(generator);
+    return old;
+  }
+
+  /**
+   * 恢复当前线程之前使用的随机生成器。
+   *
+   * @param old
+   *     {@link #enterRandom(RandomBeanGenerator)}返回的随机生成器。
+   */
+  private void exitRandom(@Nullable final RandomBeanGenerator old) {
+    if (old == null) {
+      workerRandom.remove();
+    } else {
+      workerRandom.set(old);
+    }
+  }
+
+  /**
+   * 生成一个准备好的随机的Bean，并将受检异常包装为{@link UndeclaredThrowableException}。
+   *
+   * @param modelInfo
+   *     待生成的随机Bean的信息。
+   * @param nonNullProperties
+   *     待生成的随机bean，这些property不应该为{@code null}.
+   * @return
+   *     准备好的随机的Bean。
+   */
+  private Object prepareUnchecked(final BeanInfo modelInfo,
+      final Property[] nonNullProperties) {
+    try {
+      return prepare(modelInfo, nonNullProperties);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
   /**
    * 生成一个准备好的随机的Bean。
    *
    * <p>若该Bean有任何引用属性(即被{@code @Reference}标注的属性)，则此函数会生成其引
    * 用属性所引用的实体并根据需要将其预先加入数据库。</p>
    *
-   * <p>此函数为一个递归函数。</p>
+   * <p>此函数使用{@link GraphBuilder}以显式的工作栈构造对象图，而非递归调用，因此对象
+   * 图的深度和宽度不受线程调用栈大小的限制。</p>
    *
    * @param modelInfo
    *     待生成的随机Bean的信息。
@@ -193,33 +486,21 @@ public class BeanCreator {
       @Nullable final Property propertyInParent, final EntityInfoStack stack,
       final EntityRegistry registry) throws Throwable {
     logger.debug("prepareImpl: {}", modelInfo.getName());
-    final Class<?> type = modelInfo.getType();
-    final Object model = random.nextObject(type);
-    // 别忘记把 model 的 identifier 设置为 null，否则无法测试出 DAO 是否自动生成
-    // 并赋值 identifier
-    // 但如果把 identifier 设置为null，某些不依赖自动生成 ID 的 DAO 会直接将 null 的 ID
-    // 插入数据库，导致数据库报错
-    // 所以我们需要依赖 Identifier.autoGenerated 属性进行判断
-    if (modelInfo.hasAutoGeneratedIdProperty()) {
-      modelInfo.setId(model, null);
-    }
-    // 递归处理 model 的所有引用字段
-    stack.push(new EntityInfo(type, model, propertyInParent));
-    processReferenceProperties(model, modelInfo, stack, registry);
-    stack.pop();
-    return model;
+    return new GraphBuilder(stack, registry).build(modelInfo, propertyInParent);
   }
 
   /**
-   * 处理指定模型对象的所有引用属性值。
+   * 处理指定模型对象中所有具有引用路径的引用属性。
    *
-   * <p>此函数为一个递归函数。</p>
+   * <p>调用此函数时，该模型对象所有不具有引用路径的引用属性都已经处理完毕。</p>
    *
    * @param model
    *     当前的模型对象。
    * @param modelInfo
    *     当前模型对象的类型信息。注意不能通过{@code BeanInfo.of(model.getClass())}获
    *     取，因为{@code model.getClass()}获得的可能是实际要求类型的子类。
+   * @param entityInfo
+   *     当前的模型对象在对象树中的信息。
    * @param stack
    *     记录对象树中被引用实体信息的堆栈。
    * @param registry
@@ -227,25 +508,9 @@ public class BeanCreator {
    * @throws Throwable
    *     如果出现任何错误。
    */
-  private void processReferenceProperties(final Object model, final BeanInfo modelInfo,
-      final EntityInfoStack stack, final EntityRegistry registry) throws Throwable {
-    final EntityInfo entityInfo = stack.peek();
-    for (final Property prop : modelInfo.getReferenceProperties()) {
-      if (isEmpty(prop.getReferencePath())) {
-        if (prop.getValue(model) == null) {
-          // 如果该属性随机产生的值是null，无需再修正，直接将其注册到哈希表
-          registry.put(model, prop, null);
-        } else {
-          // 重新设置该引用属性的值，注意下面的函数中会递归调用本函数
-          setReferenceProperty(model, prop, stack, registry);
-        }
-      } else {
-        // 对于具有 path 的引用属性，将其加入到对象树中对应节点的 referencedProperties中，
-        // 稍后统一处理
-        stack.addReferencedProperty(prop);
-      }
-    }
-    // 接下来处理当前堆栈顶部实体对象的 referencedProperties
+  private void processReferencedProperties(final Object model, final BeanInfo modelInfo,
+      final EntityInfo entityInfo, final EntityInfoStack stack,
+      final EntityRegistry registry) throws Throwable {
     // 先对其所有 referencedProperties 进行拓扑排序
     entityInfo.topologySortReferencedProperties();
     // 然后依次对引用了当前实体对象中所有 referencedProperty 进行赋值
@@ -443,48 +708,6 @@ public class BeanCreator {
     }
   }
 
-  /**
-   * 设置引用属性值。
-   *
-   * <p>此函数将递归地创建随机的被引用实体对象，根据需要将其加入数据库，并将其指定属性值
-   * 设置为指定模型对象的引用属性值。</p>
-   *
-   * @param model
-   *     当前的模型对象。
-   * @param property
-   *     当前的引用属性。
-   * @throws Throwable
-   *     若发生任何错误。
-   */
-  private void setReferenceProperty(final Object model, final Property property,
-      final EntityInfoStack stack, final EntityRegistry registry)
-      throws Throwable {
-    final Class<?> entityType = property.getReferenceEntity();
-    if (property.isIndirectReference()) {
-      // 该属性本身没有直接引用其他实体，但其内部属性引用了其他实体，因此需要递归处理其内部属性
-      final Object value = property.getValue(model);
-      final BeanInfo valueInfo = BeanInfo.of(property.getType());
-      // 递归处理此属性值所有内部引用属性
-      stack.push(new EntityInfo(valueInfo.getType(), value, property));
-      processReferenceProperties(value, valueInfo, stack, registry);
-      stack.pop();
-    //    } else if (!property.isReferenceExisting()) {
-    //      // 如果该属性可以为不存在的对象，则可设置为随机对象
-    //      setReferencePropertyToNonExistingValue(model, property);
-    } else if (stack.containsType(entityType)) {  // 发现一个循环依赖
-      if (property.isNullable()) {
-        // 如果该属性可以为null则直接设置为null解决循环
-        setReferencePropertyToNullValue(model, property, stack, registry);
-      } else {
-        // 否则只能报错
-        stack.push(new EntityInfo(entityType, property.getValue(model)));
-        throw new ReferenceDependencyLoopException(stack.getTypeStack());
-      }
-    } else {  // 一般情况
-      setReferencePropertyToExistingValue(model, property, stack, registry);
-    }
-  }
-
   /**
    * 设置引用属性值为null值。
    *
@@ -548,112 +771,19 @@ public class BeanCreator {
   //  }
 
   /**
-   * 一般情况下，设置引用属性值为存在于数据库中的随机值。
-   *
-   * <p>此函数将递归地创建随机的被引用实体对象，根据需要将其加入数据库，并将其指定属性值
-   * 设置为指定模型对象的引用属性值。</p>
-   *
-   * @param model
-   *     当前的模型对象。
-   * @param property
-   *     当前的引用属性。
-   * @throws Throwable
-   *     若发生任何错误。
-   */
-  private void setReferencePropertyToExistingValue(final Object model,
-      final Property property, final EntityInfoStack stack,
-      final EntityRegistry registry) throws Throwable {
-    final Object value;
-    if (property.isArray() || property.isCollection()) {
-      // 对当前引用属性为数组或集合的情况，随机生成若干被引用实体，并获取其被引用值
-      final CloseRange<Integer> range = defaultIfNull(property.getSizeRange(),
-          DEFAULT_SIZE_RANGE);
-      final int n = random.nextInt(range);
-      value = prepareReferToValue(n, model, property, stack, registry);    // 会触发递归调用
-    } else {
-      value = prepareReferToValue(model, property, stack, registry);       // 会触发递归调用
-    }
-    property.setValue(model, value);
-  }
-
-  /**
-   * 准备引用属性的多个属性值，该引用属性必须是一个集合或数组。
-   *
-   * @param count
-   *     引用属性集合/数组中的元素数目。
-   * @param model
-   *     当前的模型对象。
-   * @param property
-   *     当前的引用属性。
-   * @return
-   *     当前的引用属性的多个属性值。
-   * @throws Throwable
-   *     若发生任何错误。
-   */
-  private Object prepareReferToValue(final int count, final Object model,
-      final Property property, final EntityInfoStack stack,
-      final EntityRegistry registry) throws Throwable {
-    final List<Object> entities = new ArrayList<>();
-    final List<Object> values = new ArrayList<>();
-    for (int i = 0; i < count; ++i) {
-      final Object entity = prepareReferToEntity(property, stack, registry);
-      entities.add(entity);
-      final Object value = getReferToPropertyValue(property, entity);
-      values.add(value);
-    }
-    // 在registry中记录当前对象当前属性所引用的实体列表
-    registry.put(model, property, entities);
-    if (property.isCollection()) {
-      return values;
-    } else if (property.isArray()) {
-      return values.toArray();
-    } else {
-      throw new IllegalArgumentException("Unsupported property type, it must be "
-          + "either a collection or an array: " + property.getType().getName());
-    }
-  }
-
-  /**
-   * 准备引用属性的单个属性值。
-   *
-   * @param model
-   *     当前的模型对象。
-   * @param property
-   *     当前的引用属性。
-   * @return
-   *     当前的引用属性的单个属性值。
-   * @throws Throwable
-   *     若发生任何错误。
-   */
-  private Object prepareReferToValue(final Object model, final Property property,
-      final EntityInfoStack stack, final EntityRegistry registry)
-      throws Throwable {
-    final Object entity = prepareReferToEntity(property, stack, registry);
-    // 在registry中记录当前对象当前属性所引用的实体
-    registry.put(model, property, entity);
-    // 获取被引用实体的指定属性值，作为当前对象当前属性的值
-    return getReferToPropertyValue(property, entity);
-  }
-
-  /**
-   * 准备被引用的实体对象。
+   * 若被引用实体要求是已存在实体，则将其加入数据库。
    *
    * @param property
    *     当前的引用属性。
-   * @return
-   *     被引用的实体对象。
+   * @param entity
+   *     当前的引用属性所引用的实体。
    * @throws Throwable
    *     若发生任何错误。
    */
-  private Object prepareReferToEntity(final Property property,
-      final EntityInfoStack stack, final EntityRegistry registry)
+  private void addReferToEntity(final Property property, final Object entity)
       throws Throwable {
-    final Class<?> entityType = property.getReferenceEntity();
-    final BeanInfo entityInfo = BeanInfo.of(entityType);
-    // 递归调用prepareImpl()准备好当前对象当前属性所引用的实体
-    final Object entity = prepareImpl(entityInfo, property, stack, registry);
     if (property.isReferenceExisting()) {
-      // 若被引用实体要求是已存在实体，则将其加入数据库
+      final Class<?> entityType = property.getReferenceEntity();
       logger.debug("Adding the existing referenced entity to database: {}", entity);
       final DaoInfo entityDaoInfo = this.generatorRegistry.getDaoInfo(entityType);
       if (entityDaoInfo == null) {
@@ -661,7 +791,6 @@ public class BeanCreator {
       }
       entityDaoInfo.add(entity);
     }
-    return entity;
   }
 
   /**
@@ -713,4 +842,277 @@ public class BeanCreator {
       return referToEntityTypeInfo.get(referToEntity, referToPropName);
     }
   }
+
+  /**
+   * 以显式的工作栈构造Bean的对象图。
+   *
+   * <p>原先的递归调用链{@code prepareImpl -> processReferenceProperties ->
+   * setReferenceProperty -> prepareImpl}被展开为栈中的帧：{@link EntityFrame}生成一
+   * 个实体对象，{@link PropertiesFrame}依次处理一个对象的所有引用属性，并在需要时压入
+   * 生成被引用实体的子帧。各个副作用(将实体加入数据库、设置属性值、注册被引用实体)的发
+   * 生顺序与递归实现完全相同，循环依赖仍然通过{@link EntityInfoStack}检测。</p>
+   *
+   * <p>对象图的深度和宽度分别受{@link DaoTestParameters#getMaxReferenceDepth()}和
+   * {@link DaoTestParameters#getMaxReferenceBreadth()}限制。</p>
+   */
+  private final class GraphBuilder {
+
+    private final EntityInfoStack stack;
+    private final EntityRegistry registry;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final int maxDepth;
+    private final int maxBreadth;
+    private Object result;
+
+    GraphBuilder(final EntityInfoStack stack, final EntityRegistry registry) {
+      this.stack = stack;
+      this.registry = registry;
+      final DaoTestParameters parameters = generatorRegistry.getParameters();
+      this.maxDepth = parameters.getMaxReferenceDepth();
+      this.maxBreadth = parameters.getMaxReferenceBreadth();
+    }
+
+    Object build(final BeanInfo modelInfo, @Nullable final Property propertyInParent)
+        throws Throwable {
+      frames.push(new EntityFrame(modelInfo, propertyInParent));
+      while (!frames.isEmpty()) {
+        frames.peek().step();
+      }
+      return result;
+    }
+
+    /**
+     * 压入一个子帧，相当于一次递归调用。
+     */
+    private void call(final Frame frame) {
+      frames.push(frame);
+    }
+
+    /**
+     * 弹出当前帧，并将其结果交给调用者帧，相当于一次递归调用的返回。
+     */
+    private void complete(@Nullable final Object value) throws Throwable {
+      frames.pop();
+      if (frames.isEmpty()) {
+        result = value;
+      } else {
+        frames.peek().receive(value);
+      }
+    }
+
+    private abstract class Frame {
+
+      /**
+       * 执行此帧的下一步，可能压入子帧或者完成此帧。
+       */
+      abstract void step() throws Throwable;
+
+      /**
+       * 接收子帧的结果。
+       */
+      void receive(@Nullable final Object value) throws Throwable {}
+    }
+
+    /**
+     * 生成一个随机的实体对象并处理其所有引用属性。
+     */
+    private final class EntityFrame extends Frame {
+
+      private final BeanInfo modelInfo;
+      @Nullable
+      private final Property propertyInParent;
+
+      EntityFrame(final BeanInfo modelInfo, @Nullable final Property propertyInParent) {
+        this.modelInfo = modelInfo;
+        this.propertyInParent = propertyInParent;
+      }
+
+      @Override
+      void step() {
+        final Class<?> type = modelInfo.getType();
+        final Object model = random().nextObject(type);
+        // 别忘记把 model 的 identifier 设置为 null，否则无法测试出 DAO 是否自动生成
+        // 并赋值 identifier
+        // 但如果把 identifier 设置为null，某些不依赖自动生成 ID 的 DAO 会直接将 null 的 ID
+        // 插入数据库，导致数据库报错
+        // 所以我们需要依赖 Identifier.autoGenerated 属性进行判断
+        if (modelInfo.hasAutoGeneratedIdProperty()) {
+          modelInfo.setId(model, null);
+        }
+        // 接下来处理 model 的所有引用字段，用处理该 model 的帧替换当前帧，
+        // 其完成时会将 model 返回给当前帧的调用者
+        stack.push(new EntityInfo(type, model, propertyInParent));
+        frames.pop();
+        call(new PropertiesFrame(model, modelInfo));
+      }
+    }
+
+    /**
+     * 依次处理一个对象的所有引用属性。
+     *
+     * <p>调用者必须已经把该对象的{@link EntityInfo}压入{@link EntityInfoStack}，此帧
+     * 完成时会将其弹出，并将该对象返回给调用者帧。</p>
+     */
+    private final class PropertiesFrame extends Frame {
+
+      private final Object model;
+      private final BeanInfo modelInfo;
+      private final EntityInfo entityInfo;
+      private final List<Property> properties;
+      private int index;
+
+      /**
+       * 当前正在准备其被引用实体的引用属性。
+       */
+      @Nullable
+      private Property current;
+      private int remained;
+      private List<Object> entities;
+      private List<Object> values;
+      private Object entity;
+
+      PropertiesFrame(final Object model, final BeanInfo modelInfo) {
+        this.model = model;
+        this.modelInfo = modelInfo;
+        this.entityInfo = stack.peek();
+        this.properties = modelInfo.getReferenceProperties();
+        this.index = 0;
+      }
+
+      @Override
+      void step() throws Throwable {
+        if (current != null) {
+          if (remained > 0) {
+            call(new EntityFrame(BeanInfo.of(current.getReferenceEntity()), current));
+            return;
+          }
+          finishCurrentProperty();
+        }
+        while (index < properties.size()) {
+          final Property prop = properties.get(index++);
+          if (isEmpty(prop.getReferencePath())) {
+            if (prop.getValue(model) == null) {
+              // 如果该属性随机产生的值是null，无需再修正，直接将其注册到哈希表
+              registry.put(model, prop, null);
+            } else if (startReferenceProperty(prop)) {
+              return;     // 已压入子帧，待其完成后继续
+            }
+          } else {
+            // 对于具有 path 的引用属性，将其加入到对象树中对应节点的 referencedProperties中，
+            // 稍后统一处理
+            stack.addReferencedProperty(prop);
+          }
+        }
+        // 接下来处理当前堆栈顶部实体对象的 referencedProperties
+        processReferencedProperties(model, modelInfo, entityInfo, stack, registry);
+        stack.pop();
+        complete(model);
+      }
+
+      /**
+       * 开始设置一个引用属性值。
+       *
+       * @return
+       *     若压入了子帧则返回{@code true}；若该属性已经处理完毕则返回{@code false}。
+       */
+      private boolean startReferenceProperty(final Property property) throws Throwable {
+        final Class<?> entityType = property.getReferenceEntity();
+        if (property.isIndirectReference()) {
+          // 该属性本身没有直接引用其他实体，但其内部属性引用了其他实体，因此需要处理其内部属性
+          final Object value = property.getValue(model);
+          final BeanInfo valueInfo = BeanInfo.of(property.getType());
+          stack.push(new EntityInfo(valueInfo.getType(), value, property));
+          call(new PropertiesFrame(value, valueInfo));
+          return true;
+        } else if (stack.containsType(entityType)) {  // 发现一个循环依赖
+          if (property.isNullable()) {
+            // 如果该属性可以为null则直接设置为null解决循环
+            setReferencePropertyToNullValue(model, property, stack, registry);
+            return false;
+          } else {
+            // 否则只能报错
+            stack.push(new EntityInfo(entityType, property.getValue(model)));
+            throw new ReferenceDependencyLoopException(stack.getTypeStack());
+          }
+        } else if (stack.size() >= maxDepth) {        // 超出深度限制
+          if (property.isNullable()) {
+            logger.debug("Set the property '{}' to null since the reference depth "
+                + "reaches {}.", property.getName(), maxDepth);
+            setReferencePropertyToNullValue(model, property, stack, registry);
+            return false;
+          } else {
+            stack.push(new EntityInfo(entityType, property.getValue(model)));
+            throw new ReferenceDepthExceededException(stack.getTypeStack(), maxDepth);
+          }
+        } else {  // 一般情况
+          current = property;
+          if (property.isArray() || property.isCollection()) {
+            // 对当前引用属性为数组或集合的情况，随机生成若干被引用实体，并获取其被引用值
+            // 宽度限制不能使其元素数目少于 @Size 标注的下限
+            final CloseRange<Integer> range = defaultIfNull(property.getSizeRange(),
+                DEFAULT_SIZE_RANGE);
+            remained = Math.max(range.getMin(),
+                Math.min(random().nextInt(range), maxBreadth));
+            entities = new ArrayList<>(remained);
+            values = new ArrayList<>(remained);
+          } else {
+            remained = 1;
+          }
+          if (remained > 0) {
+            call(new EntityFrame(BeanInfo.of(entityType), property));
+            return true;
+          } else {
+            finishCurrentProperty();
+            return false;
+          }
+        }
+      }
+
+      @Override
+      void receive(@Nullable final Object value) throws Throwable {
+        if (current == null) {
+          return;     // 间接引用属性的子帧已处理完毕
+        }
+        // 子帧生成了当前引用属性所引用的一个实体
+        addReferToEntity(current, value);
+        --remained;
+        if (entities == null) {
+          entity = value;
+        } else {
+          entities.add(value);
+          values.add(getReferToPropertyValue(current, value));
+        }
+      }
+
+      /**
+       * 当前引用属性所引用的实体都已生成，设置该属性的值。
+       */
+      private void finishCurrentProperty() {
+        final Property property = current;
+        final Object value;
+        if (entities == null) {
+          // 在registry中记录当前对象当前属性所引用的实体
+          registry.put(model, property, entity);
+          // 获取被引用实体的指定属性值，作为当前对象当前属性的值
+          value = getReferToPropertyValue(property, entity);
+        } else {
+          // 在registry中记录当前对象当前属性所引用的实体列表
+          registry.put(model, property, entities);
+          if (property.isCollection()) {
+            value = values;
+          } else if (property.isArray()) {
+            value = values.toArray();
+          } else {
+            throw new IllegalArgumentException("Unsupported property type, it must be "
+                + "either a collection or an array: " + property.getType().getName());
+          }
+        }
+        property.setValue(model, value);
+        current = null;
+        entities = null;
+        values = null;
+        entity = null;
+      }
+    }
+  }
 }
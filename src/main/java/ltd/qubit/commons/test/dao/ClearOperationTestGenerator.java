@@ -11,6 +11,8 @@ package ltd.qubit.commons.test.dao;
 import java.util.ArrayList;
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -47,11 +49,9 @@ public class ClearOperationTestGenerator<T> extends DaoOperationTestGenerator<T>
         // 上述两个类的关系是常见的父子关系。在准备类B对象时，会先创建一个存在的A对象并将其加
         // 入数据库，而将A对象加入数据库时有可能会将A.child也加入数据库。这样在准备好B对象后，
         // 数据库中就会已经有一个B对象了。
-        final List<Object> models = new ArrayList<>();
-        for (int j = 0; j < n; ++j) {
-          final Object model = beanCreator.prepare(modelInfo);
-          models.add(model);
-        }
+        final List<Object> models = beanCreator.stream(modelInfo)
+                                               .limit(n)
+                                               .collect(toList());
         // 通过 count 记录下目前数据库中已有的模型数量
         final Long existingCount = daoInfo.count(null);
         // 接下来把准备好的模型加入，随机标记删除其中一些，并记录所有加入对象的ID
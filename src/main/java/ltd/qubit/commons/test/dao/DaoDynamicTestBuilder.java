@@ -11,6 +11,8 @@ package ltd.qubit.commons.test.dao;
 import java.util.ArrayList;
 import java.util.List;
 
+import ltd.qubit.commons.test.RandomSeeds;
+
 import org.junit.jupiter.api.DynamicNode;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.function.Executable;
@@ -22,29 +24,74 @@ import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 /**
  * A class helps to build list of dynamic tests for DAOs.
  *
+ * <p>Each dynamic test is run with its own seed derived from the master seed in
+ * {@link DaoTestParameters#getSeed()}. The seed is reported if the test fails,
+ * and the failed test can be rerun alone by
+ * {@link DaoTestGeneratorRegistry#replay(Class, String, String, long)}.</p>
+ *
+ * <p>The result and duration of each test are recorded in
+ * {@link DaoTestGeneratorRegistry#getHistory()}, and the tests failed or slow in
+ * previous runs are placed first in the built list.</p>
+ *
  * @author Haixing Hu
  */
 public final class DaoDynamicTestBuilder {
 
   private final List<DynamicNode> list;
   private final DaoOperationTestGenerator<?> generator;
+  private int count;
 
   public DaoDynamicTestBuilder(final DaoOperationTestGenerator<?> generator) {
     this.generator = requireNonNull("generator", generator);
     this.list = new ArrayList<>();
+    this.count = 0;
   }
 
   public DaoDynamicTestBuilder add(final String name, final Executable executable) {
+    final int index = count++;
+    final String replayName = generator.getReplayName();
+    final long seed;
+    if (replayName == null) {
+      seed = RandomSeeds.derive(generator.getParameters().getSeed(),
+          generator.methodName + ":" + name, index);
+    } else if (replayName.equals(name)) {
+      seed = generator.getReplaySeed();
+    } else {
+      return this;    // 重放模式下忽略其他测试用例
+    }
+    final DaoTestHistory history = generator.registry.getHistory();
+    final DaoTestFingerprints fingerprints = generator.registry.getFingerprints();
     final DynamicTest test = dynamicTest(name, generator.getUri(), () -> {
-      generator.setUp();
-      executable.execute();
-      generator.tearDown();
+      generator.applySeed(seed);
+      final long start = System.nanoTime();
+      try {
+        generator.setUp();
+        executable.execute();
+        generator.tearDown();
+        history.record(generator.methodInfo.getSignature(), name, false,
+            (System.nanoTime() - start) / 1_000_000);
+        fingerprints.finish(generator.modelType, false);
+      } catch (final Throwable e) {
+        history.record(generator.methodInfo.getSignature(), name, true,
+            (System.nanoTime() - start) / 1_000_000);
+        fingerprints.finish(generator.modelType, true);
+        RandomSeeds.attach(e, seed, "The test '" + name + "' of "
+            + generator.methodName + " failed. Rerun it by registry.replay("
+            + generator.modelType.getSimpleName() + ".class, \""
+            + generator.methodInfo.getName() + "\", \"" + name + "\", "
+            + seed + "L)");
+        throw e;
+      }
     });
     list.add(test);
     return this;
   }
 
   public List<DynamicNode> build() {
+    // 之前失败或耗时较长的测试用例优先
+    final DaoTestHistory history = generator.registry.getHistory();
+    final String signature = generator.methodInfo.getSignature();
+    history.sort(list, (node) -> history.getPriority(signature, node.getDisplayName()));
     return list;
   }
 }
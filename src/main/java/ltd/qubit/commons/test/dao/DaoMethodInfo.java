@@ -11,8 +11,13 @@ package ltd.qubit.commons.test.dao;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,6 +59,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
   private final Method method;
   private final String name;
   private final String qualifiedName;
+  private final String signature;
   private final URI uri;
   private final DaoOperation operation;
   private final Property target;
@@ -63,6 +69,9 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
   private final Set<String> modifiedPropertyNames;
   private final Set<Property> unmodifiedProperties;
   private final Set<String> unmodifiedPropertyNames;
+  private final PropertyMask modifiedMask;
+  private final PropertyMask unmodifiedMask;
+  private final Map<String, PropertyMask> unmodifiedRespectToMasks = new ConcurrentHashMap<>();
 
   /**
    * Creates a {@link DaoMethodInfo} object for a method of a DAO.
@@ -181,6 +190,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
     this.method = method;
     this.name = method.getName();
     this.qualifiedName = daoType.getSimpleName() + "." + method.getName();
+    this.signature = getSignature(daoType, method);
     this.uri = getMethodUri(method);
     this.operation = info.operation;
     this.target = info.target;
@@ -191,6 +201,8 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
     this.modifiedPropertyNames = new HashSet<>();
     this.unmodifiedPropertyNames = new HashSet<>();
     this.setModifiedUnmodifiedProperties(method);
+    this.modifiedMask = PropertyMask.of(modelInfo.getType(), modifiedProperties);
+    this.unmodifiedMask = PropertyMask.of(modelInfo.getType(), unmodifiedProperties);
     if (LOGGER.isInfoEnabled()) {
       switch (this.operation) {
         case UPDATE:
@@ -215,6 +227,19 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
     }
   }
 
+  private static String getSignature(final Class<?> daoType, final Method method) {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(daoType.getName()).append('.').append(method.getName()).append('(');
+    final Class<?>[] paramTypes = method.getParameterTypes();
+    for (int i = 0; i < paramTypes.length; ++i) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(paramTypes[i].getTypeName());
+    }
+    return builder.append(')').toString();
+  }
+
   private void setModifiedUnmodifiedProperties(final Method method) {
     modifiedProperties.clear();
     unmodifiedProperties.clear();
@@ -332,6 +357,21 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
     return qualifiedName;
   }
 
+  /**
+   * Gets the signature of this method.
+   *
+   * <p>Unlike the qualified name, the signature is unique among all methods of
+   * all DAOs, since it consists of the fully qualified name of the DAO
+   * interface, the name of the method and the types of its parameters, e.g.,
+   * {@code "com.example.dao.UserDao.get(java.lang.Long)"}.</p>
+   *
+   * @return
+   *     the signature of this method.
+   */
+  public final String getSignature() {
+    return signature;
+  }
+
   public final URI getUri() {
     return uri;
   }
@@ -361,19 +401,63 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
   }
 
   public final Set<Property> getModifiedProperties() {
-    return modifiedProperties;
+    return Collections.unmodifiableSet(modifiedProperties);
   }
 
   public final Set<String> getModifiedPropertyNames() {
-    return modifiedPropertyNames;
+    return Collections.unmodifiableSet(modifiedPropertyNames);
   }
 
   public final Set<Property> getUnmodifiedProperties() {
-    return unmodifiedProperties;
+    return Collections.unmodifiableSet(unmodifiedProperties);
   }
 
   public final Set<String> getUnmodifiedPropertyNames() {
-    return unmodifiedPropertyNames;
+    return Collections.unmodifiableSet(unmodifiedPropertyNames);
+  }
+
+  /**
+   * 获取此方法修改的属性的位掩码。
+   *
+   * @return
+   *     此方法修改的属性的位掩码，按属性声明的顺序遍历。
+   */
+  public final PropertyMask getModifiedMask() {
+    return modifiedMask;
+  }
+
+  /**
+   * 获取此方法不修改的属性的位掩码。
+   *
+   * @return
+   *     此方法不修改的属性的位掩码，按属性声明的顺序遍历。
+   */
+  public final PropertyMask getUnmodifiedMask() {
+    return unmodifiedMask;
+  }
+
+  /**
+   * 获取指定的Unique属性的respect to属性中，未被此方法修改的属性的位掩码。
+   *
+   * @param property
+   *     指定的Unique属性。
+   * @return
+   *     该属性的respect to属性中未被此方法修改的非计算属性的位掩码，结果按属性名称缓存。
+   */
+  public final PropertyMask getUnmodifiedRespectToMask(final Property property) {
+    return unmodifiedRespectToMasks.computeIfAbsent(property.getName(), key -> {
+      final List<Property> props = new ArrayList<>();
+      final String[] respectTo = property.getUniqueRespectTo();
+      if (respectTo != null) {
+        for (final String name : respectTo) {
+          final Property prop = modelInfo.getProperty(name);
+          if (prop != null && (!prop.isComputed())) {
+            props.add(prop);
+          }
+        }
+      }
+      return PropertyMask.of(modelInfo.getType(), props).and(unmodifiedMask);
+    });
   }
 
   /**
@@ -385,7 +469,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
    *     若此方法修改给定属性的值，返回{@code true}；否则返回{@code false}。
    */
   public boolean isModified(final Property property) {
-    return modifiedProperties.contains(property);
+    return modifiedMask.contains(property);
   }
 
   /**
@@ -397,8 +481,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
    *     若此方法修改给定属性的值，返回{@code true}；否则返回{@code false}。
    */
   public boolean isModified(final String propertyName) {
-    final Property prop = modelInfo.getProperty(propertyName);
-    return prop != null && modifiedProperties.contains(prop);
+    return modifiedMask.contains(propertyName);
   }
 
   /**
@@ -410,7 +493,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
    *     若此方法不修改给定属性的值，返回{@code true}；否则返回{@code false}。
    */
   public boolean isUnmodified(final Property property) {
-    return unmodifiedProperties.contains(property);
+    return unmodifiedMask.contains(property);
   }
 
   /**
@@ -422,8 +505,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
    *     若此方法不修改给定属性的值，返回{@code true}；否则返回{@code false}。
    */
   public boolean isUnmodified(final String propertyName) {
-    final Property prop = modelInfo.getProperty(propertyName);
-    return prop != null && unmodifiedProperties.contains(prop);
+    return unmodifiedMask.contains(propertyName);
   }
 
   /**
@@ -439,17 +521,13 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
    * @see Unique
    */
   public boolean isUniquePropertyModified(final Property property) {
-    if (!modifiedProperties.contains(property)) {
+    if (!modifiedMask.contains(property)) {
       return false;
     }
     final String[] respectTo = property.getUniqueRespectTo();
     if (respectTo != null) {
       for (final String p : respectTo) {
-        final Property prop = modelInfo.getProperty(p);
-        if (prop == null) {
-          continue;
-        }
-        if (!modifiedProperties.contains(prop)) {
+        if (modelInfo.hasProperty(p) && !modifiedMask.contains(p)) {
           return false;
         }
       }
@@ -527,6 +605,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
         && Equality.equals(method, other.method)
         && Equality.equals(name, other.name)
         && Equality.equals(qualifiedName, other.qualifiedName)
+        && Equality.equals(signature, other.signature)
         && Equality.equals(uri, other.uri)
         && Equality.equals(operation, other.operation)
         && Equality.equals(target, other.target)
@@ -547,6 +626,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
     result = Hash.combine(result, multiplier, method);
     result = Hash.combine(result, multiplier, name);
     result = Hash.combine(result, multiplier, qualifiedName);
+    result = Hash.combine(result, multiplier, signature);
     result = Hash.combine(result, multiplier, uri);
     result = Hash.combine(result, multiplier, operation);
     result = Hash.combine(result, multiplier, target);
@@ -567,6 +647,7 @@ public class DaoMethodInfo implements Comparable<DaoMethodInfo> {
         .append("method", method)
         .append("name", name)
         .append("qualifiedName", qualifiedName)
+        .append("signature", signature)
         .append("uri", uri)
         .append("operation", operation)
         .append("target", target)
@@ -9,11 +9,7 @@
 package ltd.qubit.commons.test.dao;
 
 import java.net.URI;
-import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -24,9 +20,9 @@ import ltd.qubit.commons.error.DuplicateKeyException;
 import ltd.qubit.commons.error.FieldTooLongException;
 import ltd.qubit.commons.error.NullFieldException;
 import ltd.qubit.commons.reflect.BeanInfo;
-import ltd.qubit.commons.reflect.ClassUtils;
 import ltd.qubit.commons.reflect.Property;
 import ltd.qubit.commons.test.TestGenerator;
+import ltd.qubit.commons.test.dao.ModelComparator.Difference;
 
 import org.junit.jupiter.api.DynamicNode;
 
@@ -66,6 +62,9 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
   protected final Property target;
   protected final String targetName;
   protected final BeanCreator beanCreator;
+  private String replayName;
+  private long replaySeed;
+  private boolean truncated;
 
   protected DaoOperationTestGenerator(final DaoTestGeneratorRegistry registry,
       final Class<T> modelType, final DaoMethodInfo methodInfo) {
@@ -93,6 +92,50 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
     return methodInfo.getUri();
   }
 
+  /**
+   * 设置此生成器只生成指定名称的测试用例，并使用指定的随机种子运行它。
+   *
+   * @param name
+   *     待重放的测试用例的名称。
+   * @param seed
+   *     待重放的测试用例失败时报告的随机种子。
+   */
+  final void setReplay(final String name, final long seed) {
+    this.replayName = requireNonNull("name", name);
+    this.replaySeed = seed;
+  }
+
+  @Nullable
+  final String getReplayName() {
+    return replayName;
+  }
+
+  final long getReplaySeed() {
+    return replaySeed;
+  }
+
+  /**
+   * 判断此生成器生成的逐属性测试是否因{@link DaoTestParameters#getPropertyTestBudget()}
+   * 而只覆盖了部分候选属性。
+   *
+   * @return
+   *     若某类逐属性测试只选取了部分候选属性，返回{@code true}；否则返回{@code false}。
+   */
+  final boolean isTruncated() {
+    return truncated;
+  }
+
+  /**
+   * 用指定的种子重置此测试用例所用的随机生成器。
+   *
+   * @param seed
+   *     指定的随机种子。
+   */
+  protected void applySeed(final long seed) {
+    random.setSeed(seed);
+    registry.getLocalRandom().setSeed(seed);
+  }
+
   protected void setUp() throws Throwable {
     logger.info("Setting up test case ...");
     // do nothing
@@ -112,6 +155,69 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
     return builder.build();
   }
 
+  /**
+   * 为一组候选属性添加逐属性测试用例。
+   *
+   * <p>测试用例的数目和合并方式由{@link PropertyTestPlanner}根据当前的测试参数规划。
+   * 合并到同一测试用例中的属性被依次测试。</p>
+   *
+   * @param builder
+   *     用于添加测试用例的构建器。
+   * @param description
+   *     测试的描述，例如{@code "a null"}，用于构造测试用例的显示名称。
+   * @param candidates
+   *     所有候选属性。
+   * @param test
+   *     对单个属性进行的测试。
+   */
+  protected final void addPropertyTests(final DaoDynamicTestBuilder builder,
+      final String description, final List<Property> candidates,
+      final PropertyTest test) {
+    final List<List<Property>> plan = PropertyTestPlanner.plan(candidates,
+        parameters.getPropertyTestBudget(), parameters.getPropertyTestGroupSize(),
+        parameters.getPropertyTestRound(), methodName + ":" + description);
+    final int selected = plan.stream().mapToInt(List::size).sum();
+    if (selected < candidates.size()) {
+      truncated = true;
+      if (!parameters.isPropertyTestRoundSpecified()) {
+        logger.warn("Test {}: only {} of {} properties are tested with {} value, "
+            + "and the same properties are selected in every run since no round "
+            + "is specified. Set the system property {} or {} to rotate them.",
+            methodName, selected, candidates.size(), description,
+            DaoTestParameters.PROPERTY_TEST_ROUND_PROPERTY,
+            DaoTestHistory.HISTORY_ENABLED_PROPERTY);
+      }
+      logger.info("Test {}: {} of {} properties are tested with {} value in "
+          + "{} test cases of round {}.", methodName, selected, candidates.size(),
+          description, plan.size(), parameters.getPropertyTestRound());
+    }
+    for (final List<Property> group : plan) {
+      final StringBuilder names = new StringBuilder();
+      for (final Property prop : group) {
+        if (names.length() > 0) {
+          names.append(", ");
+        }
+        names.append(prop.getName());
+      }
+      final String displayName = getDisplayName(modelName + " with " + description
+          + " " + names);
+      builder.add(displayName, () -> {
+        for (final Property prop : group) {
+          test.run(prop);
+        }
+      });
+    }
+  }
+
+  /**
+   * 对单个属性进行的测试。
+   */
+  @FunctionalInterface
+  protected interface PropertyTest {
+
+    void run(Property prop) throws Throwable;
+  }
+
   /**
    * 获取当前测试用例的显示名称。
    *
@@ -243,11 +349,9 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
     } else if (actual == null) {
       fail(message);
     } else if (! expected.equals(actual)) {
-      for (final Property prop : modelInfo.getNonComputedProperties()) {
-        final Object expectedPropValue = prop.getValue(expected);
-        final Object actualPropValue = prop.getValue(actual);
-        assertValueEquals(prop.getType(), prop.isReference(), expectedPropValue,
-            actualPropValue, message);
+      final Difference diff = ModelComparator.of(modelInfo).compare(expected, actual);
+      if (diff != null) {
+        fail(message + " " + diff.getMessage());
       }
     }
   }
@@ -268,7 +372,7 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
       @Nullable final Object oldModel, @NotNull final Object newModel,
       @NotNull final Object updatedModel) {
     assert newModel != null && updatedModel != null;
-    for (final Property prop : methodInfo.getModifiedProperties()) {
+    for (final Property prop : methodInfo.getModifiedMask().getProperties()) {
       final Object oldValue = (oldModel == null ? null : prop.getValue(oldModel));
       final Object newValue = normalize(prop.getValue(newModel));
       final Object updatedValue = normalize(prop.getValue(updatedModel));
@@ -292,8 +396,7 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
   protected void checkUnmodifiedProperties(final DaoMethodInfo methodInfo,
       @NotNull final Object oldModel, @NotNull final Object updatedModel) {
     assert oldModel != null && updatedModel != null;
-    final Set<Property> unmodifiedProperties = methodInfo.getUnmodifiedProperties();
-    for (final Property prop : unmodifiedProperties) {
+    for (final Property prop : methodInfo.getUnmodifiedMask().getProperties()) {
       if (prop.isReadonly() || prop.isComputed()) {
         continue;
       }
@@ -310,7 +413,8 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
    * 确保实际的值和期望值一致。
    *
    * <p>此操作会考虑被比较的值的内部结构。如果是复杂的实体对象，还需考虑更新操作对其
-   * 带来的影响（即其某些属性会被改变某些属性不会被改变）。</p>
+   * 带来的影响（即其某些属性会被改变某些属性不会被改变）。具体的比较由
+   * {@link ModelComparator}完成。</p>
    *
    * @param type
    *     待比较的值的类型。
@@ -326,142 +430,11 @@ public abstract class DaoOperationTestGenerator<T> extends TestGenerator {
   protected void assertValueEquals(final Class<?> type, final boolean isReference,
       @Nullable final Object expected, @Nullable final Object actual,
       final String message) {
-    if (expected == null) {
-      assertNull(actual, message);
-    } else if (actual == null) {
-      fail(message);
-    } else if (type.isPrimitive()) {                // 处理primitive类型
-      assertEquals(expected, actual, message);
-    } else if (type.isArray()) {                    // 递归处理数组类型
-      assertArrayValueEquals(type, isReference, (Object[]) expected,
-          (Object[]) actual, message);
-    } else if (ClassUtils.isCollectionType(type)) { // 递归处理集合类型
-      assertCollectionValueEquals(type, isReference, (Collection<?>) expected,
-          (Collection<?>) actual, message);
-    } else if (ClassUtils.isCollectionType(type)) { // 递归处理集合类型
-      assertCollectionValueEquals(type, isReference, (Collection<?>) expected,
-          (Collection<?>) actual, message);
-    } else if (ClassUtils.isMapType(type)) {        // 递归处理映射类型
-      assertMapValueEquals(type, isReference, (Map<?, ?>) expected,
-          (Map<?, ?>) actual, message);
-    } else if (isReference) {                       // 若待比较的值是对某个实体对象的引用
-      final BeanInfo typeInfo = BeanInfo.of(type);
-      if (typeInfo.hasIdProperty()) {
-        // 若待比较的值是对某个实体对象的引用，且该值有ID属性，则比较其ID即可
-        final Object expectedId = typeInfo.getId(expected);
-        final Object actualId = typeInfo.getId(actual);
-        assertEquals(expectedId, actualId, message);
-      } else {
-        // 直接比较两个值是否绝对相等
-        assertValueAbsoluteEquals(type, expected, actual, message);
-      }
-    } else {    // 其他情况
-      // 直接比较两个值是否绝对相等
-      assertValueAbsoluteEquals(type, expected, actual, message);
-    }
-  }
-
-  /**
-   * 确保实际的数组和期望数组一致。
-   *
-   * <p>此操作会考虑被比较的数组元素的内部结构。如果是复杂的实体对象，还需考虑更新操作对其
-   * 带来的影响（即其某些属性会被改变某些属性不会被改变）。</p>
-   *
-   * <p>此函数将递归调用{@link #assertValueEquals(Class, boolean, Object, Object, String)}</p>
-   *
-   * @param type
-   *     待比较的数组的类型。
-   * @param expected
-   *     期望的数组。
-   * @param actual
-   *     实际的数组。
-   * @param message
-   *     错误消息。
-   */
-  private void assertArrayValueEquals(final Class<?> type, final boolean isReference,
-      final Object[] expected, final Object[] actual, final String message) {
-    assertEquals(expected.length, actual.length, message);
-    final Class<?> elementType = type.getComponentType();
-    for (int i = 0; i < expected.length; ++i) {
-      final Object expectedElement = expected[i];
-      final Object actualElement = actual[i];
-      assertValueEquals(elementType, isReference, expectedElement,
-          actualElement, message); // 递归调用
-    }
-  }
-
-  /**
-   * 确保实际的集合和期望集合一致。
-   *
-   * <p>此操作会考虑被比较的集合元素的内部结构。如果是复杂的实体对象，还需考虑更新操作对其
-   * 带来的影响（即其某些属性会被改变某些属性不会被改变）。</p>
-   *
-   * <p>此函数将递归调用{@link #assertValueEquals(Class, boolean, Object, Object, String)}</p>
-   *
-   * @param type
-   *     待比较的集合的类型。
-   * @param expected
-   *     期望的集合。
-   * @param actual
-   *     实际的集合。
-   * @param message
-   *     错误消息。
-   */
-  private void assertCollectionValueEquals(final Class<?> type, final boolean isReference,
-      final Collection<?> expected, final Collection<?> actual,
-      final String message) {
-    assertEquals(expected.size(), actual.size(), message);
-    // FIXME: 对于无序集合，比如Set，如何处理？
-    final Iterator<?> expectedIter = expected.iterator();
-    final Iterator<?> actualIter = actual.iterator();
-    while (expectedIter.hasNext()) {
-      final Object expectedElement = expectedIter.next();
-      final Object actualElement = actualIter.next();
-      if (expectedElement == null) {
-        assertNull(actualElement, message);
-      } else if (actualElement == null) {
-        fail(message);
-      } else {
-        final Class<?> elementType = expectedElement.getClass();
-        assertValueEquals(elementType, isReference, expectedElement,
-            actualElement, message); // 递归调用
-      }
-    }
-  }
-
-  /**
-   * 确保实际的映射和期望映射一致。
-   *
-   * <p>此操作会考虑被比较的映射的元素的内部结构。如果是复杂的实体对象，还需考虑更新操作对其
-   * 带来的影响（即其某些属性会被改变某些属性不会被改变）。</p>
-   *
-   * <p>此函数将递归调用{@link #assertValueEquals(Class, boolean, Object, Object, String)}</p>
-   *
-   * @param type
-   *     待比较的映射的类型。
-   * @param expected
-   *     期望的映射。
-   * @param actual
-   *     实际的映射。
-   * @param message
-   *     错误消息。
-   */
-  private void assertMapValueEquals(final Class<?> type, final boolean isReference,
-      final Map<?, ?> expected, final Map<?, ?> actual, final String message) {
-    assertEquals(expected.size(), actual.size(), message);
-    for (final Map.Entry<?, ?> entry : expected.entrySet()) {
-      final Object key = entry.getKey();
-      final Object expectedValue = entry.getValue();
-      final Object actualValue = actual.get(key);
-      if (expectedValue == null) {
-        assertNull(actualValue, message);
-      } else if (actualValue == null) {
-        fail(message);
-      } else {
-        final Class<?> elementType = expectedValue.getClass();
-        assertValueEquals(elementType, isReference, expectedValue,
-            actualValue, message); // 递归调用
-      }
+    // 以值的类型名称作为路径的根，以免错误消息中出现空的路径
+    final Difference diff = ModelComparator.compareValue(type, isReference, expected,
+        actual, type.getSimpleName());
+    if (diff != null) {
+      fail(message + " " + diff.getMessage());
     }
   }
 
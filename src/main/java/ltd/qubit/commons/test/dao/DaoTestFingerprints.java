@@ -0,0 +1,454 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.Property;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 记录每个模型的DAO测试在最近一次全部通过时的指纹，以便跳过未发生变化的DAO的测试。
+ *
+ * <p>模型的指纹由以下各个类的名称及其字节码计算得出：模型类及其超类、DAO接口及其超接口、
+ * DAO实现类及其超类（若DAO实现是JDK动态代理，则为其{@link InvocationHandler}的类及其
+ * 超类），以及该模型通过{@code @Reference}直接或间接引用的所有实体类及其DAO接口和实现类。
+ * 与DAO接口或实现类同名的XML映射文件（例如MyBatis的映射文件），以及通过
+ * {@link #addResource(String)}添加的资源（例如数据库的SQL脚本）的内容也参与计算。若某个
+ * 模型的指纹与其在之前的运行中最近一次全部通过时的指纹相同，则其测试不再生成；只要有任何
+ * 测试失败，其指纹记录即被删除。</p>
+ *
+ * <p>只有当系统属性{@value #ENABLED_PROPERTY}为{@code true}时，{@link #load()}才从文件
+ * 加载记录，否则返回一个只保存在内存中的空记录，即不跳过任何测试。记录文件的路径由系统属性
+ * {@value #FINGERPRINT_FILE_PROPERTY}指定，默认为{@value #DEFAULT_FINGERPRINT_FILE}。若
+ * 系统属性{@value #FORCE_PROPERTY}为{@code true}，则总是生成并运行所有的测试。</p>
+ *
+ * @author Haixing Hu
+ */
+public class DaoTestFingerprints {
+
+  /**
+   * 指定是否启用指纹记录的系统属性的名称。
+   */
+  public static final String ENABLED_PROPERTY = "qubit.test.fingerprints.enabled";
+
+  /**
+   * 指定记录文件路径的系统属性的名称。
+   */
+  public static final String FINGERPRINT_FILE_PROPERTY = "qubit.test.fingerprints";
+
+  /**
+   * 指定是否强制运行所有测试的系统属性的名称。
+   */
+  public static final String FORCE_PROPERTY = "qubit.test.force";
+
+  /**
+   * 默认的记录文件路径。
+   */
+  public static final String DEFAULT_FINGERPRINT_FILE = "target/dao-test-fingerprints.properties";
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final Logger logger = LoggerFactory.getLogger(DaoTestFingerprints.class);
+  @Nullable
+  private final Path file;
+
+  /**
+   * 之前的运行中全部通过的模型的指纹，加载后不再改变。
+   */
+  private final Properties previous = new Properties();
+
+  /**
+   * 待保存的全部通过的模型的指纹。
+   */
+  private final Properties green = new Properties();
+
+  private final Map<Class<?>, Run> runs = new HashMap<>();
+  private final List<String> resources = new ArrayList<>();
+  private boolean force;
+
+  /**
+   * 根据系统属性加载指纹记录。
+   *
+   * @return
+   *     若系统属性{@value #ENABLED_PROPERTY}为{@code true}，返回从记录文件加载的指纹
+   *     记录；否则返回一个只保存在内存中的空记录。
+   */
+  public static DaoTestFingerprints load() {
+    if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+      return new DaoTestFingerprints();
+    }
+    final String path = System.getProperty(FINGERPRINT_FILE_PROPERTY, DEFAULT_FINGERPRINT_FILE);
+    final DaoTestFingerprints result = new DaoTestFingerprints(Paths.get(path));
+    result.setForce(Boolean.getBoolean(FORCE_PROPERTY));
+    return result;
+  }
+
+  /**
+   * 创建一个只保存在内存中的空记录，它不会跳过任何测试。
+   */
+  public DaoTestFingerprints() {
+    this.file = null;
+  }
+
+  /**
+   * 从指定的记录文件加载指纹记录。
+   *
+   * @param file
+   *     记录文件的路径，若该文件不存在，则从空记录开始。
+   */
+  public DaoTestFingerprints(final Path file) {
+    this.file = requireNonNull("file", file);
+    if (Files.isRegularFile(file)) {
+      try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        previous.load(reader);
+      } catch (final IOException e) {
+        logger.warn("Failed to load the test fingerprints from {}: {}", file, e.getMessage());
+      }
+      green.putAll(previous);
+    }
+  }
+
+  /**
+   * 获取记录文件的路径。
+   *
+   * @return
+   *     记录文件的路径；若记录只保存在内存中，返回{@code null}。
+   */
+  @Nullable
+  public final Path getFile() {
+    return file;
+  }
+
+  /**
+   * 判断是否启用了指纹记录。
+   *
+   * @return
+   *     若指纹记录保存在记录文件中，返回{@code true}；若记录只保存在内存中，不会跳过任
+   *     何测试，因此无需计算指纹，返回{@code false}。
+   */
+  public final boolean isEnabled() {
+    return file != null;
+  }
+
+  public final boolean isForce() {
+    return force;
+  }
+
+  /**
+   * 设置是否强制生成并运行所有的测试，而不论其指纹是否发生变化。
+   *
+   * @param force
+   *     是否强制运行所有的测试。
+   */
+  public final void setForce(final boolean force) {
+    this.force = force;
+  }
+
+  /**
+   * 添加一个参与计算所有模型的指纹的资源，例如数据库的SQL脚本。
+   *
+   * @param name
+   *     资源在类路径中的名称，例如{@code "db/schema.sql"}。
+   */
+  public final synchronized void addResource(final String name) {
+    resources.add(requireNonNull("name", name));
+  }
+
+  /**
+   * 计算指定模型的指纹。
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   * @param daoInfos
+   *     获取已注册的模型的DAO信息的函数，对于未注册的模型返回{@code null}。
+   * @return
+   *     该模型的指纹。
+   */
+  public String compute(final Class<?> modelType,
+      final Function<Class<?>, DaoInfo> daoInfos) {
+    return compute(modelType, daoInfos, "");
+  }
+
+  /**
+   * 计算指定模型在指定测试设置下的指纹。
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   * @param daoInfos
+   *     获取已注册的模型的DAO信息的函数，对于未注册的模型返回{@code null}。
+   * @param settings
+   *     影响生成的测试的设置，例如随机种子；设置不同时指纹也不同。
+   * @return
+   *     该模型的指纹。
+   */
+  public String compute(final Class<?> modelType,
+      final Function<Class<?>, DaoInfo> daoInfos, final String settings) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    // 按广度优先的顺序收集模型及其传递引用的所有实体类
+    final Set<Class<?>> models = new LinkedHashSet<>();
+    final Deque<Class<?>> queue = new ArrayDeque<>();
+    models.add(modelType);
+    queue.add(modelType);
+    while (!queue.isEmpty()) {
+      final Class<?> type = queue.remove();
+      for (final Property prop : BeanInfo.of(type).getProperties()) {
+        if (prop.isReference()) {
+          final Class<?> entity = prop.getReferenceEntity();
+          if (entity != null && models.add(entity)) {
+            queue.add(entity);
+          }
+        }
+      }
+    }
+    digest.update(settings.getBytes(StandardCharsets.UTF_8));
+    for (final Class<?> model : models) {
+      updateHierarchy(digest, model);
+      final DaoInfo daoInfo = daoInfos.apply(model);
+      if (daoInfo != null) {
+        final Class<?> daoType = daoInfo.getDaoType();
+        updateInterfaces(digest, daoType, new LinkedHashSet<>());
+        updateMapper(digest, daoType);
+        final Object dao = daoInfo.getDao();
+        final Class<?> daoImplType = dao.getClass();
+        if (Proxy.isProxyClass(daoImplType)) {
+          // 代理类的名称在每次运行时都可能不同，其行为由其接口及调用处理器决定
+          updateHierarchy(digest, Proxy.getInvocationHandler(dao).getClass());
+        } else {
+          updateHierarchy(digest, daoImplType);
+          updateMapper(digest, daoImplType);
+        }
+      }
+    }
+    for (final String name : getResources()) {
+      digest.update(name.getBytes(StandardCharsets.UTF_8));
+      final ClassLoader loader = modelType.getClassLoader();
+      try (final InputStream in = (loader == null
+                                   ? ClassLoader.getSystemResourceAsStream(name)
+                                   : loader.getResourceAsStream(name))) {
+        update(digest, name, in);
+      } catch (final IOException e) {
+        logger.warn("Failed to read the resource {}: {}", name, e.getMessage());
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  private synchronized List<String> getResources() {
+    return new ArrayList<>(resources);
+  }
+
+  private void updateHierarchy(final MessageDigest digest, final Class<?> type) {
+    for (Class<?> t = type; isUserClass(t); t = t.getSuperclass()) {
+      update(digest, t);
+    }
+  }
+
+  private void updateInterfaces(final MessageDigest digest, final Class<?> type,
+      final Set<Class<?>> visited) {
+    if (isUserClass(type) && visited.add(type)) {
+      update(digest, type);
+      for (final Class<?> parent : type.getInterfaces()) {
+        updateInterfaces(digest, parent, visited);
+      }
+    }
+  }
+
+  private void updateMapper(final MessageDigest digest, final Class<?> type) {
+    final String resource = "/" + type.getName().replace('.', '/') + ".xml";
+    try (final InputStream in = type.getResourceAsStream(resource)) {
+      if (in != null) {
+        update(digest, resource, in);
+      }
+    } catch (final IOException e) {
+      logger.warn("Failed to read the mapper {}: {}", resource, e.getMessage());
+    }
+  }
+
+  private static boolean isUserClass(@Nullable final Class<?> type) {
+    return (type != null) && (type != Object.class) && !type.getName().startsWith("java");
+  }
+
+  private void update(final MessageDigest digest, @Nullable final Class<?> type) {
+    if (type == null) {
+      return;
+    }
+    digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+    final String resource = "/" + type.getName().replace('.', '/') + ".class";
+    try (final InputStream in = type.getResourceAsStream(resource)) {
+      update(digest, resource, in);
+    } catch (final IOException e) {
+      logger.warn("Failed to read the bytecode of {}: {}", type.getName(), e.getMessage());
+    }
+  }
+
+  private static void update(final MessageDigest digest, final String name,
+      @Nullable final InputStream in) throws IOException {
+    if (in == null) {
+      return;
+    }
+    digest.update(name.getBytes(StandardCharsets.UTF_8));
+    final byte[] buffer = new byte[8192];
+    int n;
+    while ((n = in.read(buffer)) > 0) {
+      digest.update(buffer, 0, n);
+    }
+  }
+
+  private static String toHex(final byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+      chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * 判断指定模型的测试自其在之前的运行中最近一次全部通过以来是否未发生变化。
+   *
+   * <p>只有加载记录时已有的指纹才会被比较，因此同一次运行中多次生成同一模型的测试时，
+   * 每次都会生成全部的测试。</p>
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   * @param fingerprint
+   *     该模型当前的指纹。
+   * @return
+   *     若未强制运行所有测试，且该模型当前的指纹与其最近一次全部通过时的指纹相同，返回
+   *     {@code true}；否则返回{@code false}。
+   */
+  public synchronized boolean isUnchanged(final Class<?> modelType,
+      final String fingerprint) {
+    return (!force) && fingerprint.equals(previous.getProperty(modelType.getName()));
+  }
+
+  /**
+   * 开始跟踪指定模型的一次完整测试运行。
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   * @param fingerprint
+   *     该模型当前的指纹。
+   * @param tests
+   *     此次运行的测试用例数目。
+   */
+  public synchronized void begin(final Class<?> modelType, final String fingerprint,
+      final int tests) {
+    if (tests == 0) {
+      return;
+    }
+    runs.put(modelType, new Run(fingerprint, tests));
+    // 在此次运行全部通过之前，该模型不被视为未变化
+    if (green.remove(modelType.getName()) != null) {
+      save();
+    }
+  }
+
+  /**
+   * 放弃记录指定模型的此次测试运行，例如此次运行只包含部分测试，或其随机种子不可重现。
+   *
+   * <p>该模型之前的指纹记录也被删除，因此下次运行时仍会生成其全部测试。</p>
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   */
+  public synchronized void discard(final Class<?> modelType) {
+    runs.remove(modelType);
+    if (green.remove(modelType.getName()) != null) {
+      save();
+    }
+  }
+
+  /**
+   * 记录指定模型的一个测试用例运行结束。
+   *
+   * <p>当被跟踪的运行中所有的测试用例都通过时，保存该模型的指纹。</p>
+   *
+   * @param modelType
+   *     指定的模型的类型。
+   * @param failed
+   *     该测试用例是否失败。
+   */
+  public synchronized void finish(final Class<?> modelType, final boolean failed) {
+    final Run run = runs.get(modelType);
+    if (run == null) {
+      return;
+    }
+    if (failed) {
+      runs.remove(modelType);
+    } else if (--run.pending == 0) {
+      runs.remove(modelType);
+      green.setProperty(modelType.getName(), run.fingerprint);
+      save();
+    }
+  }
+
+  private void save() {
+    if (file == null) {
+      return;
+    }
+    try {
+      final Path dir = file.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      final Path temp = Files.createTempFile(dir, "dao-test-fingerprints", ".tmp");
+      try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        green.store(writer, "Fingerprints of models whose DAO tests passed");
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      logger.warn("Failed to save the test fingerprints to {}: {}", file, e.getMessage());
+    }
+  }
+
+  private static final class Run {
+    private final String fingerprint;
+    private int pending;
+
+    private Run(final String fingerprint, final int pending) {
+      this.fingerprint = fingerprint;
+      this.pending = pending;
+    }
+  }
+}
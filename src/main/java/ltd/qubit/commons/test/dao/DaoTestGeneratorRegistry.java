@@ -14,6 +14,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import ltd.qubit.commons.lang.ClassKey;
 import ltd.qubit.commons.random.RandomBeanGenerator;
@@ -42,6 +44,13 @@ public class DaoTestGeneratorRegistry {
   private final Map<ClassKey, DaoInfo> daoInfoRegistry = new HashMap<>();
   private final DaoTestParameters parameters = new DaoTestParameters();
   private final RandomBeanGenerator random = new RandomBeanGenerator();
+  private Supplier<RandomBeanGenerator> localRandomFactory = RandomBeanGenerator::new;
+  private final ThreadLocal<RandomBeanGenerator> localRandom =
+      ThreadLocal.withInitial(() -> localRandomFactory.get());
+  private DaoTestHistory history = DaoTestHistory.load();
+  private DaoTestFingerprints fingerprints = DaoTestFingerprints.load();
+  private DaoTestSharding sharding = DaoTestSharding.load();
+  private Set<String> shardMethods;
 
   public DaoTestGeneratorRegistry() {}
 
@@ -57,6 +66,126 @@ public class DaoTestGeneratorRegistry {
     return random;
   }
 
+  /**
+   * 获取当前线程专属的随机Bean生成器。
+   *
+   * <p>该生成器仅被当前线程使用，因此调用者可以临时修改其参数(例如非空字段集合)，而不
+   * 会影响其他线程或{@link #getRandom()}返回的共享生成器。它由
+   * {@link #setLocalRandomFactory(Supplier)}设置的工厂在每个线程中创建一次，
+   * {@link BeanCreator}在并行地准备Bean时，其工作线程使用它生成随机Bean。</p>
+   *
+   * @return
+   *     当前线程专属的随机Bean生成器。
+   */
+  public final RandomBeanGenerator getLocalRandom() {
+    return localRandom.get();
+  }
+
+  /**
+   * 用{@link #setLocalRandomFactory(Supplier)}设置的工厂创建一个新的随机Bean生成器。
+   *
+   * <p>{@link BeanCreator}在准备需要非空属性的Bean时使用它，以免修改共享的或线程专属
+   * 的生成器的参数。</p>
+   *
+   * @return
+   *     新创建的随机Bean生成器。
+   */
+  RandomBeanGenerator newRandom() {
+    return localRandomFactory.get();
+  }
+
+  /**
+   * 设置创建线程专属的随机Bean生成器的工厂。
+   *
+   * <p>默认的工厂创建使用默认参数的生成器。若为{@link #getRandom()}返回的共享生成器
+   * 配置了参数(例如自定义的随机化器或排除的字段)，且需要并行地准备Bean，则应提供一个
+   * 以相同方式配置生成器的工厂；准备需要非空属性的Bean时，也使用此工厂创建该次调用
+   * 专属的生成器。此设置仅影响之后才首次获取生成器的线程，以及之后的调用。</p>
+   *
+   * @param factory
+   *     创建线程专属的随机Bean生成器的工厂，每次调用必须返回一个新的生成器。
+   */
+  public final void setLocalRandomFactory(final Supplier<RandomBeanGenerator> factory) {
+    this.localRandomFactory = requireNonNull("factory", factory);
+  }
+
+  /**
+   * 获取之前运行中失败或耗时较长的测试用例的记录。
+   *
+   * <p>生成的测试中，之前失败的DAO方法及测试用例排在最前面，其次是耗时较长的，以便尽快
+   * 得到反馈。</p>
+   *
+   * @return
+   *     测试用例的运行记录。
+   */
+  public final DaoTestHistory getHistory() {
+    return history;
+  }
+
+  public final void setHistory(final DaoTestHistory history) {
+    this.history = requireNonNull("history", history);
+  }
+
+  /**
+   * 获取各模型的DAO测试最近一次全部通过时的指纹记录。
+   *
+   * <p>若设置了系统属性{@value DaoTestFingerprints#ENABLED_PROPERTY}，且某个模型、其DAO
+   * 其传递引用的实体的类以及影响所生成测试的参数均未发生变化，则{@link #generate(Class)}不再为其生成测试。
+   * 只有在固定的随机种子下运行了全部测试，且全部通过时，才会记录模型的指纹。调用
+   * {@link DaoTestFingerprints#setForce(boolean)}或设置系统属性
+   * {@value DaoTestFingerprints#FORCE_PROPERTY}可以强制运行所有的测试。</p>
+   *
+   * @return
+   *     各模型的指纹记录。
+   */
+  public final DaoTestFingerprints getFingerprints() {
+    return fingerprints;
+  }
+
+  public final void setFingerprints(final DaoTestFingerprints fingerprints) {
+    this.fingerprints = requireNonNull("fingerprints", fingerprints);
+  }
+
+  /**
+   * 获取当前的分片设置。
+   *
+   * <p>启用分片时，{@link #generate(Class)}只生成属于当前分片的DAO方法的测试。</p>
+   *
+   * @return
+   *     当前的分片设置。
+   */
+  public final DaoTestSharding getSharding() {
+    return sharding;
+  }
+
+  public final synchronized void setSharding(final DaoTestSharding sharding) {
+    this.sharding = requireNonNull("sharding", sharding);
+    this.shardMethods = null;
+  }
+
+  /**
+   * 判断指定的DAO方法是否属于当前分片。
+   *
+   * <p>划分在所有已注册的DAO的方法上进行，并在第一次调用时计算。</p>
+   */
+  private synchronized boolean isInShard(final DaoMethodInfo method) {
+    if (!sharding.isEnabled()) {
+      return true;
+    }
+    if (shardMethods == null) {
+      final List<String> methods = new ArrayList<>();
+      for (final DaoInfo info : daoInfoRegistry.values()) {
+        for (final DaoMethodInfo m : info.getMethodInfoMap().values()) {
+          methods.add(m.getSignature());
+        }
+      }
+      shardMethods = sharding.select(methods);
+      logger.info("Shard {} of {}: {} of {} DAO methods are selected.",
+          sharding.getIndex(), sharding.getCount(), shardMethods.size(), methods.size());
+    }
+    return shardMethods.contains(method.getSignature());
+  }
+
   public final DaoTestGeneratorRegistry register(final Class<?> modelType,
       final Object dao) {
     final BeanInfo beanInfo = BeanInfo.of(modelType);
@@ -69,6 +198,9 @@ public class DaoTestGeneratorRegistry {
     daoRegistry.put(key, dao);
     modelInfoRegistry.put(key, beanInfo);
     daoInfoRegistry.put(key, daoInfo);
+    synchronized (this) {
+      shardMethods = null;
+    }
     return this;
   }
 
@@ -111,24 +243,75 @@ public class DaoTestGeneratorRegistry {
     return new TestGenerator(random, parameters) {
       @Override
       public List<DynamicNode> generate() throws Exception {
+        // 未启用指纹记录时不会跳过任何测试，无需计算整个引用图的指纹
+        final String fingerprint = (fingerprints.isEnabled()
+            ? fingerprints.compute(modelType, registry::getDaoInfo, getFingerprintSettings())
+            : null);
+        if (fingerprint != null && fingerprints.isUnchanged(modelType, fingerprint)) {
+          logger.info("Skip the DAO tests of {} since it is unchanged since the "
+              + "last passed run.", modelType.getSimpleName());
+          return new ArrayList<>();
+        }
         final Map<Method, DaoMethodInfo> methodInfoMap = daoInfo.getMethodInfoMap();
         final List<DynamicNode> result = new ArrayList<>();
+        int tests = 0;
+        boolean truncated = false;
         final List<DaoMethodInfo> methodInfos = new ArrayList<>(methodInfoMap.values());
         Collections.sort(methodInfos);
+        // 之前失败或耗时较长的方法优先
+        history.sort(methodInfos, (m) -> history.getPriority(m.getSignature()));
+        methodInfos.removeIf((m) -> !isInShard(m));
         for (final DaoMethodInfo method : methodInfos) {
           final DaoOperation operation = method.getOperation();
           final DaoOperationTestGenerator<T> generator =
               operation.getGenerator(registry, modelType, method);
           generator.setRandom(registry.random);
           final String displayName = generator.getDisplayName("");
-          final DynamicNode node = dynamicContainer(displayName, generator.generate());
-          result.add(node);
+          final List<DynamicNode> children = generator.generate();
+          tests += children.size();
+          truncated |= generator.isTruncated();
+          result.add(dynamicContainer(displayName, children));
+        }
+        // 单个分片无法确定该模型的所有测试是否都通过；部分属性的测试或不可重现的随机种子
+        // 下的通过也不能说明该模型在下次运行时仍会通过
+        if (fingerprint == null || sharding.isEnabled()) {
+          return result;
+        } else if (truncated || !parameters.isSeedFixed()) {
+          fingerprints.discard(modelType);
+        } else {
+          fingerprints.begin(modelType, fingerprint, tests);
         }
         return result;
       }
     };
   }
 
+  /**
+   * 获取参与计算模型指纹的测试参数。
+   *
+   * <p>所有影响所生成测试的参数都必须包含在内，否则修改这些参数后，未变化的模型的测试
+   * 会被错误地跳过。</p>
+   *
+   * @return
+   *     参与计算模型指纹的测试参数。
+   */
+  private String getFingerprintSettings() {
+    // 逐属性测试的轮次只在候选属性可能被截断时才影响所生成的测试；若总是参与计算，
+    // 则启用测试记录后轮次每次运行都会变化，任何模型的测试都不会被跳过
+    final boolean truncatable = (parameters.getPropertyTestBudget()
+        != DaoTestParameters.DEFAULT_PROPERTY_TEST_BUDGET);
+    return "seed=" + parameters.getSeed()
+        + ",loops=" + parameters.getLoops()
+        + ",tableSize=" + parameters.getTableSize()
+        + ",collectionSize=" + parameters.getCollectionSize()
+        + ",maxReferenceDepth=" + parameters.getMaxReferenceDepth()
+        + ",maxReferenceBreadth=" + parameters.getMaxReferenceBreadth()
+        + ",propertyTestBudget=" + parameters.getPropertyTestBudget()
+        + (truncatable ? ",propertyTestRound=" + parameters.getPropertyTestRound() : "")
+        + ",propertyTestGroupSize=" + parameters.getPropertyTestGroupSize()
+        + ",concurrentReaders=" + parameters.getConcurrentReaders();
+  }
+
   public TestGenerator getGenerator(final Class<?> modelType, final String methodName) {
     final ClassKey key = new ClassKey(requireNonNull("modelType", modelType));
     final Object dao = daoRegistry.get(key);
@@ -146,4 +329,31 @@ public class DaoTestGeneratorRegistry {
     final DaoOperation operation = methodInfo.getOperation();
     return operation.getGenerator(this, modelType, methodInfo);
   }
+
+  /**
+   * 用指定的随机种子重新生成单个测试用例。
+   *
+   * <p>测试用例失败时会报告其随机种子以及调用此函数所需的参数。</p>
+   *
+   * @param modelType
+   *     被测试的模型的类型。
+   * @param methodName
+   *     被测试的DAO方法的名称。
+   * @param testName
+   *     待重放的测试用例的名称。
+   * @param seed
+   *     待重放的测试用例失败时报告的随机种子。
+   * @return
+   *     只包含指定测试用例的动态测试列表。
+   * @throws Exception
+   *     如果出现任何错误。
+   */
+  public <T> List<DynamicNode> replay(final Class<T> modelType,
+      final String methodName, final String testName, final long seed)
+      throws Exception {
+    final DaoOperationTestGenerator<?> generator =
+        (DaoOperationTestGenerator<?>) getGenerator(modelType, methodName);
+    generator.setReplay(testName, seed);
+    return generator.generate();
+  }
 }
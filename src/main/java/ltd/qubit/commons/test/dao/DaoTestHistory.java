@@ -0,0 +1,350 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 记录之前运行中失败或耗时较长的DAO测试用例，以便下次运行时优先执行它们。
+ *
+ * <p>每个测试用例由其DAO方法的签名（参见{@link DaoMethodInfo#getSignature()}）和显示名称
+ * 标识。失败的测试用例排在最前面，其次是
+ * 耗时超过阈值的测试用例（按耗时从长到短排列），其余测试用例保持原有顺序。测试用例再次
+ * 通过且未超过阈值时，其记录会被删除。</p>
+ *
+ * <p>此外还记录每个DAO方法的所有测试用例的总耗时。将某次运行保存的记录文件作为耗时快照
+ * 提供给{@link DaoTestSharding}，即可在多个分片之间均衡地分配测试。</p>
+ *
+ * <p>记录文件中还保存了运行的轮次，每次从文件加载记录时加1，用作默认的逐属性测试轮次
+ * （参见{@link DaoTestParameters#getPropertyTestRound()}），以便连续的运行轮换测试不同的
+ * 属性。</p>
+ *
+ * <p>只有当系统属性{@value #HISTORY_ENABLED_PROPERTY}为{@code true}时，{@link #load()}
+ * 才从文件加载记录，否则记录只保存在内存中。记录文件的路径由系统属性
+ * {@value #HISTORY_FILE_PROPERTY}指定，默认为{@value #DEFAULT_HISTORY_FILE}。同一个JVM中
+ * 所有的{@link #load()}调用共享同一个记录，该记录在JVM退出时写入文件一次。</p>
+ *
+ * @author Haixing Hu
+ */
+public class DaoTestHistory {
+
+  /**
+   * 指定是否将测试记录保存到文件的系统属性的名称。
+   */
+  public static final String HISTORY_ENABLED_PROPERTY = "qubit.test.history.enabled";
+
+  /**
+   * 指定记录文件路径的系统属性的名称。
+   */
+  public static final String HISTORY_FILE_PROPERTY = "qubit.test.history";
+
+  /**
+   * 默认的记录文件路径。
+   */
+  public static final String DEFAULT_HISTORY_FILE = "target/dao-test-history.properties";
+
+  /**
+   * 默认的慢测试阈值，单位为毫秒。
+   */
+  public static final long DEFAULT_SLOW_THRESHOLD = 1000;
+
+  private static final String FAILED = "failed";
+
+  private static final String SEPARATOR = " # ";
+
+  private static final String COST_PREFIX = "@";
+
+  private static final String ROUND = "$round";
+
+  private final Logger logger = LoggerFactory.getLogger(DaoTestHistory.class);
+  @Nullable
+  private final Path file;
+  private final long slowThreshold;
+
+  /**
+   * 本次运行的轮次。
+   */
+  private long round;
+
+  /**
+   * 测试用例的键到其优先级的映射；失败的测试用例的优先级为{@link Long#MAX_VALUE}，
+   * 慢测试用例的优先级为其耗时。
+   */
+  private final Map<String, Long> tests = new ConcurrentHashMap<>();
+
+  /**
+   * DAO方法的签名到其测试用例的最高优先级的映射。
+   */
+  private final Map<String, Long> methods = new ConcurrentHashMap<>();
+
+  /**
+   * 之前的运行中各个DAO方法的测试用例的总耗时，单位为毫秒。
+   */
+  private final Map<String, Long> costs = new ConcurrentHashMap<>();
+
+  /**
+   * 本次运行中各个DAO方法的测试用例的总耗时，单位为毫秒。
+   */
+  private final Map<String, Long> currentCosts = new ConcurrentHashMap<>();
+
+  /**
+   * 同一个JVM中共享的、从记录文件加载的测试记录。
+   */
+  @Nullable
+  private static DaoTestHistory shared;
+
+  /**
+   * 根据系统属性加载测试记录。
+   *
+   * @return
+   *     若系统属性{@value #HISTORY_ENABLED_PROPERTY}为{@code true}，返回同一个JVM中共享
+   *     的、从记录文件加载的测试记录，它在JVM退出时被写回文件；否则返回一个只保存在内存中
+   *     的空记录。
+   */
+  public static synchronized DaoTestHistory load() {
+    if (!Boolean.getBoolean(HISTORY_ENABLED_PROPERTY)) {
+      return new DaoTestHistory(DEFAULT_SLOW_THRESHOLD);
+    }
+    if (shared == null) {
+      final String path = System.getProperty(HISTORY_FILE_PROPERTY, DEFAULT_HISTORY_FILE);
+      final DaoTestHistory history = new DaoTestHistory(Paths.get(path),
+          DEFAULT_SLOW_THRESHOLD);
+      Runtime.getRuntime().addShutdownHook(new Thread(history::save, "dao-test-history"));
+      shared = history;
+    }
+    return shared;
+  }
+
+  /**
+   * 从指定的记录文件加载各个DAO方法的测试用例的总耗时。
+   *
+   * @param file
+   *     记录文件的路径。
+   * @return
+   *     DAO方法的签名到其测试用例的总耗时的不可修改的映射，单位为毫秒；若该文件不存在，
+   *     返回空映射。
+   */
+  public static Map<String, Long> loadCosts(final Path file) {
+    return Collections.unmodifiableMap(new DaoTestHistory(file, DEFAULT_SLOW_THRESHOLD).costs);
+  }
+
+  /**
+   * 创建一个只保存在内存中的空记录。
+   *
+   * @param slowThreshold
+   *     慢测试阈值，单位为毫秒。
+   */
+  public DaoTestHistory(final long slowThreshold) {
+    this.file = null;
+    this.slowThreshold = slowThreshold;
+  }
+
+  /**
+   * 从指定的记录文件加载测试记录。
+   *
+   * @param file
+   *     记录文件的路径，若该文件不存在，则从空记录开始。
+   * @param slowThreshold
+   *     慢测试阈值，单位为毫秒。
+   */
+  public DaoTestHistory(final Path file, final long slowThreshold) {
+    this.file = requireNonNull("file", file);
+    this.slowThreshold = slowThreshold;
+    if (Files.isRegularFile(file)) {
+      final Properties properties = new Properties();
+      try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        properties.load(reader);
+      } catch (final IOException e) {
+        logger.warn("Failed to load the test history from {}: {}", file, e.getMessage());
+      }
+      for (final String key : properties.stringPropertyNames()) {
+        final String value = properties.getProperty(key);
+        try {
+          if (key.equals(ROUND)) {
+            round = Long.parseLong(value) + 1;
+            continue;
+          }
+          if (key.startsWith(COST_PREFIX)) {
+            costs.put(key.substring(COST_PREFIX.length()), Long.parseLong(value));
+            continue;
+          }
+          final long priority = (FAILED.equals(value) ? Long.MAX_VALUE : Long.parseLong(value));
+          tests.put(key, priority);
+          methods.merge(getMethodName(key), priority, Math::max);
+        } catch (final NumberFormatException e) {
+          logger.warn("Ignore the invalid test history entry: {} = {}", key, value);
+        }
+      }
+    }
+  }
+
+  /**
+   * 获取记录文件的路径。
+   *
+   * @return
+   *     记录文件的路径；若记录只保存在内存中，返回{@code null}。
+   */
+  @Nullable
+  public final Path getFile() {
+    return file;
+  }
+
+  public final long getSlowThreshold() {
+    return slowThreshold;
+  }
+
+  /**
+   * 获取本次运行的轮次。
+   *
+   * @return
+   *     本次运行的轮次，即记录文件中保存的上次运行的轮次加1；若记录只保存在内存中或记录
+   *     文件中没有轮次，返回0。
+   */
+  public final long getRound() {
+    return round;
+  }
+
+  private static String getKey(final String methodName, final String testName) {
+    return methodName + SEPARATOR + testName;
+  }
+
+  private static String getMethodName(final String key) {
+    final int pos = key.indexOf(SEPARATOR);
+    return (pos < 0 ? key : key.substring(0, pos));
+  }
+
+  /**
+   * 获取指定测试用例的优先级。
+   *
+   * @param methodName
+   *     DAO方法的签名。
+   * @param testName
+   *     测试用例的显示名称。
+   * @return
+   *     该测试用例的优先级，值越大越先执行；没有记录的测试用例的优先级为0。
+   */
+  public long getPriority(final String methodName, final String testName) {
+    return tests.getOrDefault(getKey(methodName, testName), 0L);
+  }
+
+  /**
+   * 获取指定DAO方法的优先级，即其所有测试用例的最高优先级。
+   *
+   * @param methodName
+   *     DAO方法的签名。
+   * @return
+   *     该DAO方法的优先级，值越大越先执行；没有记录的方法的优先级为0。
+   */
+  public long getPriority(final String methodName) {
+    return methods.getOrDefault(methodName, 0L);
+  }
+
+  /**
+   * 获取之前的运行中指定DAO方法的所有测试用例的总耗时。
+   *
+   * @param methodName
+   *     DAO方法的签名。
+   * @return
+   *     该DAO方法的所有测试用例的总耗时，单位为毫秒；若没有记录，返回0。
+   */
+  public long getCost(final String methodName) {
+    return costs.getOrDefault(methodName, 0L);
+  }
+
+  /**
+   * 按优先级从高到低稳定地排序指定的列表。
+   *
+   * @param list
+   *     待排序的列表。
+   * @param priority
+   *     获取列表元素优先级的函数。
+   */
+  public <E> void sort(final List<E> list, final Function<E, Long> priority) {
+    list.sort(Comparator.comparing(priority, Comparator.reverseOrder()));
+  }
+
+  /**
+   * 记录一次测试用例的运行结果。
+   *
+   * <p>记录只保存在内存中，调用{@link #save()}才会写入文件。</p>
+   *
+   * @param methodName
+   *     DAO方法的签名。
+   * @param testName
+   *     测试用例的显示名称。
+   * @param failed
+   *     该测试用例是否失败。
+   * @param millis
+   *     该测试用例的耗时，单位为毫秒。
+   */
+  public void record(final String methodName, final String testName,
+      final boolean failed, final long millis) {
+    final String key = getKey(methodName, testName);
+    currentCosts.merge(methodName, millis, Long::sum);
+    if (failed) {
+      tests.put(key, Long.MAX_VALUE);
+    } else if (millis >= slowThreshold) {
+      tests.put(key, millis);
+    } else {
+      tests.remove(key);
+    }
+  }
+
+  /**
+   * 将测试记录写入记录文件；若记录只保存在内存中，则什么也不做。
+   */
+  public synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    final Properties properties = new Properties();
+    properties.setProperty(ROUND, String.valueOf(round));
+    tests.forEach((key, priority) -> properties.setProperty(key,
+        priority == Long.MAX_VALUE ? FAILED : String.valueOf(priority)));
+    costs.forEach((method, cost) -> properties.setProperty(COST_PREFIX + method,
+        String.valueOf(cost)));
+    currentCosts.forEach((method, cost) -> properties.setProperty(COST_PREFIX + method,
+        String.valueOf(cost)));
+    try {
+      final Path dir = file.toAbsolutePath().getParent();
+      if (dir != null) {
+        Files.createDirectories(dir);
+      }
+      final Path temp = Files.createTempFile(dir, "dao-test-history", ".tmp");
+      try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        properties.store(writer, "Failed or slow DAO tests of previous runs");
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      logger.warn("Failed to save the test history to {}: {}", file, e.getMessage());
+    }
+  }
+}
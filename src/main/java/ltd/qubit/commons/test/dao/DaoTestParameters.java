@@ -10,8 +10,12 @@ package ltd.qubit.commons.test.dao;
 
 import ltd.qubit.commons.lang.Equality;
 import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.test.RandomSeeds;
 import ltd.qubit.commons.text.tostring.ToStringBuilder;
 
+import static ltd.qubit.commons.lang.Argument.requireNonNegative;
+import static ltd.qubit.commons.lang.Argument.requirePositive;
+
 /**
  * 提供DAO自动化测试的参数。
  *
@@ -25,6 +29,21 @@ public class DaoTestParameters {
 
   public static final int DEFAULT_TABLE_SIZE = 10;
 
+  public static final int DEFAULT_MAX_REFERENCE_DEPTH = Integer.MAX_VALUE;
+
+  public static final int DEFAULT_MAX_REFERENCE_BREADTH = Integer.MAX_VALUE;
+
+  public static final int DEFAULT_PROPERTY_TEST_BUDGET = Integer.MAX_VALUE;
+
+  public static final int DEFAULT_PROPERTY_TEST_GROUP_SIZE = 1;
+
+  public static final int DEFAULT_CONCURRENT_READERS = 0;
+
+  /**
+   * 指定逐属性测试的轮次的系统属性的名称，例如可设置为CI的构建序号。
+   */
+  public static final String PROPERTY_TEST_ROUND_PROPERTY = "qubit.test.property.round";
+
   /**
    * 随机测试重复次数。
    */
@@ -40,10 +59,83 @@ public class DaoTestParameters {
    */
   private int tableSize;
 
+  /**
+   * 随机测试的主种子，每个测试用例的随机种子由其派生。
+   */
+  private long seed;
+
+  /**
+   * 主种子是否是固定的，即由系统属性{@value RandomSeeds#MASTER_SEED_PROPERTY}或
+   * {@link #setSeed(long)}指定，而不是每次运行时随机选取的。
+   */
+  private boolean seedFixed;
+
+  /**
+   * 准备随机Bean时，引用实体链的最大深度。超出此深度的可为空的引用属性会被设置为
+   * {@code null}，不可为空的引用属性会导致准备失败。
+   */
+  private int maxReferenceDepth;
+
+  /**
+   * 准备随机Bean时，每个集合或数组引用属性中被引用实体的最大数目。若该属性的
+   * {@code @Size}标注的下限大于此数目，则按其下限生成。
+   */
+  private int maxReferenceBreadth;
+
+  /**
+   * 每个DAO方法的每类逐属性测试（例如空值、超长值、重复值测试）最多测试的属性数目。
+   * 候选属性多于此数目时，按{@link #propertyTestRound}轮换选取其中的一部分。
+   */
+  private int propertyTestBudget;
+
+  /**
+   * 逐属性测试的轮次。候选属性多于{@link #propertyTestBudget}时，轮次每增加1，选取的
+   * 属性就向后轮换一个窗口。默认值由系统属性{@value #PROPERTY_TEST_ROUND_PROPERTY}指定；
+   * 若未指定，则在主种子被固定时取主种子，在启用了{@link DaoTestHistory}记录文件时取其
+   * 保存的运行轮次（参见{@link DaoTestHistory#getRound()}），否则取0，即总是选取同一个
+   * 窗口。
+   */
+  private long propertyTestRound;
+
+  /**
+   * 逐属性测试的轮次是否是指定的，即由系统属性、主种子、测试记录或
+   * {@link #setPropertyTestRound(long)}给出，而不是默认的0。
+   */
+  private boolean propertyTestRoundSpecified;
+
+  /**
+   * 逐属性测试中合并到同一个测试用例中的属性数目。合并后的测试用例共享一次准备和清理过程。
+   */
+  private int propertyTestGroupSize;
+
+  /**
+   * 并发读取测试中的读线程数目；为0时不生成并发读取测试。
+   */
+  private int concurrentReaders;
+
   public DaoTestParameters() {
     loops = DEFAULT_LOOPS;
     collectionSize = DEFAULT_COLLECTION_SIZE;
     tableSize = DEFAULT_TABLE_SIZE;
+    seed = RandomSeeds.getMasterSeed();
+    seedFixed = RandomSeeds.isMasterSeedFixed();
+    maxReferenceDepth = DEFAULT_MAX_REFERENCE_DEPTH;
+    maxReferenceBreadth = DEFAULT_MAX_REFERENCE_BREADTH;
+    propertyTestBudget = DEFAULT_PROPERTY_TEST_BUDGET;
+    final Long round = Long.getLong(PROPERTY_TEST_ROUND_PROPERTY);
+    if (round != null) {
+      propertyTestRound = round;
+      propertyTestRoundSpecified = true;
+    } else if (seedFixed) {
+      propertyTestRound = seed;
+      propertyTestRoundSpecified = true;
+    } else {
+      final DaoTestHistory history = DaoTestHistory.load();
+      propertyTestRound = history.getRound();
+      propertyTestRoundSpecified = (history.getFile() != null);
+    }
+    propertyTestGroupSize = DEFAULT_PROPERTY_TEST_GROUP_SIZE;
+    concurrentReaders = DEFAULT_CONCURRENT_READERS;
   }
 
   public final int getLoops() {
@@ -70,6 +162,76 @@ public class DaoTestParameters {
     this.tableSize = tableSize;
   }
 
+  public final long getSeed() {
+    return seed;
+  }
+
+  public final void setSeed(final long seed) {
+    this.seed = seed;
+    this.seedFixed = true;
+  }
+
+  public final boolean isSeedFixed() {
+    return seedFixed;
+  }
+
+  public final int getMaxReferenceDepth() {
+    return maxReferenceDepth;
+  }
+
+  public final void setMaxReferenceDepth(final int maxReferenceDepth) {
+    this.maxReferenceDepth = requirePositive("maxReferenceDepth", maxReferenceDepth);
+  }
+
+  public final int getMaxReferenceBreadth() {
+    return maxReferenceBreadth;
+  }
+
+  public final void setMaxReferenceBreadth(final int maxReferenceBreadth) {
+    this.maxReferenceBreadth = requireNonNegative("maxReferenceBreadth",
+        maxReferenceBreadth);
+  }
+
+  public final int getPropertyTestBudget() {
+    return propertyTestBudget;
+  }
+
+  public final void setPropertyTestBudget(final int propertyTestBudget) {
+    this.propertyTestBudget = requirePositive("propertyTestBudget",
+        propertyTestBudget);
+  }
+
+  public final long getPropertyTestRound() {
+    return propertyTestRound;
+  }
+
+  public final void setPropertyTestRound(final long propertyTestRound) {
+    this.propertyTestRound = propertyTestRound;
+    this.propertyTestRoundSpecified = true;
+  }
+
+  public final boolean isPropertyTestRoundSpecified() {
+    return propertyTestRoundSpecified;
+  }
+
+  public final int getPropertyTestGroupSize() {
+    return propertyTestGroupSize;
+  }
+
+  public final void setPropertyTestGroupSize(final int propertyTestGroupSize) {
+    this.propertyTestGroupSize = requirePositive("propertyTestGroupSize",
+        propertyTestGroupSize);
+  }
+
+  public final int getConcurrentReaders() {
+    return concurrentReaders;
+  }
+
+  public final void setConcurrentReaders(final int concurrentReaders) {
+    this.concurrentReaders = requireNonNegative("concurrentReaders",
+        concurrentReaders);
+  }
+
   public boolean equals(final Object o) {
     if (this == o) {
       return true;
@@ -80,7 +242,16 @@ public class DaoTestParameters {
     final DaoTestParameters other = (DaoTestParameters) o;
     return Equality.equals(loops, other.loops)
         && Equality.equals(collectionSize, other.collectionSize)
-        && Equality.equals(tableSize, other.tableSize);
+        && Equality.equals(tableSize, other.tableSize)
+        && Equality.equals(seed, other.seed)
+        && Equality.equals(seedFixed, other.seedFixed)
+        && Equality.equals(maxReferenceDepth, other.maxReferenceDepth)
+        && Equality.equals(maxReferenceBreadth, other.maxReferenceBreadth)
+        && Equality.equals(propertyTestBudget, other.propertyTestBudget)
+        && Equality.equals(propertyTestRound, other.propertyTestRound)
+        && Equality.equals(propertyTestRoundSpecified, other.propertyTestRoundSpecified)
+        && Equality.equals(propertyTestGroupSize, other.propertyTestGroupSize)
+        && Equality.equals(concurrentReaders, other.concurrentReaders);
   }
 
   public int hashCode() {
@@ -89,6 +260,15 @@ public class DaoTestParameters {
     result = Hash.combine(result, multiplier, loops);
     result = Hash.combine(result, multiplier, collectionSize);
     result = Hash.combine(result, multiplier, tableSize);
+    result = Hash.combine(result, multiplier, seed);
+    result = Hash.combine(result, multiplier, seedFixed);
+    result = Hash.combine(result, multiplier, maxReferenceDepth);
+    result = Hash.combine(result, multiplier, maxReferenceBreadth);
+    result = Hash.combine(result, multiplier, propertyTestBudget);
+    result = Hash.combine(result, multiplier, propertyTestRound);
+    result = Hash.combine(result, multiplier, propertyTestRoundSpecified);
+    result = Hash.combine(result, multiplier, propertyTestGroupSize);
+    result = Hash.combine(result, multiplier, concurrentReaders);
     return result;
   }
 
@@ -97,6 +277,15 @@ public class DaoTestParameters {
         .append("loops", loops)
         .append("collectionSize", collectionSize)
         .append("tableSize", tableSize)
+        .append("seed", seed)
+        .append("seedFixed", seedFixed)
+        .append("maxReferenceDepth", maxReferenceDepth)
+        .append("maxReferenceBreadth", maxReferenceBreadth)
+        .append("propertyTestBudget", propertyTestBudget)
+        .append("propertyTestRound", propertyTestRound)
+        .append("propertyTestRoundSpecified", propertyTestRoundSpecified)
+        .append("propertyTestGroupSize", propertyTestGroupSize)
+        .append("concurrentReaders", concurrentReaders)
         .toString();
   }
 }
@@ -0,0 +1,235 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.test.RandomSeeds;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 将生成的DAO测试按DAO方法划分到多个分片中，以便在多个JVM或CI机器上并行运行。
+ *
+ * <p>分片的序号和数目分别由系统属性{@value #SHARD_INDEX_PROPERTY}和
+ * {@value #SHARD_COUNT_PROPERTY}指定，序号从0开始。每个分片独立地计算相同的划分，因此
+ * 所有分片合起来恰好运行每个DAO方法的测试一次。</p>
+ *
+ * <p>划分方法如下：耗时快照中没有记录的DAO方法，按其签名的稳定哈希值分配；有耗时记录的
+ * DAO方法，按耗时从长到短依次分配给当前总耗时最小的分片。耗时快照由系统属性
+ * {@value #SHARD_COSTS_PROPERTY}指定的文件提供（例如在CI中缓存的上一次运行的
+ * {@link DaoTestHistory}记录文件），在创建分片设置时一次性加载，之后不再改变；为了保证各个
+ * 分片的划分相同，所有的分片必须使用相同的快照文件。若未指定快照文件，则只按哈希值分配。</p>
+ *
+ * @author Haixing Hu
+ */
+public class DaoTestSharding {
+
+  /**
+   * 指定当前分片序号的系统属性的名称。
+   */
+  public static final String SHARD_INDEX_PROPERTY = "qubit.test.shard.index";
+
+  /**
+   * 指定分片数目的系统属性的名称。
+   */
+  public static final String SHARD_COUNT_PROPERTY = "qubit.test.shard.count";
+
+  /**
+   * 指定耗时快照文件路径的系统属性的名称。
+   */
+  public static final String SHARD_COSTS_PROPERTY = "qubit.test.shard.costs";
+
+  private final int index;
+  private final int count;
+  private final Map<String, Long> costs;
+
+  /**
+   * 根据系统属性创建分片设置。
+   *
+   * @return
+   *     根据系统属性创建的分片设置；若未指定分片数目，则返回不分片的设置。
+   */
+  public static DaoTestSharding load() {
+    final int count = Integer.getInteger(SHARD_COUNT_PROPERTY, 1);
+    final int index = Integer.getInteger(SHARD_INDEX_PROPERTY, 0);
+    final String path = System.getProperty(SHARD_COSTS_PROPERTY);
+    if (path == null || count <= 1) {
+      return new DaoTestSharding(index, count);
+    } else {
+      return new DaoTestSharding(index, count, DaoTestHistory.loadCosts(Paths.get(path)));
+    }
+  }
+
+  /**
+   * 创建一个只按哈希值划分的分片设置。
+   *
+   * @param index
+   *     当前分片的序号，从0开始。
+   * @param count
+   *     分片的数目。
+   */
+  public DaoTestSharding(final int index, final int count) {
+    this(index, count, Collections.emptyMap());
+  }
+
+  /**
+   * 创建一个分片设置。
+   *
+   * @param index
+   *     当前分片的序号，从0开始。
+   * @param count
+   *     分片的数目。
+   * @param costs
+   *     耗时快照，即DAO方法的签名到其所有测试用例的总耗时的映射，单位为毫秒。其内容被复制，
+   *     之后对它的修改不影响划分。
+   */
+  public DaoTestSharding(final int index, final int count,
+      final Map<String, Long> costs) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The number of shards must be positive: " + count);
+    }
+    if (index < 0 || index >= count) {
+      throw new IllegalArgumentException("The shard index must be in [0, "
+          + count + "): " + index);
+    }
+    this.index = index;
+    this.count = count;
+    this.costs = Collections.unmodifiableMap(new HashMap<>(
+        requireNonNull("costs", costs)));
+  }
+
+  public final int getIndex() {
+    return index;
+  }
+
+  public final int getCount() {
+    return count;
+  }
+
+  /**
+   * 判断是否启用了分片。
+   *
+   * @return
+   *     若分片数目大于1，返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean isEnabled() {
+    return count > 1;
+  }
+
+  /**
+   * 根据耗时快照计算属于当前分片的DAO方法。
+   *
+   * @param methods
+   *     所有DAO方法的签名。
+   * @return
+   *     属于当前分片的DAO方法的签名的集合。
+   */
+  public Set<String> select(final Collection<String> methods) {
+    return select(methods, (m) -> costs.getOrDefault(m, 0L));
+  }
+
+  /**
+   * 计算属于当前分片的DAO方法。
+   *
+   * @param methods
+   *     所有DAO方法的签名。
+   * @param costs
+   *     获取DAO方法在之前的运行中的总耗时的函数，没有记录时应返回0。该函数在所有分片中
+   *     必须返回相同的值。
+   * @return
+   *     属于当前分片的DAO方法的签名的集合。
+   */
+  public Set<String> select(final Collection<String> methods,
+      final ToLongFunction<String> costs) {
+    // 排序以保证在每个分片中的划分过程完全相同
+    final List<String> names = new ArrayList<>(new TreeSet<>(methods));
+    final long[] loads = new long[count];
+    final List<String> measured = new ArrayList<>();
+    long totalCost = 0;
+    for (final String name : names) {
+      final long cost = costs.applyAsLong(name);
+      if (cost > 0) {
+        measured.add(name);
+        totalCost += cost;
+      }
+    }
+    // 没有耗时记录的方法的耗时按平均值估计
+    final long defaultCost = (measured.isEmpty() ? 1 : Math.max(totalCost / measured.size(), 1));
+    final Set<String> result = new HashSet<>();
+    for (final String name : names) {
+      if (costs.applyAsLong(name) <= 0) {
+        final int shard = (int) Math.floorMod(RandomSeeds.derive(0, name, 0), (long) count);
+        loads[shard] += defaultCost;
+        if (shard == index) {
+          result.add(name);
+        }
+      }
+    }
+    // 最长处理时间优先（LPT）的贪心分配
+    measured.sort(Comparator.comparingLong(costs).reversed());
+    for (final String name : measured) {
+      int shard = 0;
+      for (int i = 1; i < count; ++i) {
+        if (loads[i] < loads[shard]) {
+          shard = i;
+        }
+      }
+      loads[shard] += costs.applyAsLong(name);
+      if (shard == index) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final DaoTestSharding other = (DaoTestSharding) o;
+    return Equality.equals(index, other.index)
+        && Equality.equals(count, other.count)
+        && Equality.equals(costs, other.costs);
+  }
+
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, index);
+    result = Hash.combine(result, multiplier, count);
+    result = Hash.combine(result, multiplier, costs);
+    return result;
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("index", index)
+        .append("count", count)
+        .append("costs", costs)
+        .toString();
+  }
+}
@@ -10,39 +10,25 @@ package ltd.qubit.commons.test.dao;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Stack;
 
 import javax.annotation.Nullable;
 
-import ltd.qubit.commons.annotation.TypeCodec;
-import ltd.qubit.commons.lang.ArrayUtils;
-import ltd.qubit.commons.lang.Comparison;
-import ltd.qubit.commons.lang.StringUtils;
 import ltd.qubit.commons.random.EasyRandom;
 import ltd.qubit.commons.reflect.BeanInfo;
 import ltd.qubit.commons.reflect.ClassUtils;
-import ltd.qubit.commons.reflect.ConstructorUtils;
 import ltd.qubit.commons.reflect.MethodByNameComparator;
 import ltd.qubit.commons.reflect.MethodUtils;
 import ltd.qubit.commons.reflect.Option;
 import ltd.qubit.commons.reflect.Property;
 import ltd.qubit.commons.sql.Criterion;
 import ltd.qubit.commons.sql.SimpleCriterion;
-import ltd.qubit.commons.util.codec.Codec;
-import ltd.qubit.commons.util.codec.EncodingException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static java.lang.Boolean.FALSE;
-
 import static ltd.qubit.commons.lang.StringUtils.substring;
-import static ltd.qubit.commons.reflect.MethodUtils.getMatchingMethod;
-import static ltd.qubit.commons.reflect.MethodUtils.hasMethod;
-import static ltd.qubit.commons.reflect.MethodUtils.invokeMethod;
 import static ltd.qubit.commons.sql.impl.CriterionImplUtils.isSupportedNonArrayDataType;
 import static ltd.qubit.commons.text.CaseFormat.LOWER_CAMEL;
 import static ltd.qubit.commons.text.CaseFormat.LOWER_UNDERSCORE;
@@ -174,43 +160,7 @@ public class DaoTestUtils {
     if (value == null) {
       return "";
     }
-    if (type.getName().startsWith("java")) {                  // 对于Java内部类，直接返回其 toString()
-      return value.toString();
-    } else if (Enum.class.isAssignableFrom(type)) {           // 对于枚举类，返回其名称
-      return ((Enum<?>) value).name();
-    } else if (type.isAnnotationPresent(TypeCodec.class)) {   // 对于标记了 @TypeCodec 的类，根据编码器返回其字符串形式
-      final Class<?> codecClass = type.getAnnotation(TypeCodec.class).value();
-      try {
-        @SuppressWarnings("unchecked")
-        final Codec<Object, String> codec =
-            (Codec<Object, String>) ConstructorUtils.newInstance(codecClass);
-        return codec.encode(value);
-      } catch (final EncodingException e) {
-        throw new RuntimeException(e);
-      }
-    } else {
-      final BeanInfo info = BeanInfo.of(type);
-      if (info.hasIdProperty()) {                           // 如果该对象有ID属性，直接返回其ID属性值
-        final Object id = info.getId(value);
-        return (id == null ? "" : id.toString());
-      } else {
-        // if there is no ID property, use all the properties to build a string
-        final StringBuilder builder = new StringBuilder();
-        // ignore the computed and JDK built-in fields
-        final List<Property> props = info.getProperties(
-            p -> ((!p.isComputed()) && (!p.isJdkBuiltIn())));
-        // sort the property by their key indexes
-        props.sort((x, y) -> Comparison.compare(x.getKeyIndex(), y.getKeyIndex()));
-        for (final Property prop : props) {
-          final Object propValue = prop.getValue(value);
-          if (builder.length() > 0) {
-            builder.append('-');
-          }
-          builder.append(toStringRepresentation(prop.getType(), propValue));
-        }
-        return builder.toString();
-      }
-    }
+    return KeyEncoder.of(type).encode(value);
   }
 
   public static String setUniquePropertyValues(final BeanInfo modelInfo,
@@ -224,7 +174,7 @@ public class DaoTestUtils {
       if (builder.length() > 0) {
         builder.append('-');
       }
-      builder.append(toStringRepresentation(prop.getType(), propValue));
+      KeyEncoder.of(prop.getType()).encode(propValue, builder);
     }
     return builder.toString();
   }
@@ -280,16 +230,7 @@ public class DaoTestUtils {
 
   public static void setUpdateKeys(final BeanInfo modelInfo,
       final Property identifier, final Object source, final Object target) {
-    if (! identifier.isUnique()) {
-      final Object id = identifier.getValue(source);
-      identifier.setValue(target, id);
-    } else {
-      final List<Property> properties = modelInfo.getRespectToProperties(identifier);
-      for (final Property property : properties) {
-        final Object value = property.getValue(source);
-        property.setValue(target, value);
-      }
-    }
+    PropertyIndex.of(modelInfo.getType()).getUpdateKeyMask(identifier).copy(source, target);
   }
 
   /**
@@ -307,17 +248,7 @@ public class DaoTestUtils {
    */
   public static void setUnmodifiedRespectToProperties(final DaoMethodInfo methodInfo,
       final Property property, final Object source, final Object target) {
-    final String[] respectTo = property.getUniqueRespectTo();
-    if (respectTo != null && respectTo.length > 0) {
-      final BeanInfo modelInfo = methodInfo.getModelInfo();
-      for (final String name : respectTo) {
-        final Property prop = modelInfo.getProperty(name);
-        if (prop != null && (!prop.isComputed()) && methodInfo.isUnmodified(prop)) {
-          final Object value = prop.getValue(source);
-          prop.setValue(target, value);
-        }
-      }
-    }
+    methodInfo.getUnmodifiedRespectToMask(property).copy(source, target);
   }
 
   public static Object[] getRespectToParams(final Object model,
@@ -342,13 +273,8 @@ public class DaoTestUtils {
 
   public static void copyAllProperties(final BeanInfo modelInfo,
       final Object source, final Object target) {
-    for (final Property prop : modelInfo.getProperties()) {
-      if (prop.isReadonly() || prop.isComputed()) {
-        continue;
-      }
-      final Object value = prop.getValue(source);
-      prop.setValue(target, value);
-    }
+    // 复制所有非只读且非计算的属性
+    PropertyIndex.of(modelInfo.getType()).getWritableMask().copy(source, target);
   }
 
   public static <T> Criterion<T> prepareSimpleCriterion(final Class<T> modelType,
@@ -378,61 +304,23 @@ public class DaoTestUtils {
     return null;
   }
 
+  /**
+   * 规范化指定的值，用于比较DAO方法修改前后的属性值。
+   *
+   * <p>若该值有公共的{@code normalize()}方法，先调用该方法；字符串会去除头尾空白；空字符串、
+   * 空集合、空映射、空数组以及{@code isEmpty()}返回{@code true}的对象被规范化为
+   * {@code null}。每个类型所需的方法只解析一次并被缓存。</p>
+   *
+   * @param obj
+   *     待规范化的值，可以为{@code null}。
+   * @return
+   *     规范化后的值。
+   */
   @SuppressWarnings("unchecked")
   public static <T> T normalize(@Nullable final T obj) {
     if (obj == null) {
       return null;
     }
-    final Class<?> type = obj.getClass();
-    if (isNormalizable(obj)) {
-      callNormalize(obj);
-    }
-    if (obj instanceof String) {
-      // 对于string，去除其头尾空白
-      final String str = StringUtils.strip((String) obj);
-      return (str.isEmpty() ? null : (T) str);
-    }
-    if ((obj instanceof Collection) && ((Collection<?>) obj).isEmpty()) {
-      return null;
-    }
-    if ((obj instanceof Map) && ((Map<?, ?>) obj).isEmpty()) {
-      return null;
-    }
-    if (ArrayUtils.isArray(obj) && ArrayUtils.isEmpty(obj)) {
-      return null;
-    }
-    if (isEmptyful(obj) && callIsEmpty(obj)) {
-      return null;
-    }
-    return obj;
-  }
-
-  private static <T> boolean isNormalizable(final T obj) {
-    final Class<?> type = obj.getClass();
-    return hasMethod(type, Option.DEFAULT_PUBLIC, "normalize", null);
+    return (T) ValueNormalizer.of(obj.getClass()).normalize(obj);
   }
-
-  private static <T> void callNormalize(final T obj) {
-    final Class<?> type = obj.getClass();
-    final Method method = getMatchingMethod(type, Option.DEFAULT_PUBLIC, "normalize", null);
-    if (method != null) {
-      invokeMethod(method, obj);
-    }
-  }
-
-  private static <T> boolean isEmptyful(final T obj) {
-    final Class<?> type = obj.getClass();
-    return hasMethod(type, Option.DEFAULT_PUBLIC, "isEmpty", null);
-  }
-
-  private static <T> Boolean callIsEmpty(final T obj) {
-    final Class<?> type = obj.getClass();
-    final Method method = getMatchingMethod(type, Option.DEFAULT_PUBLIC, "isEmpty", null);
-    if (method != null) {
-      return (Boolean) invokeMethod(method, obj);
-    } else {
-      return FALSE;
-    }
-  }
-
 }
@@ -8,85 +8,112 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.dao;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
-import javax.annotation.Nullable;
-
-import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.reflect.BeanInfo;
 import ltd.qubit.commons.reflect.Property;
 
-import static java.lang.System.identityHashCode;
-
 /**
  * 用于存储引用实体的哈希表。
  *
+ * <p>我们认为两个主键相等当且仅当他们的model是同一个对象(物理意义上相同内存地址，而非
+ * 逻辑意义上相同内容)，且他们的 property 是同名的。因此此哈希表以 model 的对象标识为
+ * 键，为每个 model 分配一个槽数组，数组下标是 property 在 model 类型的
+ * {@link BeanInfo#getProperties()} 中的位置（参见{@link PropertyIndex}）。除了首次为某个
+ * model 分配槽数组外，{@link #put}、{@link #get}和{@link #containsKey}都不会分配任何
+ * 对象。</p>
+ *
  * @author 胡海星
  */
 public class EntityRegistry {
 
   /**
-   * 表示注册表的主键数据类型。
+   * 表示槽中尚未存储任何值的标记对象。
    */
-  private static class Key {
-    final Object model;
-    final Property property;
-
-    public Key(final Object model, final Property property) {
-      this.model = model;
-      this.property = property;
-    }
-
-    public boolean equals(@Nullable final Object o) {
-      if (this == o) {
-        return true;
-      }
-      if ((o == null) || (getClass() != o.getClass())) {
-        return false;
-      }
-      // 注意我们使用 == 而非 equals() 比较 model，且仅比较 property 的name
-      // 这是因为我们认为两个key相等当且仅当他们的model是同一个对象(物理意义上相同内存地址，
-      // 而非逻辑意义上相同内容)，且他们的 property 是同名的
-      final Key other = (Key) o;
-      return (model == other.model)
-          && property.getName().equals(other.property.getName());
-    }
-
-    public int hashCode() {
-      final int multiplier = 7;
-      int result = 3;
-      // 注意我们使用 System.identityHashCode 计算 model 的哈希值分量，
-      // 用 property.name 的哈希值作为 property 的哈希值分量。
-      // 这是因为我们认为两个key相等当且仅当他们的model是同一个对象(物理意义上相同内存地址，
-      // 而非逻辑意义上相同内容)，且他们的 property 是同名的
-      result = Hash.combine(result, multiplier, identityHashCode(model));
-      result = Hash.combine(result, multiplier, property.getName());
-      return result;
-    }
-  }
+  private static final Object ABSENT = new Object();
 
-  private final HashMap<Key, Object> registry;
+  private final Map<Object, Object[]> registry;
 
   public EntityRegistry() {
-    registry = new HashMap<>();
+    registry = new IdentityHashMap<>();
   }
 
+  /**
+   * 登记一个 model 的某个引用属性所引用的实体。
+   *
+   * @param model
+   *     引用该实体的 model，按对象标识比较。
+   * @param property
+   *     该 model 的引用属性。若它不是从 model 的类型获取的（例如来自其父类），则按名称
+   *     查找 model 的类型的同名属性。
+   * @param referencedEntity
+   *     所引用的实体，可以为{@code null}。
+   * @throws IllegalArgumentException
+   *     若 model 的类型没有与{@code property}同名的属性。由于每个 model 的槽数组只能
+   *     容纳其类型的属性，此时无法像以前的哈希表那样以任意属性为键登记实体。
+   */
   public void put(final Object model, final Property property,
       final Object referencedEntity) {
-    final Key key = new Key(model, property);
-    registry.put(key, referencedEntity);
+    final int index = indexOf(model, property);
+    if (index < 0) {
+      throw new IllegalArgumentException("The property '" + property.getName()
+          + "' does not belong to the model " + model.getClass().getName());
+    }
+    Object[] slots = registry.get(model);
+    if (slots == null) {
+      slots = new Object[PropertyIndex.of(model.getClass()).size()];
+      Arrays.fill(slots, ABSENT);
+      registry.put(model, slots);
+    }
+    slots[index] = referencedEntity;
   }
 
+  /**
+   * 获取一个 model 的某个引用属性所引用的实体。
+   *
+   * @param model
+   *     引用该实体的 model，按对象标识比较。
+   * @param property
+   *     该 model 的引用属性，其查找规则与{@link #put}相同。
+   * @return
+   *     所登记的实体；若尚未登记，或 model 的类型没有该属性，则返回{@code null}。
+   */
   public Object get(final Object model, final Property property) {
-    final Key key = new Key(model, property);
-    return registry.get(key);
+    final Object value = lookup(model, property);
+    return (value == ABSENT ? null : value);
   }
 
+  /**
+   * 判断是否已登记一个 model 的某个引用属性所引用的实体。
+   *
+   * @param model
+   *     引用该实体的 model，按对象标识比较。
+   * @param property
+   *     该 model 的引用属性，其查找规则与{@link #put}相同。
+   * @return
+   *     若已登记（即使登记的实体为{@code null}）则返回{@code true}；否则返回
+   *     {@code false}。
+   */
   public boolean containsKey(final Object model, final Property property) {
-    final Key key = new Key(model, property);
-    return registry.containsKey(key);
+    return lookup(model, property) != ABSENT;
   }
 
   public void clear() {
     registry.clear();
   }
+
+  private Object lookup(final Object model, final Property property) {
+    final Object[] slots = registry.get(model);
+    if (slots == null) {
+      return ABSENT;
+    }
+    final int index = indexOf(model, property);
+    return (index < 0 ? ABSENT : slots[index]);
+  }
+
+  private static int indexOf(final Object model, final Property property) {
+    return PropertyIndex.of(model.getClass()).indexOf(property);
+  }
 }
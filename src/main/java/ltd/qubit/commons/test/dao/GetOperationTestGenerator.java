@@ -8,20 +8,43 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.dao;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import ltd.qubit.commons.error.DataNotExistException;
+import ltd.qubit.commons.reflect.Property;
 
 import static ltd.qubit.commons.reflect.ClassUtils.isMutableType;
 import static ltd.qubit.commons.reflect.ClassUtils.isPrimitiveType;
 import static ltd.qubit.commons.test.dao.DaoTestUtils.getRespectToParams;
+import static ltd.qubit.commons.test.dao.DaoTestUtils.normalize;
+import static ltd.qubit.commons.test.dao.DaoTestUtils.setUpdateKeys;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class GetOperationTestGenerator<T> extends DaoOperationTestGenerator<T> {
 
+  /**
+   * 由DAO在写入时赋值的时间戳属性，它们的值与写入的版本无关，因此不参与版本的比较。
+   */
+  private static final Set<String> DAO_ASSIGNED_PROPERTIES =
+      Set.of("createTime", "modifyTime", "deleteTime");
+
   public GetOperationTestGenerator(final DaoTestGeneratorRegistry registry,
       final Class<T> modelType, final DaoMethodInfo methodInfo) {
     super(registry, modelType, methodInfo);
@@ -35,6 +58,11 @@ public class GetOperationTestGenerator<T> extends DaoOperationTestGenerator<T> {
       getExistingModelTwice(builder);
     }
     getNonExistingModel(builder);
+    if ((parameters.getConcurrentReaders() > 0)
+        && (target == null)
+        && (daoInfo.getUpdateMethod() != null)) {
+      getExistingModelConcurrently(builder);
+    }
   }
 
   private void getExistingModel(final DaoDynamicTestBuilder builder) {
@@ -124,6 +152,157 @@ public class GetOperationTestGenerator<T> extends DaoOperationTestGenerator<T> {
     });
   }
 
+  /**
+   * 在更新模型的同时并发地读取该模型。
+   *
+   * <p>写线程依次用{@code update()}写入模型的若干个新版本，每次写入后立即读取，检查能否
+   * 读到自己写入的版本；多个读线程同时反复读取该模型，检查每次读到的结果都完整地等于某个
+   * 版本（没有读到部分更新的结果），且不早于读取开始前已写入完成的版本。同时记录并发情况下
+   * 读取的延迟。</p>
+   *
+   * <p>比较的是被{@code update()}修改的、非计算的属性，但不包括由DAO赋值的时间戳属性。
+   * 每个版本的属性值在其发布给读线程之前由写线程规范化一次，读线程只读取规范化后的快照，
+   * 因此读线程之间不共享任何可变的对象。</p>
+   */
+  private void getExistingModelConcurrently(final DaoDynamicTestBuilder builder) {
+    final String displayName = getDisplayName("Concurrent get by existing "
+        + identifier.getName() + " while updating");
+    final DaoMethodInfo updateMethod = daoInfo.getUpdateMethod();
+    final Property idProperty = modelInfo.getIdProperty();
+    final List<Property> props = new ArrayList<>();
+    for (final Property prop : modelInfo.getProperties()) {
+      if ((!prop.isComputed())
+          && updateMethod.isModified(prop)
+          && (!DAO_ASSIGNED_PROPERTIES.contains(prop.getName()))) {
+        props.add(prop);
+      }
+    }
+    final int readers = parameters.getConcurrentReaders();
+    final int updates = parameters.getLoops();
+    builder.add(displayName, () -> {
+      logger.info("Test {}: Get the {} by an existing {} with {} readers while "
+          + "updating it {} times", methodName, modelName, identifier.getName(),
+          readers, updates);
+      final Object model = beanCreator.prepare(modelInfo, identifier);
+      daoInfo.add(model);
+      // 所有写入的版本的规范化属性值；committed 为已写入完成的最新版本的序号
+      final List<Object[]> versions = new CopyOnWriteArrayList<>();
+      versions.add(snapshot(props, model));
+      final AtomicInteger committed = new AtomicInteger(0);
+      final AtomicBoolean done = new AtomicBoolean(false);
+      final ExecutorService executor = Executors.newFixedThreadPool(readers);
+      try {
+        final List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < readers; ++i) {
+          final Callable<long[]> reader = () -> {
+            final List<Long> latencies = new ArrayList<>();
+            do {
+              final int minVersion = committed.get();
+              final long start = System.nanoTime();
+              final Object actual = doGetUnchecked(model);
+              latencies.add(System.nanoTime() - start);
+              checkVersion(props, versions, minVersion, actual, "Concurrent");
+            } while (!done.get());
+            return latencies.stream().mapToLong(Long::longValue).toArray();
+          };
+          futures.add(executor.submit(reader));
+        }
+        try {
+          for (int i = 1; i <= updates; ++i) {
+            final Object newModel = beanCreator.prepare(modelInfo);
+            setUpdateKeys(modelInfo, idProperty, model, newModel);
+            setUpdateKeys(modelInfo, identifier, model, newModel);
+            // 必须在写入之前发布该版本，因为读线程可能在写入完成之前就读到它
+            versions.add(snapshot(props, newModel));
+            updateMethod.invoke(false, newModel);   // dao.update(newModel)
+            committed.set(i);
+            // 写入后立即读取，必须读到自己写入的版本
+            checkVersion(props, versions, i, doGet(false, model), "Read-your-writes");
+          }
+        } finally {
+          done.set(true);
+        }
+        final List<Long> latencies = new ArrayList<>();
+        for (final Future<long[]> future : futures) {
+          try {
+            for (final long latency : future.get()) {
+              latencies.add(latency);
+            }
+          } catch (final ExecutionException e) {
+            throw e.getCause();
+          }
+        }
+        logLatencies(latencies);
+      } finally {
+        executor.shutdownNow();
+      }
+    });
+  }
+
+  private Object doGetUnchecked(final Object model) throws Exception {
+    try {
+      return doGet(false, model);
+    } catch (final Exception | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new ExecutionException(e);
+    }
+  }
+
+  /**
+   * 获取指定模型的待比较属性的规范化的值。
+   *
+   * <p>规范化可能会修改属性值本身，因此只能在该模型被其他线程访问之前调用。</p>
+   */
+  private static Object[] snapshot(final List<Property> props, final Object model) {
+    final Object[] values = new Object[props.size()];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = normalize(props.get(i).getValue(model));
+    }
+    return values;
+  }
+
+  private void checkVersion(final List<Property> props, final List<Object[]> versions,
+      final int minVersion, final Object actual, final String check) {
+    assertNotNull(actual, "Return value of " + methodName + " cannot be null.");
+    // actual 是本线程读取的新对象，可以就地规范化
+    final Object[] actualValues = snapshot(props, actual);
+    final int n = versions.size();
+    for (int i = minVersion; i < n; ++i) {
+      if (matches(props, versions.get(i), actualValues)) {
+        return;
+      }
+    }
+    fail(check + " read of " + methodName + " returned a " + modelName
+        + " which equals to none of the versions written since version "
+        + minVersion + ": " + actual);
+  }
+
+  private static boolean matches(final List<Property> props, final Object[] expected,
+      final Object[] actual) {
+    for (int i = 0; i < expected.length; ++i) {
+      final Property prop = props.get(i);
+      if (ModelComparator.compareValue(prop.getType(), prop.isReference(),
+          expected[i], actual[i], prop.getName()) != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void logLatencies(final List<Long> latencies) {
+    if (latencies.isEmpty()) {
+      return;
+    }
+    final long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+    Arrays.sort(sorted);
+    final int n = sorted.length;
+    logger.info("Test {}: {} concurrent reads, latency in microseconds: "
+        + "p50 = {}, p90 = {}, p99 = {}, max = {}", methodName, n,
+        sorted[n / 2] / 1000, sorted[(int) (n * 0.9)] / 1000,
+        sorted[(int) (n * 0.99)] / 1000, sorted[n - 1] / 1000);
+  }
+
   private Object doGet(final boolean logging, final Object model) throws Throwable {
     if (! identifier.isUnique()) {
       final Object id = identifier.getValue(model);
@@ -0,0 +1,187 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.annotation.TypeCodec;
+import ltd.qubit.commons.lang.Comparison;
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.ConstructorUtils;
+import ltd.qubit.commons.reflect.Property;
+import ltd.qubit.commons.util.codec.Codec;
+import ltd.qubit.commons.util.codec.EncodingException;
+
+/**
+ * 按类型缓存的主键编码器，用于实现
+ * {@link DaoTestUtils#toStringRepresentation(Class, Object)}。
+ *
+ * <p>每个类型的编码器只在第一次使用时解析一次：标记了{@link TypeCodec}的类型的编码器
+ * 实例，以及没有ID属性的类型的按主键索引排序后的属性列表，均被缓存。编码结果直接追加到
+ * 调用者提供的{@link StringBuilder}中，嵌套属性不会产生中间字符串。</p>
+ *
+ * <p>注意{@link TypeCodec}指定的编码器实例会被多个线程共享，因此要求其是无状态的。</p>
+ *
+ * @author Haixing Hu
+ */
+final class KeyEncoder {
+
+  private static final ClassValue<KeyEncoder> CACHE = new ClassValue<>() {
+    @Override
+    protected KeyEncoder computeValue(final Class<?> type) {
+      return new KeyEncoder(type);
+    }
+  };
+
+  private enum Kind {
+    JDK,
+    ENUM,
+    CODEC,
+    ID,
+    PROPERTIES,
+  }
+
+  private final Kind kind;
+
+  @Nullable
+  private final Codec<Object, String> codec;
+
+  @Nullable
+  private final BeanInfo info;
+
+  @Nullable
+  private final Property[] properties;
+
+  /**
+   * 获取指定类型的主键编码器。
+   *
+   * @param type
+   *     指定的类型。
+   * @return
+   *     该类型的主键编码器，首次调用后被缓存。
+   */
+  static KeyEncoder of(final Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  @SuppressWarnings("unchecked")
+  private KeyEncoder(final Class<?> type) {
+    if (type.getName().startsWith("java")) {            // 对于Java内部类，直接使用其 toString()
+      kind = Kind.JDK;
+      codec = null;
+      info = null;
+      properties = null;
+    } else if (Enum.class.isAssignableFrom(type)) {     // 对于枚举类，使用其名称
+      kind = Kind.ENUM;
+      codec = null;
+      info = null;
+      properties = null;
+    } else if (type.isAnnotationPresent(TypeCodec.class)) {   // 对于标记了 @TypeCodec 的类，使用其编码器
+      final Class<?> codecClass = type.getAnnotation(TypeCodec.class).value();
+      kind = Kind.CODEC;
+      codec = (Codec<Object, String>) ConstructorUtils.newInstance(codecClass);
+      info = null;
+      properties = null;
+    } else {
+      info = BeanInfo.of(type);
+      codec = null;
+      if (info.hasIdProperty()) {                       // 如果该对象有ID属性，使用其ID属性值
+        kind = Kind.ID;
+        properties = null;
+      } else {
+        // if there is no ID property, use all the properties to build a string
+        kind = Kind.PROPERTIES;
+        // ignore the computed and JDK built-in fields
+        final List<Property> props = info.getProperties(
+            p -> ((!p.isComputed()) && (!p.isJdkBuiltIn())));
+        // sort the property by their key indexes
+        props.sort((x, y) -> Comparison.compare(x.getKeyIndex(), y.getKeyIndex()));
+        properties = props.toArray(new Property[0]);
+      }
+    }
+  }
+
+  /**
+   * 获取指定值的字符串形式。
+   *
+   * @param value
+   *     指定的值，其类型必须是此编码器对应的类型或其子类型。
+   * @return
+   *     该值的字符串形式；若该值为{@code null}，返回空字符串。
+   */
+  String encode(@Nullable final Object value) {
+    if (value == null) {
+      return "";
+    }
+    switch (kind) {
+      case JDK:
+        return value.toString();
+      case ENUM:
+        return ((Enum<?>) value).name();
+      case CODEC:
+        return encodeWithCodec(value);
+      default:
+        final StringBuilder builder = new StringBuilder();
+        encode(value, builder);
+        return builder.toString();
+    }
+  }
+
+  /**
+   * 将指定值的字符串形式追加到指定的{@link StringBuilder}中。
+   *
+   * @param value
+   *     指定的值，其类型必须是此编码器对应的类型或其子类型。若为{@code null}，
+   *     不追加任何内容。
+   * @param builder
+   *     用于追加结果的{@link StringBuilder}。
+   */
+  void encode(@Nullable final Object value, final StringBuilder builder) {
+    if (value == null) {
+      return;
+    }
+    switch (kind) {
+      case JDK:
+        builder.append(value);
+        break;
+      case ENUM:
+        builder.append(((Enum<?>) value).name());
+        break;
+      case CODEC:
+        builder.append(encodeWithCodec(value));
+        break;
+      case ID:
+        final Object id = info.getId(value);
+        if (id != null) {
+          builder.append(id);
+        }
+        break;
+      default:
+        final int start = builder.length();
+        for (final Property prop : properties) {
+          if (builder.length() > start) {
+            builder.append('-');
+          }
+          // 属性的编码器在使用时才获取，以免自引用的类型在解析时无限递归
+          of(prop.getType()).encode(prop.getValue(value), builder);
+        }
+        break;
+    }
+  }
+
+  private String encodeWithCodec(final Object value) {
+    try {
+      return codec.encode(value);
+    } catch (final EncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
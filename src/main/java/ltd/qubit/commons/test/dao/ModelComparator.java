@@ -0,0 +1,595 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.ClassUtils;
+import ltd.qubit.commons.reflect.Property;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 用于深度比较两个模型对象的比较器。
+ *
+ * <p>每个模型类型的比较器只被编译一次并缓存：编译时将其所有非计算属性及每个属性值的比
+ * 较方式(基本类型、数组、集合、映射、按ID比较的引用、直接比较)预先计算为数组，比较时
+ * 只需依次遍历这些数组，无需每次重新判断属性的类型。</p>
+ *
+ * <p>比较的语义与{@link DaoOperationTestGenerator#assertValueEquals}一致：引用了具有
+ * ID属性的实体的值只比较其ID，其他值通过{@link Object#equals(Object)}比较；若两个值不
+ * 等，比较器会尝试深入其属性，以报告第一个不同的属性路径。{@link Set}等无序集合的比
+ * 较与元素的顺序无关，其元素按规范化后的值或被引用实体的ID匹配。</p>
+ *
+ * @author 胡海星
+ */
+public final class ModelComparator {
+
+  /**
+   * 属性值的比较方式。
+   */
+  private enum Kind {
+    PRIMITIVE,
+    ARRAY,
+    COLLECTION,
+    MAP,
+    OBJECT,
+  }
+
+  private static final ClassValue<ModelComparator> COMPARATORS = new ClassValue<>() {
+    @Override
+    protected ModelComparator computeValue(final Class<?> type) {
+      return new ModelComparator(BeanInfo.of(type));
+    }
+  };
+
+  private static final ClassValue<Kind> KINDS = new ClassValue<>() {
+    @Override
+    protected Kind computeValue(final Class<?> type) {
+      if (type.isPrimitive()) {
+        return Kind.PRIMITIVE;
+      } else if (type.isArray()) {
+        return Kind.ARRAY;
+      } else if (ClassUtils.isCollectionType(type)) {
+        return Kind.COLLECTION;
+      } else if (ClassUtils.isMapType(type)) {
+        return Kind.MAP;
+      } else {
+        return Kind.OBJECT;
+      }
+    }
+  };
+
+  /**
+   * 缓存每个实体类型的ID属性，若该类型没有ID属性则为{@link #NO_ID}。
+   */
+  private static final ClassValue<Object> ID_PROPERTIES = new ClassValue<>() {
+    @Override
+    protected Object computeValue(final Class<?> type) {
+      final BeanInfo info = BeanInfo.of(type);
+      return (info.hasIdProperty() ? info.getIdProperty() : NO_ID);
+    }
+  };
+
+  private static final Object NO_ID = new Object();
+
+  private static final Object NULL_KEY = new Object();
+
+  /**
+   * 获取指定模型类型的比较器。
+   *
+   * @param modelInfo
+   *     指定的模型类型的信息。
+   * @return
+   *     该模型类型的比较器。
+   */
+  public static ModelComparator of(final BeanInfo modelInfo) {
+    return COMPARATORS.get(modelInfo.getType());
+  }
+
+  /**
+   * 获取指定模型类型的比较器。
+   *
+   * @param type
+   *     指定的模型类型。
+   * @return
+   *     该模型类型的比较器。
+   */
+  public static ModelComparator of(final Class<?> type) {
+    return COMPARATORS.get(type);
+  }
+
+  private final String rootName;
+  private final Property[] properties;
+  private final Class<?>[] types;
+  private final Kind[] kinds;
+  private final boolean[] references;
+
+  private ModelComparator(final BeanInfo modelInfo) {
+    rootName = modelInfo.getType().getSimpleName();
+    final List<Property> props = modelInfo.getNonComputedProperties();
+    final int n = props.size();
+    properties = props.toArray(new Property[0]);
+    types = new Class<?>[n];
+    kinds = new Kind[n];
+    references = new boolean[n];
+    for (int i = 0; i < n; ++i) {
+      types[i] = properties[i].getType();
+      kinds[i] = KINDS.get(types[i]);
+      references[i] = properties[i].isReference();
+    }
+  }
+
+  /**
+   * 比较两个模型对象。
+   *
+   * @param expected
+   *     期望的模型对象。
+   * @param actual
+   *     实际的模型对象。
+   * @return
+   *     若两者相等则返回{@code null}；否则返回两者的第一个不同之处，其路径是相对于模型
+   *     对象的属性路径；若其中之一为{@code null}，其路径为模型类型的简单名称。
+   */
+  @Nullable
+  public Difference compare(@Nullable final Object expected, @Nullable final Object actual) {
+    if (expected == null || actual == null) {
+      return (expected == actual ? null : new Difference(rootName, expected, actual));
+    }
+    return compareProperties(expected, actual, "");
+  }
+
+  @Nullable
+  private Difference compareProperties(final Object expected, final Object actual,
+      final String path) {
+    for (int i = 0; i < properties.length; ++i) {
+      final Property prop = properties[i];
+      final Object expectedValue = prop.getValue(expected);
+      final Object actualValue = prop.getValue(actual);
+      if (Objects.equals(expectedValue, actualValue)) {
+        continue;   // 相等的值无需深入比较，也无需构造其属性路径
+      }
+      final Difference diff = compareValue(kinds[i], types[i], references[i],
+          expectedValue, actualValue, childPath(path, prop.getName()));
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 比较两个值。
+   *
+   * @param type
+   *     待比较的值的类型。
+   * @param isReference
+   *     待比较的值是否是对某个实体的引用。
+   * @param expected
+   *     期望的值。
+   * @param actual
+   *     实际的值。
+   * @param path
+   *     待比较的值的属性路径，用作报告的不同之处的路径的前缀，不应为空字符串。
+   * @return
+   *     若两者相等则返回{@code null}；否则返回两者的第一个不同之处。
+   */
+  @Nullable
+  public static Difference compareValue(final Class<?> type, final boolean isReference,
+      @Nullable final Object expected, @Nullable final Object actual, final String path) {
+    return compareValue(KINDS.get(type), type, isReference, expected, actual, path);
+  }
+
+  @Nullable
+  private static Difference compareValue(final Kind kind, final Class<?> type,
+      final boolean isReference, @Nullable final Object expected,
+      @Nullable final Object actual, final String path) {
+    if (expected == null || actual == null) {
+      return (expected == actual ? null : new Difference(path, expected, actual));
+    }
+    switch (kind) {
+      case PRIMITIVE:
+        return (expected.equals(actual) ? null : new Difference(path, expected, actual));
+      case ARRAY:
+        return compareArray(type, isReference, expected, actual, path);
+      case COLLECTION:
+        return compareCollection(isReference, (Collection<?>) expected,
+            (Collection<?>) actual, path);
+      case MAP:
+        return compareMap(isReference, (Map<?, ?>) expected, (Map<?, ?>) actual, path);
+      default:
+        return compareObject(type, isReference, expected, actual, path);
+    }
+  }
+
+  @Nullable
+  private static Difference compareArray(final Class<?> type, final boolean isReference,
+      final Object expected, final Object actual, final String path) {
+    final Class<?> elementType = type.getComponentType();
+    if (elementType.isPrimitive()) {
+      return (Objects.deepEquals(expected, actual)
+              ? null : new Difference(path, expected, actual));
+    }
+    final Object[] expectedArray = (Object[]) expected;
+    final Object[] actualArray = (Object[]) actual;
+    if (expectedArray.length != actualArray.length) {
+      return new Difference(path + ".length", expectedArray.length, actualArray.length);
+    }
+    final Kind elementKind = KINDS.get(elementType);
+    for (int i = 0; i < expectedArray.length; ++i) {
+      if (Objects.equals(expectedArray[i], actualArray[i])) {
+        continue;
+      }
+      final Difference diff = compareValue(elementKind, elementType, isReference,
+          expectedArray[i], actualArray[i], path + "[" + i + "]");
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Difference compareCollection(final boolean isReference,
+      final Collection<?> expected, final Collection<?> actual, final String path) {
+    if (expected.size() != actual.size()) {
+      return new Difference(path + ".size", expected.size(), actual.size());
+    }
+    if ((expected instanceof Set) || (actual instanceof Set)) {
+      return compareUnorderedCollection(isReference, expected, actual, path);
+    }
+    final Iterator<?> expectedIter = expected.iterator();
+    final Iterator<?> actualIter = actual.iterator();
+    for (int i = 0; expectedIter.hasNext(); ++i) {
+      final Object expectedElement = expectedIter.next();
+      final Object actualElement = actualIter.next();
+      if (Objects.equals(expectedElement, actualElement)) {
+        continue;
+      }
+      final Difference diff = compareElement(isReference, expectedElement,
+          actualElement, path + "[" + i + "]");
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 以与元素顺序无关的方式比较两个大小相同的集合，例如两个{@link Set}。
+   *
+   * <p>此函数为期望集合中的每个元素计算一个匹配键(参见{@link #getMatchKey})，用哈希表
+   * 统计各匹配键的出现次数，再依次扣减实际集合中各元素的匹配键，因此其时间复杂度与两个
+   * 集合的元素的总大小成正比。</p>
+   */
+  @Nullable
+  private static Difference compareUnorderedCollection(final boolean isReference,
+      final Collection<?> expected, final Collection<?> actual, final String path) {
+    final Map<Object, int[]> counts = new HashMap<>(expected.size() * 2);
+    for (final Object element : expected) {
+      counts.computeIfAbsent(getMatchKey(isReference, element), k -> new int[1])[0]++;
+    }
+    for (final Object element : actual) {
+      final Object key = getMatchKey(isReference, element);
+      final int[] count = counts.get(key);
+      if (count == null || count[0] == 0) {
+        // 实际集合中有一个期望集合中不存在(或多出)的元素
+        return new Difference(path + "[" + element + "]", null, element);
+      }
+      --count[0];
+    }
+    // 由于两个集合大小相同，实际集合中的元素全部匹配，意味着期望集合中的元素也全部匹配
+    return null;
+  }
+
+  /**
+   * 获取集合元素用于无序匹配的键。
+   *
+   * <p>匹配键与有序比较的语义一致：元素先经{@link ValueNormalizer}规范化，因此空字符串
+   * 与{@code null}等价；数组、集合和映射的匹配键由其元素的匹配键逐个递归组成，其中数组
+   * 和有序集合的匹配键为其元素的匹配键的列表，{@link Set}等无序集合的匹配键为其元素的
+   * 匹配键到其出现次数的映射，映射的匹配键为其各个键到对应值的匹配键的映射；对具有ID
+   * 属性的实体的引用，匹配键为其ID；其他Bean的匹配键由其各非计算属性的匹配键组成，因此
+   * 其引用属性也只比较ID；其他值的匹配键为其本身。</p>
+   *
+   * @param isReference
+   *     该元素是否是对某个实体的引用。
+   * @param element
+   *     集合中的元素，可以为{@code null}。
+   * @return
+   *     该元素的匹配键。
+   */
+  private static Object getMatchKey(final boolean isReference,
+      @Nullable final Object element) {
+    if (element == null) {
+      return NULL_KEY;
+    }
+    final Object value = ValueNormalizer.of(element.getClass()).normalize(element);
+    if (value == null) {
+      return NULL_KEY;
+    }
+    final Class<?> type = value.getClass();
+    switch (KINDS.get(type)) {
+      case ARRAY:
+        return getArrayKey(isReference, value);
+      case COLLECTION:
+        return getCollectionKey(isReference, (Collection<?>) value);
+      case MAP:
+        return getMapKey(isReference, (Map<?, ?>) value);
+      default:
+        break;
+    }
+    if (isReference) {
+      final Object idProperty = ID_PROPERTIES.get(type);
+      if (idProperty != NO_ID) {
+        final Object id = ((Property) idProperty).getValue(value);
+        return (id == null ? NULL_KEY : new IdKey(type, id));
+      }
+    }
+    if (KINDS.get(type) == Kind.OBJECT && isBean(type)) {
+      return COMPARATORS.get(type).getBeanKey(value);
+    }
+    return value;
+  }
+
+  private static List<Object> getArrayKey(final boolean isReference, final Object array) {
+    final int n = Array.getLength(array);
+    final List<Object> result = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      result.add(getMatchKey(isReference, Array.get(array, i)));
+    }
+    return result;
+  }
+
+  private static Object getCollectionKey(final boolean isReference,
+      final Collection<?> collection) {
+    if (collection instanceof Set) {
+      final Map<Object, Integer> result = new HashMap<>(collection.size() * 2);
+      for (final Object element : collection) {
+        result.merge(getMatchKey(isReference, element), 1, Integer::sum);
+      }
+      return result;
+    }
+    final List<Object> result = new ArrayList<>(collection.size());
+    for (final Object element : collection) {
+      result.add(getMatchKey(isReference, element));
+    }
+    return result;
+  }
+
+  private static Map<Object, Object> getMapKey(final boolean isReference,
+      final Map<?, ?> map) {
+    // 映射的比较按键查找对应的值，因此键保持原样，只有值取其匹配键
+    final Map<Object, Object> result = new HashMap<>(map.size() * 2);
+    for (final Map.Entry<?, ?> entry : map.entrySet()) {
+      result.put(entry.getKey(), getMatchKey(isReference, entry.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * 获取一个Bean用于无序匹配的键，由其各非计算属性值的匹配键组成。
+   */
+  private BeanKey getBeanKey(final Object bean) {
+    final Object[] keys = new Object[properties.length];
+    for (int i = 0; i < properties.length; ++i) {
+      keys[i] = getMatchKey(references[i], properties[i].getValue(bean));
+    }
+    return new BeanKey(bean.getClass(), keys);
+  }
+
+  /**
+   * 被引用实体的匹配键，由实体类型和ID组成，以免与其他元素的匹配键混淆。
+   */
+  private static final class IdKey {
+    private final Class<?> type;
+    private final Object id;
+
+    IdKey(final Class<?> type, final Object id) {
+      this.type = type;
+      this.id = id;
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if ((o == null) || (getClass() != o.getClass())) {
+        return false;
+      }
+      final IdKey other = (IdKey) o;
+      return Equality.equals(type, other.type)
+          && Equality.equals(id, other.id);
+    }
+
+    public int hashCode() {
+      final int multiplier = 7;
+      int result = 3;
+      result = Hash.combine(result, multiplier, type);
+      result = Hash.combine(result, multiplier, id);
+      return result;
+    }
+  }
+
+  /**
+   * Bean的匹配键，由Bean的类型及其各属性值的匹配键组成。
+   */
+  private static final class BeanKey {
+    private final Class<?> type;
+    private final Object[] keys;
+    private final int hash;
+
+    BeanKey(final Class<?> type, final Object[] keys) {
+      this.type = type;
+      this.keys = keys;
+      // 键在构造后不再修改，因此预先计算其哈希值
+      this.hash = 31 * type.hashCode() + Arrays.deepHashCode(keys);
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if ((o == null) || (getClass() != o.getClass())) {
+        return false;
+      }
+      final BeanKey other = (BeanKey) o;
+      return (hash == other.hash)
+          && Equality.equals(type, other.type)
+          && Arrays.deepEquals(keys, other.keys);
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  @Nullable
+  private static Difference compareMap(final boolean isReference,
+      final Map<?, ?> expected, final Map<?, ?> actual, final String path) {
+    if (expected.size() != actual.size()) {
+      return new Difference(path + ".size", expected.size(), actual.size());
+    }
+    for (final Map.Entry<?, ?> entry : expected.entrySet()) {
+      final Object key = entry.getKey();
+      final Object expectedValue = entry.getValue();
+      final Object actualValue = actual.get(key);
+      if (Objects.equals(expectedValue, actualValue)) {
+        continue;
+      }
+      final Difference diff = compareElement(isReference, expectedValue,
+          actualValue, path + "[" + key + "]");
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 比较集合或映射中的两个元素，元素的类型由期望元素的实际类型决定。
+   */
+  @Nullable
+  private static Difference compareElement(final boolean isReference,
+      @Nullable final Object expected, @Nullable final Object actual, final String path) {
+    if (expected == null || actual == null) {
+      return (expected == actual ? null : new Difference(path, expected, actual));
+    }
+    final Class<?> elementType = expected.getClass();
+    return compareValue(KINDS.get(elementType), elementType, isReference, expected,
+        actual, path);
+  }
+
+  @Nullable
+  private static Difference compareObject(final Class<?> type, final boolean isReference,
+      final Object expected, final Object actual, final String path) {
+    if (isReference) {
+      final Object idProperty = ID_PROPERTIES.get(type);
+      if (idProperty != NO_ID) {
+        // 若待比较的值是对某个实体对象的引用，且该值有ID属性，则比较其ID即可
+        final Property id = (Property) idProperty;
+        final Object expectedId = id.getValue(expected);
+        final Object actualId = id.getValue(actual);
+        return (Objects.equals(expectedId, actualId)
+                ? null : new Difference(childPath(path, id.getName()), expectedId, actualId));
+      }
+    }
+    // 直接比较两个值是否绝对相等
+    if (expected.equals(actual)) {
+      return null;
+    }
+    // 两者不等时，尝试深入其属性找出第一个不同的属性路径
+    final Class<?> actualType = expected.getClass();
+    if (isBean(actualType) && actualType == actual.getClass()) {
+      final Difference diff = COMPARATORS.get(actualType)
+                                         .compareProperties(expected, actual, path);
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return new Difference(path, expected, actual);
+  }
+
+  private static boolean isBean(final Class<?> type) {
+    return !type.isEnum()
+        && !type.isInterface()
+        && !type.getName().startsWith("java.")
+        && !type.getName().startsWith("javax.");
+  }
+
+  private static String childPath(final String path, final String name) {
+    return (path.isEmpty() ? name : path + "." + name);
+  }
+
+  /**
+   * 表示两个值的第一个不同之处。
+   */
+  public static final class Difference {
+
+    private final String path;
+    @Nullable
+    private final Object expected;
+    @Nullable
+    private final Object actual;
+
+    public Difference(final String path, @Nullable final Object expected,
+        @Nullable final Object actual) {
+      this.path = path;
+      this.expected = expected;
+      this.actual = actual;
+    }
+
+    /**
+     * 获取不同之处的属性路径，例如{@code "address.city.id"}或{@code "items[2]"}。
+     * 若被比较的值本身不同，则为其路径本身，例如模型类型的简单名称。
+     */
+    public String getPath() {
+      return path;
+    }
+
+    @Nullable
+    public Object getExpected() {
+      return expected;
+    }
+
+    @Nullable
+    public Object getActual() {
+      return actual;
+    }
+
+    /**
+     * 获取描述此不同之处的消息。
+     */
+    public String getMessage() {
+      return "The first difference is at '" + path + "': expected <" + expected
+          + "> but was <" + actual + ">";
+    }
+
+    public String toString() {
+      return new ToStringBuilder(this)
+          .append("path", path)
+          .append("expected", expected)
+          .append("actual", actual)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.Property;
+
+/**
+ * 某个类型的所有属性的稠密下标。
+ *
+ * <p>属性的下标是其在该类型的{@link BeanInfo#getProperties()}中的位置。每个类型的下标
+ * 只计算一次并被缓存；此对象构造后不再修改，因此可以被多个线程共享。</p>
+ *
+ * @author 胡海星
+ */
+final class PropertyIndex {
+
+  private static final ClassValue<PropertyIndex> CACHE = new ClassValue<>() {
+    @Override
+    protected PropertyIndex computeValue(final Class<?> type) {
+      return new PropertyIndex(BeanInfo.of(type));
+    }
+  };
+
+  private final BeanInfo info;
+  private final Property[] properties;
+  private final IdentityHashMap<Property, Integer> byProperty;
+  private final HashMap<String, Integer> byName;
+  private final PropertyMask writableMask;
+  private final Map<String, PropertyMask> updateKeyMasks = new ConcurrentHashMap<>();
+
+  /**
+   * 获取指定类型的属性下标。
+   *
+   * @param type
+   *     指定的类型。
+   * @return
+   *     该类型的属性下标，首次调用后被缓存。
+   */
+  static PropertyIndex of(final Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  private PropertyIndex(final BeanInfo info) {
+    this.info = info;
+    final List<Property> list = info.getProperties();
+    final int size = list.size();
+    properties = list.toArray(new Property[0]);
+    byProperty = new IdentityHashMap<>(size);
+    byName = new HashMap<>(size * 2);
+    for (int i = 0; i < size; ++i) {
+      byProperty.put(properties[i], i);
+      byName.put(properties[i].getName(), i);
+    }
+    final long[] writable = new long[PropertyMask.wordCount(size)];
+    for (int i = 0; i < size; ++i) {
+      if ((!properties[i].isReadonly()) && (!properties[i].isComputed())) {
+        writable[i >>> 6] |= (1L << i);
+      }
+    }
+    writableMask = new PropertyMask(this, writable);
+  }
+
+  int size() {
+    return properties.length;
+  }
+
+  Property get(final int index) {
+    return properties[index];
+  }
+
+  /**
+   * 获取指定属性的下标。
+   *
+   * @param property
+   *     指定的属性。
+   * @return
+   *     该属性的下标；若该类型没有此属性，返回-1。
+   */
+  int indexOf(final Property property) {
+    Integer index = byProperty.get(property);
+    if (index == null) {
+      // property 可能来自 model 的父类的 BeanInfo，此时按名称查找
+      index = byName.get(property.getName());
+    }
+    return (index == null ? -1 : index);
+  }
+
+  /**
+   * 获取指定名称的属性的下标。
+   *
+   * @param name
+   *     指定的属性的名称。
+   * @return
+   *     该属性的下标；若该类型没有此属性，返回-1。
+   */
+  int indexOf(final String name) {
+    final Integer index = byName.get(name);
+    return (index == null ? -1 : index);
+  }
+
+  /**
+   * 获取该类型所有非只读且非计算属性的掩码。
+   *
+   * @return
+   *     该类型所有可写的属性的掩码。
+   */
+  PropertyMask getWritableMask() {
+    return writableMask;
+  }
+
+  /**
+   * 构造指定属性集合的掩码。
+   *
+   * @param collection
+   *     指定的属性集合，不属于该类型的属性被忽略。
+   * @return
+   *     该属性集合的掩码。
+   */
+  PropertyMask mask(final Collection<Property> collection) {
+    final long[] words = new long[PropertyMask.wordCount(properties.length)];
+    for (final Property prop : collection) {
+      final int i = indexOf(prop);
+      if (i >= 0) {
+        words[i >>> 6] |= (1L << i);
+      }
+    }
+    return new PropertyMask(this, words);
+  }
+
+  /**
+   * 获取用于定位待更新对象的键属性的掩码。
+   *
+   * <p>若标识属性不是Unique属性，掩码只包含该属性本身；否则包含其所有respect to属性，
+   * 参见{@link BeanInfo#getRespectToProperties(Property)}。结果按标识属性的名称缓存。</p>
+   *
+   * @param identifier
+   *     用于标识待更新对象的属性。
+   * @return
+   *     键属性的掩码。
+   */
+  PropertyMask getUpdateKeyMask(final Property identifier) {
+    return updateKeyMasks.computeIfAbsent(identifier.getName(), name ->
+        identifier.isUnique() ? mask(info.getRespectToProperties(identifier))
+                              : mask(List.of(identifier)));
+  }
+}
@@ -0,0 +1,204 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.reflect.Property;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 某个类型的属性集合的位掩码。
+ *
+ * <p>第{@code i}位表示{@link PropertyIndex}中下标为{@code i}的属性是否属于此集合。此
+ * 对象是不可变的，因此可以被多个线程共享；判断属性是否属于此集合不需要计算哈希值，遍历其
+ * 属性也按照属性的声明顺序进行。</p>
+ *
+ * @author 胡海星
+ */
+public final class PropertyMask {
+
+  private final PropertyIndex index;
+  private final long[] words;
+  private final Property[] properties;
+
+  @Nullable
+  private volatile BeanCopier copier;
+
+  static int wordCount(final int size) {
+    return (size + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * 构造指定类型的属性集合的掩码。
+   *
+   * @param type
+   *     指定的类型。
+   * @param properties
+   *     该类型的属性集合，不属于该类型的属性被忽略。
+   * @return
+   *     该属性集合的掩码。
+   */
+  public static PropertyMask of(final Class<?> type,
+      final Collection<Property> properties) {
+    return PropertyIndex.of(type).mask(properties);
+  }
+
+  PropertyMask(final PropertyIndex index, final long[] words) {
+    this.index = index;
+    this.words = words;
+    int n = 0;
+    for (final long word : words) {
+      n += Long.bitCount(word);
+    }
+    this.properties = new Property[n];
+    int k = 0;
+    for (int w = 0; w < words.length; ++w) {
+      for (long word = words[w]; word != 0; word &= (word - 1)) {
+        properties[k++] = index.get((w << 6) + Long.numberOfTrailingZeros(word));
+      }
+    }
+  }
+
+  /**
+   * 判断指定的属性是否属于此集合。
+   *
+   * @param property
+   *     指定的属性。
+   * @return
+   *     若该属性属于此集合，返回{@code true}；否则返回{@code false}。
+   */
+  public boolean contains(final Property property) {
+    return containsIndex(index.indexOf(property));
+  }
+
+  /**
+   * 判断指定名称的属性是否属于此集合。
+   *
+   * @param name
+   *     指定的属性的名称。
+   * @return
+   *     若该属性属于此集合，返回{@code true}；否则返回{@code false}。
+   */
+  public boolean contains(final String name) {
+    return containsIndex(index.indexOf(name));
+  }
+
+  private boolean containsIndex(final int i) {
+    return (i >= 0) && ((words[i >>> 6] & (1L << i)) != 0);
+  }
+
+  public int size() {
+    return properties.length;
+  }
+
+  public boolean isEmpty() {
+    return properties.length == 0;
+  }
+
+  /**
+   * 获取此集合中的所有属性。
+   *
+   * @return
+   *     此集合中的所有属性，按照其声明的顺序排列。调用者不应修改返回的数组。
+   */
+  public Property[] getProperties() {
+    return properties;
+  }
+
+  /**
+   * 将此集合中的所有属性的值从源对象复制到目标对象。
+   *
+   * @param source
+   *     源对象。
+   * @param target
+   *     目标对象。
+   */
+  public void copy(final Object source, final Object target) {
+    BeanCopier result = copier;
+    if (result == null) {
+      // 并发时可能重复构造，但结果相同，因此无需加锁
+      result = new BeanCopier(properties);
+      copier = result;
+    }
+    result.copy(source, target);
+  }
+
+  /**
+   * 计算此集合与另一个集合的交集。
+   *
+   * @param other
+   *     另一个集合，必须与此集合属于同一类型。
+   * @return
+   *     两个集合的交集。
+   */
+  public PropertyMask and(final PropertyMask other) {
+    if (index != other.index) {
+      throw new IllegalArgumentException("The property masks belong to different types.");
+    }
+    final long[] result = new long[words.length];
+    for (int i = 0; i < words.length; ++i) {
+      result[i] = words[i] & other.words[i];
+    }
+    return new PropertyMask(index, result);
+  }
+
+  /**
+   * 比较两个对象在此集合中的所有属性上的值。
+   *
+   * <p>引用属性只比较被引用实体的ID，具体的比较由{@link ModelComparator}完成。</p>
+   *
+   * @param expected
+   *     期望的对象。
+   * @param actual
+   *     实际的对象。
+   * @return
+   *     第一个不同之处；若所有属性的值都相同，返回{@code null}。
+   */
+  @Nullable
+  public ModelComparator.Difference compare(final Object expected, final Object actual) {
+    for (final Property prop : properties) {
+      final ModelComparator.Difference diff = ModelComparator.compareValue(
+          prop.getType(), prop.isReference(), prop.getValue(expected),
+          prop.getValue(actual), prop.getName());
+      if (diff != null) {
+        return diff;
+      }
+    }
+    return null;
+  }
+
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final PropertyMask other = (PropertyMask) o;
+    return (index == other.index) && Arrays.equals(words, other.words);
+  }
+
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+
+  public String toString() {
+    final String[] names = new String[properties.length];
+    for (int i = 0; i < names.length; ++i) {
+      names[i] = properties[i].getName();
+    }
+    return new ToStringBuilder(this)
+        .append("properties", names)
+        .toString();
+  }
+}
@@ -0,0 +1,75 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ltd.qubit.commons.reflect.Property;
+
+/**
+ * 规划逐属性测试用例（例如空值、超长值、重复值测试）的扇出。
+ *
+ * <p>对于属性很多的模型，为每个属性单独生成一个测试用例会使测试时间急剧增加。此类按照
+ * {@link DaoTestParameters#getPropertyTestBudget()}从候选属性中选取一部分进行测试，并按照
+ * {@link DaoTestParameters#getPropertyTestGroupSize()}将选中的属性合并为较少的测试用例，
+ * 合并后的测试用例共享一次准备和清理过程。</p>
+ *
+ * <p>候选属性被划分为若干个连续的窗口，每次运行测试其中的一个窗口。窗口的选取只依赖于
+ * {@link DaoTestParameters#getPropertyTestRound()}给出的轮次和测试的键：同一个轮次总是
+ * 选取相同的属性；轮次每增加1，选取的窗口就向后轮换一个，因此以连续的轮次运行若干次即可
+ * 覆盖所有的属性。注意轮次不能取随机的主种子，否则无法保证覆盖所有的属性。</p>
+ *
+ * @author Haixing Hu
+ */
+final class PropertyTestPlanner {
+
+  private PropertyTestPlanner() {}
+
+  /**
+   * 规划逐属性测试用例。
+   *
+   * @param candidates
+   *     所有候选属性，其顺序必须是稳定的。
+   * @param budget
+   *     最多选取的属性数目。
+   * @param groupSize
+   *     每个测试用例中合并的属性数目。
+   * @param round
+   *     逐属性测试的轮次。
+   * @param key
+   *     测试的键，用于使不同的测试轮换到不同的窗口。
+   * @return
+   *     规划的结果，其中每个元素是一个测试用例所要测试的属性列表。
+   */
+  static List<List<Property>> plan(final List<Property> candidates,
+      final int budget, final int groupSize, final long round, final String key) {
+    final int n = candidates.size();
+    final List<Property> selected;
+    if (budget <= 0) {
+      return new ArrayList<>();
+    } else if (budget >= n) {
+      selected = candidates;
+    } else {
+      final int windows = (n + budget - 1) / budget;
+      final int window = (int) Math.floorMod(round + key.hashCode(), (long) windows);
+      selected = new ArrayList<>(budget);
+      for (int i = 0; i < budget; ++i) {
+        // 最后一个窗口不足时从头部补齐
+        selected.add(candidates.get((window * budget + i) % n));
+      }
+    }
+    final int size = Math.max(groupSize, 1);
+    final List<List<Property>> result = new ArrayList<>();
+    for (int i = 0; i < selected.size(); i += size) {
+      result.add(selected.subList(i, Math.min(i + size, selected.size())));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,24 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.Stack;
+
+import static ltd.qubit.commons.test.dao.DaoTestUtils.stackToString;
+
+public class ReferenceDepthExceededException extends IllegalArgumentException {
+
+  private static final long serialVersionUID = -3126720541981753027L;
+
+  public ReferenceDepthExceededException(final Stack<Class<?>> typeStack,
+      final int maxDepth) {
+    super("The depth of the reference chain exceeds " + maxDepth + ": "
+        + stackToString(typeStack));
+  }
+}
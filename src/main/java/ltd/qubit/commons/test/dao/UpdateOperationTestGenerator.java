@@ -9,6 +9,7 @@
 package ltd.qubit.commons.test.dao;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -147,6 +148,7 @@ public class UpdateOperationTestGenerator<T> extends DaoOperationTestGenerator<T
 
   private void updateModelWithNullField(final DaoDynamicTestBuilder builder) {
     final List<Property> respectTo = modelInfo.getRespectToProperties(identifier);
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if (prop.equals(identifier)) {
         continue;  // should not set the identifier to null
@@ -159,26 +161,26 @@ public class UpdateOperationTestGenerator<T> extends DaoOperationTestGenerator<T
           && (!prop.isComputed())
           && (!prop.isPrimitive())
           && methodInfo.isModified(prop)) {
-        final String displayName = getDisplayName(modelName + " with a null "
-            + prop.getName());
-        builder.add(displayName, () -> {
-          logger.info("Test {}: Update a {} with a null {}", methodName, modelName,
-              prop.getName());
-          final Object oldModel = addNormalModelImpl();
-          final Object newModel = beanCreator.prepare(modelInfo);
-          setUpdateKeys(modelInfo, identifier, oldModel, newModel);
-          prop.setValue(newModel, null);
-          final NullFieldException e = assertThrows(NullFieldException.class,
-              () -> doUpdate(false, oldModel, newModel), "Updating a " + modelName
-                  + " with a null " + prop.getName()
-                  + " must throw a NullFieldException.");
-          checkException(e, prop);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a null", candidates, (prop) -> {
+      logger.info("Test {}: Update a {} with a null {}", methodName, modelName,
+          prop.getName());
+      final Object oldModel = addNormalModelImpl();
+      final Object newModel = beanCreator.prepare(modelInfo);
+      setUpdateKeys(modelInfo, identifier, oldModel, newModel);
+      prop.setValue(newModel, null);
+      final NullFieldException e = assertThrows(NullFieldException.class,
+          () -> doUpdate(false, oldModel, newModel), "Updating a " + modelName
+              + " with a null " + prop.getName()
+              + " must throw a NullFieldException.");
+      checkException(e, prop);
+    });
   }
 
   private void updateModelWithLongField(final DaoDynamicTestBuilder builder) {
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if (prop.equals(identifier)) {
         continue;
@@ -189,68 +191,67 @@ public class UpdateOperationTestGenerator<T> extends DaoOperationTestGenerator<T
           && (!prop.isReadonly())
           && (!prop.isComputed())
           && methodInfo.isModified(prop)) {
-        final int maxSize = prop.getSizeRange().getMax();
-        final String displayName = getDisplayName(modelName
-            + " with a very long " + prop.getName());
-        builder.add(displayName, () -> {
-          logger.info("Test {}: Update a {} with a very long {}", methodName,
-              modelName, prop.getName());
-          final Object oldModel = addNormalModelImpl();
-          final Object newModel = beanCreator.prepare(modelInfo);
-          setUpdateKeys(modelInfo, identifier, oldModel, newModel);
-          final String longValue = random.nextLetterString(maxSize + 1);
-          prop.setValue(newModel, longValue);
-          final FieldTooLongException e = assertThrows(FieldTooLongException.class,
-              () -> doUpdate(false, oldModel, newModel), "Updating a " + modelName
-                  + " with a very long " + prop.getName()
-                  + " must throw a FieldTooLongException.");
-          checkException(e, prop);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a very long", candidates, (prop) -> {
+      logger.info("Test {}: Update a {} with a very long {}", methodName,
+          modelName, prop.getName());
+      final int maxSize = prop.getSizeRange().getMax();
+      final Object oldModel = addNormalModelImpl();
+      final Object newModel = beanCreator.prepare(modelInfo);
+      setUpdateKeys(modelInfo, identifier, oldModel, newModel);
+      final String longValue = random.nextLetterString(maxSize + 1);
+      prop.setValue(newModel, longValue);
+      final FieldTooLongException e = assertThrows(FieldTooLongException.class,
+          () -> doUpdate(false, oldModel, newModel), "Updating a " + modelName
+              + " with a very long " + prop.getName()
+              + " must throw a FieldTooLongException.");
+      checkException(e, prop);
+    });
   }
 
   private void updateModelWithDuplicatedField(final DaoDynamicTestBuilder builder) {
+    final List<Property> candidates = new ArrayList<>();
     for (final Property prop : modelInfo.getProperties()) {
       if ((prop.isUnique())
           && (!prop.isReadonly())
           && (!prop.isComputed())
           && methodInfo.isModified(prop)) {
-        final String displayName = getDisplayName(modelName
-            + " with a duplicated " + prop.getName());
-        builder.add(displayName, () -> {
-          final Object existingModel = beanCreator.prepare(modelInfo, prop);
-          daoInfo.add(existingModel); // dao.add(model)
-          logger.debug("Test {}: Add a normal {} as existing model: {}",
-              methodName, modelName, existingModel);
-          // 注意，如果当前Unique属性prop的某个respectTo属性未被当前被测试方法修改，
-          // 那么我们需要将 oldModel 的这些未被修改的respectTo属性和existingModel的这些
-          // 属性设为同样的值才能进行期望的测试。
-          // 例如，Category.name 在 Category.entity下是unique的，
-          // existingMode.id = 1, existingModel.entity = 'e', existingModel.name = 'x';
-          // oldModel.id = 2, oldModel.entity = 'e', oldModel.name = 'y';
-          // newModel.id = 2, newModel.entity = 'e', newModel.name = 'x';
-          // 上面这样的三组数据才能进行期望的 duplicated key 异常测试
-          final Object oldModel = beanCreator.prepare(modelInfo);
-          setUnmodifiedRespectToProperties(methodInfo, prop, existingModel, oldModel);
-          daoInfo.add(oldModel);
-          logger.debug("Test {}: Add a normal {} as old model: {}",
-              methodName, modelName, oldModel);
-          final Object newModel = beanCreator.prepare(modelInfo);
-          setUpdateKeys(modelInfo, identifier, oldModel, newModel);
-          final String duplicatedValue = setUniquePropertyValues(modelInfo,
-              prop, existingModel, newModel);
-          logger.info("Test {}: Update a {} with a duplicated {}: {}", methodName,
-              modelName, prop.getName(), newModel);
-          final DuplicateKeyException e = assertThrows(DuplicateKeyException.class,
-              () -> doUpdate(false, oldModel, newModel),
-              "Updating a " + modelName
-              + " with a duplicated " + prop.getName()
-              + " must throw a DuplicateKeyException.");
-          checkException(e, prop, duplicatedValue);
-        });
+        candidates.add(prop);
       }
     }
+    addPropertyTests(builder, "a duplicated", candidates, (prop) -> {
+      final Object existingModel = beanCreator.prepare(modelInfo, prop);
+      daoInfo.add(existingModel); // dao.add(model)
+      logger.debug("Test {}: Add a normal {} as existing model: {}",
+          methodName, modelName, existingModel);
+      // 注意，如果当前Unique属性prop的某个respectTo属性未被当前被测试方法修改，
+      // 那么我们需要将 oldModel 的这些未被修改的respectTo属性和existingModel的这些
+      // 属性设为同样的值才能进行期望的测试。
+      // 例如，Category.name 在 Category.entity下是unique的，
+      // existingMode.id = 1, existingModel.entity = 'e', existingModel.name = 'x';
+      // oldModel.id = 2, oldModel.entity = 'e', oldModel.name = 'y';
+      // newModel.id = 2, newModel.entity = 'e', newModel.name = 'x';
+      // 上面这样的三组数据才能进行期望的 duplicated key 异常测试
+      final Object oldModel = beanCreator.prepare(modelInfo);
+      setUnmodifiedRespectToProperties(methodInfo, prop, existingModel, oldModel);
+      daoInfo.add(oldModel);
+      logger.debug("Test {}: Add a normal {} as old model: {}",
+          methodName, modelName, oldModel);
+      final Object newModel = beanCreator.prepare(modelInfo);
+      setUpdateKeys(modelInfo, identifier, oldModel, newModel);
+      final String duplicatedValue = setUniquePropertyValues(modelInfo,
+          prop, existingModel, newModel);
+      logger.info("Test {}: Update a {} with a duplicated {}: {}", methodName,
+          modelName, prop.getName(), newModel);
+      final DuplicateKeyException e = assertThrows(DuplicateKeyException.class,
+          () -> doUpdate(false, oldModel, newModel),
+          "Updating a " + modelName
+          + " with a duplicated " + prop.getName()
+          + " must throw a DuplicateKeyException.");
+      checkException(e, prop, duplicatedValue);
+    });
   }
 
   private void updateModelWithUnreferencedField(final DaoDynamicTestBuilder builder) {
@@ -0,0 +1,155 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.lang.StringUtils;
+import ltd.qubit.commons.reflect.Option;
+
+import static ltd.qubit.commons.reflect.MethodUtils.getMatchingMethod;
+
+/**
+ * 按类型缓存的值规范化器，用于实现{@link DaoTestUtils#normalize(Object)}。
+ *
+ * <p>每个类型的规范化器只在第一次使用时解析一次：确定该类型是字符串、集合、映射、数组
+ * 还是普通对象，并将其公共的{@code normalize()}和{@code isEmpty()}方法（如果存在）
+ * 绑定为{@link MethodHandle}。此后对该类型的值进行规范化时不再进行任何反射查找。</p>
+ *
+ * @author Haixing Hu
+ */
+final class ValueNormalizer {
+
+  private static final ClassValue<ValueNormalizer> CACHE = new ClassValue<>() {
+    @Override
+    protected ValueNormalizer computeValue(final Class<?> type) {
+      return new ValueNormalizer(type);
+    }
+  };
+
+  private static final MethodType NORMALIZE_TYPE =
+      MethodType.methodType(void.class, Object.class);
+
+  private static final MethodType IS_EMPTY_TYPE =
+      MethodType.methodType(boolean.class, Object.class);
+
+  private enum Kind {
+    STRING,
+    COLLECTION,
+    MAP,
+    ARRAY,
+    OBJECT,
+  }
+
+  private final Kind kind;
+
+  @Nullable
+  private final MethodHandle normalizeMethod;
+
+  @Nullable
+  private final MethodHandle isEmptyMethod;
+
+  /**
+   * 获取指定类型的规范化器。
+   *
+   * @param type
+   *     指定的类型。
+   * @return
+   *     该类型的规范化器，首次调用后被缓存。
+   */
+  static ValueNormalizer of(final Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  private ValueNormalizer(final Class<?> type) {
+    if (type == String.class) {
+      kind = Kind.STRING;
+    } else if (Collection.class.isAssignableFrom(type)) {
+      kind = Kind.COLLECTION;
+    } else if (Map.class.isAssignableFrom(type)) {
+      kind = Kind.MAP;
+    } else if (type.isArray()) {
+      kind = Kind.ARRAY;
+    } else {
+      kind = Kind.OBJECT;
+    }
+    normalizeMethod = bind(type, "normalize", NORMALIZE_TYPE);
+    // 集合和映射的isEmpty()直接通过接口调用
+    isEmptyMethod = (kind == Kind.OBJECT ? bind(type, "isEmpty", IS_EMPTY_TYPE) : null);
+  }
+
+  @Nullable
+  private static MethodHandle bind(final Class<?> type, final String name,
+      final MethodType methodType) {
+    final Method method = getMatchingMethod(type, Option.DEFAULT_PUBLIC, name, null);
+    if (method == null) {
+      return null;
+    }
+    final Class<?> returnType = method.getReturnType();
+    if ((methodType.returnType() == boolean.class)
+        && (returnType != boolean.class) && (returnType != Boolean.class)) {
+      return null;    // 返回值不是布尔值的 isEmpty() 方法不作为判空方法
+    }
+    // 公共方法可能声明在非公共类中，因此需要绕过访问检查
+    method.trySetAccessible();
+    try {
+      return MethodHandles.lookup().unreflect(method).asType(methodType);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException("Cannot access the method " + name
+          + "() of " + type.getName(), e);
+    }
+  }
+
+  /**
+   * 规范化指定的值。
+   *
+   * @param obj
+   *     待规范化的值，其类型必须是此规范化器对应的类型。
+   * @return
+   *     规范化后的值；若该值为空，则返回{@code null}。
+   */
+  @Nullable
+  Object normalize(final Object obj) {
+    try {
+      if (normalizeMethod != null) {
+        normalizeMethod.invokeExact(obj);
+      }
+      switch (kind) {
+        case STRING:
+          // 对于string，去除其头尾空白
+          final String str = StringUtils.strip((String) obj);
+          return (str.isEmpty() ? null : str);
+        case COLLECTION:
+          return (((Collection<?>) obj).isEmpty() ? null : obj);
+        case MAP:
+          return (((Map<?, ?>) obj).isEmpty() ? null : obj);
+        case ARRAY:
+          return (Array.getLength(obj) == 0 ? null : obj);
+        default:
+          if (isEmptyMethod != null && (boolean) isEmptyMethod.invokeExact(obj)) {
+            return null;
+          }
+          return obj;
+      }
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+}
@@ -10,10 +10,10 @@ package ltd.qubit.commons.test.json;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.util.Base64;
 import java.util.Collection;
-import java.util.List;
+import java.util.Comparator;
 
 import javax.annotation.Nullable;
 
@@ -22,28 +22,46 @@ import ltd.qubit.commons.text.jackson.TypeRegistrationModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
 
-import static ltd.qubit.commons.lang.StringUtils.nullToEmpty;
-import static ltd.qubit.commons.reflect.AccessibleUtils.withAccessibleObject;
-import static ltd.qubit.commons.reflect.FieldUtils.getAllFields;
-import static ltd.qubit.commons.reflect.Option.BEAN_FIELD;
-import static ltd.qubit.commons.test.json.JsonUnitUtils.assertJsonNodeAbsent;
-import static ltd.qubit.commons.test.json.JsonUnitUtils.assertJsonNodeEquals;
-import static ltd.qubit.commons.test.json.JsonUnitUtils.assertJsonNodeEqualsRaw;
-import static ltd.qubit.commons.text.jackson.JacksonUtils.getPropertyName;
 import static ltd.qubit.commons.text.jackson.JacksonUtils.serializeWithSerializer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
 
+/**
+ * The utility class for testing the JSON serialization of a object.
+ *
+ * <p>The serialized JSON document is parsed only once into a tree, and the
+ * fields of the object are compared with the nodes of the tree while walking
+ * them together. The field-to-node name mappings of each class are resolved
+ * once per mapper and cached, see {@link JsonFieldMapping}.</p>
+ *
+ * @author Haixing Hu
+ */
 public class JacksonJsonTestUtils {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JacksonJsonTestUtils.class);
 
+  /**
+   * Compares two JSON nodes, treating numbers with the same value but different
+   * scales, e.g., {@code 1.0} and {@code 1.00}, as equal.
+   */
+  static final Comparator<JsonNode> NUMERIC_COMPARATOR = (x, y) -> {
+    if (x.isNumber() && y.isNumber()) {
+      return x.decimalValue().compareTo(y.decimalValue());
+    }
+    return (x.equals(y) ? 0 : 1);
+  };
+
   public static <T> void testJsonDeserialization(final JsonMapper mapper, final T obj)
       throws Exception {
     LOGGER.debug("Testing JSON deserialization for the object:\n{}", obj);
@@ -62,166 +80,256 @@ public class JacksonJsonTestUtils {
     final String json = mapper.writerWithDefaultPrettyPrinter()
                               .writeValueAsString(obj);
     LOGGER.info("The object is serialized to:\n{}", json);
-    assertJsonNodeEqualsObject(mapper, json, null, null, obj);
+    final JsonNode root = treeReader(mapper).readTree(json);
+    assertJsonNodeEqualsObject(mapper, root, "", null, obj);
     LOGGER.debug("Test finished successfully.");
   }
 
-  private static void assertJsonNodeEqualsObject(final JsonMapper mapper,
-      final String json, @Nullable final String path, @Nullable final Field field,
-      @Nullable final Object fieldValue)
+  /**
+   * Tests the JSON serialization and deserialization of an object without
+   * building the tree or the pretty-printed text of the whole JSON document.
+   *
+   * <p>The object is serialized only once, and the serialized bytes are
+   * compared with the object by a {@link JsonStreamComparator}, which stops at
+   * the first mismatch and reports its JSON pointer, and then deserialized and
+   * compared with the object. This is suitable for very large payloads, e.g.,
+   * collection-heavy models or long lists.</p>
+   *
+   * @param mapper
+   *     the JSON mapper used to serialize and deserialize the object.
+   * @param obj
+   *     the object to test.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public static <T> void testJsonStreaming(final JsonMapper mapper, final T obj)
       throws Exception {
+    final byte[] json = mapper.writeValueAsBytes(obj);
+    LOGGER.debug("The object is serialized to {} bytes.", json.length);
+    try (final JsonParser parser = mapper.createParser(json)) {
+      new JsonStreamComparator(mapper).assertMatches(parser, obj);
+    }
+    final Object result = mapper.readValue(json, obj.getClass());
+    assertEquals(obj, result);
+    LOGGER.debug("Test finished successfully.");
+  }
+
+  private static ObjectReader treeReader(final JsonMapper mapper) {
+    // keep the exact text of floating point numbers, as JsonUnit does
+    return mapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+  }
+
+  private static String childPath(final String path, final String name) {
+    return (path.isEmpty() ? name : path + "." + name);
+  }
+
+  private static String elementPath(final String path, final int index) {
+    return path + "[" + index + "]";
+  }
+
+  @Nullable
+  private static JsonNode child(@Nullable final JsonNode node, final String name) {
+    return (node == null ? null : node.get(name));
+  }
+
+  @Nullable
+  private static JsonNode element(@Nullable final JsonNode node, final int index) {
+    return (node == null ? null : node.get(index));
+  }
+
+  private static void assertJsonNodeEqualsObject(final JsonMapper mapper,
+      @Nullable final JsonNode node, final String path, @Nullable final Field field,
+      @Nullable final Object fieldValue) throws Exception {
     if (fieldValue == null) {
-      assertJsonNodeAbsent(json, path);
+      assertJsonNodeAbsent(node, path);
     } else if (field != null && field.isAnnotationPresent(JsonSerialize.class)) {
       final JsonSerialize annotation = field.getAnnotation(JsonSerialize.class);
       final String expected = serializeWithSerializer(mapper, annotation, field, fieldValue);
-      assertJsonNodeEqualsRaw(json, path, expected);
+      assertJsonNodeEqualsRaw(mapper, node, path, expected);
     } else {
       final Class<?> type = fieldValue.getClass();
       final JsonSerializer<?> serializer = TypeRegistrationModule.getSerializer(type);
       if (serializer != null) {
         final String expected = serializeWithSerializer(mapper, serializer, field, fieldValue);
-        assertJsonNodeEqualsRaw(json, path, expected);
+        assertJsonNodeEqualsRaw(mapper, node, path, expected);
       } else {
-        assertJsonNodeEqualsNonNullObject(mapper, json, path, field, fieldValue);
+        assertJsonNodeEqualsNonNullObject(mapper, node, path, fieldValue);
       }
     }
   }
 
   private static void assertJsonNodeEqualsNonNullObject(final JsonMapper mapper,
-      final String json, final String path, @Nullable final Field field,
-      final Object fieldValue) throws Exception {
-    assert fieldValue != null;
+      @Nullable final JsonNode node, final String path, final Object fieldValue)
+      throws Exception {
     final Class<?> type = fieldValue.getClass();
     if (type == Boolean.class) {
-      assertJsonNodeEquals(json, path, (Boolean) fieldValue);
-    } else if (type == Character.class) {
-      assertJsonNodeEquals(json, path, (Character) fieldValue);
-    } else if (type == Byte.class) {
-      assertJsonNodeEquals(json, path, (Byte) fieldValue);
-    } else if (type == Short.class) {
-      assertJsonNodeEquals(json, path, (Short) fieldValue);
-    } else if (type == Integer.class) {
-      assertJsonNodeEquals(json, path, (Integer) fieldValue);
-    } else if (type == Long.class) {
-      assertJsonNodeEquals(json, path, (Long) fieldValue);
-    } else if (type == Float.class) {
-      assertJsonNodeEquals(json, path, (Float) fieldValue);
-    } else if (type == Double.class) {
-      assertJsonNodeEquals(json, path, (Double) fieldValue);
-    } else if (type == String.class) {
-      assertJsonNodeEquals(json, path, (String) fieldValue);
+      assertJsonNodeEqualsBoolean(node, path, (Boolean) fieldValue);
+    } else if (type == Character.class || type == String.class) {
+      assertJsonNodeEqualsText(node, path, fieldValue.toString());
+    } else if (type == Byte.class || type == Short.class || type == Integer.class
+        || type == Long.class || type == Float.class || type == Double.class) {
+      assertJsonNodeEqualsNumber(node, path, fieldValue.toString());
     } else if (Enum.class.isAssignableFrom(type)) {
-      assertJsonNodeEquals(json, path, (Enum<?>) fieldValue);
+      assertJsonNodeEqualsText(node, path, ((Enum<?>) fieldValue).name());
     } else if (type.isArray()) {
-      assertJsonNodeEqualsArray(mapper, json, path, fieldValue);
+      assertJsonNodeEqualsArray(mapper, node, path, fieldValue);
     } else if (Collection.class.isAssignableFrom(type)) {
-      final Collection<?> collection = (Collection<?>) fieldValue;
-      assertJsonNodeEqualsCollection(mapper, json, path, collection);
+      assertJsonNodeEqualsCollection(mapper, node, path, (Collection<?>) fieldValue);
     } else {
-      final List<Field> subfields = getAllFields(fieldValue.getClass(), BEAN_FIELD);
-      for (final Field subfield : subfields) {
-        assertJsonNodeEqualsField(mapper, json, path, fieldValue, subfield);
+      for (final JsonFieldMapping mapping : JsonFieldMapping.of(mapper, type)) {
+        assertJsonNodeEqualsField(mapper, node, path, fieldValue, mapping);
       }
     }
   }
 
   private static void assertJsonNodeEqualsField(final JsonMapper mapper,
-      final String json, @Nullable final String rootPath, final Object obj,
-      final Field field) throws Exception {
-    final PropertyName propertyName = getPropertyName(mapper, field);
-    final String path = (rootPath == null ? propertyName.getSimpleName()
-                                          : rootPath + "." + propertyName.getSimpleName());
-    if (field.isAnnotationPresent(JsonIgnore.class)
-        || Modifier.isTransient(field.getModifiers())) {
+      @Nullable final JsonNode node, final String rootPath, final Object obj,
+      final JsonFieldMapping mapping) throws Exception {
+    final String path = childPath(rootPath, mapping.getName());
+    if (mapping.isIgnored()) {
       LOGGER.debug("Ignore the JSON node '{}' ...", path);
+      return;
+    }
+    LOGGER.debug("Testing the JSON node '{}' ...", path);
+    final Field field = mapping.getField();
+    final Object fieldValue = mapping.getValue(obj);
+    final JsonNode fieldNode = child(node, mapping.getName());
+    if (field.getType().isPrimitive()) {
+      assertJsonNodeEqualsNonNullObject(mapper, fieldNode, path, fieldValue);
     } else {
-      LOGGER.debug("Testing the JSON node '{}' ...", path);
-      final Object fieldValue = withAccessibleObject(field, f -> f.get(obj), true);
-      final Class<?> fieldType = field.getType();
-      if (fieldType == boolean.class) {
-        assertJsonNodeEquals(json, path, (Boolean) fieldValue);
-      } else if (fieldType == char.class) {
-        assertJsonNodeEquals(json, path, (Character) fieldValue);
-      } else if (fieldType == byte.class) {
-        assertJsonNodeEquals(json, path, (Byte) fieldValue);
-      } else if (fieldType == short.class) {
-        assertJsonNodeEquals(json, path, (Short) fieldValue);
-      } else if (fieldType == int.class) {
-        assertJsonNodeEquals(json, path, (Integer) fieldValue);
-      } else if (fieldType == long.class) {
-        assertJsonNodeEquals(json, path, (Long) fieldValue);
-      } else if (fieldType == float.class) {
-        assertJsonNodeEquals(json, path, (Float) fieldValue);
-      } else if (fieldType == double.class) {
-        assertJsonNodeEquals(json, path, (Double) fieldValue);
-      } else {
-        assertJsonNodeEqualsObject(mapper, json, path, field, fieldValue);
-      }
+      assertJsonNodeEqualsObject(mapper, fieldNode, path, field, fieldValue);
     }
   }
 
   private static void assertJsonNodeEqualsCollection(final JsonMapper mapper,
-      final String json, final String path, final Collection<?> collection)
+      @Nullable final JsonNode node, final String path, final Collection<?> collection)
       throws Exception {
     int i = 0;
     for (final Object element : collection) {
-      final String subpath = nullToEmpty(path) + "[" + i + "]";
-      assertJsonNodeEqualsObject(mapper, json, subpath, null, element);
+      assertJsonNodeEqualsObject(mapper, element(node, i), elementPath(path, i),
+          null, element);
       ++i;
     }
   }
 
   private static void assertJsonNodeEqualsArray(final JsonMapper mapper,
-      final String json, final String path, final Object array)
+      @Nullable final JsonNode node, final String path, final Object array)
       throws Exception {
-    assert (array != null && array.getClass().isArray());
     final int n = Array.getLength(array);
     final Class<?> elementType = array.getClass().getComponentType();
-    if (elementType == boolean.class) {
-      for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getBoolean(array, i));
-      }
-    } else if (elementType == char.class) {
-      // NOTE: a byte array was serialized as a string in JACKSON
-      final String expected = new String((char[]) array);
-      assertJsonNodeEquals(json, path, expected);
+    if (elementType == char.class) {
+      // NOTE: a char array was serialized as a string in JACKSON
+      assertJsonNodeEqualsText(node, path, new String((char[]) array));
     } else if (elementType == byte.class) {
       // NOTE: a byte array was serialized as a BASE64 encoded string in JACKSON
       final Base64.Encoder encoder = Base64.getEncoder();
-      final String expected = encoder.encodeToString((byte[]) array);
-      assertJsonNodeEquals(json, path, expected);
-    } else if (elementType == short.class) {
-      for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getShort(array, i));
-      }
-    } else if (elementType == int.class) {
-      for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getInt(array, i));
-      }
-    } else if (elementType == long.class) {
+      assertJsonNodeEqualsText(node, path, encoder.encodeToString((byte[]) array));
+    } else if (elementType.isPrimitive()) {
       for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getLong(array, i));
-      }
-    } else if (elementType == float.class) {
-      for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getFloat(array, i));
-      }
-    } else if (elementType == double.class) {
-      for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEquals(json, subpath, Array.getDouble(array, i));
+        assertJsonNodeEqualsNonNullObject(mapper, element(node, i), elementPath(path, i),
+            Array.get(array, i));
       }
     } else {
       for (int i = 0; i < n; ++i) {
-        final String subpath = nullToEmpty(path) + "[" + i + "]";
-        assertJsonNodeEqualsObject(mapper, json, subpath, null, Array.get(array, i));
+        assertJsonNodeEqualsObject(mapper, element(node, i), elementPath(path, i),
+            null, Array.get(array, i));
       }
     }
   }
+
+  private static void assertJsonNodeAbsent(@Nullable final JsonNode node,
+      final String path) {
+    if (node != null && !node.isMissingNode()) {
+      fail("The JSON node '" + path + "' should be absent, but it is: " + node);
+    }
+  }
+
+  private static JsonNode assertJsonNodePresent(@Nullable final JsonNode node,
+      final String path) {
+    if (node == null || node.isMissingNode()) {
+      fail("The JSON node '" + path + "' is missing.");
+    }
+    return node;
+  }
+
+  private static void assertJsonNodeEqualsBoolean(@Nullable final JsonNode node,
+      final String path, final boolean expected) {
+    final JsonNode actual = assertJsonNodePresent(node, path);
+    if (!actual.isBoolean() || actual.booleanValue() != expected) {
+      fail("The JSON node '" + path + "' should be " + expected + ", but it is: " + actual);
+    }
+  }
+
+  private static void assertJsonNodeEqualsText(@Nullable final JsonNode node,
+      final String path, final String expected) {
+    final JsonNode actual = assertJsonNodePresent(node, path);
+    if (!actual.isTextual() || !expected.equals(actual.textValue())) {
+      fail("The JSON node '" + path + "' should be the string \"" + expected
+          + "\", but it is: " + actual);
+    }
+  }
+
+  private static void assertJsonNodeEqualsNumber(@Nullable final JsonNode node,
+      final String path, final String expected) {
+    final JsonNode actual = assertJsonNodePresent(node, path);
+    if (!numberEquals(expected, actual.isNumber(), actual.asText())) {
+      fail("The JSON node '" + path + "' should be the number " + expected
+          + ", but it is: " + actual);
+    }
+  }
+
+  /**
+   * Tests whether a JSON value equals to the string representation of a Java
+   * number.
+   *
+   * <p>NaN and infinities are not valid JSON numbers. Jackson serializes them as
+   * strings by default, or as the non-standard number tokens {@code NaN},
+   * {@code Infinity} and {@code -Infinity} if
+   * {@code JsonWriteFeature.WRITE_NAN_AS_STRINGS} is disabled. Both forms are
+   * accepted, and compared by their text. Other numbers are compared by their
+   * decimal values, ignoring their scales.</p>
+   *
+   * @param expected
+   *     the string representation of the expected Java number.
+   * @param numeric
+   *     whether the actual JSON value is a number.
+   * @param actual
+   *     the text of the actual JSON value.
+   * @return
+   *     {@code true} if the actual JSON value equals to the expected number;
+   *     {@code false} otherwise.
+   */
+  static boolean numberEquals(final String expected, final boolean numeric,
+      final String actual) {
+    final BigDecimal expectedValue = toDecimal(expected);
+    if (expectedValue == null) {
+      return expected.equals(actual);     // NaN or infinity
+    }
+    final BigDecimal actualValue = (numeric ? toDecimal(actual) : null);
+    return (actualValue != null) && (expectedValue.compareTo(actualValue) == 0);
+  }
+
+  @Nullable
+  private static BigDecimal toDecimal(final String str) {
+    try {
+      return new BigDecimal(str);
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static void assertJsonNodeEqualsRaw(final JsonMapper mapper,
+      @Nullable final JsonNode node, final String path, final String expected) {
+    final JsonNode actual = assertJsonNodePresent(node, path);
+    JsonNode expectedNode;
+    try {
+      expectedNode = treeReader(mapper).readTree(expected);
+    } catch (final JsonProcessingException e) {
+      // not a valid JSON, compare it as a string
+      expectedNode = TextNode.valueOf(expected);
+    }
+    if (expectedNode == null || !expectedNode.equals(NUMERIC_COMPARATOR, actual)) {
+      fail("The JSON node '" + path + "' should be " + expected + ", but it is: " + actual);
+    }
+  }
 }
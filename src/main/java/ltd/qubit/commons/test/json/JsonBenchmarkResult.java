@@ -0,0 +1,137 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import java.util.Locale;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * The result of a JSON round-trip benchmark of a model class.
+ *
+ * @author Haixing Hu
+ * @see JsonTester#benchmark(Class)
+ */
+public final class JsonBenchmarkResult {
+
+  /**
+   * The header of the CSV lines returned by {@link #toCsv(String)}.
+   */
+  public static final String CSV_HEADER = "timestamp,type,corpus,iterations,"
+      + "serializeOpsPerSecond,deserializeOpsPerSecond,bytesPerObject,"
+      + "allocatedBytesPerRoundTrip";
+
+  private final String type;
+  private final int corpusSize;
+  private final int iterations;
+  private final double serializeOpsPerSecond;
+  private final double deserializeOpsPerSecond;
+  private final double bytesPerObject;
+  private final long allocatedBytesPerRoundTrip;
+
+  public JsonBenchmarkResult(final String type, final int corpusSize,
+      final int iterations, final double serializeOpsPerSecond,
+      final double deserializeOpsPerSecond, final double bytesPerObject,
+      final long allocatedBytesPerRoundTrip) {
+    this.type = type;
+    this.corpusSize = corpusSize;
+    this.iterations = iterations;
+    this.serializeOpsPerSecond = serializeOpsPerSecond;
+    this.deserializeOpsPerSecond = deserializeOpsPerSecond;
+    this.bytesPerObject = bytesPerObject;
+    this.allocatedBytesPerRoundTrip = allocatedBytesPerRoundTrip;
+  }
+
+  /**
+   * Gets the name of the benchmarked model class.
+   *
+   * @return
+   *     the fully qualified name of the benchmarked model class.
+   */
+  public String getType() {
+    return type;
+  }
+
+  public int getCorpusSize() {
+    return corpusSize;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Gets the number of objects serialized per second.
+   *
+   * @return
+   *     the number of objects serialized per second.
+   */
+  public double getSerializeOpsPerSecond() {
+    return serializeOpsPerSecond;
+  }
+
+  /**
+   * Gets the number of objects deserialized per second.
+   *
+   * @return
+   *     the number of objects deserialized per second.
+   */
+  public double getDeserializeOpsPerSecond() {
+    return deserializeOpsPerSecond;
+  }
+
+  /**
+   * Gets the average size of the serialized objects.
+   *
+   * @return
+   *     the average number of UTF-8 bytes of a serialized object.
+   */
+  public double getBytesPerObject() {
+    return bytesPerObject;
+  }
+
+  /**
+   * Gets the average number of bytes allocated by a serialization followed by
+   * a deserialization of an object.
+   *
+   * @return
+   *     the average number of bytes allocated per round-trip, or -1 if the JVM
+   *     does not support measuring the thread allocation.
+   */
+  public long getAllocatedBytesPerRoundTrip() {
+    return allocatedBytesPerRoundTrip;
+  }
+
+  /**
+   * Formats this result as a CSV line whose columns are described by
+   * {@link #CSV_HEADER}.
+   *
+   * @param timestamp
+   *     the timestamp of the benchmark run.
+   * @return
+   *     the CSV line, without the line separator.
+   */
+  public String toCsv(final String timestamp) {
+    return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.1f,%.1f,%d", timestamp,
+        type, corpusSize, iterations, serializeOpsPerSecond, deserializeOpsPerSecond,
+        bytesPerObject, allocatedBytesPerRoundTrip);
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("type", type)
+        .append("corpusSize", corpusSize)
+        .append("iterations", iterations)
+        .append("serializeOpsPerSecond", serializeOpsPerSecond)
+        .append("deserializeOpsPerSecond", deserializeOpsPerSecond)
+        .append("bytesPerObject", bytesPerObject)
+        .append("allocatedBytesPerRoundTrip", allocatedBytesPerRoundTrip)
+        .toString();
+  }
+}
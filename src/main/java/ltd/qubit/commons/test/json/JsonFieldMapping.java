@@ -0,0 +1,74 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ltd.qubit.commons.test.FieldMapping;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static ltd.qubit.commons.reflect.FieldUtils.getAllFields;
+import static ltd.qubit.commons.reflect.Option.BEAN_FIELD;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.getPropertyName;
+
+/**
+ * The mapping between a bean field and the name of its JSON node.
+ *
+ * <p>The mappings of a class are resolved once per {@link ObjectMapper}, since
+ * the JSON names depend on the naming strategy and annotations configured in
+ * the mapper, and then cached. A field is ignored if it is annotated with
+ * {@link JsonIgnore} or is transient.</p>
+ *
+ * @author Haixing Hu
+ */
+final class JsonFieldMapping extends FieldMapping {
+
+  private static final ClassValue<Map<ObjectMapper, JsonFieldMapping[]>> CACHE =
+      new ClassValue<>() {
+        @Override
+        protected Map<ObjectMapper, JsonFieldMapping[]> computeValue(final Class<?> type) {
+          return Collections.synchronizedMap(new WeakHashMap<>());
+        }
+      };
+
+  /**
+   * Gets the field mappings of the specified class.
+   *
+   * @param mapper
+   *     the object mapper used to serialize the objects.
+   * @param type
+   *     the specified class.
+   * @return
+   *     the field mappings of all bean fields of the class, in the order of
+   *     their declaration. The caller must not modify the returned array.
+   */
+  static JsonFieldMapping[] of(final ObjectMapper mapper, final Class<?> type) {
+    return CACHE.get(type).computeIfAbsent(mapper, m -> {
+      final List<Field> fields = getAllFields(type, BEAN_FIELD);
+      final JsonFieldMapping[] result = new JsonFieldMapping[fields.size()];
+      for (int i = 0; i < result.length; ++i) {
+        result[i] = new JsonFieldMapping(m, fields.get(i));
+      }
+      return result;
+    });
+  }
+
+  private JsonFieldMapping(final ObjectMapper mapper, final Field field) {
+    super(field, getPropertyName(mapper, field).getSimpleName(),
+        field.isAnnotationPresent(JsonIgnore.class)
+            || Modifier.isTransient(field.getModifiers()));
+  }
+}
@@ -0,0 +1,355 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import ltd.qubit.commons.test.StreamComparator;
+import ltd.qubit.commons.text.jackson.TypeRegistrationModule;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.serializeWithSerializer;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A comparator which compares a JSON token stream with an object graph.
+ *
+ * <p>Unlike {@link JacksonJsonTestUtils#testJsonSerialization(
+ * com.fasterxml.jackson.databind.json.JsonMapper, Object)}, this comparator
+ * never builds a tree of the whole JSON document: it walks the tokens of a
+ * {@link JsonParser} together with the fields of the object, so the memory it
+ * uses is bounded by the depth of the document rather than its size, and it
+ * stops reading at the first mismatch. Only the values serialized with custom
+ * serializers are read into small trees, since their expected JSON must be
+ * compared structurally.</p>
+ *
+ * <p>The fields of a JSON object may appear in any order; unknown fields are
+ * skipped, and a field whose value is {@code null} may be either absent or
+ * {@code null}. The location of a mismatch, i.e., the path of the returned
+ * {@link Mismatch}, is reported as a
+ * <a href="https://datatracker.ietf.org/doc/html/rfc6901">JSON pointer</a>.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author Haixing Hu
+ */
+public class JsonStreamComparator extends StreamComparator<JsonFieldMapping> {
+
+  private final ObjectReader treeReader;
+
+  /**
+   * The path of the current value, whose elements are either the names of
+   * object fields or the indexes of array elements.
+   */
+  private final List<Object> path = new ArrayList<>();
+
+  private JsonParser parser;
+
+  public JsonStreamComparator(final ObjectMapper mapper) {
+    super(mapper);
+    // keep the exact text of floating point numbers, as JsonUnit does
+    this.treeReader = mapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+  }
+
+  /**
+   * Compares the next JSON value read from a parser with an object.
+   *
+   * @param parser
+   *     the parser to read, which should be positioned before the value to
+   *     compare. The parser is not closed by this method.
+   * @param expected
+   *     the expected object, which may be {@code null}.
+   * @return
+   *     the first mismatch between the JSON value and the object, or
+   *     {@code null} if they match.
+   * @throws Exception
+   *     if any error occurs while reading the JSON value or the fields of the
+   *     object.
+   */
+  @Nullable
+  public Mismatch compare(final JsonParser parser, @Nullable final Object expected)
+      throws Exception {
+    this.parser = requireNonNull("parser", parser);
+    path.clear();
+    try {
+      final JsonToken token = parser.nextToken();
+      if (expected == null) {
+        if (token != null && token != JsonToken.VALUE_NULL) {
+          throw mismatch("should be absent, but it is: " + describeCurrent());
+        }
+      } else if (token == null) {
+        throw mismatch("is missing.");
+      } else {
+        compareObject(null, expected);
+      }
+      return null;
+    } catch (final MismatchException e) {
+      return e.getMismatch();
+    } finally {
+      this.parser = null;
+    }
+  }
+
+  /**
+   * Asserts that the next JSON value read from a parser matches an object.
+   *
+   * @param parser
+   *     the parser to read, which should be positioned before the value to
+   *     compare. The parser is not closed by this method.
+   * @param expected
+   *     the expected object, which may be {@code null}.
+   * @throws Exception
+   *     if any error occurs while reading the JSON value or the fields of the
+   *     object.
+   */
+  public void assertMatches(final JsonParser parser, @Nullable final Object expected)
+      throws Exception {
+    final Mismatch mismatch = compare(parser, expected);
+    if (mismatch != null) {
+      fail(mismatch.getMessage());
+    }
+  }
+
+  private void compareObject(@Nullable final Field field, @Nullable final Object value)
+      throws Exception {
+    if (value == null) {
+      if (parser.currentToken() != JsonToken.VALUE_NULL) {
+        throw mismatch("should be absent, but it is: " + describeCurrent());
+      }
+    } else if (field != null && field.isAnnotationPresent(JsonSerialize.class)) {
+      final JsonSerialize annotation = field.getAnnotation(JsonSerialize.class);
+      compareRaw(serializeWithSerializer(mapper, annotation, field, value));
+    } else {
+      final JsonSerializer<?> serializer = TypeRegistrationModule.getSerializer(value.getClass());
+      if (serializer != null) {
+        compareRaw(serializeWithSerializer(mapper, serializer, field, value));
+      } else {
+        compareNonNullObject(value);
+      }
+    }
+  }
+
+  private void compareNonNullObject(final Object value) throws Exception {
+    final Class<?> type = value.getClass();
+    if (type == Boolean.class) {
+      compareBoolean((Boolean) value);
+    } else if (type == Character.class || type == String.class) {
+      compareText(value.toString());
+    } else if (type == Byte.class || type == Short.class || type == Integer.class
+        || type == Long.class || type == Float.class || type == Double.class) {
+      compareNumber(value.toString());
+    } else if (Enum.class.isAssignableFrom(type)) {
+      compareText(((Enum<?>) value).name());
+    } else if (type.isArray()) {
+      compareArray(value);
+    } else if (Collection.class.isAssignableFrom(type)) {
+      compareCollection((Collection<?>) value);
+    } else {
+      compareBean(value);
+    }
+  }
+
+  private void compareBean(final Object obj) throws Exception {
+    requireToken(JsonToken.START_OBJECT, "an object");
+    final JsonFieldMapping[] mappings = JsonFieldMapping.of(mapper, obj.getClass());
+    final boolean[] visited = readFields(obj, mappings);
+    for (int i = 0; i < mappings.length; ++i) {
+      if (!visited[i] && !mappings[i].isIgnored() && mappings[i].getValue(obj) != null) {
+        path.add(mappings[i].getName());
+        throw mismatch("is missing.");
+      }
+    }
+  }
+
+  @Override
+  protected String nextField() throws Exception {
+    if (parser.nextToken() != JsonToken.FIELD_NAME) {
+      return null;
+    }
+    final String name = parser.currentName();
+    parser.nextToken();
+    return name;
+  }
+
+  @Override
+  protected void skipField() throws Exception {
+    parser.skipChildren();
+  }
+
+  @Override
+  protected void readDuplicateField(final JsonFieldMapping mapping) {
+    path.add(mapping.getName());
+    throw mismatch("is duplicated.");
+  }
+
+  @Override
+  protected void compareField(final JsonFieldMapping mapping, @Nullable final Object value)
+      throws Exception {
+    path.add(mapping.getName());
+    if (mapping.getField().getType().isPrimitive()) {
+      compareNonNullObject(value);
+    } else {
+      compareObject(mapping.getField(), value);
+    }
+    path.remove(path.size() - 1);
+  }
+
+  private void compareCollection(final Collection<?> collection) throws Exception {
+    requireToken(JsonToken.START_ARRAY, "an array");
+    int i = 0;
+    for (final Object element : collection) {
+      nextElement(i);
+      compareObject(null, element);
+      path.remove(path.size() - 1);
+      ++i;
+    }
+    requireEndOfArray(i);
+  }
+
+  private void compareArray(final Object array) throws Exception {
+    final Class<?> elementType = array.getClass().getComponentType();
+    if (elementType == char.class) {
+      // NOTE: a char array was serialized as a string in JACKSON
+      compareText(new String((char[]) array));
+      return;
+    } else if (elementType == byte.class) {
+      // NOTE: a byte array was serialized as a BASE64 encoded string in JACKSON
+      compareText(Base64.getEncoder().encodeToString((byte[]) array));
+      return;
+    }
+    requireToken(JsonToken.START_ARRAY, "an array");
+    final int n = Array.getLength(array);
+    for (int i = 0; i < n; ++i) {
+      nextElement(i);
+      if (elementType.isPrimitive()) {
+        compareNonNullObject(Array.get(array, i));
+      } else {
+        compareObject(null, Array.get(array, i));
+      }
+      path.remove(path.size() - 1);
+    }
+    requireEndOfArray(n);
+  }
+
+  private void nextElement(final int i) throws Exception {
+    path.add(i);
+    if (parser.nextToken() == JsonToken.END_ARRAY) {
+      throw mismatch("is missing.");
+    }
+  }
+
+  private void requireEndOfArray(final int n) throws Exception {
+    if (parser.nextToken() != JsonToken.END_ARRAY) {
+      path.add(n);
+      throw mismatch("should be absent, since the array should have only " + n
+          + " elements, but it is: " + describeCurrent());
+    }
+  }
+
+  private void compareBoolean(final boolean expected) throws Exception {
+    final JsonToken token = parser.currentToken();
+    if (token != (expected ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE)) {
+      throw mismatch("should be " + expected + ", but it is: " + describeCurrent());
+    }
+  }
+
+  private void compareText(final String expected) throws Exception {
+    if (parser.currentToken() != JsonToken.VALUE_STRING
+        || !expected.equals(parser.getText())) {
+      throw mismatch("should be the string \"" + expected + "\", but it is: "
+          + describeCurrent());
+    }
+  }
+
+  private void compareNumber(final String expected) throws Exception {
+    final JsonToken token = parser.currentToken();
+    final boolean numeric = token.isNumeric();
+    final boolean equal = (numeric || token == JsonToken.VALUE_STRING)
+        && JacksonJsonTestUtils.numberEquals(expected, numeric, parser.getText());
+    if (!equal) {
+      throw mismatch("should be the number " + expected + ", but it is: "
+          + describeCurrent());
+    }
+  }
+
+  private void compareRaw(final String expected) throws Exception {
+    final JsonNode actual = treeReader.readTree(parser);
+    JsonNode expectedNode;
+    try {
+      expectedNode = treeReader.readTree(expected);
+    } catch (final JsonProcessingException e) {
+      // not a valid JSON, compare it as a string
+      expectedNode = TextNode.valueOf(expected);
+    }
+    if (expectedNode == null
+        || !expectedNode.equals(JacksonJsonTestUtils.NUMERIC_COMPARATOR, actual)) {
+      throw mismatch("should be " + expected + ", but it is: " + actual);
+    }
+  }
+
+  private void requireToken(final JsonToken expected, final String description)
+      throws Exception {
+    if (parser.currentToken() != expected) {
+      throw mismatch("should be " + description + ", but it is: " + describeCurrent());
+    }
+  }
+
+  private String describeCurrent() throws Exception {
+    final JsonToken token = parser.currentToken();
+    if (token == null) {
+      return "the end of the document";
+    }
+    switch (token) {
+      case START_OBJECT:
+        return "an object";
+      case START_ARRAY:
+        return "an array";
+      case VALUE_STRING:
+        return TextNode.valueOf(parser.getText()).toString();
+      default:
+        return parser.getText();
+    }
+  }
+
+  private MismatchException mismatch(final String description) {
+    final StringBuilder builder = new StringBuilder();
+    for (final Object segment : path) {
+      builder.append('/');
+      if (segment instanceof Integer) {
+        builder.append(segment);
+      } else {
+        builder.append(segment.toString().replace("~", "~0").replace("/", "~1"));
+      }
+    }
+    final String pointer = builder.toString();
+    final String location = String.valueOf(parser.currentLocation().getLineNr())
+        + ":" + parser.currentLocation().getColumnNr();
+    return mismatch(pointer, "The JSON node '" + pointer + "' (at " + location + ") "
+        + description);
+  }
+}
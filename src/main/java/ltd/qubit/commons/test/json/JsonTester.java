@@ -8,30 +8,74 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.json;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
 import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.BenchmarkReports;
+import ltd.qubit.commons.test.BenchmarkSettings;
 import ltd.qubit.commons.test.Tester;
+import ltd.qubit.commons.text.jackson.CustomizedJsonMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
 import static ltd.qubit.commons.test.json.JacksonJsonTestUtils.testJsonDeserialization;
 import static ltd.qubit.commons.test.json.JacksonJsonTestUtils.testJsonSerialization;
+import static ltd.qubit.commons.test.json.JacksonJsonTestUtils.testJsonStreaming;
 
 /**
  * A tester object used to test the JSON serialization/deserialization of
  * classes.
  *
+ * <p>Besides the correctness tests, this tester could also measure the
+ * throughput of the JSON round-trips of a model class, see
+ * {@link #benchmark(Class)}.</p>
+ *
+ * <p>For models with very large serialized forms, the streaming mode compares
+ * the JSON tokens with the objects without building the JSON trees, see
+ * {@link #setStreaming(boolean)}.</p>
+ *
  * @author Haixing Hu
  */
 public class JsonTester extends Tester {
 
+  /**
+   * The name of the system property specifying the CSV report file of the
+   * benchmarks, see {@link BenchmarkReports#append}.
+   */
+  public static final String BENCHMARK_REPORT_PROPERTY = "qubit.test.benchmark.report";
+
+  public static final int DEFAULT_CORPUS_SIZE = 100;
+
+  public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+
+  public static final int DEFAULT_BENCHMARK_ITERATIONS = 10;
+
+  private final Logger logger = LoggerFactory.getLogger(JsonTester.class);
   private JsonMapper mapper;
+  private boolean defaultMapper = false;
+  private boolean streaming = false;
+  private final BenchmarkSettings benchmarkSettings = new BenchmarkSettings(
+      DEFAULT_CORPUS_SIZE, DEFAULT_WARMUP_ITERATIONS, DEFAULT_BENCHMARK_ITERATIONS);
+
+  /**
+   * Prevents the JIT compiler from eliminating the benchmarked calls.
+   */
+  private long sink;
 
   public JsonTester(final RandomBeanGenerator random) {
     this(random, DEFAULT_LOOPS, new JsonMapper());
+    this.defaultMapper = true;
   }
 
   public JsonTester(final RandomBeanGenerator random, final int loops) {
     this(random, loops, new JsonMapper());
+    this.defaultMapper = true;
   }
 
   public JsonTester(final RandomBeanGenerator random, final int loops,
@@ -46,13 +90,154 @@ public class JsonTester extends Tester {
 
   public void setMapper(final JsonMapper mapper) {
     this.mapper = mapper;
+    this.defaultMapper = false;
+  }
+
+  public final boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Sets whether to test the objects in the streaming mode.
+   *
+   * @param streaming
+   *     if {@code true}, each object is serialized once and the JSON tokens are
+   *     compared with the object by a {@link JsonStreamComparator}, which is
+   *     much faster and uses much less memory for very large payloads, see
+   *     {@link JacksonJsonTestUtils#testJsonStreaming(JsonMapper, Object)};
+   *     otherwise, the serialized JSON is parsed into a tree and compared with
+   *     the object.
+   * @return
+   *     this tester.
+   */
+  public final JsonTester setStreaming(final boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
+  public final BenchmarkSettings getBenchmarkSettings() {
+    return benchmarkSettings;
   }
 
   protected <T> void doTest(final Class<T> type) throws Exception {
-    for (int i = 0; i < loops; ++i) {
-      final T obj = random.nextObject(type);
+    runIterations(type);
+  }
+
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    final T obj = random.nextObject(type);
+    if (streaming) {
+      testJsonStreaming(mapper, obj);
+    } else {
       testJsonSerialization(mapper, obj);
       testJsonDeserialization(mapper, obj);
     }
   }
+
+  /**
+   * Measures the JSON round-trip throughput of the specified class.
+   *
+   * <p>A corpus of random instances is generated beforehand by
+   * {@link #generateCorpus(Class, int)}. The whole corpus is serialized and
+   * deserialized in the warmup passes to warm up the JIT compiler and the
+   * caches of the mapper, and then in the benchmark passes for the
+   * measurements, see {@link #getBenchmarkSettings()}. The
+   * serialization and the deserialization are timed separately; the
+   * deserialization reads the bytes serialized before the measurement.</p>
+   *
+   * <p>The objects are benchmarked with the mapper of this tester if it was
+   * configured by the constructor or {@link #setMapper(JsonMapper)}; otherwise
+   * they are benchmarked with a {@link CustomizedJsonMapper}, which the
+   * applications actually use, instead of the plain default mapper.</p>
+   *
+   * <p>The result is logged, and appended to the CSV file specified by the
+   * system property {@value #BENCHMARK_REPORT_PROPERTY} if it is set.</p>
+   *
+   * @param type
+   *     the type of the objects to benchmark.
+   * @return
+   *     the result of the benchmark.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public <T> JsonBenchmarkResult benchmark(final Class<T> type) throws Exception {
+    final int warmupIterations = benchmarkSettings.getWarmupIterations();
+    final int benchmarkIterations = benchmarkSettings.getBenchmarkIterations();
+    final JsonMapper benchmarkMapper = (defaultMapper ? new CustomizedJsonMapper() : mapper);
+    final List<T> corpus = generateCorpus(type, benchmarkSettings.getCorpusSize());
+    final byte[][] serialized = new byte[corpus.size()][];
+    long totalBytes = 0;
+    for (int i = 0; i < serialized.length; ++i) {
+      serialized[i] = benchmarkMapper.writeValueAsBytes(corpus.get(i));
+      totalBytes += serialized[i].length;
+    }
+    for (int i = 0; i < warmupIterations; ++i) {
+      serializeCorpus(benchmarkMapper, corpus);
+      deserializeCorpus(benchmarkMapper, type, serialized);
+    }
+    long serializeNanos = 0;
+    long deserializeNanos = 0;
+    final long allocationBefore = getAllocatedBytes();
+    for (int i = 0; i < benchmarkIterations; ++i) {
+      final long start = System.nanoTime();
+      serializeCorpus(benchmarkMapper, corpus);
+      final long middle = System.nanoTime();
+      deserializeCorpus(benchmarkMapper, type, serialized);
+      serializeNanos += middle - start;
+      deserializeNanos += System.nanoTime() - middle;
+    }
+    final long allocationAfter = getAllocatedBytes();
+    final long ops = (long) benchmarkIterations * corpus.size();
+    final long allocated = (allocationBefore < 0 || allocationAfter < 0)
+                           ? -1 : (allocationAfter - allocationBefore) / ops;
+    final JsonBenchmarkResult result = new JsonBenchmarkResult(type.getName(),
+        corpus.size(), benchmarkIterations,
+        toOpsPerSecond(ops, serializeNanos), toOpsPerSecond(ops, deserializeNanos),
+        (double) totalBytes / corpus.size(), allocated);
+    logger.info("JSON benchmark of {}: serialize {} ops/s, deserialize {} ops/s, "
+        + "{} bytes/object, {} bytes allocated/round-trip.", type.getName(),
+        Math.round(result.getSerializeOpsPerSecond()),
+        Math.round(result.getDeserializeOpsPerSecond()),
+        Math.round(result.getBytesPerObject()), allocated);
+    logger.trace("JSON benchmark sink: {}", sink);
+    BenchmarkReports.append(BENCHMARK_REPORT_PROPERTY, JsonBenchmarkResult.CSV_HEADER,
+        result::toCsv);
+    return result;
+  }
+
+  private void serializeCorpus(final JsonMapper mapper, final List<?> corpus)
+      throws IOException {
+    for (final Object obj : corpus) {
+      sink += mapper.writeValueAsBytes(obj).length;
+    }
+  }
+
+  private void deserializeCorpus(final JsonMapper mapper, final Class<?> type,
+      final byte[][] serialized) throws IOException {
+    for (final byte[] bytes : serialized) {
+      sink += System.identityHashCode(mapper.readValue(bytes, type));
+    }
+  }
+
+  private static double toOpsPerSecond(final long ops, final long nanos) {
+    return (nanos <= 0 ? 0.0 : ops * 1e9 / nanos);
+  }
+
+  /**
+   * Gets the number of bytes allocated by the current thread.
+   *
+   * @return
+   *     the number of bytes allocated by the current thread, or -1 if the JVM
+   *     does not support measuring the thread allocation.
+   */
+  private static long getAllocatedBytes() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (sunBean.isThreadAllocatedMemorySupported()
+          && sunBean.isThreadAllocatedMemoryEnabled()) {
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
 }
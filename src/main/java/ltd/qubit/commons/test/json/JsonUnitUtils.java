@@ -8,9 +8,11 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.json;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.javacrumbs.jsonunit.assertj.JsonAssert;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
@@ -288,6 +290,53 @@ public class JsonUnitUtils {
     }
   }
 
+  /**
+   * Asserts that a JSON document matches an object, by streaming the tokens of
+   * the document against the fields of the object.
+   *
+   * <p>The document is never loaded into memory as a whole, and the comparison
+   * stops at the first mismatch, whose JSON pointer is reported in the failure
+   * message. See {@link JsonStreamComparator} for details.</p>
+   *
+   * @param json
+   *     the input stream of the JSON document, which is not closed by this
+   *     method.
+   * @param expected
+   *     the expected object, which may be {@code null}.
+   * @param mapper
+   *     the object mapper used to serialize the object.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public static void assertJsonStreamEquals(final InputStream json,
+      @Nullable final Object expected, final ObjectMapper mapper) throws Exception {
+    try (final JsonParser parser = mapper.createParser(json)) {
+      parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+      new JsonStreamComparator(mapper).assertMatches(parser, expected);
+    }
+  }
+
+  /**
+   * Asserts that a JSON document matches an object, by streaming the tokens of
+   * the document against the fields of the object.
+   *
+   * @param json
+   *     the JSON document.
+   * @param expected
+   *     the expected object, which may be {@code null}.
+   * @param mapper
+   *     the object mapper used to serialize the object.
+   * @throws Exception
+   *     if any error occurs.
+   * @see #assertJsonStreamEquals(InputStream, Object, ObjectMapper)
+   */
+  public static void assertJsonStreamEquals(final String json,
+      @Nullable final Object expected, final ObjectMapper mapper) throws Exception {
+    try (final JsonParser parser = mapper.createParser(json)) {
+      new JsonStreamComparator(mapper).assertMatches(parser, expected);
+    }
+  }
+
   public static void assertJsonNodeEqualsRaw(final String json,
       @Nullable final String path, @Nullable final String expected) {
     JsonAssert ja = assertThatJson(json);
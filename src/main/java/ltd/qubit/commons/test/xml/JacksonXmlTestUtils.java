@@ -8,6 +8,7 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.xml;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -18,6 +19,8 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
 
 import jakarta.xml.bind.annotation.XmlTransient;
 import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
@@ -56,6 +59,8 @@ public abstract class JacksonXmlTestUtils {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JacksonXmlTestUtils.class);
 
+  private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
   public static <T> void assertXmlSerializeEquals(final XmlMapper mapper,
       final Class<T> cls, final T object, final String expectedXml)
       throws Exception {
@@ -94,7 +99,42 @@ public abstract class JacksonXmlTestUtils {
     final String xml = mapper.writeValueAsString(obj);
     LOGGER.info("The object is serialized to:\n{}", xml);
     final PropertyName root = getRootName(mapper, type);
-    assertXmlNodeEqualsObject(mapper, xml, root.getSimpleName(), null, obj);
+    final XmlAssertionContext context = XmlAssertionContext.parse(xml);
+    assertXmlNodeEqualsObject(mapper, context, root.getSimpleName(), null, obj);
+    LOGGER.debug("Test finished successfully.");
+  }
+
+  /**
+   * Tests the XML serialization and deserialization of an object by reading
+   * the serialized XML only once.
+   *
+   * <p>The object is serialized only once. The serialized XML is compared with
+   * the object by an {@link XmlStreamComparator}, which reads it with a StAX
+   * cursor, stops at the first mismatch and reports its path. It is then
+   * deserialized and compared with the object. The cost of the test is linear
+   * in the size of the XML, which is suitable for very large payloads.</p>
+   *
+   * @param mapper
+   *     the XML mapper used to serialize and deserialize the object.
+   * @param obj
+   *     the object to test.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> void testXmlStreaming(final XmlMapper mapper, final T obj)
+      throws Exception {
+    final byte[] xml = mapper.writeValueAsBytes(obj);
+    LOGGER.debug("The object is serialized to {} bytes.", xml.length);
+    final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(
+        new ByteArrayInputStream(xml));
+    try {
+      new XmlStreamComparator(mapper).assertMatches(reader, obj);
+    } finally {
+      reader.close();
+    }
+    final T result = mapper.readValue(xml, (Class<T>) obj.getClass());
+    assertEquals(obj, result);
     LOGGER.debug("Test finished successfully.");
   }
 
@@ -119,69 +159,69 @@ public abstract class JacksonXmlTestUtils {
 
   @SuppressWarnings("rawtypes")
   private static void assertXmlNodeEqualsObject(final XmlMapper mapper,
-      final String xml, final String path, @Nullable final Field field,
+      final XmlAssertionContext context, final String path, @Nullable final Field field,
       @Nullable final Object fieldValue) throws Exception {
     if (fieldValue == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else if (field != null && field.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
       final XmlJavaTypeAdapter annotation = field.getAnnotation(XmlJavaTypeAdapter.class);
       final String expected = serializeWithAdapter(mapper, annotation, field, fieldValue);
-      XmlUnitUtils.assertXPathEquals(xml, path, expected);
+      context.assertXPathEquals(path, expected);
     } else if (field != null && field.isAnnotationPresent(JsonSerialize.class)) {
       final JsonSerialize annotation = field.getAnnotation(JsonSerialize.class);
       final String expected = serializeWithSerializer(mapper, annotation, field, fieldValue);
-      XmlUnitUtils.assertXPathEquals(xml, path, expected);
+      context.assertXPathEquals(path, expected);
     } else {
       final Class<?> type = fieldValue.getClass();
       final JsonSerializer serializer = TypeRegistrationModule.getSerializer(type);
       if (serializer != null) {
         final String expected = serializeWithSerializer(mapper, serializer, field, fieldValue);
-        XmlUnitUtils.assertXPathEquals(xml, path, expected);
+        context.assertXPathEquals(path, expected);
       } else {
-        assertXmlNodeEqualsNonNullObject(mapper, xml, path, field, fieldValue);
+        assertXmlNodeEqualsNonNullObject(mapper, context, path, field, fieldValue);
       }
     }
   }
 
   private static void assertXmlNodeEqualsNonNullObject(final XmlMapper mapper,
-      final String xml, final String path, @Nullable final Field field,
+      final XmlAssertionContext context, final String path, @Nullable final Field field,
       final Object fieldValue) throws Exception {
     assert fieldValue != null;
     final Class<?> type = fieldValue.getClass();
     if (type == Boolean.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Character.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Byte.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Short.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Integer.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Long.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Float.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == Double.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (type == String.class) {
-      XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+      context.assertXPathEquals(path, fieldValue);
     } else if (ClassUtils.isEnumType(type)) {
-      XmlUnitUtils.assertXPathEquals(xml, path, (Enum<?>) fieldValue);
+      context.assertXPathEquals(path, (Enum<?>) fieldValue);
     } else if (ClassUtils.isArrayType(type)) {
-      assertXmlNodeEqualsArray(mapper, xml, path, fieldValue, field);
+      assertXmlNodeEqualsArray(mapper, context, path, fieldValue, field);
     } else if (ClassUtils.isCollectionType(type)) {
-      assertXmlNodeEqualsCollection(mapper, xml, path, (Collection<?>) fieldValue, field);
+      assertXmlNodeEqualsCollection(mapper, context, path, (Collection<?>) fieldValue, field);
     } else {
       final List<Field> subfields = getAllFields(fieldValue.getClass(), BEAN_FIELD);
       for (final Field subfield : subfields) {
-        assertXmlNodeEqualsField(mapper, xml, path, fieldValue, subfield);
+        assertXmlNodeEqualsField(mapper, context, path, fieldValue, subfield);
       }
     }
   }
 
   private static void assertXmlNodeEqualsField(final XmlMapper mapper,
-      final String xml, @Nullable final String rootPath, final Object obj,
+      final XmlAssertionContext context, @Nullable final String rootPath, final Object obj,
       final Field field) throws Exception {
     final Class<?> fieldType = field.getType();
     final PropertyName propertyName;
@@ -202,19 +242,19 @@ public abstract class JacksonXmlTestUtils {
       LOGGER.debug("Testing the XML node '{}' ...", path);
       final Object fieldValue = withAccessibleObject(field, f -> f.get(obj), true);
       if (fieldType.isPrimitive()) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else {
-        assertXmlNodeEqualsObject(mapper, xml, path, field, fieldValue);
+        assertXmlNodeEqualsObject(mapper, context, path, field, fieldValue);
       }
     }
   }
 
   private static void assertXmlNodeEqualsCollection(final XmlMapper mapper,
-      final String xml, final String path,
+      final XmlAssertionContext context, final String path,
       @Nullable final Collection<?> collection, @Nullable final Field field)
       throws Exception {
     if (collection == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else {
       String elementPath = path;
       if (field != null) {
@@ -223,17 +263,17 @@ public abstract class JacksonXmlTestUtils {
       }
       int i = 1;
       for (final Object obj : collection) {
-        assertXmlNodeEqualsObject(mapper, xml, elementPath + "[" + i + "]", null, obj);
+        assertXmlNodeEqualsObject(mapper, context, elementPath + "[" + i + "]", null, obj);
         ++i;
       }
     }
   }
 
   private static void assertXmlNodeEqualsArray(final XmlMapper mapper,
-      final String xml, final String path, @Nullable final Object array,
+      final XmlAssertionContext context, final String path, @Nullable final Object array,
       @Nullable final Field field) throws Exception {
     if (array == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else {
       assert array.getClass().isArray();
       final Class<?> elementType = array.getClass().getComponentType();
@@ -246,48 +286,48 @@ public abstract class JacksonXmlTestUtils {
       final int n = Array.getLength(array);
       if (elementType == boolean.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getBoolean(array, i));
         }
       } else if (elementType == char.class) {
         // NOTE: a char array was serialized as a int array in JAXB
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               (int) Array.getChar(array, i));
         }
       } else if (elementType == byte.class) {
         // NOTE: a byte array was serialized as a BASE64 encoded string in JAXB
         final Base64.Encoder encoder = Base64.getEncoder();
         final String expected = encoder.encodeToString((byte[]) array);
-        XmlUnitUtils.assertXPathEquals(xml, path, expected);
+        context.assertXPathEquals(path, expected);
       } else if (elementType == short.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getShort(array, i));
         }
       } else if (elementType == int.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getInt(array, i));
         }
       } else if (elementType == long.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getLong(array, i));
         }
       } else if (elementType == float.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getFloat(array, i));
         }
       } else if (elementType == double.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getDouble(array, i));
         }
       } else {
         for (int i = 0; i < n; ++i) {
-          assertXmlNodeEqualsObject(mapper, xml,
+          assertXmlNodeEqualsObject(mapper, context,
               elementPath + "[" + (i + 1) + "]", null, Array.get(array, i));
         }
       }
@@ -16,16 +16,23 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 
 import static ltd.qubit.commons.test.xml.JacksonXmlTestUtils.testXmlDeserialization;
 import static ltd.qubit.commons.test.xml.JacksonXmlTestUtils.testXmlSerialization;
+import static ltd.qubit.commons.test.xml.JacksonXmlTestUtils.testXmlStreaming;
 
 /**
  * A tester object used to test the XML serialization/deserialization of
  * classes.
  *
+ * <p>For models with very large serialized forms, the streaming mode reads
+ * the serialized XML only once with a StAX cursor and compares it with the
+ * objects as it is read, so that large payloads are tested in linear time, see
+ * {@link #setStreaming(boolean)}.</p>
+ *
  * @author Haixing Hu
  */
 public class JacksonXmlTester extends Tester {
 
   private final XmlMapper mapper;
+  private boolean streaming = false;
 
   public JacksonXmlTester(final RandomBeanGenerator random) {
     this(random, DEFAULT_LOOPS, new CustomizedXmlMapper());
@@ -41,9 +48,40 @@ public class JacksonXmlTester extends Tester {
     this.mapper = mapper;
   }
 
+  public final XmlMapper getMapper() {
+    return mapper;
+  }
+
+  public final boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Sets whether to test the objects in the streaming mode.
+   *
+   * @param streaming
+   *     if {@code true}, each object is serialized once and the XML is compared
+   *     with the object by an {@link XmlStreamComparator}, see
+   *     {@link JacksonXmlTestUtils#testXmlStreaming(XmlMapper, Object)};
+   *     otherwise, the serialized XML is parsed into a DOM and each property of
+   *     the object is compared with the result of an XPath expression.
+   * @return
+   *     this tester.
+   */
+  public final JacksonXmlTester setStreaming(final boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
   protected <T> void doTest(final Class<T> type) throws Exception {
-    for (int i = 0; i < loops; ++i) {
-      final T obj = random.nextObject(type);
+    runIterations(type);
+  }
+
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    final T obj = random.nextObject(type);
+    if (streaming) {
+      testXmlStreaming(mapper, obj);
+    } else {
       testXmlSerialization(mapper, obj);
       testXmlDeserialization(mapper, obj);
     }
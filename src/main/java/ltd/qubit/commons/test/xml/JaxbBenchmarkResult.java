@@ -0,0 +1,123 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.util.Locale;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * The result of a JAXB round-trip benchmark of a model class, comparing the
+ * round-trips which create a new JAXB context each time with those using the
+ * cached JAXB context and the pooled marshallers and unmarshallers.
+ *
+ * @author Haixing Hu
+ * @see JaxbXmlTester#benchmark(Class)
+ */
+public final class JaxbBenchmarkResult {
+
+  /**
+   * The header of the CSV lines returned by {@link #toCsv(String)}.
+   */
+  public static final String CSV_HEADER = "timestamp,type,corpus,iterations,"
+      + "uncachedMicrosPerRoundTrip,cachedMicrosPerRoundTrip,speedup";
+
+  private final String type;
+  private final int corpusSize;
+  private final int iterations;
+  private final double uncachedMicrosPerRoundTrip;
+  private final double cachedMicrosPerRoundTrip;
+
+  public JaxbBenchmarkResult(final String type, final int corpusSize,
+      final int iterations, final double uncachedMicrosPerRoundTrip,
+      final double cachedMicrosPerRoundTrip) {
+    this.type = type;
+    this.corpusSize = corpusSize;
+    this.iterations = iterations;
+    this.uncachedMicrosPerRoundTrip = uncachedMicrosPerRoundTrip;
+    this.cachedMicrosPerRoundTrip = cachedMicrosPerRoundTrip;
+  }
+
+  /**
+   * Gets the name of the benchmarked model class.
+   *
+   * @return
+   *     the fully qualified name of the benchmarked model class.
+   */
+  public String getType() {
+    return type;
+  }
+
+  public int getCorpusSize() {
+    return corpusSize;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Gets the average cost of a round-trip which creates a new JAXB context, a
+   * new marshaller and a new unmarshaller.
+   *
+   * @return
+   *     the average cost of such a round-trip, in microseconds.
+   */
+  public double getUncachedMicrosPerRoundTrip() {
+    return uncachedMicrosPerRoundTrip;
+  }
+
+  /**
+   * Gets the average cost of a round-trip which uses the cached JAXB context
+   * and the pooled marshallers and unmarshallers.
+   *
+   * @return
+   *     the average cost of such a round-trip, in microseconds.
+   */
+  public double getCachedMicrosPerRoundTrip() {
+    return cachedMicrosPerRoundTrip;
+  }
+
+  /**
+   * Gets the speedup of the cached round-trips.
+   *
+   * @return
+   *     the ratio of the cost of the uncached round-trips to the cost of the
+   *     cached round-trips.
+   */
+  public double getSpeedup() {
+    return (cachedMicrosPerRoundTrip <= 0 ? 0.0
+                                          : uncachedMicrosPerRoundTrip / cachedMicrosPerRoundTrip);
+  }
+
+  /**
+   * Formats this result as a CSV line whose columns are described by
+   * {@link #CSV_HEADER}.
+   *
+   * @param timestamp
+   *     the timestamp of the benchmark run.
+   * @return
+   *     the CSV line, without the line separator.
+   */
+  public String toCsv(final String timestamp) {
+    return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.1f,%.1f", timestamp, type,
+        corpusSize, iterations, uncachedMicrosPerRoundTrip, cachedMicrosPerRoundTrip,
+        getSpeedup());
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("type", type)
+        .append("corpusSize", corpusSize)
+        .append("iterations", iterations)
+        .append("uncachedMicrosPerRoundTrip", uncachedMicrosPerRoundTrip)
+        .append("cachedMicrosPerRoundTrip", cachedMicrosPerRoundTrip)
+        .toString();
+  }
+}
@@ -0,0 +1,165 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.stream.StreamSource;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * The JAXB binding of a set of classes, i.e., a cached {@link JAXBContext}
+ * together with the pools of its marshallers and unmarshallers.
+ *
+ * <p>Creating a {@link JAXBContext} is one of the most expensive operations of
+ * JAXB, since it introspects all the bound classes, while a context is
+ * thread-safe and could be shared. The bindings are therefore cached by the
+ * set of bound classes. The marshallers and unmarshallers are not thread-safe,
+ * so they are borrowed from the pools of the binding for each operation and
+ * returned afterwards; a marshaller or unmarshaller which failed is discarded
+ * instead of being returned.</p>
+ *
+ * @author Haixing Hu
+ */
+final class JaxbBinding {
+
+  private static final ConcurrentMap<Set<Class<?>>, JaxbBinding> CACHE =
+      new ConcurrentHashMap<>();
+
+  private final JAXBContext context;
+  private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+  private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Gets the binding of the specified classes.
+   *
+   * @param classes
+   *     the classes to bind, whose order does not matter.
+   * @return
+   *     the cached binding of the classes.
+   * @throws JAXBException
+   *     if failed to create the JAXB context of the classes.
+   */
+  static JaxbBinding of(final Class<?>... classes) throws JAXBException {
+    final Set<Class<?>> key = Set.copyOf(Arrays.asList(classes));
+    final JaxbBinding binding = CACHE.get(key);
+    if (binding != null) {
+      return binding;
+    }
+    // create the context outside the map, since it could take a long time and
+    // throws a checked exception
+    final JaxbBinding created = new JaxbBinding(JAXBContext.newInstance(classes));
+    final JaxbBinding existing = CACHE.putIfAbsent(key, created);
+    return (existing == null ? created : existing);
+  }
+
+  /**
+   * Clears the cached bindings.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  private JaxbBinding(final JAXBContext context) {
+    this.context = context;
+  }
+
+  JAXBContext getContext() {
+    return context;
+  }
+
+  /**
+   * Marshals an object.
+   *
+   * @param obj
+   *     the object to marshal, which is either an instance of a class annotated
+   *     with {@code XmlRootElement} or a {@code JAXBElement}.
+   * @param writer
+   *     the writer where to write the XML, which is not closed by this method.
+   * @param fragment
+   *     whether to omit the XML declaration.
+   * @throws JAXBException
+   *     if any error occurs.
+   */
+  void marshal(final Object obj, final Writer writer, final boolean fragment)
+      throws JAXBException {
+    Marshaller marshaller = marshallers.poll();
+    if (marshaller == null) {
+      marshaller = context.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    }
+    marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+    marshaller.marshal(obj, writer);
+    marshallers.offer(marshaller);
+  }
+
+  String marshal(final Object obj, final boolean fragment) throws JAXBException {
+    final StringWriter writer = new StringWriter();
+    marshal(obj, writer, fragment);
+    return writer.toString();
+  }
+
+  /**
+   * Unmarshals an object whose class is determined by its root element.
+   *
+   * @param reader
+   *     the reader of the XML, which is not closed by this method.
+   * @return
+   *     the unmarshalled object.
+   * @throws JAXBException
+   *     if any error occurs.
+   */
+  Object unmarshal(final Reader reader) throws JAXBException {
+    final Unmarshaller unmarshaller = borrowUnmarshaller();
+    final Object result = unmarshaller.unmarshal(reader);
+    unmarshallers.offer(unmarshaller);
+    return result;
+  }
+
+  /**
+   * Unmarshals an object of the specified class, whatever its root element is.
+   *
+   * @param reader
+   *     the reader of the XML, which is not closed by this method.
+   * @param type
+   *     the class of the object to unmarshal.
+   * @return
+   *     the unmarshalled object.
+   * @throws JAXBException
+   *     if any error occurs.
+   */
+  <T> T unmarshal(final Reader reader, final Class<T> type) throws JAXBException {
+    final Unmarshaller unmarshaller = borrowUnmarshaller();
+    final T result = unmarshaller.unmarshal(new StreamSource(reader), type).getValue();
+    unmarshallers.offer(unmarshaller);
+    return result;
+  }
+
+  <T> T unmarshal(final String xml, final Class<T> type) throws JAXBException {
+    return unmarshal(new StringReader(xml), type);
+  }
+
+  private Unmarshaller borrowUnmarshaller() throws JAXBException {
+    final Unmarshaller unmarshaller = unmarshallers.poll();
+    return (unmarshaller == null ? context.createUnmarshaller() : unmarshaller);
+  }
+}
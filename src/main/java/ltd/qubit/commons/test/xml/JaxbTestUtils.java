@@ -32,13 +32,9 @@ import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
-import javax.xml.transform.stream.StreamSource;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import jakarta.xml.bind.Unmarshaller;
 import jakarta.xml.bind.annotation.XmlAnyElement;
 import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
@@ -51,7 +47,6 @@ import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import ltd.qubit.commons.annotation.Scale;
 import ltd.qubit.commons.io.IoUtils;
 import ltd.qubit.commons.reflect.ConstructorUtils;
-import ltd.qubit.commons.text.xml.jaxb.JaxbUtils;
 import ltd.qubit.commons.util.codec.BigDecimalCodec;
 import ltd.qubit.commons.util.codec.IsoDateCodec;
 import ltd.qubit.commons.util.codec.IsoInstantCodec;
@@ -85,13 +80,7 @@ public abstract class JaxbTestUtils {
 
   public static <T> void assertXmlMarshalEquals(final Class<T> cls,
       final T object, final String expectedXml) throws Exception {
-    final JAXBContext context = JAXBContext.newInstance(cls);
-    final Marshaller mr = context.createMarshaller();
-    mr.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-    mr.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-    final StringWriter writer = new StringWriter();
-    mr.marshal(object, writer);
-    final String actualXml = writer.toString();
+    final String actualXml = JaxbBinding.of(cls).marshal(object, true);
     LOGGER.debug("Object is:\n{}", object);
     LOGGER.debug("Expected XML is:\n{}", expectedXml);
     LOGGER.debug("Actual XML is:\n{}\n", actualXml);
@@ -106,10 +95,6 @@ public abstract class JaxbTestUtils {
   public static <T> void assertXmlMarshalListEquals(final Class<T> cls,
       final List<T> list, final String rootName, final String expectedXml)
       throws Exception {
-    final JAXBContext context = JAXBContext.newInstance(cls);
-    final Marshaller mr = context.createMarshaller();
-    mr.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-    mr.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
     final StringWriter writer = new StringWriter();
     marshalList(list, cls, rootName, writer);
     final String actualXml = writer.toString();
@@ -126,11 +111,8 @@ public abstract class JaxbTestUtils {
 
   public static <T> void assertXmlUnmarshalEquals(final Class<T> cls,
       final String xml, final T expectedObject) throws Exception {
-    final JAXBContext context = JAXBContext.newInstance(cls);
-    final Unmarshaller umr = context.createUnmarshaller();
-    final StringReader reader = new StringReader(xml);
     @SuppressWarnings("unchecked")
-    final T actualObject = (T) umr.unmarshal(reader);
+    final T actualObject = (T) JaxbBinding.of(cls).unmarshal(new StringReader(xml));
     LOGGER.debug("XML is:\n{}", xml);
     LOGGER.debug("Expected object is:\n{}", expectedObject);
     LOGGER.debug("Actual object is:\n{}\n", actualObject);
@@ -174,10 +156,7 @@ public abstract class JaxbTestUtils {
     @SuppressWarnings("rawtypes")
     final JAXBElement<JaxbListWrapper> element = new JAXBElement<>(qname,
         JaxbListWrapper.class, wrapper);
-    final JAXBContext context = JAXBContext.newInstance(JaxbListWrapper.class, cls);
-    final Marshaller mr = context.createMarshaller();
-    mr.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-    mr.marshal(element, writer);
+    JaxbBinding.of(JaxbListWrapper.class, cls).marshal(element, writer, false);
   }
 
   /**
@@ -195,11 +174,9 @@ public abstract class JaxbTestUtils {
    */
   private static <T> List<T> unmarshalList(final Reader reader,
       final Class<T> cls) throws JAXBException {
-    final JAXBContext context = JAXBContext.newInstance(JaxbListWrapper.class, cls);
-    final Unmarshaller umr = context.createUnmarshaller();
-    final StreamSource source = new StreamSource(reader);
     @SuppressWarnings("unchecked")
-    final JaxbListWrapper<T> wrapper = umr.unmarshal(source, JaxbListWrapper.class).getValue();
+    final JaxbListWrapper<T> wrapper = JaxbBinding.of(JaxbListWrapper.class, cls)
+        .unmarshal(reader, JaxbListWrapper.class);
     return wrapper.getList();
   }
 
@@ -226,15 +203,16 @@ public abstract class JaxbTestUtils {
     LOGGER.debug("Testing XML deserialization for the object:\n{}", obj);
     @SuppressWarnings("unchecked")
     final Class<T> type = (Class<T>) obj.getClass();
-    final String xml = JaxbUtils.marshal(obj, type);
+    final JaxbBinding binding = JaxbBinding.of(type);
+    final String xml = binding.marshal(obj, false);
     LOGGER.debug("The object is serialized to:\n{}", xml);
-    final Object result = JaxbUtils.unmarshal(new StringReader(xml), type);
+    final Object result = binding.unmarshal(xml, type);
     LOGGER.debug("The XML is deserialized to:\n{}", result);
     assertEquals(obj, result);
     LOGGER.debug("Test finished successfully.");
   }
 
-  private static void assertXmlNodeEqualsField(final String xml,
+  private static void assertXmlNodeEqualsField(final XmlAssertionContext context,
       @Nullable final String rootPath, final Object obj, final Field field)
       throws Exception {
     final String xmlFieldName = toXmlName(field);
@@ -248,104 +226,104 @@ public abstract class JaxbTestUtils {
       final Object fieldValue = withAccessibleObject(field, f -> f.get(obj), true);
       final Class<?> fieldType = field.getType();
       if (fieldType.isPrimitive()) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else {
-        assertXmlNodeEqualsObject(xml, path, fieldValue, field);
+        assertXmlNodeEqualsObject(context, path, fieldValue, field);
       }
     }
   }
 
-  private static void assertXmlNodeEqualsObject(final String xml,
+  private static void assertXmlNodeEqualsObject(final XmlAssertionContext context,
       final String path, @Nullable final Object fieldValue, @Nullable final Field field)
       throws Exception {
     if (fieldValue == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else if ((field != null) && field.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
-      assertXmlNodeEqualsObjectWithAdapter(xml, path, fieldValue,
+      assertXmlNodeEqualsObjectWithAdapter(context, path, fieldValue,
           field.getAnnotation(XmlJavaTypeAdapter.class));
     } else {
       final Class<?> type = fieldValue.getClass();
       if (type == Boolean.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Character.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Byte.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Short.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Integer.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Long.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Float.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Double.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == String.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue);
+        context.assertXPathEquals(path, fieldValue);
       } else if (type == Date.class) {
         final IsoDateCodec codec = new IsoDateCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((Date) fieldValue));
+        context.assertXPathEquals(path, codec.encode((Date) fieldValue));
       } else if (type == LocalDate.class) {
         final IsoLocalDateCodec codec = new IsoLocalDateCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((LocalDate) fieldValue));
+        context.assertXPathEquals(path, codec.encode((LocalDate) fieldValue));
       } else if (type == LocalTime.class) {
         final IsoLocalTimeCodec codec = new IsoLocalTimeCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((LocalTime) fieldValue));
+        context.assertXPathEquals(path, codec.encode((LocalTime) fieldValue));
       } else if (type == LocalDateTime.class) {
         final IsoLocalDateTimeCodec codec = new IsoLocalDateTimeCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((LocalDateTime) fieldValue));
+        context.assertXPathEquals(path, codec.encode((LocalDateTime) fieldValue));
       } else if (type == Instant.class) {
         final IsoInstantCodec codec = new IsoInstantCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((Instant) fieldValue));
+        context.assertXPathEquals(path, codec.encode((Instant) fieldValue));
       } else if (type == Period.class) {
         final PeriodCodec codec = new PeriodCodec();
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((Period) fieldValue));
+        context.assertXPathEquals(path, codec.encode((Period) fieldValue));
       } else if (type == BigInteger.class) {
-        XmlUnitUtils.assertXPathEquals(xml, path, fieldValue.toString());
+        context.assertXPathEquals(path, fieldValue.toString());
       } else if (type == BigDecimal.class) {
         int scale = BigDecimalCodec.DEFAULT_SCALE;
         if (field != null && field.isAnnotationPresent(Scale.class)) {
           scale = field.getAnnotation(Scale.class).value();
         }
         final BigDecimalCodec codec = new BigDecimalCodec(scale);
-        XmlUnitUtils.assertXPathEquals(xml, path, codec.encode((BigDecimal) fieldValue));
+        context.assertXPathEquals(path, codec.encode((BigDecimal) fieldValue));
       } else if (Enum.class.isAssignableFrom(type)) {
-        XmlUnitUtils.assertXPathEquals(xml, path, (Enum<?>) fieldValue);
+        context.assertXPathEquals(path, (Enum<?>) fieldValue);
       } else if (type.isArray()) {
-        assertXmlNodeEqualsArray(xml, path, fieldValue, field);
+        assertXmlNodeEqualsArray(context, path, fieldValue, field);
       } else if (Collection.class.isAssignableFrom(type)) {
-        assertXmlNodeEqualsCollection(xml, path, (Collection<?>) fieldValue, field);
+        assertXmlNodeEqualsCollection(context, path, (Collection<?>) fieldValue, field);
       } else {
         final int options = NON_STATIC | ALL_ACCESS;
         final List<Field> subfields = getAllFields(fieldValue.getClass(), options);
         for (final Field subfield : subfields) {
-          assertXmlNodeEqualsField(xml, path, fieldValue, subfield);
+          assertXmlNodeEqualsField(context, path, fieldValue, subfield);
         }
       }
     }
   }
 
   @SuppressWarnings({"rawtypes", "unchecked"})
-  private static void assertXmlNodeEqualsObjectWithAdapter(final String xml,
+  private static void assertXmlNodeEqualsObjectWithAdapter(final XmlAssertionContext context,
       final String path, @Nullable final Object obj, final XmlJavaTypeAdapter annotation)
       throws Exception {
     if (obj == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else {
       final Class<? extends XmlAdapter> adapterClass = annotation.value();
       final XmlAdapter adapter = ConstructorUtils.newInstance(adapterClass);
       final String str = (String) adapter.marshal(obj);
-      XmlUnitUtils.assertXPathEquals(xml, path, str);
+      context.assertXPathEquals(path, str);
     }
   }
 
-  private static void assertXmlNodeEqualsCollection(final String xml,
+  private static void assertXmlNodeEqualsCollection(final XmlAssertionContext context,
       final String path,
       @Nullable final Collection<?> collection, @Nullable final Field field)
       throws Exception {
     if (collection == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else {
       String elementPath = path;
       if (field != null) {
@@ -362,7 +340,7 @@ public abstract class JaxbTestUtils {
       }
       int i = 1;
       for (final Object obj : collection) {
-        assertXmlNodeEqualsObject(xml, elementPath + "[" + i + "]", obj, null);
+        assertXmlNodeEqualsObject(context, elementPath + "[" + i + "]", obj, null);
         ++i;
       }
     }
@@ -377,10 +355,11 @@ public abstract class JaxbTestUtils {
     }
   }
 
-  private static void assertXmlNodeEqualsArray(final String xml, final String path,
-      @Nullable final Object array, @Nullable final Field field) throws Exception {
+  private static void assertXmlNodeEqualsArray(final XmlAssertionContext context,
+      final String path, @Nullable final Object array, @Nullable final Field field)
+      throws Exception {
     if (array == null) {
-      XmlUnitUtils.assertXPathAbsent(xml, path);
+      context.assertXPathAbsent(path);
     } else {
       assert array.getClass().isArray();
       final Class<?> elementType = array.getClass().getComponentType();
@@ -402,48 +381,48 @@ public abstract class JaxbTestUtils {
       final int n = Array.getLength(array);
       if (elementType == boolean.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getBoolean(array, i));
         }
       } else if (elementType == char.class) {
         // NOTE: a char array was serialized as a int array in JAXB
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               (int) Array.getChar(array, i));
         }
       } else if (elementType == byte.class) {
         // NOTE: a byte array was serialized as a BASE64 encoded string in JAXB
         final Base64.Encoder encoder = Base64.getEncoder();
         final String expected = encoder.encodeToString((byte[]) array);
-        XmlUnitUtils.assertXPathEquals(xml, path, expected);
+        context.assertXPathEquals(path, expected);
       } else if (elementType == short.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getShort(array, i));
         }
       } else if (elementType == int.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getInt(array, i));
         }
       } else if (elementType == long.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getLong(array, i));
         }
       } else if (elementType == float.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getFloat(array, i));
         }
       } else if (elementType == double.class) {
         for (int i = 0; i < n; ++i) {
-          XmlUnitUtils.assertXPathEquals(xml, elementPath + "[" + (i + 1) + "]",
+          context.assertXPathEquals(elementPath + "[" + (i + 1) + "]",
               Array.getDouble(array, i));
         }
       } else {
         for (int i = 0; i < n; ++i) {
-          assertXmlNodeEqualsObject(xml, elementPath + "[" + (i + 1) + "]",
+          assertXmlNodeEqualsObject(context, elementPath + "[" + (i + 1) + "]",
               Array.get(array, i), null);
         }
       }
@@ -489,17 +468,18 @@ public abstract class JaxbTestUtils {
     LOGGER.debug("Testing XML serialization for the object:\n{}", obj);
     @SuppressWarnings("unchecked")
     final Class<T> type = (Class<T>) obj.getClass();
-    final String xml = JaxbUtils.marshal(obj, type);
+    final String xml = JaxbBinding.of(type).marshal(obj, false);
     LOGGER.debug("The object is serialized to:\n{}", xml);
     final String rootElement = getXmlRootElement(type);
+    final XmlAssertionContext context = XmlAssertionContext.parse(xml);
     if (obj instanceof Enum<?>) {
       // 对枚举类型特殊处理
       final String value = ((Enum<?>) obj).name();
-      XmlUnitUtils.assertXPathEquals(xml, rootElement, value);
+      context.assertXPathEquals(rootElement, value);
     } else {
       final List<Field> fields = getAllFields(obj.getClass(), BEAN_FIELD);
       for (final Field field : fields) {
-        assertXmlNodeEqualsField(xml, rootElement, obj, field);
+        assertXmlNodeEqualsField(context, rootElement, obj, field);
       }
     }
     LOGGER.debug("Test finished successfully.");
@@ -508,11 +488,12 @@ public abstract class JaxbTestUtils {
   public static <T> void testXmlSerialization(final String xml, final Class<T> cls)
       throws Exception {
     LOGGER.debug("Expected XML is:\n{}", xml);
-    final T obj = JaxbUtils.unmarshal(new StringReader(xml), cls);
-    final String marshaledXml = JaxbUtils.marshal(obj, cls);
+    final JaxbBinding binding = JaxbBinding.of(cls);
+    final T obj = binding.unmarshal(xml, cls);
+    final String marshaledXml = binding.marshal(obj, false);
     LOGGER.debug("Actual XML is:\n{}", marshaledXml);
     XmlUnitUtils.assertXmlEqual(obj, xml, marshaledXml);
-    final T unmarshaledObj = JaxbUtils.unmarshal(new StringReader(marshaledXml), cls);
+    final T unmarshaledObj = binding.unmarshal(marshaledXml, cls);
     LOGGER.debug("Expected object is: {}", obj);
     LOGGER.debug("Actual object is:   {}", unmarshaledObj);
     assertEquals(obj, unmarshaledObj);
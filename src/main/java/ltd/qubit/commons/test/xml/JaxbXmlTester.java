@@ -8,17 +8,52 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.xml;
 
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import javax.xml.transform.stream.StreamSource;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+
 import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.BenchmarkReports;
+import ltd.qubit.commons.test.BenchmarkSettings;
 import ltd.qubit.commons.test.Tester;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * A tester object used to test the XML serialization/deserialization of
  * classes.
  *
+ * <p>The JAXB contexts are cached and the marshallers and unmarshallers are
+ * pooled across the iterations and the testers, see {@link #benchmark(Class)}
+ * for the cost saved per round-trip.</p>
+ *
  * @author Haixing Hu
  */
 public class JaxbXmlTester extends Tester {
 
+  /**
+   * The name of the system property specifying the CSV report file of the JAXB
+   * benchmarks, see {@link BenchmarkReports#append}.
+   */
+  public static final String BENCHMARK_REPORT_PROPERTY = "qubit.test.benchmark.jaxb.report";
+
+  public static final int DEFAULT_CORPUS_SIZE = 20;
+
+  public static final int DEFAULT_WARMUP_ITERATIONS = 1;
+
+  public static final int DEFAULT_BENCHMARK_ITERATIONS = 5;
+
+  private final Logger logger = LoggerFactory.getLogger(JaxbXmlTester.class);
+  private final BenchmarkSettings benchmarkSettings = new BenchmarkSettings(
+      DEFAULT_CORPUS_SIZE, DEFAULT_WARMUP_ITERATIONS, DEFAULT_BENCHMARK_ITERATIONS);
+  private long sink;
+
   public JaxbXmlTester() {
   }
 
@@ -34,11 +69,95 @@ public class JaxbXmlTester extends Tester {
     super(random, loops);
   }
 
+  public final BenchmarkSettings getBenchmarkSettings() {
+    return benchmarkSettings;
+  }
+
   protected <T> void doTest(final Class<T> type) throws Exception {
-    for (int i = 0; i < loops; ++i) {
-      final T obj = random.nextObject(type);
-      JaxbTestUtils.testXmlSerialization(obj);
-      JaxbTestUtils.testXmlDeserialization(obj);
+    runIterations(type);
+  }
+
+  protected <T> void doTestIteration(final Class<T> type) throws Exception {
+    final T obj = random.nextObject(type);
+    JaxbTestUtils.testXmlSerialization(obj);
+    JaxbTestUtils.testXmlDeserialization(obj);
+  }
+
+  /**
+   * Measures the JAXB round-trip cost of the specified class, before and after
+   * caching the JAXB contexts.
+   *
+   * <p>A corpus of random instances is generated beforehand by
+   * {@link #generateCorpus(Class, int)}. Each round-trip
+   * marshals an instance to a string and unmarshals it back. The uncached
+   * round-trips create a new JAXB context, marshaller and unmarshaller each
+   * time, as the test utilities did before the contexts were cached; since
+   * they are orders of magnitude slower, they are measured over a single pass
+   * of the corpus. The cached round-trips use the cached context and the
+   * pooled marshallers and unmarshallers, and are measured over the benchmark
+   * passes after the warmup passes, see {@link #getBenchmarkSettings()}.</p>
+   *
+   * <p>The result is logged, and appended to the CSV file specified by the
+   * system property {@value #BENCHMARK_REPORT_PROPERTY} if it is set.</p>
+   *
+   * @param type
+   *     the type of the objects to benchmark.
+   * @return
+   *     the result of the benchmark.
+   * @throws Exception
+   *     if any error occurs.
+   */
+  public <T> JaxbBenchmarkResult benchmark(final Class<T> type) throws Exception {
+    final int corpusSize = benchmarkSettings.getCorpusSize();
+    final int warmupIterations = benchmarkSettings.getWarmupIterations();
+    final int benchmarkIterations = benchmarkSettings.getBenchmarkIterations();
+    final List<T> corpus = generateCorpus(type, corpusSize);
+    uncachedRoundTrip(type, corpus.get(0));     // loads the JAXB classes
+    long start = System.nanoTime();
+    for (final T obj : corpus) {
+      uncachedRoundTrip(type, obj);
+    }
+    final long uncachedNanos = System.nanoTime() - start;
+    for (int i = 0; i < warmupIterations; ++i) {
+      for (final T obj : corpus) {
+        cachedRoundTrip(type, obj);
+      }
     }
+    start = System.nanoTime();
+    for (int i = 0; i < benchmarkIterations; ++i) {
+      for (final T obj : corpus) {
+        cachedRoundTrip(type, obj);
+      }
+    }
+    final long cachedNanos = System.nanoTime() - start;
+    final JaxbBenchmarkResult result = new JaxbBenchmarkResult(type.getName(),
+        corpusSize, benchmarkIterations, uncachedNanos / 1e3 / corpusSize,
+        cachedNanos / 1e3 / ((long) benchmarkIterations * corpusSize));
+    logger.info("JAXB benchmark of {}: {} us/round-trip without caching, "
+        + "{} us/round-trip with caching, speedup {}x.", type.getName(),
+        Math.round(result.getUncachedMicrosPerRoundTrip()),
+        Math.round(result.getCachedMicrosPerRoundTrip()),
+        Math.round(result.getSpeedup()));
+    logger.trace("JAXB benchmark sink: {}", sink);
+    BenchmarkReports.append(BENCHMARK_REPORT_PROPERTY, JaxbBenchmarkResult.CSV_HEADER,
+        result::toCsv);
+    return result;
+  }
+
+  private <T> void uncachedRoundTrip(final Class<T> type, final T obj) throws Exception {
+    final JAXBContext context = JAXBContext.newInstance(type);
+    final Marshaller marshaller = context.createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    final StringWriter writer = new StringWriter();
+    marshaller.marshal(obj, writer);
+    final StreamSource source = new StreamSource(new StringReader(writer.toString()));
+    final T result = context.createUnmarshaller().unmarshal(source, type).getValue();
+    sink += System.identityHashCode(result);
+  }
+
+  private <T> void cachedRoundTrip(final Class<T> type, final T obj) throws Exception {
+    final JaxbBinding binding = JaxbBinding.of(type);
+    final T result = binding.unmarshal(binding.marshal(obj, false), type);
+    sink += System.identityHashCode(result);
   }
 }
@@ -0,0 +1,234 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * An XML document parsed once, against which many XPath assertions could be
+ * evaluated.
+ *
+ * <p>The matchers of XMLUnit parse the XML string and compile the XPath
+ * expression on every assertion, which makes the test of a large object
+ * quadratic in the size of its XML. This class parses the document into a DOM
+ * only once, and evaluates the assertions against the DOM with the compiled
+ * XPath expressions, which are cached per thread and shared among documents,
+ * since the tests of the objects of a class evaluate the same expressions
+ * again and again.</p>
+ *
+ * <p>The document is parsed with namespace awareness, and the XPath
+ * expressions are evaluated as the matchers of XMLUnit do, i.e., an expression
+ * "has" a value if its string value equals the expected value, and is absent
+ * if it selects no node.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author Haixing Hu
+ */
+public final class XmlAssertionContext {
+
+  /**
+   * The maximum number of compiled XPath expressions cached in each thread.
+   */
+  public static final int MAX_CACHED_EXPRESSIONS = 4096;
+
+  private static final ThreadLocal<DocumentBuilder> BUILDER = ThreadLocal.withInitial(() -> {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    try {
+      return factory.newDocumentBuilder();
+    } catch (final ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  private static final ThreadLocal<ExpressionCache> EXPRESSIONS =
+      ThreadLocal.withInitial(ExpressionCache::new);
+
+  private final String xml;
+  private final Document document;
+
+  /**
+   * Parses an XML document.
+   *
+   * @param xml
+   *     the XML document to parse.
+   * @return
+   *     the assertion context of the parsed document.
+   * @throws IllegalArgumentException
+   *     if the XML document is malformed.
+   */
+  public static XmlAssertionContext parse(final String xml) {
+    requireNonNull("xml", xml);
+    final DocumentBuilder builder = BUILDER.get();
+    // report the errors by exceptions rather than printing them to stderr
+    builder.setErrorHandler(new DefaultHandler());
+    try {
+      return new XmlAssertionContext(xml, builder.parse(new InputSource(new StringReader(xml))));
+    } catch (final Exception e) {
+      throw new IllegalArgumentException("Malformed XML document: " + e.getMessage(), e);
+    } finally {
+      builder.reset();
+    }
+  }
+
+  private XmlAssertionContext(final String xml, final Document document) {
+    this.xml = xml;
+    this.document = document;
+  }
+
+  public String getXml() {
+    return xml;
+  }
+
+  public Document getDocument() {
+    return document;
+  }
+
+  /**
+   * Tests whether an XPath expression selects any node of the document.
+   *
+   * @param xpath
+   *     the XPath expression.
+   * @return
+   *     {@code true} if the expression selects at least one node;
+   *     {@code false} otherwise.
+   */
+  public boolean hasXPath(final String xpath) {
+    final NodeList nodes = (NodeList) evaluate(xpath, XPathConstants.NODESET);
+    return nodes.getLength() > 0;
+  }
+
+  /**
+   * Evaluates the string value of an XPath expression.
+   *
+   * @param xpath
+   *     the XPath expression.
+   * @return
+   *     the string value of the expression, which is an empty string if the
+   *     expression selects no node.
+   */
+  public String valueOf(final String xpath) {
+    return (String) evaluate(xpath, XPathConstants.STRING);
+  }
+
+  public void assertXPathEquals(final String xpath, @Nullable final Object value) {
+    if (value == null) {
+      assertXPathAbsent(xpath);
+    } else {
+      assertXPathValue(xpath, value.toString());
+    }
+  }
+
+  public void assertXPathEquals(final String xpath, @Nullable final Enum<?> value) {
+    if (value == null) {
+      assertXPathAbsent(xpath);
+    } else {
+      assertXPathValue(xpath, value.name());
+    }
+  }
+
+  public void assertXPathNull(final String xpath) {
+    assertXPathAbsent(xpath);
+  }
+
+  public void assertXPathAbsent(final String xpath) {
+    if (hasXPath(xpath)) {
+      fail("The XPath '" + xpath + "' should be absent, but it is: \""
+          + valueOf(xpath) + "\"");
+    }
+  }
+
+  public <T> void assertXPathArrayEquals(final String rootPath, final String wrapperNode,
+      final String elementNode, @Nullable final T[] array) {
+    if (array == null) {
+      assertXPathNull(rootPath + "/" + wrapperNode);
+    } else {
+      final String prefix = rootPath + "/" + wrapperNode + "/" + elementNode;
+      for (int i = 0; i < array.length; ++i) {
+        assertXPathEquals(prefix + "[" + (i + 1) + "]", array[i]);
+      }
+    }
+  }
+
+  private void assertXPathValue(final String xpath, final String expected) {
+    final String actual = valueOf(xpath);
+    if (!expected.equals(actual)) {
+      fail("The XPath '" + xpath + "' should be \"" + expected + "\", but it is: \""
+          + actual + "\"");
+    }
+  }
+
+  private Object evaluate(final String xpath, final QName returnType) {
+    final XPathExpression expression = EXPRESSIONS.get().compile(xpath);
+    try {
+      return expression.evaluate(document, returnType);
+    } catch (final XPathExpressionException e) {
+      throw new IllegalArgumentException("Failed to evaluate the XPath '" + xpath + "': "
+          + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * A LRU cache of compiled XPath expressions, which must be confined to a
+   * thread since neither {@link XPath} nor {@link XPathExpression} is
+   * thread-safe.
+   */
+  private static final class ExpressionCache extends LinkedHashMap<String, XPathExpression> {
+
+    private static final long serialVersionUID = 4862396470187352207L;
+
+    private final transient XPath xpath = XPathFactory.newInstance().newXPath();
+
+    ExpressionCache() {
+      super(16, 0.75f, true);
+    }
+
+    XPathExpression compile(final String expression) {
+      XPathExpression result = get(expression);
+      if (result == null) {
+        try {
+          result = xpath.compile(expression);
+        } catch (final XPathExpressionException e) {
+          throw new IllegalArgumentException("Invalid XPath '" + expression + "': "
+              + e.getMessage(), e);
+        }
+        put(expression, result);
+      }
+      return result;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest) {
+      return size() > MAX_CACHED_EXPRESSIONS;
+    }
+  }
+}
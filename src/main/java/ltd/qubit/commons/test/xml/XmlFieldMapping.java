@@ -0,0 +1,94 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import jakarta.xml.bind.annotation.XmlTransient;
+
+import ltd.qubit.commons.reflect.ClassUtils;
+import ltd.qubit.commons.test.FieldMapping;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyName;
+
+import static ltd.qubit.commons.reflect.FieldUtils.getAllFields;
+import static ltd.qubit.commons.reflect.Option.BEAN_FIELD;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.getPropertyName;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.getPropertyWrapperName;
+
+/**
+ * The mapping between a bean field and the name of its XML element serialized
+ * by Jackson.
+ *
+ * <p>The mappings of a class are resolved once per {@link ObjectMapper}, since
+ * the XML names depend on the naming strategy and annotations configured in
+ * the mapper, and then cached. The name of an array, collection or map field
+ * is the name of its wrapper element. A field is ignored if it is annotated
+ * with {@link XmlTransient} or {@link JsonIgnore}, or is transient.</p>
+ *
+ * @author Haixing Hu
+ */
+final class XmlFieldMapping extends FieldMapping {
+
+  private static final ClassValue<Map<ObjectMapper, XmlFieldMapping[]>> CACHE =
+      new ClassValue<>() {
+        @Override
+        protected Map<ObjectMapper, XmlFieldMapping[]> computeValue(final Class<?> type) {
+          return Collections.synchronizedMap(new WeakHashMap<>());
+        }
+      };
+
+  /**
+   * Gets the field mappings of the specified class.
+   *
+   * @param mapper
+   *     the object mapper used to serialize the objects.
+   * @param type
+   *     the specified class.
+   * @return
+   *     the field mappings of all bean fields of the class, in the order of
+   *     their declaration. The caller must not modify the returned array.
+   */
+  static XmlFieldMapping[] of(final ObjectMapper mapper, final Class<?> type) {
+    return CACHE.get(type).computeIfAbsent(mapper, m -> {
+      final List<Field> fields = getAllFields(type, BEAN_FIELD);
+      final XmlFieldMapping[] result = new XmlFieldMapping[fields.size()];
+      for (int i = 0; i < result.length; ++i) {
+        result[i] = new XmlFieldMapping(m, fields.get(i));
+      }
+      return result;
+    });
+  }
+
+  private XmlFieldMapping(final ObjectMapper mapper, final Field field) {
+    super(field, nameOf(mapper, field), field.isAnnotationPresent(XmlTransient.class)
+        || field.isAnnotationPresent(JsonIgnore.class)
+        || Modifier.isTransient(field.getModifiers()));
+  }
+
+  private static String nameOf(final ObjectMapper mapper, final Field field) {
+    final Class<?> fieldType = field.getType();
+    final PropertyName propertyName;
+    if (ClassUtils.isArrayType(fieldType)
+        || ClassUtils.isCollectionType(fieldType)
+        || ClassUtils.isMapType(fieldType)) {
+      propertyName = getPropertyWrapperName(mapper, field);
+    } else {
+      propertyName = getPropertyName(mapper, field);
+    }
+    return propertyName.getSimpleName();
+  }
+}
@@ -0,0 +1,459 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import ltd.qubit.commons.reflect.ClassUtils;
+import ltd.qubit.commons.test.StreamComparator;
+import ltd.qubit.commons.text.jackson.TypeRegistrationModule;
+
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.getPropertyWrappedName;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.getRootName;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.serializeWithAdapter;
+import static ltd.qubit.commons.text.jackson.JacksonUtils.serializeWithSerializer;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A comparator which compares an XML document serialized by Jackson with an
+ * object graph, reading the document only once with a StAX cursor.
+ *
+ * <p>The comparator applies the same rules as
+ * {@link JacksonXmlTestUtils#testXmlSerialization(
+ * com.fasterxml.jackson.dataformat.xml.XmlMapper, Object)}, which evaluates an
+ * XPath expression against the whole document for every property, but matches
+ * the elements with the fields of the objects as it reads them. Its memory use
+ * is therefore bounded by the depth of the document, except for the text of a
+ * single value, and it stops reading at the first mismatch. In particular:</p>
+ * <ul>
+ *   <li>the text of a scalar value is the concatenation of all the text in its
+ *   element;</li>
+ *   <li>the elements of unknown or ignored fields, and the redundant elements
+ *   of a field, are skipped;</li>
+ *   <li>a missing element matches a value whose expected text is empty, e.g.,
+ *   an empty string or an empty collection, and a field could also be
+ *   serialized as an attribute of its parent element.</li>
+ * </ul>
+ * <p>The location of a mismatch, i.e., the path of the returned
+ * {@link Mismatch}, is reported as an XPath-like path.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author Haixing Hu
+ */
+public class XmlStreamComparator extends StreamComparator<XmlFieldMapping> {
+
+  /**
+   * The path of the current element.
+   */
+  private final List<String> path = new ArrayList<>();
+
+  private XMLStreamReader reader;
+
+  public XmlStreamComparator(final ObjectMapper mapper) {
+    super(mapper);
+  }
+
+  /**
+   * Compares the XML document read from a StAX cursor with an object.
+   *
+   * @param reader
+   *     the StAX cursor to read, which should be positioned before the root
+   *     element of the document. The cursor is not closed by this method.
+   * @param expected
+   *     the expected object.
+   * @return
+   *     the first mismatch between the XML document and the object, or
+   *     {@code null} if they match.
+   * @throws Exception
+   *     if any error occurs while reading the XML document or the fields of
+   *     the object.
+   */
+  @Nullable
+  public Mismatch compare(final XMLStreamReader reader, final Object expected)
+      throws Exception {
+    this.reader = requireNonNull("reader", reader);
+    requireNonNull("expected", expected);
+    path.clear();
+    try {
+      final String rootName = getRootName(mapper, expected.getClass()).getSimpleName();
+      path.add(rootName);
+      if (reader.getEventType() == XMLStreamConstants.START_ELEMENT || nextElement()) {
+        if (!rootName.equals(reader.getLocalName())) {
+          throw mismatch("should be the root element, but the root element is <"
+              + reader.getLocalName() + ">.");
+        }
+        compareElement(null, expected);
+      } else if (!isEmpty(null, expected)) {
+        throw mismatch("is missing.");
+      }
+      return null;
+    } catch (final MismatchException e) {
+      return e.getMismatch();
+    } finally {
+      this.reader = null;
+    }
+  }
+
+  /**
+   * Asserts that the XML document read from a StAX cursor matches an object.
+   *
+   * @param reader
+   *     the StAX cursor to read, which should be positioned before the root
+   *     element of the document. The cursor is not closed by this method.
+   * @param expected
+   *     the expected object.
+   * @throws Exception
+   *     if any error occurs while reading the XML document or the fields of
+   *     the object.
+   */
+  public void assertMatches(final XMLStreamReader reader, final Object expected)
+      throws Exception {
+    final Mismatch mismatch = compare(reader, expected);
+    if (mismatch != null) {
+      fail(mismatch.getMessage());
+    }
+  }
+
+  /**
+   * Compares the current element with a value.
+   *
+   * <p>The cursor must be at the start of the element, and is left at its
+   * end.</p>
+   */
+  private void compareElement(@Nullable final Field field, @Nullable final Object value)
+      throws Exception {
+    if (value == null) {
+      throw mismatch("should be absent, but it is present.");
+    }
+    final String text = toText(field, value);
+    if (text != null) {
+      compareText(text);
+      return;
+    }
+    final Class<?> type = value.getClass();
+    if (ClassUtils.isArrayType(type)) {
+      compareElements(field, asList(value));
+    } else if (ClassUtils.isCollectionType(type)) {
+      compareElements(field, (Collection<?>) value);
+    } else {
+      compareBean(value);
+    }
+  }
+
+  private void compareBean(final Object obj) throws Exception {
+    final XmlFieldMapping[] mappings = XmlFieldMapping.of(mapper, obj.getClass());
+    Map<String, String> attributes = null;
+    if (reader.getAttributeCount() > 0) {
+      attributes = new HashMap<>();
+      for (int i = 0; i < reader.getAttributeCount(); ++i) {
+        attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      }
+    }
+    final boolean[] visited = readFields(obj, mappings);
+    for (int i = 0; i < mappings.length; ++i) {
+      if (visited[i] || mappings[i].isIgnored()) {
+        continue;
+      }
+      final Field field = mappings[i].getField();
+      final Object fieldValue = mappings[i].getValue(obj);
+      final String attribute = (attributes == null ? null
+                                                   : attributes.get(mappings[i].getName()));
+      if (attribute != null && fieldValue != null) {
+        final String text = (field.getType().isPrimitive() ? fieldValue.toString()
+                                                          : toText(field, fieldValue));
+        if (attribute.equals(text)) {
+          continue;
+        } else if (text != null) {
+          path.add("@" + mappings[i].getName());
+          throw mismatch("should be \"" + text + "\", but it is \"" + attribute + "\".");
+        }
+      }
+      if (!(field.getType().isPrimitive() ? fieldValue.toString().isEmpty()
+                                          : isEmpty(field, fieldValue))) {
+        path.add(mappings[i].getName());
+        throw mismatch("is missing.");
+      }
+    }
+  }
+
+  @Override
+  protected String nextField() throws XMLStreamException {
+    return (nextElement() ? reader.getLocalName() : null);
+  }
+
+  @Override
+  protected void skipField() throws XMLStreamException {
+    skipElement();
+  }
+
+  @Override
+  protected void readDuplicateField(final XmlFieldMapping mapping)
+      throws XMLStreamException {
+    // the XPath expressions only select the first element of the same name
+    skipElement();
+  }
+
+  @Override
+  protected void compareField(final XmlFieldMapping mapping, @Nullable final Object value)
+      throws Exception {
+    path.add(mapping.getName());
+    if (mapping.getField().getType().isPrimitive()) {
+      compareText(value.toString());
+    } else {
+      compareElement(mapping.getField(), value);
+    }
+    path.remove(path.size() - 1);
+  }
+
+  /**
+   * Compares the children of the current element with the elements of an array
+   * or a collection.
+   *
+   * <p>If the array or collection is a field, the current element is its
+   * wrapper element, and only the children whose names are the wrapped name of
+   * the field are compared; otherwise all children are compared.</p>
+   */
+  private void compareElements(@Nullable final Field field, final Collection<?> elements)
+      throws Exception {
+    final String elementName = (field == null
+                                ? null : getPropertyWrappedName(mapper, field).getSimpleName());
+    int i = 0;
+    for (final Object element : elements) {
+      path.add((elementName == null ? "*" : elementName) + "[" + (i + 1) + "]");
+      if (!nextElement(elementName)) {
+        if (isEmpty(null, element)) {
+          path.remove(path.size() - 1);
+          ++i;
+          continue;
+        }
+        throw mismatch("is missing.");
+      }
+      compareElement(null, element);
+      path.remove(path.size() - 1);
+      ++i;
+    }
+    // the redundant elements are ignored
+    skipRest();
+  }
+
+  /**
+   * Compares the text of the current element with the expected text.
+   */
+  private void compareText(final String expected) throws Exception {
+    final StringBuilder builder = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          ++depth;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          --depth;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          builder.append(reader.getTextCharacters(), reader.getTextStart(),
+              reader.getTextLength());
+          break;
+        default:
+          break;
+      }
+    }
+    final String actual = builder.toString();
+    if (!expected.equals(actual)) {
+      throw mismatch("should be \"" + expected + "\", but it is \"" + actual + "\".");
+    }
+  }
+
+  /**
+   * Gets the expected text of a scalar value, in the same way as
+   * {@link JacksonXmlTestUtils}.
+   *
+   * @return
+   *     the expected text of the value, or {@code null} if the value is not a
+   *     scalar value.
+   */
+  @Nullable
+  @SuppressWarnings("rawtypes")
+  private String toText(@Nullable final Field field, final Object value) throws Exception {
+    if (field != null && field.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
+      final XmlJavaTypeAdapter annotation = field.getAnnotation(XmlJavaTypeAdapter.class);
+      return serializeWithAdapter(mapper, annotation, field, value);
+    } else if (field != null && field.isAnnotationPresent(JsonSerialize.class)) {
+      final JsonSerialize annotation = field.getAnnotation(JsonSerialize.class);
+      return serializeWithSerializer(mapper, annotation, field, value);
+    }
+    final Class<?> type = value.getClass();
+    final JsonSerializer serializer = TypeRegistrationModule.getSerializer(type);
+    if (serializer != null) {
+      return serializeWithSerializer(mapper, serializer, field, value);
+    } else if (type == Boolean.class || type == Character.class || type == Byte.class
+        || type == Short.class || type == Integer.class || type == Long.class
+        || type == Float.class || type == Double.class || type == String.class) {
+      return value.toString();
+    } else if (ClassUtils.isEnumType(type)) {
+      return ((Enum<?>) value).name();
+    } else if (type == byte[].class) {
+      // NOTE: a byte array was serialized as a BASE64 encoded string
+      return Base64.getEncoder().encodeToString((byte[]) value);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Tests whether a value matches a missing element, i.e., whether all the
+   * texts expected in its element are empty.
+   */
+  private boolean isEmpty(@Nullable final Field field, @Nullable final Object value)
+      throws Exception {
+    if (value == null) {
+      return true;
+    }
+    final String text = toText(field, value);
+    if (text != null) {
+      return text.isEmpty();
+    }
+    final Class<?> type = value.getClass();
+    if (ClassUtils.isArrayType(type) || ClassUtils.isCollectionType(type)) {
+      final Collection<?> elements = (type.isArray() ? asList(value) : (Collection<?>) value);
+      for (final Object element : elements) {
+        if (!isEmpty(null, element)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    for (final XmlFieldMapping mapping : XmlFieldMapping.of(mapper, type)) {
+      if (!mapping.isIgnored()) {
+        final Object fieldValue = mapping.getValue(value);
+        if (mapping.getField().getType().isPrimitive()
+            ? !fieldValue.toString().isEmpty()
+            : !isEmpty(mapping.getField(), fieldValue)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets a list view of an array.
+   *
+   * <p>The elements of a char array are viewed as integers, since a char array
+   * was serialized as an int array.</p>
+   */
+  private static List<Object> asList(final Object array) {
+    final boolean isCharArray = (array.getClass().getComponentType() == char.class);
+    final int n = Array.getLength(array);
+    return new AbstractList<>() {
+      @Override
+      public Object get(final int index) {
+        return (isCharArray ? (Object) (int) Array.getChar(array, index)
+                            : Array.get(array, index));
+      }
+
+      @Override
+      public int size() {
+        return n;
+      }
+    };
+  }
+
+  /**
+   * Moves the cursor to the start of the next child element of the current
+   * element.
+   *
+   * @return
+   *     {@code true} if the cursor is moved to the start of the next child
+   *     element; {@code false} if the cursor is moved to the end of the current
+   *     element.
+   */
+  private boolean nextElement() throws XMLStreamException {
+    while (reader.hasNext()) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        return true;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves the cursor to the start of the next child element with the
+   * specified name, skipping the other child elements.
+   */
+  private boolean nextElement(@Nullable final String name) throws XMLStreamException {
+    while (nextElement()) {
+      if (name == null || name.equals(reader.getLocalName())) {
+        return true;
+      }
+      skipElement();
+    }
+    return false;
+  }
+
+  /**
+   * Moves the cursor from the start of the current element to its end.
+   */
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        ++depth;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        --depth;
+      }
+    }
+  }
+
+  /**
+   * Moves the cursor to the end of the current element, skipping its remaining
+   * children.
+   */
+  private void skipRest() throws XMLStreamException {
+    while (nextElement()) {
+      skipElement();
+    }
+  }
+
+  private MismatchException mismatch(final String description) {
+    final String xpath = String.join("/", path);
+    final Location location = reader.getLocation();
+    return mismatch(xpath, "The XML node '" + xpath + "' (at " + location.getLineNumber()
+        + ":" + location.getColumnNumber() + ") " + description);
+  }
+}
@@ -11,18 +11,18 @@ package ltd.qubit.commons.test.xml;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xmlunit.assertj.XmlAssert;
-import org.xmlunit.matchers.EvaluateXPathMatcher;
-import org.xmlunit.matchers.HasXPathMatcher;
 
 import javax.annotation.Nullable;
 
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.not;
-
 /**
  * Provide utilities functions for XML Unit.
  *
+ * <p>The XPath assertions are evaluated by an {@link XmlAssertionContext}, and
+ * share its compiled XPath expressions. Each assertion parses the XML string
+ * again, so the callers asserting many paths of a document should parse it
+ * once by {@link XmlAssertionContext#parse(String)} and use the context
+ * directly.</p>
+ *
  * @author Haixing Hu
  */
 public class XmlUnitUtils {
@@ -31,42 +31,27 @@ public class XmlUnitUtils {
 
   public static void assertXPathEquals(final String xml, final String xpath,
           @Nullable final Object value) {
-    if (value == null) {
-      assertThat(xml, not(HasXPathMatcher.hasXPath(xpath)));
-    } else {
-      assertThat(xml, EvaluateXPathMatcher.hasXPath(xpath, equalTo(value.toString())));
-    }
+    XmlAssertionContext.parse(xml).assertXPathEquals(xpath, value);
   }
 
   public static void assertXPathEquals(final String xml, final String xpath,
       @Nullable final Enum<?> value) {
-    if (value == null) {
-      assertThat(xml, not(HasXPathMatcher.hasXPath(xpath)));
-    } else {
-      assertThat(xml, EvaluateXPathMatcher.hasXPath(xpath, equalTo(value.name())));
-    }
+    XmlAssertionContext.parse(xml).assertXPathEquals(xpath, value);
   }
 
   public static void assertXPathNull(final String xml, final String xpath) {
-    assertThat(xml, not(HasXPathMatcher.hasXPath(xpath)));
+    XmlAssertionContext.parse(xml).assertXPathNull(xpath);
   }
 
   public static void assertXPathAbsent(final String xml, final String xpath) {
-    assertThat(xml, not(HasXPathMatcher.hasXPath(xpath)));
+    XmlAssertionContext.parse(xml).assertXPathAbsent(xpath);
   }
 
   public static <T> void assertXPathArrayEquals(final String xml,
       final String rootPath, final String wrapperNode, final String elementNode,
       @Nullable final T[] array) {
-    if (array == null) {
-      assertXPathNull(xml, rootPath + "/" + wrapperNode);
-    } else {
-      final int n = array.length;
-      final String prefix = rootPath + "/" + wrapperNode + "/" + elementNode;
-      for (int i = 0; i < n; ++i) {
-        assertXPathEquals(xml, prefix + "[" + (i + 1) + "]", array[i]);
-      }
-    }
+    XmlAssertionContext.parse(xml).assertXPathArrayEquals(rootPath, wrapperNode,
+        elementNode, array);
   }
 
   public static void assertXmlEqual(final Object obj, final String expected, final String actual)
@@ -0,0 +1,40 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of {@link BenchmarkSettings}.
+ */
+public class BenchmarkSettingsTest {
+
+  @Test
+  public void testSettings() {
+    final BenchmarkSettings settings = new BenchmarkSettings(10, 1, 2)
+        .setCorpusSize(20)
+        .setWarmupIterations(0)
+        .setBenchmarkIterations(5);
+    assertEquals(20, settings.getCorpusSize());
+    assertEquals(0, settings.getWarmupIterations());
+    assertEquals(5, settings.getBenchmarkIterations());
+  }
+
+  @Test
+  public void testInvalidSettings() {
+    final BenchmarkSettings settings = new BenchmarkSettings(10, 1, 2);
+    assertThrows(IllegalArgumentException.class, () -> settings.setCorpusSize(0));
+    assertThrows(IllegalArgumentException.class, () -> settings.setWarmupIterations(-1));
+    assertThrows(IllegalArgumentException.class, () -> settings.setBenchmarkIterations(0));
+    assertThrows(IllegalArgumentException.class, () -> new BenchmarkSettings(0, 1, 2));
+  }
+}
@@ -0,0 +1,78 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import ltd.qubit.commons.test.model.App;
+import ltd.qubit.commons.test.model.Identifiable;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.test.model.Location;
+import ltd.qubit.commons.test.model.Province;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link ModelDiscovery}.
+ */
+public class ModelDiscoveryTest {
+
+  private final ModelDiscovery discovery = new ModelDiscovery(getClass().getClassLoader());
+
+  @Test
+  public void testDiscover() throws Exception {
+    final List<Class<?>> models = discovery.discover("ltd.qubit.commons.test.model");
+    assertTrue(models.contains(Info.class));
+    assertTrue(models.contains(App.class));
+    assertTrue(models.contains(Province.class));
+    assertFalse(models.contains(Location.class));         // 没有标记注解
+    assertFalse(models.contains(Identifiable.class));     // 接口
+    for (int i = 1; i < models.size(); ++i) {
+      assertTrue(models.get(i - 1).getName().compareTo(models.get(i).getName()) < 0);
+    }
+  }
+
+  @Test
+  public void testDiscoverUnknownPackage() throws Exception {
+    assertTrue(discovery.discover("ltd.qubit.commons.test.notexist").isEmpty());
+  }
+
+  @Test
+  public void testIsModel() throws Exception {
+    assertTrue(discovery.isModel(readClassFile(Info.class)));
+    assertFalse(discovery.isModel(readClassFile(Location.class)));
+    assertFalse(discovery.isModel(readClassFile(Identifiable.class)));
+    assertFalse(discovery.isModel(new byte[0]));
+    assertFalse(discovery.isModel(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }));
+  }
+
+  @Test
+  public void testGenerate() throws Exception {
+    final List<DynamicNode> nodes = discovery.generate("ltd.qubit.commons.test.model");
+    assertEquals(1, nodes.size());
+    final DynamicContainer container = (DynamicContainer) nodes.get(0);
+    assertEquals("ltd.qubit.commons.test.model", container.getDisplayName());
+    final List<Class<?>> models = discovery.discover("ltd.qubit.commons.test.model");
+    assertEquals(models.size(), container.getChildren().count());
+  }
+
+  private static byte[] readClassFile(final Class<?> type) throws Exception {
+    final String name = "/" + type.getName().replace('.', '/') + ".class";
+    try (final InputStream in = type.getResourceAsStream(name)) {
+      return in.readAllBytes();
+    }
+  }
+}
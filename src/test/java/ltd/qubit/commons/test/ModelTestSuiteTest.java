@@ -0,0 +1,64 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.util.List;
+
+import ltd.qubit.commons.test.ModelTestSuite.Report;
+import ltd.qubit.commons.test.ModelTestSuite.Result;
+import ltd.qubit.commons.test.ModelTestSuite.TesterKind;
+import ltd.qubit.commons.test.model.App;
+import ltd.qubit.commons.test.model.Category;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link ModelTestSuite}.
+ */
+public class ModelTestSuiteTest {
+
+  @Test
+  public void testRun() throws Exception {
+    final Report report = new ModelTestSuite(List.of(Info.class, App.class, Category.class))
+        .setKinds(List.of(TesterKind.JSON, TesterKind.CLONE))
+        .setLoops(3)
+        .setParallelism(4)
+        .run();
+    report.assertSuccessful();
+    assertTrue(report.isSuccessful());
+    assertTrue(report.getFailures().isEmpty());
+    final List<Result> results = report.getResults();
+    assertEquals(6, results.size());
+    // 结果按模型类的名称和测试器的种类排序，与执行顺序无关
+    assertSame(App.class, results.get(0).getType());
+    assertEquals(TesterKind.JSON, results.get(0).getKind());
+    assertSame(App.class, results.get(1).getType());
+    assertEquals(TesterKind.CLONE, results.get(1).getKind());
+    assertSame(Category.class, results.get(2).getType());
+    assertSame(Info.class, results.get(5).getType());
+    assertTrue(report.getSummary().startsWith("Ran 6 model tests in "));
+  }
+
+  @Test
+  public void testRunSingleThread() throws Exception {
+    final Report report = new ModelTestSuite(List.of(Info.class, Category.class))
+        .setKinds(List.of(TesterKind.JSON))
+        .setParallelism(1)
+        .setLoops(2)
+        .run();
+    report.assertSuccessful();
+    assertEquals(2, report.getResults().size());
+    assertSame(Category.class, report.getResults().get(0).getType());
+  }
+}
@@ -0,0 +1,45 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import ltd.qubit.commons.test.RandomSeeds.SeedInfo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link RandomSeeds}.
+ */
+public class RandomSeedsTest {
+
+  @Test
+  public void testDerive() {
+    final long master = 20230101L;
+    assertEquals(RandomSeeds.derive(master, "foo", 0),
+        RandomSeeds.derive(master, "foo", 0));
+    assertNotEquals(RandomSeeds.derive(master, "foo", 0),
+        RandomSeeds.derive(master, "foo", 1));
+    assertNotEquals(RandomSeeds.derive(master, "foo", 0),
+        RandomSeeds.derive(master, "bar", 0));
+    assertNotEquals(RandomSeeds.derive(master, "foo", 0),
+        RandomSeeds.derive(master + 1, "foo", 0));
+  }
+
+  @Test
+  public void testAttach() {
+    final AssertionError error = new AssertionError("failed");
+    RandomSeeds.attach(error, 12345L, "The test failed");
+    assertEquals(1, error.getSuppressed().length);
+    assertTrue(error.getSuppressed()[0] instanceof SeedInfo);
+    assertEquals(12345L, ((SeedInfo) error.getSuppressed()[0]).getSeed());
+  }
+}
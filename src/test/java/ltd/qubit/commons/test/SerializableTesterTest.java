@@ -0,0 +1,99 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.io.Serializable;
+
+import ltd.qubit.commons.test.model.ObjectWithTransientField;
+import ltd.qubit.commons.test.model.Phone;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link SerializableTester}.
+ */
+public class SerializableTesterTest {
+
+  /**
+   * A serializable class which does not override {@link Object#equals(Object)}.
+   */
+  public static class ObjectWithoutEquals implements Serializable {
+
+    private static final long serialVersionUID = -4409213781559076614L;
+
+    private String value;
+
+    public String getValue() {
+      return value;
+    }
+
+    public void setValue(final String value) {
+      this.value = value;
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final SerializableTester tester = new SerializableTester(5);
+    assertNull(tester.getMetrics(Phone.class));
+    tester.test(Phone.class);
+    final SerializationMetrics metrics = tester.getMetrics(Phone.class);
+    assertNotNull(metrics);
+    assertEquals(Phone.class.getName(), metrics.getType());
+    assertEquals(5, metrics.getSamples());
+    assertTrue(metrics.getMaxBytes() > 0);
+    assertTrue(metrics.getAverageBytes() <= metrics.getMaxBytes());
+    assertTrue(metrics.getTotalBytes() >= metrics.getMaxBytes());
+  }
+
+  @Test
+  public void testSizeBudget() throws Exception {
+    final SerializableTester tester = new SerializableTester(3)
+        .setMaxSerializedSize(Phone.class, 16);
+    assertEquals(16, tester.getMaxSerializedSize(Phone.class));
+    assertEquals(SerializableTester.UNLIMITED, tester.getMaxSerializedSize());
+    final AssertionError error = assertThrows(AssertionError.class,
+        () -> tester.test(Phone.class));
+    assertTrue(error.getMessage().contains("exceeds the budget of 16 bytes"));
+    assertNull(tester.getMetrics(Phone.class));
+
+    tester.setMaxSerializedSize(Phone.class, SerializableTester.UNLIMITED);
+    tester.test(Phone.class);
+    assertNotNull(tester.getMetrics(Phone.class));
+  }
+
+  @Test
+  public void testNegativeSizeBudget() {
+    final SerializableTester tester = new SerializableTester();
+    assertThrows(IllegalArgumentException.class,
+        () -> tester.setMaxSerializedSize(-1));
+  }
+
+  @Test
+  public void testTransientFields() throws Exception {
+    final SerializableTester tester = new SerializableTester(20);
+    tester.test(ObjectWithTransientField.class);
+    final SerializationMetrics metrics = tester.getMetrics(ObjectWithTransientField.class);
+    assertNotNull(metrics);
+    assertEquals(20, metrics.getSamples());
+  }
+
+  @Test
+  public void testWithoutEquals() throws Exception {
+    final SerializableTester tester = new SerializableTester(5);
+    tester.test(ObjectWithoutEquals.class);
+    assertNotNull(tester.getMetrics(ObjectWithoutEquals.class));
+  }
+}
@@ -0,0 +1,84 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.model.Country;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Unit test of {@link Tester}.
+ */
+public class TesterTest {
+
+  /**
+   * A tester recording the objects generated by its iterations.
+   */
+  private static class RecordingTester extends Tester {
+
+    private final List<Object> objects = new ArrayList<>();
+
+    RecordingTester(final int loops) {
+      super(loops);
+    }
+
+    @Override
+    protected <T> void doTest(final Class<T> type) throws Exception {
+      runIterations(type);
+    }
+
+    @Override
+    protected <T> void doTestIteration(final Class<T> type) throws Exception {
+      objects.add(random.nextObject(type));
+    }
+  }
+
+  @Test
+  public void testSeededGenerationsAreEqual() {
+    final RandomBeanGenerator first = new RandomBeanGenerator();
+    final RandomBeanGenerator second = new RandomBeanGenerator();
+    first.setSeed(20230101L);
+    second.setSeed(20230101L);
+    assertEquals(first.nextObject(Country.class), second.nextObject(Country.class));
+    assertEquals(first.nextObject(Info.class), second.nextObject(Info.class));
+  }
+
+  @Test
+  public void testReplayRegeneratesTheSameObject() throws Exception {
+    final RecordingTester tester = new RecordingTester(3);
+    tester.setMasterSeed(20230101L);
+    tester.test(Country.class);
+    assertEquals(3, tester.objects.size());
+    assertNotEquals(tester.objects.get(0), tester.objects.get(1));
+
+    final String key = RecordingTester.class.getName() + ":" + Country.class.getName();
+    for (int i = 0; i < 3; ++i) {
+      final long seed = RandomSeeds.derive(20230101L, key, i);
+      tester.replay(Country.class, seed);
+      assertEquals(tester.objects.get(i), tester.objects.get(tester.objects.size() - 1),
+          "The replayed iteration " + i + " must regenerate the same object.");
+    }
+  }
+
+  @Test
+  public void testReplayAnnotationTesters() throws Exception {
+    // 不使用随机对象的测试器也必须能被重放
+    new SizeAnnotationTester().replay(Country.class, 1L);
+    new ReferenceAnnotationTester().replay(Country.class, 1L);
+    new CloneableTester().replay(Country.class, 1L);
+  }
+}
@@ -8,7 +8,16 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.commons.test.dao;
 
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
 import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.Property;
 import ltd.qubit.commons.test.dao.testbed.CategoryDao;
 import ltd.qubit.commons.test.dao.testbed.CategoryDaoImpl;
 import ltd.qubit.commons.test.dao.testbed.CityDao;
@@ -40,12 +49,14 @@ import ltd.qubit.commons.test.model.Parent;
 import ltd.qubit.commons.test.model.Province;
 import ltd.qubit.commons.test.model.Street;
 import ltd.qubit.commons.test.model.SubFamily;
+import ltd.qubit.commons.test.model.Tour;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BeanCreatorTest {
@@ -168,4 +179,128 @@ public class BeanCreatorTest {
       }
     }
   }
+
+  @Test
+  public void testPrepareAllGrandpa() throws Throwable {
+    final List<Grandpa> grandpas = creator.prepareAll(Grandpa.class, LOOPS);
+    assertEquals(LOOPS, grandpas.size());
+    for (final Grandpa grandpa : grandpas) {
+      assertNotNull(grandpa);
+      assertNotNull(grandpa.getProvince());
+      final Province grandpaProvince = provinceDao.get(grandpa.getProvince().getId());
+      assertEquals(grandpaProvince.getCountry(), grandpa.getCountry());
+      final Parent parent = grandpa.getChild();
+      assertNotNull(parent);
+      assertEquals(grandpa.getId(), parent.getParentId());
+      assertEquals(grandpa.getCountry(), parent.getParentCountry());
+      assertEquals(grandpa.getProvince(), parent.getParentProvince());
+    }
+  }
+
+  @Test
+  public void testPrepareUsesSharedRandom() throws Throwable {
+    final BeanInfo info = BeanInfo.of(Country.class);
+    registry.getRandom().setSeed(20230101L);
+    final Country first = (Country) creator.prepare(info);
+    registry.getRandom().setSeed(20230101L);
+    final Country second = (Country) creator.prepare(info);
+    // 单线程地准备Bean时使用共享的随机生成器，因此其种子决定生成的Bean
+    assertEquals(first.getCode(), second.getCode());
+    assertEquals(first.getName(), second.getName());
+  }
+
+  @Test
+  public void testPrepareNonNullKeepsSharedRandom() throws Throwable {
+    final Property url = BeanInfo.of(Country.class).getProperty("url");
+    final Set<Field> shared = new HashSet<>(registry.getRandom().getParameters()
+        .getNonNullFields());
+    for (int i = 0; i < 100; ++i) {
+      final Country country = creator.prepare(Country.class, url);
+      assertNotNull(country.getUrl());
+    }
+    // 非空属性只设置在每次调用专属的生成器上
+    assertEquals(shared, registry.getRandom().getParameters().getNonNullFields());
+  }
+
+  @Test
+  public void testPrepareAllUsesLocalRandomFactory() throws Throwable {
+    final DaoTestGeneratorRegistry other = new DaoTestGeneratorRegistry()
+        .register(Country.class, new CountryDaoImpl());
+    final AtomicInteger created = new AtomicInteger();
+    other.setLocalRandomFactory(() -> {
+      created.incrementAndGet();
+      return new RandomBeanGenerator();
+    });
+    final List<Country> countries = new BeanCreator(other)
+        .prepareAll(new ForkJoinPool(2), Country.class, 20);
+    assertEquals(20, countries.size());
+    assertTrue(created.get() >= 1);
+    assertTrue(created.get() <= 3);
+  }
+
+  @Test
+  public void testPrepareDeepGraph() throws Throwable {
+    // Street -> District -> City -> Province -> Country，每层引用都不可为空
+    for (int i = 0; i < LOOPS; ++i) {
+      final Street street = (Street) creator.prepare(BeanInfo.of(Street.class));
+      final District district = districtDao.get(street.getDistrict().getId());
+      assertEquals(street.getDistrict(), district.getInfo());
+      final City city = cityDao.get(district.getCity().getId());
+      assertEquals(district.getCity(), city.getInfo());
+      final Province province = provinceDao.get(city.getProvince().getId());
+      assertEquals(city.getProvince(), province.getInfo());
+      final Country country = countryDao.get(province.getCountry().getId());
+      assertEquals(province.getCountry(), country.getInfo());
+    }
+  }
+
+  @Test
+  public void testMaxReferenceDepth() {
+    final DaoTestParameters parameters = registry.getParameters();
+    parameters.setMaxReferenceDepth(2);
+    try {
+      // District 的 city 属性不可为空，因此超出深度限制时准备失败
+      assertThrows(ReferenceDepthExceededException.class,
+          () -> creator.prepare(BeanInfo.of(Street.class)));
+    } finally {
+      parameters.setMaxReferenceDepth(DaoTestParameters.DEFAULT_MAX_REFERENCE_DEPTH);
+    }
+    assertThrows(IllegalArgumentException.class, () -> parameters.setMaxReferenceDepth(0));
+  }
+
+  @Test
+  public void testMaxReferenceBreadth() throws Throwable {
+    final DaoTestParameters parameters = registry.getParameters();
+    parameters.setMaxReferenceBreadth(1);
+    try {
+      for (int i = 0; i < LOOPS; ++i) {
+        final Grandpa grandpa = (Grandpa) creator.prepare(BeanInfo.of(Grandpa.class));
+        assertTrue(grandpa.getChild().getChildren().size() <= 1);
+        // 宽度限制不能使集合的元素数目少于其 @Size 标注的下限
+        final Tour tour = (Tour) creator.prepare(BeanInfo.of(Tour.class));
+        assertEquals(2, tour.getCities().size());
+        for (final Info city : tour.getCities()) {
+          assertTrue(cityDao.exist(city.getId()));
+        }
+      }
+    } finally {
+      parameters.setMaxReferenceBreadth(DaoTestParameters.DEFAULT_MAX_REFERENCE_BREADTH);
+    }
+    assertThrows(IllegalArgumentException.class, () -> parameters.setMaxReferenceBreadth(-1));
+  }
+
+  @Test
+  public void testStreamChunks() {
+    final int[] sizes = creator.streamChunks(Grandpa.class, 25, 10)
+                               .mapToInt(List::size)
+                               .toArray();
+    assertEquals(3, sizes.length);
+    assertEquals(10, sizes[0]);
+    assertEquals(10, sizes[1]);
+    assertEquals(5, sizes[2]);
+    creator.stream(Grandpa.class).limit(10).forEach((grandpa) -> {
+      assertNotNull(grandpa.getChild());
+      assertEquals(grandpa.getId(), grandpa.getChild().getParentId());
+    });
+  }
 }
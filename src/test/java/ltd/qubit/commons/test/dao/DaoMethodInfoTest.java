@@ -53,6 +53,8 @@ public class DaoMethodInfoTest {
     assertSame(countryDao, methodInfo.getDao());
     assertSame(method, methodInfo.getMethod());
     assertEquals("CountryDao.count", methodInfo.getQualifiedName());
+    assertEquals("ltd.qubit.commons.test.dao.testbed.CountryDao.count("
+        + "ltd.qubit.commons.sql.Criterion)", methodInfo.getSignature());
     assertEquals(URI.create("method:ltd.qubit.commons.test.dao.testbed."
         + "ListableDao#count(ltd.qubit.commons.sql.Criterion)"),
         methodInfo.getUri());
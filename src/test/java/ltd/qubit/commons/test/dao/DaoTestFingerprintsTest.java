@@ -0,0 +1,137 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+
+import ltd.qubit.commons.test.dao.testbed.CountryDao;
+import ltd.qubit.commons.test.model.Country;
+import ltd.qubit.commons.test.model.Province;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link DaoTestFingerprints}.
+ */
+public class DaoTestFingerprintsTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testCompute() {
+    final DaoTestFingerprints fingerprints = new DaoTestFingerprints(dir.resolve("f"));
+    final String country = fingerprints.compute(Country.class, (type) -> null);
+    assertEquals(country, fingerprints.compute(Country.class, (type) -> null));
+    assertNotEquals(country, fingerprints.compute(Province.class, (type) -> null));
+  }
+
+  @Test
+  public void testSkipUnchangedAfterPassedRun() {
+    final Path file = dir.resolve("fingerprints.properties");
+    final DaoTestFingerprints first = new DaoTestFingerprints(file);
+    assertTrue(first.isEnabled());
+    final String fingerprint = first.compute(Country.class, (type) -> null);
+    assertFalse(first.isUnchanged(Country.class, fingerprint));
+    first.begin(Country.class, fingerprint, 2);
+    first.finish(Country.class, false);
+    first.finish(Country.class, false);
+    // 只有之前的运行中的指纹才会被比较
+    assertFalse(first.isUnchanged(Country.class, fingerprint));
+
+    final DaoTestFingerprints second = new DaoTestFingerprints(file);
+    assertTrue(second.isUnchanged(Country.class, fingerprint));
+    assertFalse(second.isUnchanged(Country.class, "changed"));
+    second.setForce(true);
+    assertFalse(second.isUnchanged(Country.class, fingerprint));
+    second.setForce(false);
+    second.begin(Country.class, fingerprint, 1);
+    second.finish(Country.class, true);
+
+    final DaoTestFingerprints third = new DaoTestFingerprints(file);
+    assertFalse(third.isUnchanged(Country.class, fingerprint));
+  }
+
+  @Test
+  public void testInMemoryFingerprintsNeverSkip() {
+    final DaoTestFingerprints fingerprints = new DaoTestFingerprints();
+    assertNull(fingerprints.getFile());
+    assertFalse(fingerprints.isEnabled());
+    final String fingerprint = fingerprints.compute(Country.class, (type) -> null);
+    fingerprints.begin(Country.class, fingerprint, 1);
+    fingerprints.finish(Country.class, false);
+    assertFalse(fingerprints.isUnchanged(Country.class, fingerprint));
+  }
+
+  @Test
+  public void testComputeWithSettings() {
+    final DaoTestFingerprints fingerprints = new DaoTestFingerprints();
+    final String first = fingerprints.compute(Country.class, (type) -> null, "seed=1");
+    assertEquals(first, fingerprints.compute(Country.class, (type) -> null, "seed=1"));
+    assertNotEquals(first, fingerprints.compute(Country.class, (type) -> null, "seed=2"));
+  }
+
+  /**
+   * An invocation handler of proxy DAOs.
+   */
+  private static class FirstHandler implements InvocationHandler {
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      return null;
+    }
+  }
+
+  /**
+   * Another invocation handler of proxy DAOs.
+   */
+  private static class SecondHandler extends FirstHandler {}
+
+  private static DaoInfo proxyDaoInfo(final InvocationHandler handler) {
+    final Object dao = Proxy.newProxyInstance(CountryDao.class.getClassLoader(),
+        new Class<?>[]{ CountryDao.class }, handler);
+    return new DaoInfo(Country.class, dao);
+  }
+
+  @Test
+  public void testComputeProxyDao() {
+    final DaoTestFingerprints fingerprints = new DaoTestFingerprints();
+    final DaoInfo first = proxyDaoInfo(new FirstHandler());
+    final DaoInfo second = proxyDaoInfo(new SecondHandler());
+    final String fingerprint = fingerprints.compute(Country.class,
+        (type) -> (type == Country.class ? first : null));
+    assertEquals(fingerprint, fingerprints.compute(Country.class,
+        (type) -> (type == Country.class ? proxyDaoInfo(new FirstHandler()) : null)));
+    assertNotEquals(fingerprint, fingerprints.compute(Country.class,
+        (type) -> (type == Country.class ? second : null)));
+  }
+
+  @Test
+  public void testDiscard() {
+    final Path file = dir.resolve("fingerprints.properties");
+    final DaoTestFingerprints first = new DaoTestFingerprints(file);
+    final String fingerprint = first.compute(Country.class, (type) -> null);
+    first.begin(Country.class, fingerprint, 1);
+    first.finish(Country.class, false);
+    assertTrue(new DaoTestFingerprints(file).isUnchanged(Country.class, fingerprint));
+
+    final DaoTestFingerprints second = new DaoTestFingerprints(file);
+    second.discard(Country.class);
+    assertFalse(new DaoTestFingerprints(file).isUnchanged(Country.class, fingerprint));
+  }
+}
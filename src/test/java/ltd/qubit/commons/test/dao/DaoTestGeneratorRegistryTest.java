@@ -29,6 +29,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DaoTestGeneratorRegistryTest {
 
@@ -301,4 +302,28 @@ public class DaoTestGeneratorRegistryTest {
     assertSame(registry.getRandom(), generator.getRandom());
     return generator.generate();
   }
+
+  @TestFactory
+  public List<DynamicNode> testGetConcurrently_CountryDao_get() throws Exception {
+    final DaoTestGeneratorRegistry concurrent = new DaoTestGeneratorRegistry()
+        .register(Country.class, new CountryDaoImpl());
+    concurrent.getParameters().setConcurrentReaders(4);
+    final List<DynamicNode> tests = concurrent.getGenerator(Country.class, "get").generate();
+    assertTrue(tests.stream().anyMatch((test) ->
+        test.getDisplayName().contains("Concurrent get by existing")));
+    return tests;
+  }
+
+  @TestFactory
+  public List<DynamicNode> testGetConcurrently_ProvinceDao_getByName() throws Exception {
+    final DaoTestGeneratorRegistry concurrent = new DaoTestGeneratorRegistry()
+        .register(Country.class, new CountryDaoImpl())
+        .register(Province.class, new ProvinceDaoImpl());
+    concurrent.getParameters().setConcurrentReaders(4);
+    final List<DynamicNode> tests = concurrent.getGenerator(Province.class, "getByName")
+        .generate();
+    assertTrue(tests.stream().anyMatch((test) ->
+        test.getDisplayName().contains("Concurrent get by existing")));
+    return tests;
+  }
 }
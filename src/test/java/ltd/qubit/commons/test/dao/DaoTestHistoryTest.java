@@ -0,0 +1,106 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link DaoTestHistory}.
+ */
+public class DaoTestHistoryTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testRecordAndReload() {
+    final Path file = dir.resolve("history.properties");
+    final DaoTestHistory history = new DaoTestHistory(file, 100);
+    history.record("FooDao.add", "Test a", true, 10);
+    history.record("FooDao.add", "Test b", false, 500);
+    history.record("FooDao.add", "Test c", false, 10);
+    history.record("FooDao.get", "Test d", false, 10);
+    // 记录只在调用save()时写入文件
+    assertEquals(0L, new DaoTestHistory(file, 100).getPriority("FooDao.add", "Test a"));
+    history.save();
+
+    final DaoTestHistory reloaded = new DaoTestHistory(file, 100);
+    assertEquals(Long.MAX_VALUE, reloaded.getPriority("FooDao.add", "Test a"));
+    assertEquals(500L, reloaded.getPriority("FooDao.add", "Test b"));
+    assertEquals(0L, reloaded.getPriority("FooDao.add", "Test c"));
+    assertEquals(Long.MAX_VALUE, reloaded.getPriority("FooDao.add"));
+    assertEquals(0L, reloaded.getPriority("FooDao.get"));
+
+    final List<String> names = new ArrayList<>(Arrays.asList(
+        "Test c", "Test b", "Test d", "Test a"));
+    reloaded.sort(names, (name) -> reloaded.getPriority("FooDao.add", name));
+    assertEquals(Arrays.asList("Test a", "Test b", "Test c", "Test d"), names);
+
+    // 再次通过且不慢的测试用例的记录被删除
+    reloaded.record("FooDao.add", "Test a", false, 10);
+    reloaded.save();
+    assertEquals(0L, new DaoTestHistory(file, 100).getPriority("FooDao.add", "Test a"));
+  }
+
+  @Test
+  public void testInMemoryHistory() {
+    final DaoTestHistory history = new DaoTestHistory(100);
+    assertNull(history.getFile());
+    history.record("FooDao.add", "Test a", true, 10);
+    assertEquals(Long.MAX_VALUE, history.getPriority("FooDao.add", "Test a"));
+  }
+
+  @Test
+  public void testRoundRotates() {
+    final Path file = dir.resolve("history.properties");
+    assertEquals(0L, new DaoTestHistory(100).getRound());
+    final DaoTestHistory first = new DaoTestHistory(file, 100);
+    assertEquals(0L, first.getRound());
+    first.save();
+    final DaoTestHistory second = new DaoTestHistory(file, 100);
+    assertEquals(1L, second.getRound());
+    // 轮次只在保存记录时写入文件
+    assertEquals(1L, new DaoTestHistory(file, 100).getRound());
+    second.save();
+    assertEquals(2L, new DaoTestHistory(file, 100).getRound());
+    assertTrue(DaoTestHistory.loadCosts(file).isEmpty());
+  }
+
+  @Test
+  public void testLoadIsInMemoryByDefault() {
+    if (!Boolean.getBoolean(DaoTestHistory.HISTORY_ENABLED_PROPERTY)) {
+      assertNull(DaoTestHistory.load().getFile());
+    }
+  }
+
+  @Test
+  public void testLoadCosts() {
+    final Path file = dir.resolve("history.properties");
+    final DaoTestHistory history = new DaoTestHistory(file, 100);
+    history.record("FooDao.add", "Test a", false, 10);
+    history.record("FooDao.add", "Test b", false, 20);
+    history.save();
+    final Map<String, Long> costs = DaoTestHistory.loadCosts(file);
+    assertEquals(Map.of("FooDao.add", 30L), costs);
+    assertThrows(UnsupportedOperationException.class, () -> costs.put("FooDao.get", 1L));
+    assertTrue(DaoTestHistory.loadCosts(dir.resolve("absent.properties")).isEmpty());
+  }
+}
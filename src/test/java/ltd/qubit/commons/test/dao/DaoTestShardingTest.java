@@ -0,0 +1,97 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link DaoTestSharding}.
+ */
+public class DaoTestShardingTest {
+
+  private static final int COUNT = 3;
+
+  private List<String> getMethods() {
+    final List<String> methods = new ArrayList<>();
+    for (int i = 0; i < 40; ++i) {
+      methods.add("Dao" + (i % 5) + ".method" + i);
+    }
+    return methods;
+  }
+
+  @Test
+  public void testPartition() {
+    final List<String> methods = getMethods();
+    final Map<String, Long> costs = new HashMap<>();
+    for (int i = 0; i < methods.size(); i += 2) {
+      costs.put(methods.get(i), (long) (i * 10 + 1));
+    }
+    final Set<String> all = new HashSet<>();
+    int total = 0;
+    for (int index = 0; index < COUNT; ++index) {
+      final Set<String> selected = new DaoTestSharding(index, COUNT)
+          .select(methods, (m) -> costs.getOrDefault(m, 0L));
+      assertFalse(selected.isEmpty());
+      total += selected.size();
+      all.addAll(selected);
+    }
+    assertEquals(methods.size(), total);
+    assertEquals(new HashSet<>(methods), all);
+  }
+
+  @Test
+  public void testBalanceByCost() {
+    final List<String> methods = getMethods();
+    final long[] loads = new long[COUNT];
+    for (int index = 0; index < COUNT; ++index) {
+      for (final String m : new DaoTestSharding(index, COUNT).select(methods, String::length)) {
+        loads[index] += m.length();
+      }
+    }
+    for (int i = 1; i < COUNT; ++i) {
+      assertTrue(Math.abs(loads[i] - loads[0]) <= 20);
+    }
+  }
+
+  @Test
+  public void testPartitionFromSnapshot() {
+    final List<String> methods = getMethods();
+    final Map<String, Long> costs = new HashMap<>();
+    for (int i = 0; i < methods.size(); i += 3) {
+      costs.put(methods.get(i), (long) (i * 7 + 1));
+    }
+    final DaoTestSharding sharding = new DaoTestSharding(1, COUNT, costs);
+    final Set<String> selected = sharding.select(methods);
+    assertEquals(new DaoTestSharding(1, COUNT)
+        .select(methods, (m) -> costs.getOrDefault(m, 0L)), selected);
+    // 快照在创建时被复制，之后记录的耗时不影响划分
+    costs.replaceAll((m, cost) -> cost * 1000 + 1);
+    costs.put(methods.get(1), 1000000L);
+    assertEquals(selected, sharding.select(methods));
+  }
+
+  @Test
+  public void testInvalidShard() {
+    assertThrows(IllegalArgumentException.class, () -> new DaoTestSharding(0, 0));
+    assertThrows(IllegalArgumentException.class, () -> new DaoTestSharding(3, 3));
+    assertFalse(new DaoTestSharding(0, 1).isEnabled());
+  }
+}
@@ -9,7 +9,10 @@
 package ltd.qubit.commons.test.dao;
 
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 
 import ltd.qubit.commons.lang.ArrayUtils;
 import ltd.qubit.commons.random.RandomBeanGenerator;
@@ -21,6 +24,8 @@ import ltd.qubit.commons.test.model.Code;
 import ltd.qubit.commons.test.model.CodeMap;
 import ltd.qubit.commons.test.model.Country;
 import ltd.qubit.commons.test.model.District;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.test.model.Location;
 import ltd.qubit.commons.test.model.Province;
 import ltd.qubit.commons.test.model.Street;
 
@@ -31,10 +36,13 @@ import org.slf4j.LoggerFactory;
 import static ltd.qubit.commons.test.dao.DaoTestUtils.getDaoInterface;
 import static ltd.qubit.commons.test.dao.DaoTestUtils.getDaoInterfaceName;
 import static ltd.qubit.commons.test.dao.DaoTestUtils.getDaoMethods;
+import static ltd.qubit.commons.test.dao.DaoTestUtils.normalize;
 import static ltd.qubit.commons.test.dao.DaoTestUtils.toStringRepresentation;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class DaoTestUtilsTest {
 
@@ -107,4 +115,23 @@ public class DaoTestUtilsTest {
     final String expected = owner.getType() + '-' + owner.getId();
     assertEquals(expected, toStringRepresentation(Owner.class, owner));
   }
+
+  @Test
+  public void testNormalize() {
+    assertNull(normalize(null));
+    assertNull(normalize("  "));
+    assertEquals("abc", normalize(" abc\t"));
+    assertNull(normalize(new ArrayList<>()));
+    assertNull(normalize(new HashMap<>()));
+    assertNull(normalize(new int[0]));
+    assertNull(normalize(new Info()));
+    final Info info = new Info(1L, "code", "name");
+    assertSame(info, normalize(info));
+    final Location location = new Location(new BigDecimal("1.123456789"),
+        new BigDecimal("2.5"));
+    final Location expected = new Location(location);
+    expected.normalize();
+    assertEquals(expected, normalize(location));
+    assertNull(normalize(new Location()));
+  }
 }
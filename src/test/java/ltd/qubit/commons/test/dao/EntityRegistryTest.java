@@ -0,0 +1,100 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.Property;
+import ltd.qubit.commons.test.model.City;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.test.model.Province;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link EntityRegistry}.
+ */
+public class EntityRegistryTest {
+
+  private final Property provinceCountry = BeanInfo.of(Province.class).getProperty("country");
+  private final Property provinceName = BeanInfo.of(Province.class).getProperty("name");
+  private final Property cityName = BeanInfo.of(City.class).getProperty("name");
+  private final Property cityProvince = BeanInfo.of(City.class).getProperty("province");
+
+  @Test
+  public void testPutAndGet() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province province = new Province();
+    final Info country = new Info();
+    assertFalse(registry.containsKey(province, provinceCountry));
+    assertNull(registry.get(province, provinceCountry));
+
+    registry.put(province, provinceCountry, country);
+    assertTrue(registry.containsKey(province, provinceCountry));
+    assertSame(country, registry.get(province, provinceCountry));
+    // 同一 model 的其他槽仍为空
+    assertFalse(registry.containsKey(province, provinceName));
+  }
+
+  @Test
+  public void testModelIdentity() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province first = new Province();
+    final Province second = new Province();
+    // 两个 model 内容相同，但按对象标识区分
+    registry.put(first, provinceCountry, new Info());
+    assertTrue(registry.containsKey(first, provinceCountry));
+    assertFalse(registry.containsKey(second, provinceCountry));
+  }
+
+  @Test
+  public void testNullEntity() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province province = new Province();
+    registry.put(province, provinceCountry, null);
+    assertTrue(registry.containsKey(province, provinceCountry));
+    assertNull(registry.get(province, provinceCountry));
+  }
+
+  @Test
+  public void testNameFallback() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province province = new Province();
+    final Info value = new Info();
+    // cityName 不属于 Province 的 BeanInfo，按名称查找 Province 的 name 属性
+    registry.put(province, cityName, value);
+    assertSame(value, registry.get(province, provinceName));
+    assertTrue(registry.containsKey(province, provinceName));
+    assertSame(value, registry.get(province, cityName));
+  }
+
+  @Test
+  public void testUnknownProperty() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province province = new Province();
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.put(province, cityProvince, new Info()));
+    assertFalse(registry.containsKey(province, cityProvince));
+    assertNull(registry.get(province, cityProvince));
+  }
+
+  @Test
+  public void testClear() {
+    final EntityRegistry registry = new EntityRegistry();
+    final Province province = new Province();
+    registry.put(province, provinceCountry, new Info());
+    registry.clear();
+    assertFalse(registry.containsKey(province, provinceCountry));
+  }
+}
@@ -0,0 +1,130 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import ltd.qubit.commons.annotation.KeyIndex;
+import ltd.qubit.commons.test.dao.testbed.Owner;
+import ltd.qubit.commons.test.model.CredentialType;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit test of {@link KeyEncoder}.
+ */
+public class KeyEncoderTest {
+
+  /**
+   * A bean without ID property whose key contains a nested bean.
+   */
+  public static class RoleAssignment {
+
+    @KeyIndex(0)
+    private Owner owner;
+
+    @KeyIndex(1)
+    private CredentialType credentialType;
+
+    @KeyIndex(2)
+    private String role;
+
+    public Owner getOwner() {
+      return owner;
+    }
+
+    public void setOwner(final Owner owner) {
+      this.owner = owner;
+    }
+
+    public CredentialType getCredentialType() {
+      return credentialType;
+    }
+
+    public void setCredentialType(final CredentialType credentialType) {
+      this.credentialType = credentialType;
+    }
+
+    public String getRole() {
+      return role;
+    }
+
+    public void setRole(final String role) {
+      this.role = role;
+    }
+  }
+
+  private static Owner createOwner(final String type, final Long id) {
+    final Owner owner = new Owner();
+    owner.setType(type);
+    owner.setId(id);
+    return owner;
+  }
+
+  @Test
+  public void testCache() {
+    assertSame(KeyEncoder.of(Owner.class), KeyEncoder.of(Owner.class));
+  }
+
+  @Test
+  public void testEncodeJdkAndEnumValues() {
+    assertEquals("", KeyEncoder.of(String.class).encode(null));
+    assertEquals("abc", KeyEncoder.of(String.class).encode("abc"));
+    assertEquals("42", KeyEncoder.of(Long.class).encode(42L));
+    assertEquals("PASSPORT",
+        KeyEncoder.of(CredentialType.class).encode(CredentialType.PASSPORT));
+  }
+
+  @Test
+  public void testEncodeById() {
+    assertEquals("7", KeyEncoder.of(Info.class).encode(new Info(7L, "CN", "China")));
+    assertEquals("", KeyEncoder.of(Info.class).encode(new Info(null, "CN", "China")));
+  }
+
+  @Test
+  public void testEncodeByKeyIndexes() {
+    assertEquals("user-12", KeyEncoder.of(Owner.class).encode(createOwner("user", 12L)));
+    // null 属性不输出任何内容，但其后的属性仍以分隔符隔开
+    assertEquals("user-", KeyEncoder.of(Owner.class).encode(createOwner("user", null)));
+    assertEquals("12", KeyEncoder.of(Owner.class).encode(createOwner(null, 12L)));
+  }
+
+  @Test
+  public void testEncodeNestedValues() {
+    final RoleAssignment assignment = new RoleAssignment();
+    assignment.setOwner(createOwner("user", 12L));
+    assignment.setCredentialType(CredentialType.PASSPORT);
+    assignment.setRole("admin");
+    final KeyEncoder encoder = KeyEncoder.of(RoleAssignment.class);
+    assertEquals("user-12-PASSPORT-admin", encoder.encode(assignment));
+    assignment.setCredentialType(null);
+    assertEquals("user-12--admin", encoder.encode(assignment));
+  }
+
+  @Test
+  public void testSeparatorsAreNotEscaped() {
+    // 与以前的 toStringRepresentation() 一致，值中的分隔符和特殊字符原样输出，不做转义
+    assertEquals("a-b-12", KeyEncoder.of(Owner.class).encode(createOwner("a-b", 12L)));
+    assertEquals("a\\b \"c\"-1",
+        KeyEncoder.of(Owner.class).encode(createOwner("a\\b \"c\"", 1L)));
+    assertEquals(DaoTestUtils.toStringRepresentation(Owner.class, createOwner("x-y", 3L)),
+        KeyEncoder.of(Owner.class).encode(createOwner("x-y", 3L)));
+  }
+
+  @Test
+  public void testEncodeAppendsToBuilder() {
+    final StringBuilder builder = new StringBuilder("prefix:");
+    KeyEncoder.of(Owner.class).encode(createOwner("user", 12L), builder);
+    assertEquals("prefix:user-12", builder.toString());
+    KeyEncoder.of(Owner.class).encode(null, builder);
+    assertEquals("prefix:user-12", builder.toString());
+  }
+}
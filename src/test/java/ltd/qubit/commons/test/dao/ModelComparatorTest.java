@@ -0,0 +1,193 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import ltd.qubit.commons.test.dao.ModelComparator.Difference;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.test.model.Province;
+import ltd.qubit.commons.test.model.Tour;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit test of {@link ModelComparator}.
+ */
+public class ModelComparatorTest {
+
+  private Province createProvince() {
+    final Province province = new Province();
+    province.setId(1L);
+    province.setCode("ZJ");
+    province.setName("Zhejiang");
+    province.setCountry(new Info(2L, "CN", "China"));
+    return province;
+  }
+
+  @Test
+  public void testCompareEquals() {
+    final Province expected = createProvince();
+    final Province actual = new Province(expected);
+    assertNull(ModelComparator.of(Province.class).compare(expected, actual));
+    assertNull(ModelComparator.of(Province.class).compare(null, null));
+  }
+
+  @Test
+  public void testCompareReportsFirstDifferentPath() {
+    final Province expected = createProvince();
+    final Province actual = new Province(expected);
+    actual.setName("Jiangsu");
+    final Difference diff = ModelComparator.of(Province.class).compare(expected, actual);
+    assertNotNull(diff);
+    assertEquals("name", diff.getPath());
+    assertEquals("Zhejiang", diff.getExpected());
+    assertEquals("Jiangsu", diff.getActual());
+  }
+
+  @Test
+  public void testCompareReferenceById() {
+    final Province expected = createProvince();
+    final Province actual = new Province(expected);
+    // 引用属性只比较被引用实体的ID
+    actual.setCountry(new Info(2L, "CN", "People's Republic of China"));
+    assertNull(ModelComparator.of(Province.class).compare(expected, actual));
+    actual.setCountry(new Info(3L, "CN", "China"));
+    final Difference diff = ModelComparator.of(Province.class).compare(expected, actual);
+    assertNotNull(diff);
+    assertEquals("country.id", diff.getPath());
+  }
+
+  @Test
+  public void testRootPathIsTypeName() {
+    final Province expected = createProvince();
+    final Difference diff = ModelComparator.of(Province.class).compare(expected, null);
+    assertNotNull(diff);
+    assertEquals("Province", diff.getPath());
+    final Difference refDiff = ModelComparator.compareValue(Info.class, true,
+        new Info(1L, "A", "a"), new Info(2L, "A", "a"), Info.class.getSimpleName());
+    assertNotNull(refDiff);
+    assertEquals("Info.id", refDiff.getPath());
+    assertEquals("The first difference is at 'Info.id': expected <1> but was <2>",
+        refDiff.getMessage());
+  }
+
+  @Test
+  public void testCompareValueInList() {
+    final List<String> expected = Arrays.asList("a", "b", "c");
+    final List<String> actual = Arrays.asList("a", "x", "c");
+    final Difference diff = ModelComparator.compareValue(List.class, false,
+        expected, actual, "items");
+    assertNotNull(diff);
+    assertEquals("items[1]", diff.getPath());
+  }
+
+  @Test
+  public void testCompareSetIgnoresOrder() {
+    final int n = 50000;
+    final Set<Integer> expected = new LinkedHashSet<>();
+    final Set<Integer> actual = new LinkedHashSet<>();
+    for (int i = 0; i < n; ++i) {
+      expected.add(i);
+      actual.add(n - 1 - i);
+    }
+    assertNull(ModelComparator.compareValue(Set.class, false, expected, actual, "ids"));
+    actual.remove(0);
+    actual.add(n);
+    final Difference diff = ModelComparator.compareValue(Set.class, false,
+        expected, actual, "ids");
+    assertNotNull(diff);
+    assertEquals(n, diff.getActual());
+  }
+
+  @Test
+  public void testCompareReferenceSetById() {
+    final Set<Info> expected = new HashSet<>();
+    expected.add(new Info(1L, "A", "a"));
+    expected.add(new Info(2L, "B", "b"));
+    final Set<Info> actual = new LinkedHashSet<>();
+    actual.add(new Info(2L, "B", "changed"));
+    actual.add(new Info(1L, "A", "a"));
+    assertNull(ModelComparator.compareValue(Set.class, true, expected, actual, "infos"));
+    assertNotNull(ModelComparator.compareValue(Set.class, false, expected, actual,
+        "infos"));
+  }
+
+  @Test
+  public void testCompareSetNormalizesElements() {
+    final Set<String> expected = new HashSet<>(Arrays.asList(" a", "b"));
+    final Set<String> actual = new LinkedHashSet<>(Arrays.asList("b", "a "));
+    // 元素按规范化后的值匹配，头尾空白被忽略
+    assertNull(ModelComparator.compareValue(Set.class, false, expected, actual, "names"));
+    actual.remove("b");
+    actual.add("c");
+    assertNotNull(ModelComparator.compareValue(Set.class, false, expected, actual, "names"));
+  }
+
+  @Test
+  public void testCompareBeanSetComparesNestedReferencesById() {
+    final Province first = createProvince();
+    final Province second = createProvince();
+    second.setId(3L);
+    second.setCode("JS");
+    final Set<Province> expected = new LinkedHashSet<>(List.of(first, second));
+    final Province firstCopy = new Province(first);
+    final Province secondCopy = new Province(second);
+    // 与有序比较一致，Bean的引用属性只比较被引用实体的ID
+    secondCopy.setCountry(new Info(2L, "CN", "People's Republic of China"));
+    final Set<Province> actual = new LinkedHashSet<>(List.of(secondCopy, firstCopy));
+    assertNull(ModelComparator.compareValue(Set.class, false, expected, actual,
+        "provinces"));
+    secondCopy.setCountry(new Info(4L, "CN", "China"));
+    final Set<Province> changed = new LinkedHashSet<>(List.of(secondCopy, firstCopy));
+    final Difference diff = ModelComparator.compareValue(Set.class, false, expected,
+        changed, "provinces");
+    assertNotNull(diff);
+    assertEquals(secondCopy, diff.getActual());
+  }
+
+  private Tour createTour(final long id, final String... cityNames) {
+    final Tour tour = new Tour();
+    tour.setId(id);
+    tour.setName("Tour " + id);
+    final List<Info> cities = new ArrayList<>();
+    for (int i = 0; i < cityNames.length; ++i) {
+      cities.add(new Info(10L + i, "C" + i, cityNames[i]));
+    }
+    tour.setCities(cities);
+    return tour;
+  }
+
+  @Test
+  public void testCompareBeanSetComparesReferenceListsById() {
+    final Set<Tour> expected = new LinkedHashSet<>(List.of(
+        createTour(1L, "Hangzhou", "Ningbo"), createTour(2L, "Nanjing", "Suzhou")));
+    // 集合属性的元素也只比较被引用实体的ID，与有序比较一致
+    final Set<Tour> actual = new LinkedHashSet<>(List.of(
+        createTour(2L, "Nanking", "Soochow"), createTour(1L, "Hangzhou", "Ningbo")));
+    assertNull(ModelComparator.compareValue(Set.class, false, expected, actual, "tours"));
+    final Tour changed = createTour(1L, "Hangzhou", "Ningbo");
+    changed.getCities().get(1).setId(99L);
+    final Set<Tour> changedSet = new LinkedHashSet<>(List.of(
+        createTour(2L, "Nanjing", "Suzhou"), changed));
+    final Difference diff = ModelComparator.compareValue(Set.class, false, expected,
+        changedSet, "tours");
+    assertNotNull(diff);
+    assertEquals(changed, diff.getActual());
+  }
+}
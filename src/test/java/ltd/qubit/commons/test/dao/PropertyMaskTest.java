@@ -0,0 +1,104 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.Arrays;
+
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.test.dao.ModelComparator.Difference;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.test.model.Province;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link PropertyMask}.
+ */
+public class PropertyMaskTest {
+
+  private final BeanInfo info = BeanInfo.of(Province.class);
+
+  @Test
+  public void testContains() {
+    final PropertyMask mask = PropertyMask.of(Province.class, Arrays.asList(
+        info.getProperty("name"), info.getProperty("code")));
+    assertEquals(2, mask.size());
+    assertTrue(mask.contains(info.getProperty("code")));
+    assertTrue(mask.contains("name"));
+    assertFalse(mask.contains("id"));
+    assertFalse(mask.contains("notExist"));
+    // 按属性声明的顺序遍历
+    final int code = info.getProperties().indexOf(info.getProperty("code"));
+    final int name = info.getProperties().indexOf(info.getProperty("name"));
+    if (code < name) {
+      assertArrayEquals(new Object[]{ info.getProperty("code"), info.getProperty("name") },
+          mask.getProperties());
+    } else {
+      assertArrayEquals(new Object[]{ info.getProperty("name"), info.getProperty("code") },
+          mask.getProperties());
+    }
+  }
+
+  @Test
+  public void testCopyAndCompare() {
+    final PropertyMask mask = PropertyMask.of(Province.class, Arrays.asList(
+        info.getProperty("name"), info.getProperty("country")));
+    final Province source = new Province();
+    source.setId(1L);
+    source.setCode("ZJ");
+    source.setName("Zhejiang");
+    source.setCountry(new Info(2L, "CN", "China"));
+    final Province target = new Province();
+    mask.copy(source, target);
+    assertNull(target.getId());
+    assertNull(target.getCode());
+    assertEquals("Zhejiang", target.getName());
+    assertNull(mask.compare(source, target));
+    target.setName("Jiangsu");
+    final Difference diff = mask.compare(source, target);
+    assertNotNull(diff);
+    assertEquals("name", diff.getPath());
+  }
+
+  @Test
+  public void testAnd() {
+    final PropertyMask x = PropertyMask.of(Province.class, Arrays.asList(
+        info.getProperty("name"), info.getProperty("code")));
+    final PropertyMask y = PropertyMask.of(Province.class, Arrays.asList(
+        info.getProperty("code"), info.getProperty("country")));
+    final PropertyMask z = x.and(y);
+    assertEquals(1, z.size());
+    assertTrue(z.contains("code"));
+    assertEquals(PropertyMask.of(Province.class, Arrays.asList(info.getProperty("code"))), z);
+  }
+
+  @Test
+  public void testCopyRepeatedly() {
+    final PropertyMask mask = PropertyIndex.of(Province.class).getWritableMask();
+    for (int i = 0; i < 3; ++i) {
+      final Province source = new Province();
+      source.setCode("C" + i);
+      source.setName("N" + i);
+      source.setCountry(new Info((long) i, "CN", "China"));
+      final Province target = new Province();
+      mask.copy(source, target);
+      assertEquals(source.getCode(), target.getCode());
+      assertEquals(source.getName(), target.getName());
+      assertEquals(source.getCountry(), target.getCountry());
+      assertNull(mask.compare(source, target));
+    }
+  }
+}
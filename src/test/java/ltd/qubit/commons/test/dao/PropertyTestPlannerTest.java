@@ -0,0 +1,92 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.dao;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ltd.qubit.commons.reflect.BeanInfo;
+import ltd.qubit.commons.reflect.Property;
+import ltd.qubit.commons.test.RandomSeeds;
+import ltd.qubit.commons.test.model.Province;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link PropertyTestPlanner}.
+ */
+public class PropertyTestPlannerTest {
+
+  private final List<Property> candidates = BeanInfo.of(Province.class).getProperties();
+
+  @Test
+  public void testPlanWithoutBudget() {
+    final List<List<Property>> plan = PropertyTestPlanner.plan(candidates,
+        Integer.MAX_VALUE, 1, 0L, "key");
+    assertEquals(candidates.size(), plan.size());
+    for (int i = 0; i < plan.size(); ++i) {
+      assertEquals(List.of(candidates.get(i)), plan.get(i));
+    }
+  }
+
+  @Test
+  public void testPlanGroups() {
+    final int groupSize = 3;
+    final List<List<Property>> plan = PropertyTestPlanner.plan(candidates,
+        Integer.MAX_VALUE, groupSize, 0L, "key");
+    assertEquals((candidates.size() + groupSize - 1) / groupSize, plan.size());
+    int total = 0;
+    for (final List<Property> group : plan) {
+      assertTrue(group.size() <= groupSize);
+      total += group.size();
+    }
+    assertEquals(candidates.size(), total);
+  }
+
+  @Test
+  public void testPlanRotatesWithRound() {
+    final int budget = 2;
+    final int windows = (candidates.size() + budget - 1) / budget;
+    final Set<Property> covered = new HashSet<>();
+    for (long round = 100; round < 100 + windows; ++round) {
+      final List<List<Property>> plan = PropertyTestPlanner.plan(candidates,
+          budget, 1, round, "key");
+      assertEquals(budget, plan.size());
+      assertEquals(plan, PropertyTestPlanner.plan(candidates, budget, 1, round, "key"));
+      plan.forEach(covered::addAll);
+    }
+    assertEquals(new HashSet<>(candidates), covered);
+  }
+
+  @Test
+  public void testDefaultRoundIsNotRandom() {
+    // 未指定轮次、主种子未固定且未启用测试记录时，每次运行都选取同一个窗口
+    final DaoTestParameters parameters = new DaoTestParameters();
+    if (System.getProperty(DaoTestParameters.PROPERTY_TEST_ROUND_PROPERTY) == null
+        && !RandomSeeds.isMasterSeedFixed()
+        && !Boolean.getBoolean(DaoTestHistory.HISTORY_ENABLED_PROPERTY)) {
+      assertEquals(0L, parameters.getPropertyTestRound());
+      assertFalse(parameters.isPropertyTestRoundSpecified());
+    }
+    parameters.setPropertyTestRound(3L);
+    assertTrue(parameters.isPropertyTestRoundSpecified());
+    assertThrows(IllegalArgumentException.class,
+        () -> parameters.setPropertyTestBudget(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> parameters.setPropertyTestGroupSize(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> parameters.setConcurrentReaders(-1));
+  }
+}
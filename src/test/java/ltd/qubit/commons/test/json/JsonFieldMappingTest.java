@@ -0,0 +1,42 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.text.jackson.CustomizedJsonMapper;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link JsonFieldMapping}.
+ */
+public class JsonFieldMappingTest {
+
+  @Test
+  public void testOf() throws Exception {
+    final JsonMapper mapper = new CustomizedJsonMapper();
+    final JsonFieldMapping[] mappings = JsonFieldMapping.of(mapper, Info.class);
+    assertTrue(mappings.length > 0);
+    assertSame(mappings, JsonFieldMapping.of(mapper, Info.class));
+    assertNotSame(mappings, JsonFieldMapping.of(new CustomizedJsonMapper(), Info.class));
+    final Info info = new Info(1L, "code", "name");
+    for (final JsonFieldMapping mapping : mappings) {
+      if ("code".equals(mapping.getField().getName())) {
+        assertEquals("code", mapping.getValue(info));
+      }
+    }
+  }
+}
@@ -0,0 +1,175 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link JsonStreamComparator}.
+ */
+public class JsonStreamComparatorTest {
+
+  public static class Item {
+    public String name;
+    public int count;
+    public double[] values;
+
+    public Item() {}
+
+    public Item(final String name, final int count, final double... values) {
+      this.name = name;
+      this.count = count;
+      this.values = values;
+    }
+  }
+
+  public static class Order {
+    public long id;
+    public boolean paid;
+    public String remark;
+    public List<Item> items = new ArrayList<>();
+  }
+
+  private final JsonMapper mapper = new JsonMapper();
+
+  private static Order createOrder() {
+    final Order order = new Order();
+    order.id = 42;
+    order.paid = true;
+    order.items.add(new Item("a/b", 1, 1.5, 2.0));
+    order.items.add(new Item("c", 2));
+    return order;
+  }
+
+  private JsonStreamComparator.Mismatch compare(final String json, final Object obj)
+      throws Exception {
+    try (final JsonParser parser = mapper.createParser(json)) {
+      return new JsonStreamComparator(mapper).compare(parser, obj);
+    }
+  }
+
+  @Test
+  public void testMatch() throws Exception {
+    final Order order = createOrder();
+    assertNull(compare(mapper.writeValueAsString(order), order));
+    JsonUnitUtils.assertJsonStreamEquals(mapper.writeValueAsString(order), order, mapper);
+    assertNull(compare("null", null));
+  }
+
+  @Test
+  public void testFieldOrderAndUnknownFields() throws Exception {
+    final Order order = createOrder();
+    order.items.clear();
+    assertNull(compare("{\"items\":[],\"unknown\":{\"x\":[1,2]},\"remark\":null,"
+        + "\"paid\":true,\"id\":42.0}", order));
+  }
+
+  @Test
+  public void testMismatch() throws Exception {
+    final Order order = createOrder();
+    final String json = mapper.writeValueAsString(order);
+    order.items.get(1).count = 3;
+    final JsonStreamComparator.Mismatch mismatch = compare(json, order);
+    assertNotNull(mismatch);
+    assertEquals("/items/1/count", mismatch.getPath());
+    assertTrue(mismatch.getMessage().contains("should be the number 3"));
+  }
+
+  @Test
+  public void testEscapedPointer() throws Exception {
+    final Order order = createOrder();
+    final JsonStreamComparator.Mismatch mismatch = compare("{\"id\":42,\"paid\":true,"
+        + "\"items\":[{\"name\":\"a/b\",\"count\":1,\"values\":[1.5,2.1]}]}", order);
+    assertNotNull(mismatch);
+    assertEquals("/items/0/values/1", mismatch.getPath());
+  }
+
+  @Test
+  public void testMissingAndExtra() throws Exception {
+    final Order order = createOrder();
+    order.items.clear();
+    order.remark = "r";
+    assertEquals("/remark", compare("{\"id\":42,\"paid\":true,\"items\":[]}", order)
+        .getPath());
+    order.remark = null;
+    assertEquals("/items/0", compare("{\"id\":42,\"paid\":true,\"items\":[{}]}", order)
+        .getPath());
+    order.items.add(new Item("x", 1));
+    assertEquals("/items/0", compare("{\"id\":42,\"paid\":true,\"items\":[]}", order)
+        .getPath());
+  }
+
+  @Test
+  public void testEarlyExit() throws Exception {
+    final Order order = createOrder();
+    // the document is truncated after the mismatch, which must be reported
+    // without reading the rest of the document
+    final JsonStreamComparator.Mismatch mismatch = compare("{\"id\":43,\"items\":[", order);
+    assertNotNull(mismatch);
+    assertEquals("/id", mismatch.getPath());
+  }
+
+  @Test
+  public void testAssertMatches() {
+    final Order order = createOrder();
+    final AssertionError error = assertThrows(AssertionError.class,
+        () -> JsonUnitUtils.assertJsonStreamEquals("{\"id\":42,\"paid\":false}", order, mapper));
+    assertTrue(error.getMessage().contains("'/paid'"));
+  }
+
+  @Test
+  public void testNonFiniteNumbers() throws Exception {
+    final Item item = new Item("n", 1, Double.NaN, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, 1.5);
+    // 默认情况下 NaN 和无穷大被序列化为字符串
+    final String json = mapper.writeValueAsString(item);
+    assertNull(compare(json, item));
+    JacksonJsonTestUtils.testJsonSerialization(mapper, item);
+
+    // 也可以被序列化为非标准的数字
+    final JsonMapper nonNumeric = JsonMapper.builder()
+        .disable(JsonWriteFeature.WRITE_NAN_AS_STRINGS)
+        .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+        .build();
+    final String raw = nonNumeric.writeValueAsString(item);
+    assertTrue(raw.contains("NaN,Infinity,-Infinity"));
+    try (final JsonParser parser = nonNumeric.createParser(raw)) {
+      assertNull(new JsonStreamComparator(nonNumeric).compare(parser, item));
+    }
+    JacksonJsonTestUtils.testJsonSerialization(nonNumeric, item);
+
+    item.values[0] = 1.0;
+    assertEquals("/values/0", compare(json, item).getPath());
+  }
+
+  @Test
+  public void testNumberEquals() {
+    assertTrue(JacksonJsonTestUtils.numberEquals("1.5", true, "1.50"));
+    assertTrue(JacksonJsonTestUtils.numberEquals("NaN", false, "NaN"));
+    assertTrue(JacksonJsonTestUtils.numberEquals("-Infinity", true, "-Infinity"));
+    assertFalse(JacksonJsonTestUtils.numberEquals("1.5", false, "1.5"));
+    assertFalse(JacksonJsonTestUtils.numberEquals("1.5", true, "NaN"));
+    assertFalse(JacksonJsonTestUtils.numberEquals("NaN", true, "1.5"));
+  }
+}
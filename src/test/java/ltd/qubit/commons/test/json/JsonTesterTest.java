@@ -0,0 +1,59 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.json;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link JsonTester}.
+ */
+public class JsonTesterTest {
+
+  @Test
+  public void testBenchmark() throws Exception {
+    final JsonTester tester = new JsonTester(new RandomBeanGenerator());
+    tester.getBenchmarkSettings()
+          .setCorpusSize(20)
+          .setWarmupIterations(1)
+          .setBenchmarkIterations(2);
+    final JsonBenchmarkResult result = tester.benchmark(Info.class);
+    assertEquals(Info.class.getName(), result.getType());
+    assertEquals(20, result.getCorpusSize());
+    assertEquals(2, result.getIterations());
+    assertTrue(result.getSerializeOpsPerSecond() > 0);
+    assertTrue(result.getDeserializeOpsPerSecond() > 0);
+    assertTrue(result.getBytesPerObject() > 2);
+    assertTrue(result.getAllocatedBytesPerRoundTrip() == -1
+        || result.getAllocatedBytesPerRoundTrip() > 0);
+  }
+
+  @Test
+  public void testDefaultMapper() {
+    final JsonTester tester = new JsonTester(new RandomBeanGenerator());
+    assertSame(JsonMapper.class, tester.getMapper().getClass());
+  }
+
+  @Test
+  public void testToCsv() {
+    final JsonBenchmarkResult result = new JsonBenchmarkResult("a.B", 10, 5,
+        1000.25, 2000.5, 123.45, 4096);
+    assertEquals("2023-01-01T00:00:00Z,a.B,10,5,1000.3,2000.5,123.5,4096",
+        result.toCsv("2023-01-01T00:00:00Z"));
+    assertEquals(8, JsonBenchmarkResult.CSV_HEADER.split(",").length);
+  }
+}
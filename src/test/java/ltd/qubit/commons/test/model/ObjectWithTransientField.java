@@ -0,0 +1,99 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 一个具有临时字段的对象，其临时字段也参与相等性比较。
+ *
+ * @author 胡海星
+ */
+public class ObjectWithTransientField implements Serializable {
+
+  private static final long serialVersionUID = 3620915733108421596L;
+
+  private String name;
+
+  private transient int hits;
+
+  private transient String cache;
+
+  private List<Info> infos;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(final String name) {
+    this.name = name;
+  }
+
+  public int getHits() {
+    return hits;
+  }
+
+  public void setHits(final int hits) {
+    this.hits = hits;
+  }
+
+  public String getCache() {
+    return cache;
+  }
+
+  public void setCache(final String cache) {
+    this.cache = cache;
+  }
+
+  public List<Info> getInfos() {
+    return infos;
+  }
+
+  public void setInfos(final List<Info> infos) {
+    this.infos = infos;
+  }
+
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final ObjectWithTransientField other = (ObjectWithTransientField) o;
+    return Equality.equals(hits, other.hits)
+        && Equality.equals(name, other.name)
+        && Equality.equals(cache, other.cache)
+        && Equality.equals(infos, other.infos);
+  }
+
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, name);
+    result = Hash.combine(result, multiplier, hits);
+    result = Hash.combine(result, multiplier, cache);
+    result = Hash.combine(result, multiplier, infos);
+    return result;
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("name", name)
+        .append("hits", hits)
+        .append("cache", cache)
+        .append("infos", infos)
+        .toString();
+  }
+}
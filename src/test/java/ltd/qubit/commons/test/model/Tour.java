@@ -0,0 +1,94 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+import jakarta.validation.constraints.Size;
+
+import ltd.qubit.commons.annotation.Identifier;
+import ltd.qubit.commons.annotation.Reference;
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 一条旅游线路，途经至少两个城市。
+ *
+ * @author 胡海星
+ */
+public class Tour implements Serializable {
+
+  private static final long serialVersionUID = -2807496150317421630L;
+
+  @Identifier
+  private Long id;
+
+  @Size(min = 1, max = 128)
+  private String name;
+
+  @Size(min = 2, max = 4)
+  @Reference(entity = City.class, property = "info")
+  private List<Info> cities;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(final String name) {
+    this.name = name;
+  }
+
+  public List<Info> getCities() {
+    return cities;
+  }
+
+  public void setCities(final List<Info> cities) {
+    this.cities = cities;
+  }
+
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final Tour other = (Tour) o;
+    return Equality.equals(id, other.id)
+        && Equality.equals(name, other.name)
+        && Equality.equals(cities, other.cities);
+  }
+
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, id);
+    result = Hash.combine(result, multiplier, name);
+    result = Hash.combine(result, multiplier, cities);
+    return result;
+  }
+
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("id", id)
+        .append("name", name)
+        .append("cities", cities)
+        .toString();
+  }
+}
@@ -0,0 +1,53 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.io.StringReader;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.model.App;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link JaxbBinding}.
+ */
+public class JaxbBindingTest {
+
+  private final RandomBeanGenerator generator = new RandomBeanGenerator();
+
+  @Test
+  public void testCache() throws Exception {
+    final JaxbBinding binding = JaxbBinding.of(Info.class);
+    assertSame(binding, JaxbBinding.of(Info.class));
+    assertSame(JaxbBinding.of(Info.class, App.class), JaxbBinding.of(App.class, Info.class));
+    assertNotSame(binding, JaxbBinding.of(Info.class, App.class));
+    JaxbBinding.clear();
+    assertNotSame(binding, JaxbBinding.of(Info.class));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final JaxbBinding binding = JaxbBinding.of(Info.class);
+    for (int i = 0; i < 3; ++i) {
+      final Info info = generator.nextObject(Info.class);
+      final String xml = binding.marshal(info, false);
+      assertTrue(xml.startsWith("<?xml"));
+      assertEquals(info, binding.unmarshal(new StringReader(xml)));
+      assertEquals(info, binding.unmarshal(xml, Info.class));
+      assertTrue(binding.marshal(info, true).startsWith("<info"));
+    }
+  }
+}
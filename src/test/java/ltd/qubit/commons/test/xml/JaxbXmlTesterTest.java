@@ -0,0 +1,45 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.model.Info;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link JaxbXmlTester}.
+ */
+public class JaxbXmlTesterTest {
+
+  @Test
+  public void testBenchmark() throws Exception {
+    final JaxbXmlTester tester = new JaxbXmlTester(new RandomBeanGenerator());
+    tester.getBenchmarkSettings()
+          .setCorpusSize(5)
+          .setBenchmarkIterations(2);
+    final JaxbBenchmarkResult result = tester.benchmark(Info.class);
+    assertEquals(Info.class.getName(), result.getType());
+    assertEquals(5, result.getCorpusSize());
+    assertEquals(2, result.getIterations());
+    assertTrue(result.getUncachedMicrosPerRoundTrip() > 0);
+    assertTrue(result.getCachedMicrosPerRoundTrip() > 0);
+    assertTrue(result.getSpeedup() > 0);
+  }
+
+  @Test
+  public void testToCsv() {
+    final JaxbBenchmarkResult result = new JaxbBenchmarkResult("a.B", 10, 5, 800.0, 20.25);
+    assertEquals("2023-01-01T00:00:00Z,a.B,10,5,800.0,20.3,39.5",
+        result.toCsv("2023-01-01T00:00:00Z"));
+  }
+}
@@ -0,0 +1,72 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link XmlAssertionContext}.
+ */
+public class XmlAssertionContextTest {
+
+  private static final String XML = "<order id=\"42\">"
+      + "<state>PAID</state>"
+      + "<items><item>a</item><item>b</item><item>c</item></items>"
+      + "<remark><text>x</text><text>y</text></remark>"
+      + "</order>";
+
+  private enum State { PAID, CANCELED }
+
+  @Test
+  public void testEvaluate() {
+    final XmlAssertionContext context = XmlAssertionContext.parse(XML);
+    assertTrue(context.hasXPath("order/items/item[3]"));
+    assertFalse(context.hasXPath("order/items/item[4]"));
+    assertEquals("42", context.valueOf("order/@id"));
+    assertEquals("xy", context.valueOf("order/remark"));
+    assertEquals("", context.valueOf("order/none"));
+  }
+
+  @Test
+  public void testAssertions() {
+    final XmlAssertionContext context = XmlAssertionContext.parse(XML);
+    context.assertXPathEquals("order/@id", 42);
+    context.assertXPathEquals("order/state", State.PAID);
+    context.assertXPathEquals("order/none", (Object) null);
+    context.assertXPathAbsent("order/none");
+    context.assertXPathArrayEquals("order", "items", "item", new String[]{ "a", "b", "c" });
+    context.assertXPathArrayEquals("order", "none", "item", (String[]) null);
+    final AssertionError error = assertThrows(AssertionError.class,
+        () -> context.assertXPathEquals("order/items/item[2]", "x"));
+    assertTrue(error.getMessage().contains("order/items/item[2]"));
+    assertThrows(AssertionError.class,
+        () -> context.assertXPathEquals("order/state", State.CANCELED));
+    assertThrows(AssertionError.class, () -> context.assertXPathAbsent("order/state"));
+  }
+
+  @Test
+  public void testInvalidInput() {
+    assertThrows(IllegalArgumentException.class, () -> XmlAssertionContext.parse("<a>"));
+    final XmlAssertionContext context = XmlAssertionContext.parse(XML);
+    assertThrows(IllegalArgumentException.class, () -> context.hasXPath("order/["));
+  }
+
+  @Test
+  public void testStringAssertions() {
+    XmlUnitUtils.assertXPathEquals(XML, "order/items/item[1]", "a");
+    XmlUnitUtils.assertXPathAbsent(XML, "order/items/item[0]");
+    assertThrows(AssertionError.class,
+        () -> XmlUnitUtils.assertXPathEquals(XML, "order/items/item[1]", "b"));
+  }
+}
@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2023.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.commons.test.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+import ltd.qubit.commons.test.model.Info;
+import ltd.qubit.commons.text.jackson.CustomizedXmlMapper;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of {@link XmlStreamComparator}.
+ */
+public class XmlStreamComparatorTest {
+
+  public enum State { NEW, PAID }
+
+  public static class Item {
+    public String name;
+    public int count;
+
+    public Item() {}
+
+    public Item(final String name, final int count) {
+      this.name = name;
+      this.count = count;
+    }
+  }
+
+  public static class Order {
+    public long id;
+    public State state;
+    public String remark;
+    public List<Item> items = new ArrayList<>();
+    public int[] codes;
+  }
+
+  private final XmlMapper mapper = new CustomizedXmlMapper();
+
+  private static Order createOrder() {
+    final Order order = new Order();
+    order.id = 42;
+    order.state = State.PAID;
+    order.items.add(new Item("a", 1));
+    order.items.add(new Item("b", 2));
+    order.codes = new int[]{ 7, 8 };
+    return order;
+  }
+
+  private XmlStreamComparator.Mismatch compare(final String xml, final Object obj)
+      throws Exception {
+    final XMLStreamReader reader = XMLInputFactory.newFactory()
+        .createXMLStreamReader(new StringReader(xml));
+    try {
+      return new XmlStreamComparator(mapper).compare(reader, obj);
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testMatch() throws Exception {
+    final Order order = createOrder();
+    assertNull(compare(mapper.writeValueAsString(order), order));
+  }
+
+  @Test
+  public void testMismatch() throws Exception {
+    final Order order = createOrder();
+    final String xml = mapper.writeValueAsString(order);
+    order.items.get(1).count = 3;
+    final XmlStreamComparator.Mismatch mismatch = compare(xml, order);
+    assertNotNull(mismatch);
+    assertTrue(mismatch.getPath().endsWith("[2]/count"), mismatch.getPath());
+    assertTrue(mismatch.getMessage().contains("should be \"3\""));
+  }
+
+  @Test
+  public void testMissingAndAbsent() throws Exception {
+    final Order order = createOrder();
+    order.state = null;
+    final String xml = mapper.writeValueAsString(order);
+    order.state = State.NEW;
+    assertTrue(compare(xml, order).getMessage().endsWith("is missing."));
+    order.state = null;
+    order.remark = "remark";
+    final String xmlWithRemark = mapper.writeValueAsString(order);
+    order.remark = null;
+    assertTrue(compare(xmlWithRemark, order).getMessage().endsWith("is present."));
+  }
+
+  @Test
+  public void testEarlyExit() throws Exception {
+    final Order order = createOrder();
+    final String xml = mapper.writeValueAsString(order);
+    final int pos = xml.indexOf("PAID");
+    // the document is truncated after the mismatch, which must be reported
+    // without reading the rest of the document
+    final String truncated = xml.substring(0, pos) + "NEW" + xml.substring(pos + 4,
+        pos + 20);
+    final XmlStreamComparator.Mismatch mismatch = compare(truncated, order);
+    assertNotNull(mismatch);
+    assertTrue(mismatch.getPath().endsWith("/state"), mismatch.getPath());
+  }
+
+  @Test
+  public void testJacksonXmlTester() throws Exception {
+    final JacksonXmlTester tester = new JacksonXmlTester(new RandomBeanGenerator());
+    assertFalse(tester.isStreaming());
+    tester.setStreaming(true).test(Info.class);
+    final Info info = new RandomBeanGenerator().nextObject(Info.class);
+    JacksonXmlTestUtils.testXmlStreaming(mapper, info);
+    assertEquals(info, mapper.readValue(mapper.writeValueAsString(info), Info.class));
+  }
+}